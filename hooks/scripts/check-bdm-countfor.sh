@@ -2,6 +2,7 @@
 # Hook: Post-edit BDM countFor validation
 # Event: PostToolUse (Edit) - triggers when bom.xml is edited
 # Purpose: After editing bom.xml, check for collection queries missing countFor
+# Model: lib/bdm_model.py parses bom.xml once per change (iterparse, cached by hash)
 # Exit 0 = always allow (informational)
 
 PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
@@ -25,7 +26,14 @@ if [ ! -f "$BOM_FILE" ]; then
     exit 0
 fi
 
-# Use Python to analyze countFor compliance
+# Shared BDM model (cached by bom.xml hash, same rules as validate-bdm.sh)
+HOOK_DIR="$(dirname "$0")"
+if [ -f "$HOOK_DIR/lib/bdm_model.py" ]; then
+    CLAUDE_PROJECT_DIR="$PROJECT_DIR" "$PYTHON_CMD" "$HOOK_DIR/lib/bdm_model.py" countfor "$BOM_FILE"
+    exit 0
+fi
+
+# Without lib/: analyze countFor compliance inline
 "$PYTHON_CMD" -c "
 import xml.etree.ElementTree as ET
 import sys
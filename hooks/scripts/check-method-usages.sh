@@ -3,6 +3,9 @@
 # Event: PostToolUse (Edit)
 # Purpose: After editing a Java/Groovy file, detect method signature changes
 #          and warn about other files that may need updating
+# Index: usages come from lib/symbol_index.py (declarations and call sites of
+#        extensions/, app/src-groovy/ and .proc scripts, re-parsed only when a
+#        file's mtime changes); falls back to grep -w when lib/ is not installed
 # Exit 0 = always allow (informational only)
 
 PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
@@ -46,20 +49,27 @@ if [ "$OLD_HAS_METHOD" -gt 0 ] && [ "$NEW_HAS_METHOD" -gt 0 ]; then
         echo "Method signature change detected: $METHOD_NAME" >&2
         echo "Searching for other usages across the project..." >&2
 
-        # Search for usages in extensions
-        USAGES=$(grep -rnl "$METHOD_NAME" \
+        # Exact-token lookup in the persistent symbol index (.claude/cache/symbol-index.db)
+        HOOK_DIR="$(dirname "$0")"
+        if [ -f "$HOOK_DIR/lib/symbol_index.py" ]; then
+            CLAUDE_PROJECT_DIR="$PROJECT_DIR" "$PYTHON_CMD" "$HOOK_DIR/lib/symbol_index.py" report "$METHOD_NAME" --exclude "$FILE_PATH"
+            exit 0
+        fi
+
+        # Without lib/: scan the sources for the method name as a whole word
+        USAGES=$(grep -rlw "$METHOD_NAME" \
             "$PROJECT_DIR/extensions/" \
             --include="*.java" --include="*.groovy" --include="*.kt" \
             2>/dev/null | grep -v "$(basename "$FILE_PATH")" | head -15)
 
         # Search in Groovy scripts
-        GROOVY_USAGES=$(grep -rnl "$METHOD_NAME" \
+        GROOVY_USAGES=$(grep -rlw "$METHOD_NAME" \
             "$PROJECT_DIR/app/src-groovy/" \
             --include="*.groovy" \
             2>/dev/null | head -5)
 
         # Search in .proc files (embedded scripts)
-        PROC_USAGES=$(grep -rl "$METHOD_NAME" \
+        PROC_USAGES=$(grep -rlw "$METHOD_NAME" \
             "$PROJECT_DIR/app/diagrams/" \
             --include="*.proc" \
             2>/dev/null | head -5)
@@ -0,0 +1,90 @@
+#!/bin/bash
+# hook-client.sh - Forward a hook call to the warm hook daemon, else run the scripts
+# Fires: PreToolUse (Bash) or PostToolUse (Edit/Write), depending on how it is wired
+# Behavior: Sends the tool-call JSON over a Unix domain socket to lib/hook_daemon.py
+#           and relays its verdict. If the daemon is down, unreachable or asks
+#           for it, falls back to the regular scripts, so results never change.
+# Scope: ★★☆ Personal — optional latency optimization for large projects
+#
+# Usage:
+#   bash hook-client.sh post <check> [<check> ...]    # same names as post-edit-dispatcher.sh
+#   bash hook-client.sh pre <script> [<script> ...]   # hook script names without .sh
+#
+# Environment:
+#   HOOK_DAEMON_SOCKET     Socket path (default: $CLAUDE_PROJECT_DIR/.claude/cache/hook-daemon.sock)
+#   HOOK_DAEMON_AUTOSTART  1 = start the daemon in the background when it is not running
+#   HOOK_DAEMON_TRACE      1 = append round-trip times to .claude/cache/hook-latency.log
+# Client: socat or OpenBSD nc (nc -U -N); without either, always falls back
+# Exit 0 = allow, Exit 2 = block (only when a fallback PreToolUse script blocks)
+
+HOOK_DIR="${0%/*}"
+[ "$HOOK_DIR" = "$0" ] && HOOK_DIR="."
+PROJECT_DIR="${CLAUDE_PROJECT_DIR:-$HOOK_DIR/../..}"
+SOCK="${HOOK_DAEMON_SOCKET:-$PROJECT_DIR/.claude/cache/hook-daemon.sock}"
+TRACE_LOG="${SOCK%/*}/hook-latency.log"
+START_US="${EPOCHREALTIME//[.,]/}"
+
+MODE="$1"
+shift
+
+INPUT=$(cat)
+
+trace() {
+    if [ "${HOOK_DAEMON_TRACE:-0}" = "1" ] && [ -n "$START_US" ]; then
+        local end_us="${EPOCHREALTIME//[.,]/}"
+        echo "$1 $MODE $((end_us - START_US))" >> "$TRACE_LOG" 2>/dev/null
+    fi
+}
+
+ask_daemon() {
+    [ -S "$SOCK" ] || return 1
+    if command -v socat >/dev/null 2>&1; then
+        printf '%s\n%s' "$MODE $*" "$INPUT" | socat -t 5 - "UNIX-CONNECT:$SOCK" 2>/dev/null
+    elif command -v nc >/dev/null 2>&1; then
+        printf '%s\n%s' "$MODE $*" "$INPUT" | nc -U -N "$SOCK" 2>/dev/null
+    else
+        return 1
+    fi
+}
+
+fallback() {
+    if [ "$MODE" = "post" ]; then
+        echo "$INPUT" | bash "$HOOK_DIR/post-edit-dispatcher.sh" "$@"
+        trace fallback
+        exit 0
+    fi
+    local script
+    for script in "$@"; do
+        echo "$INPUT" | bash "$HOOK_DIR/$script.sh"
+        if [ $? -eq 2 ]; then
+            trace fallback
+            exit 2
+        fi
+    done
+    trace fallback
+    exit 0
+}
+
+RESPONSE=$(ask_daemon "$@")
+STATUS="${RESPONSE%%$'\n'*}"
+
+case "$STATUS" in
+    "exit "*)
+        MESSAGE="${RESPONSE#*$'\n'}"
+        [ "$MESSAGE" = "$RESPONSE" ] && MESSAGE=""
+        [ -n "$MESSAGE" ] && printf '%s\n' "$MESSAGE" >&2
+        trace daemon
+        exit "${STATUS#exit }"
+        ;;
+    "fallback "*)
+        read -r -a SCRIPTS <<< "${STATUS#fallback }"
+        fallback "${SCRIPTS[@]}"
+        ;;
+    *)
+        if [ "${HOOK_DAEMON_AUTOSTART:-0}" = "1" ] && [ ! -S "$SOCK" ]; then
+            PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+            nohup "$PYTHON_CMD" "$HOOK_DIR/lib/hook_daemon.py" serve --socket "$SOCK" >/dev/null 2>&1 &
+        fi
+        fallback "$@"
+        ;;
+esac
@@ -0,0 +1,367 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Warm javac server for pre-commit-compile.sh (COMPILE_MODE=daemon).
+ *
+ * Holds the resolved Maven classpath of the reactor (extensions/pom.xml when present)
+ * and compiles the staged sources in memory with javax.tools.JavaCompiler, so a commit
+ * gate on one or two files costs a compiler call instead of a Maven start-up. The
+ * classpath is rebuilt with dependency:build-classpath whenever a pom.xml changes.
+ *
+ * Run with the JDK source launcher (no build step, JDK 17+):
+ *   java CompileDaemon.java --project DIR [--pom extensions/pom.xml] [--socket PATH] [--idle-timeout SEC]
+ *
+ * Protocol: one request per connection over a Unix domain socket. The client sends
+ * "COMPILE" followed by one absolute source path per line (or "PING" / "STOP") and
+ * half-closes. The daemon answers with Maven-style lines
+ * "[ERROR] /path/File.java:[line,col] message" and a final "EXIT <code>" line.
+ */
+public final class CompileDaemon {
+
+    private static final String CLASSPATH_FILE = "target/claude-classpath.txt";
+    private static final Pattern RELEASE_PATTERN = Pattern.compile(
+            "<(?:maven\\.compiler\\.release|maven\\.compiler\\.source|java\\.version)>\\s*(?:1\\.)?(\\d+)\\s*<");
+
+    private final Path projectDir;
+    private final Path pomFile;
+    private final Path socketPath;
+    private final long idleTimeoutMillis;
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    private volatile long lastActivity = System.currentTimeMillis();
+    private Map<Path, Long> pomStamps = Map.of();
+    private List<String> options = List.of();
+    private StandardJavaFileManager fileManager;
+
+    private CompileDaemon(Path projectDir, Path pomFile, Path socketPath, long idleTimeoutMillis) {
+        this.projectDir = projectDir;
+        this.pomFile = pomFile;
+        this.socketPath = socketPath;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> arguments = new TreeMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            arguments.put(args[i], args[i + 1]);
+        }
+        Path project = Paths.get(arguments.getOrDefault("--project", ".")).toAbsolutePath().normalize();
+        Path pom = project.resolve(arguments.getOrDefault("--pom",
+                Files.isRegularFile(project.resolve("extensions/pom.xml")) ? "extensions/pom.xml" : "pom.xml"));
+        Path socket = Paths.get(arguments.getOrDefault("--socket",
+                project.resolve(".claude/cache/compile-daemon.sock").toString()));
+        long idleSeconds = Long.parseLong(arguments.getOrDefault("--idle-timeout", "1800"));
+
+        if (ToolProvider.getSystemJavaCompiler() == null) {
+            System.err.println("compile-daemon: no system Java compiler (running on a JRE?)");
+            System.exit(1);
+        }
+        new CompileDaemon(project, pom, socket, idleSeconds * 1000L).serve();
+    }
+
+    private void serve() throws IOException {
+        Files.createDirectories(socketPath.getParent());
+        Files.deleteIfExists(socketPath);
+        refreshClasspath();
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            restrictToOwner(socketPath);
+            startIdleWatchdog(server);
+            log("listening on " + socketPath + " for " + pomFile);
+            while (server.isOpen()) {
+                try (SocketChannel client = server.accept()) {
+                    lastActivity = System.currentTimeMillis();
+                    if (!handle(client)) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    if (!server.isOpen()) {
+                        break;
+                    }
+                    log("request failed: " + e.getMessage());
+                }
+                lastActivity = System.currentTimeMillis();
+            }
+        } finally {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    /** Handles one request; returns false when the daemon was asked to stop. */
+    private boolean handle(SocketChannel client) throws IOException {
+        List<String> lines = readRequest(client);
+        String command = lines.isEmpty() ? "" : lines.get(0).trim();
+        StringBuilder response = new StringBuilder();
+
+        if ("PING".equals(command)) {
+            response.append("EXIT 0\n");
+        } else if ("STOP".equals(command)) {
+            response.append("EXIT 0\n");
+            write(client, response);
+            return false;
+        } else if ("COMPILE".equals(command)) {
+            List<Path> sources = lines.stream().skip(1).map(String::trim).filter(s -> !s.isEmpty())
+                    .map(Paths::get).filter(Files::isRegularFile).collect(Collectors.toList());
+            refreshClasspathIfPomChanged();
+            boolean ok = sources.isEmpty() || compile(sources, response);
+            response.append("EXIT ").append(ok ? 0 : 1).append('\n');
+        } else {
+            response.append("[ERROR] compile-daemon: unknown command '").append(command).append("'\nEXIT 1\n");
+        }
+        write(client, response);
+        return true;
+    }
+
+    private boolean compile(List<Path> sources, StringBuilder response) {
+        long start = System.nanoTime();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromPaths(sources);
+        JavaFileManager memory = new MemoryFileManager(fileManager);
+        boolean ok = Boolean.TRUE.equals(compiler.getTask(null, memory, diagnostics, options, null, units).call());
+
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() != Diagnostic.Kind.ERROR) {
+                continue;
+            }
+            response.append("[ERROR] ");
+            if (d.getSource() != null) {
+                response.append(Paths.get(d.getSource().toUri())).append(":[")
+                        .append(d.getLineNumber()).append(',').append(d.getColumnNumber()).append("] ");
+            }
+            response.append(d.getMessage(Locale.ROOT).replace("\n", " ")).append('\n');
+        }
+        log(String.format("compiled %d file(s) in %d ms: %s", sources.size(),
+                (System.nanoTime() - start) / 1_000_000, ok ? "OK" : "FAILED"));
+        return ok;
+    }
+
+    private void refreshClasspathIfPomChanged() throws IOException {
+        if (!pomStamps.equals(currentPomStamps())) {
+            log("pom.xml changed, refreshing classpath");
+            refreshClasspath();
+        }
+    }
+
+    /**
+     * Runs compile + dependency:build-classpath once for the reactor so sibling modules
+     * resolve from target/classes, then collects every module's classpath and sources.
+     */
+    private void refreshClasspath() throws IOException {
+        Path reactor = pomFile.getParent();
+        String mvn = System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("win") ? "mvn.cmd" : "mvn";
+        ProcessBuilder maven = new ProcessBuilder(mvn, "-q", "-fae", "-f", pomFile.toString(), "compile",
+                "dependency:build-classpath", "-Dmdep.outputFile=" + CLASSPATH_FILE)
+                .directory(reactor.toFile()).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        try {
+            int exit = maven.start().waitFor();
+            if (exit != 0) {
+                log("mvn exited with " + exit + ", classpath may be incomplete (modules failing to compile are skipped)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Set<String> classpath = new LinkedHashSet<>();
+        Set<String> sourcepath = new LinkedHashSet<>();
+        for (Path module : modules(reactor)) {
+            Path classpathFile = module.resolve(CLASSPATH_FILE);
+            if (Files.isRegularFile(classpathFile)) {
+                for (String entry : Files.readString(classpathFile).trim().split(Pattern.quote(java.io.File.pathSeparator))) {
+                    if (!entry.isBlank()) {
+                        classpath.add(entry);
+                    }
+                }
+            }
+            classpath.add(module.resolve("target/classes").toString());
+            if (Files.isDirectory(module.resolve("src/main/java"))) {
+                sourcepath.add(module.resolve("src/main/java").toString());
+            }
+        }
+
+        List<String> opts = new ArrayList<>(List.of("-encoding", "UTF-8", "-implicit:none", "-Xprefer:source",
+                "-nowarn", "-classpath", String.join(java.io.File.pathSeparator, classpath),
+                "-sourcepath", String.join(java.io.File.pathSeparator, sourcepath)));
+        Matcher release = RELEASE_PATTERN.matcher(Files.readString(pomFile));
+        if (release.find() && Integer.parseInt(release.group(1)) <= Runtime.version().feature()) {
+            opts.add("--release");
+            opts.add(release.group(1));
+        }
+
+        if (fileManager != null) {
+            fileManager.close();
+        }
+        fileManager = compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8);
+        options = opts;
+        pomStamps = currentPomStamps();
+        log(String.format("classpath ready: %d entries, %d source roots", classpath.size(), sourcepath.size()));
+    }
+
+    private List<Path> modules(Path reactor) throws IOException {
+        try (Stream<Path> poms = Files.walk(reactor)) {
+            return poms.filter(p -> p.getFileName().toString().equals("pom.xml"))
+                    .filter(p -> !isBuildOutput(reactor.relativize(p)))
+                    .map(Path::getParent).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isBuildOutput(Path relative) {
+        for (Path segment : relative) {
+            String name = segment.toString();
+            if (name.equals("target") || name.equals("node_modules")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<Path, Long> currentPomStamps() throws IOException {
+        Map<Path, Long> stamps = new TreeMap<>();
+        for (Path module : modules(pomFile.getParent())) {
+            Path pom = module.resolve("pom.xml");
+            stamps.put(pom, Files.getLastModifiedTime(pom).toMillis());
+        }
+        return stamps;
+    }
+
+    private void startIdleWatchdog(ServerSocketChannel server) {
+        Thread watchdog = new Thread(() -> {
+            while (server.isOpen()) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (System.currentTimeMillis() - lastActivity > idleTimeoutMillis) {
+                    log("idle for " + idleTimeoutMillis / 1000 + "s, shutting down");
+                    try {
+                        server.close();
+                        Files.deleteIfExists(socketPath);
+                    } catch (IOException ignored) {
+                        // exiting anyway
+                    }
+                    System.exit(0);
+                }
+            }
+        }, "idle-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    private static List<String> readRequest(SocketChannel client) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (client.read(buffer) > 0) {
+            bytes.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        return List.of(bytes.toString(StandardCharsets.UTF_8).split("\n"));
+    }
+
+    private static void write(SocketChannel client, CharSequence response) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(response.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            client.write(buffer);
+        }
+    }
+
+    private static void restrictToOwner(Path path) {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException ignored) {
+            // not a POSIX file system
+        }
+    }
+
+    private static void log(String message) {
+        System.err.println("[compile-daemon] " + message);
+    }
+
+    /** Keeps class files, generated sources and resources in memory; nothing is written to target/. */
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        MemoryFileManager(StandardJavaFileManager delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                FileObject sibling) {
+            return new MemoryFileObject(className.replace('.', '/') + kind.extension, kind);
+        }
+
+        @Override
+        public FileObject getFileForOutput(Location location, String packageName, String relativeName,
+                FileObject sibling) {
+            return new MemoryFileObject(packageName.replace('.', '/') + "/" + relativeName, JavaFileObject.Kind.OTHER);
+        }
+
+        @Override
+        public void close() {
+            // the wrapped file manager is shared across requests
+        }
+    }
+
+    private static final class MemoryFileObject extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        MemoryFileObject(String name, Kind kind) {
+            super(URI.create("mem:///" + name), kind);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            content.reset();
+            return content;
+        }
+
+        @Override
+        public InputStream openInputStream() {
+            return new ByteArrayInputStream(content.toByteArray());
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
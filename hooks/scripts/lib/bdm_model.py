@@ -0,0 +1,324 @@
+#!/usr/bin/env python3
+"""
+bdm_model.py - One parsed model of bdm/bom.xml for every BDM check
+
+Builds a compact model of the Business Data Model (objects, fields, queries,
+indexes, unique constraints, descriptions) with a streaming iterparse pass and
+stores it in .claude/cache/bdm-model.json keyed by the SHA-256 of bom.xml. The
+post-edit countFor check (check-bdm-countfor.sh / post-edit-dispatcher.sh) and
+skills/bonita-bdm-expert/scripts/validate-bdm.sh both read this model, so they
+apply the same rules to the same data and a 150-object BDM is parsed once per
+change instead of once per tool.
+
+Usage:
+  bdm_model.py countfor [bom.xml]   # hook warning block (stderr), nothing when compliant
+  bdm_model.py validate [bom.xml]   # findings as "LEVEL<TAB>message" lines for validate-bdm.sh
+  bdm_model.py dump [bom.xml]       # the cached model as JSON
+Default bom.xml: $CLAUDE_PROJECT_DIR/bdm/bom.xml
+Exit 0 = always (informational only)
+"""
+
+import hashlib
+import json
+import os
+import re
+import sys
+import threading
+import xml.etree.ElementTree as ET
+
+MODEL_VERSION = 1
+AUDIT_FIELDS = ('processInstanceId', 'creationDate', 'creationUser', 'modificationDate', 'modificationUser')
+RESERVED_FIELD_NAMES = ('type', 'status', 'order', 'group', 'key', 'value')
+MAX_CONSTRAINT_NAME = 20
+NON_INDEXABLE = ('persistenceId', 'persistenceVersion')
+WHERE_CLAUSE = re.compile(r'\bWHERE\b(.*?)(?:\bORDER\s+BY\b|\bGROUP\s+BY\b|$)', re.IGNORECASE | re.DOTALL)
+ALIAS_FIELD = re.compile(r'\b[A-Za-z_]\w*\.([A-Za-z_]\w*)')
+
+
+def _local(tag):
+    return tag.rsplit('}', 1)[-1]
+
+
+def parse(bom_file):
+    """Stream bom.xml into the model dict; each businessObject subtree is freed once read."""
+    objects = []
+    current = None
+    item = None  # field, query, index or unique constraint being read
+    for event, elem in ET.iterparse(bom_file, events=('start', 'end')):
+        tag = _local(elem.tag)
+        if event == 'start':
+            if tag == 'businessObject':
+                qualified = elem.get('qualifiedName', '')
+                current = {'name': qualified, 'short': qualified.rsplit('.', 1)[-1], 'description': None,
+                           'fields': [], 'queries': [], 'indexes': [], 'unique': []}
+            elif current is not None and tag in ('field', 'relationField'):
+                item = {'name': elem.get('name', ''), 'kind': tag, 'type': elem.get('type', ''),
+                        'description': None}
+                current['fields'].append(item)
+            elif current is not None and tag in ('query', 'customQuery'):
+                item = {'name': elem.get('name', ''), 'return_type': elem.get('returnType', ''),
+                        'content': elem.get('content', ''), 'description': None}
+                current['queries'].append(item)
+            elif current is not None and tag in ('index', 'uniqueConstraint'):
+                item = {'name': elem.get('name', ''), 'description': elem.get('description'), 'fields': []}
+                current['indexes' if tag == 'index' else 'unique'].append(item)
+            continue
+
+        if tag == 'description' and current is not None:
+            text = (elem.text or '').strip()
+            if item is not None:
+                item['description'] = text
+            elif current['description'] is None:
+                current['description'] = text
+        elif tag in ('fieldName', 'fieldPath') and item is not None and 'fields' in item:
+            item['fields'].append((elem.text or '').strip())
+        elif tag in ('field', 'relationField', 'query', 'customQuery', 'index', 'uniqueConstraint'):
+            item = None
+        elif tag == 'businessObject':
+            objects.append(current)
+            current = None
+            elem.clear()
+    return {'objects': objects}
+
+
+def _sha256(path):
+    digest = hashlib.sha256()
+    with open(path, 'rb') as f:
+        for chunk in iter(lambda: f.read(1 << 20), b''):
+            digest.update(chunk)
+    return digest.hexdigest()
+
+
+_MEMORY = {}
+_LOCK = threading.Lock()
+
+
+def load(bom_file, cache_file=None):
+    """Return the model of bom_file, reusing the in-process or on-disk copy while its hash is unchanged."""
+    bom_file = os.path.abspath(bom_file)
+    st = os.stat(bom_file)
+    stamp = [st.st_mtime_ns, st.st_size]
+    with _LOCK:
+        hit = _MEMORY.get(bom_file)
+        if hit and hit['stamp'] == stamp:
+            return hit['model']
+
+        cache_file = cache_file or default_cache_file(bom_file)
+        try:
+            with open(cache_file, encoding='utf-8') as f:
+                stored = json.load(f)
+        except (OSError, ValueError):
+            stored = {}
+        if stored.get('version') != MODEL_VERSION:
+            stored = {'version': MODEL_VERSION, 'models': {}}
+        entry = stored['models'].get(bom_file)
+
+        if entry and entry['stamp'] == stamp:
+            model = entry['model']
+        else:
+            digest = _sha256(bom_file)
+            if entry and entry['sha256'] == digest:
+                model = entry['model']
+            else:
+                model = parse(bom_file)
+            stored['models'] = {bom_file: {'stamp': stamp, 'sha256': digest, 'model': model}}
+            try:
+                os.makedirs(os.path.dirname(cache_file), exist_ok=True)
+                tmp = '%s.tmp.%d' % (cache_file, os.getpid())
+                with open(tmp, 'w', encoding='utf-8') as f:
+                    json.dump(stored, f, separators=(',', ':'))
+                os.replace(tmp, cache_file)
+            except OSError:
+                pass
+        _MEMORY[bom_file] = {'stamp': stamp, 'model': model}
+        return model
+
+
+def default_cache_file(bom_file):
+    project_dir = os.environ.get('CLAUDE_PROJECT_DIR') or os.path.dirname(os.path.dirname(bom_file))
+    return os.path.join(project_dir, '.claude', 'cache', 'bdm-model.json')
+
+
+# =============================================================================
+# Rules — shared by the post-edit hook and validate-bdm.sh
+# =============================================================================
+
+def _capitalized(name):
+    return name[:1].upper() + name[1:]
+
+
+def missing_countfor(model):
+    """List-returning queries without a countFor query (OrderBy variants may reuse the base one)."""
+    queries = [q for obj in model['objects'] for q in obj['queries']]
+    countfor_names = {q['name'] for q in queries if q['name'].startswith('countFor')}
+    missing = []
+    for query in queries:
+        name = query['name']
+        if not name or name.lower().startswith('count') or 'java.util.List' not in query['return_type']:
+            continue
+        base = name.split('OrderBy')[0]
+        if ('countFor' + _capitalized(name)) in countfor_names or ('countFor' + _capitalized(base)) in countfor_names:
+            continue
+        if any(base in cf for cf in countfor_names):
+            continue
+        missing.append(name)
+    return missing
+
+
+def missing_descriptions(model):
+    """Return (kind, owner, name) for every object, field, query, index or constraint without a description."""
+    found = []
+    for obj in model['objects']:
+        if not obj['description']:
+            found.append(('object', obj['short'], obj['short']))
+        for kind, items in (('field', obj['fields']), ('query', obj['queries']),
+                            ('index', obj['indexes']), ('unique', obj['unique'])):
+            found += [(kind, obj['short'], item['name']) for item in items if not (item['description'] or '').strip()]
+    return found
+
+
+def unindexed_where_fields(model):
+    """Return (object, query, field) for WHERE attributes not covered by an index or unique constraint."""
+    found = []
+    for obj in model['objects']:
+        indexed = {f for idx in obj['indexes'] + obj['unique'] for f in idx['fields']}
+        for query in obj['queries']:
+            where = WHERE_CLAUSE.search(query['content'] or '')
+            if not where:
+                continue
+            for field in sorted(set(ALIAS_FIELD.findall(where.group(1)))):
+                if field not in indexed and field not in NON_INDEXABLE:
+                    found.append((obj['short'], query['name'], field))
+    return found
+
+
+def missing_audit_fields(model):
+    found = []
+    for obj in model['objects']:
+        names = {f['name'] for f in obj['fields']}
+        missing = [a for a in AUDIT_FIELDS
+                   if a not in names and not (a == 'creationDate' and 'auCreationDate' in names)]
+        if missing:
+            found.append((obj['short'], missing))
+    return found
+
+
+def validate(model):
+    """Yield (LEVEL, message) lines for validate-bdm.sh; LEVEL is HEADER, PASS, WARN, FAIL or DETAIL."""
+    descriptions = missing_descriptions(model)
+    by_kind = {}
+    for kind, owner, name in descriptions:
+        by_kind.setdefault(kind, []).append((owner, name))
+
+    yield 'HEADER', '--- 1. Description Tags ---'
+    for owner, _ in by_kind.get('object', []):
+        yield 'FAIL', "Business object '%s' has empty or missing <description>" % owner
+    fields = by_kind.get('field', [])
+    if fields:
+        yield 'FAIL', '%d field(s) with empty <description>: %s' % (
+            len(fields), ', '.join('%s.%s' % f for f in fields[:10]) + (', ...' if len(fields) > 10 else ''))
+    else:
+        yield 'PASS', 'All fields have descriptions'
+    for kind, label, plural in (('query', 'Query', 'queries'), ('index', 'Index', 'indexes'),
+                                ('unique', 'Unique constraint', 'unique constraints')):
+        for owner, name in by_kind.get(kind, []):
+            yield 'FAIL', "%s '%s' (%s) has empty or missing description" % (label, name, owner)
+        if not by_kind.get(kind):
+            yield 'PASS', 'All %s have descriptions' % plural
+
+    yield 'HEADER', '--- 2. CountFor Queries (99% Rule) ---'
+    missing = missing_countfor(model)
+    for name in missing:
+        yield 'FAIL', "Query '%s' returns List but has no countFor counterpart" % name
+        yield 'DETAIL', "Expected: 'countFor%s'" % _capitalized(name)
+    if not missing:
+        yield 'PASS', 'All List-returning queries have countFor counterparts'
+
+    yield 'HEADER', '--- 3. Index Coverage for Query Attributes ---'
+    unindexed = unindexed_where_fields(model)
+    for obj, query, field in unindexed:
+        yield 'WARN', "Field '%s' used in WHERE of '%s' (%s) has no index" % (field, query, obj)
+    if not unindexed:
+        yield 'PASS', 'All WHERE clause attributes have indexes'
+
+    yield 'HEADER', '--- 4. Mandatory Audit Fields ---'
+    audit = missing_audit_fields(model)
+    for obj, fields_missing in audit:
+        yield 'WARN', "Object '%s' is missing audit fields: %s" % (obj, ' '.join(fields_missing))
+    if not audit:
+        yield 'PASS', 'All business objects have mandatory audit fields'
+
+    yield 'HEADER', '--- 5. Naming Conventions ---'
+    objects = model['objects']
+    no_prefix = [obj['short'] for obj in objects if not obj['short'].startswith('PB')]
+    for short in no_prefix:
+        yield 'FAIL', "Object '%s' does not use the PB prefix" % short
+    if not no_prefix:
+        yield 'PASS', 'All business objects use PB prefix'
+
+    plain_fields = [(obj['short'], f['name']) for obj in objects for f in obj['fields'] if f['kind'] == 'field']
+    bad_case = [(o, n) for o, n in plain_fields if n[:1].isupper()]
+    for obj, name in bad_case:
+        yield 'WARN', "Field '%s' (%s) does not start with lowercase (camelCase violation)" % (name, obj)
+    if not bad_case:
+        yield 'PASS', 'All field names follow camelCase convention'
+
+    reserved = [(o, n) for o, n in plain_fields if n in RESERVED_FIELD_NAMES]
+    for obj, name in reserved:
+        yield 'FAIL', "Field '%s' (%s) uses SQL reserved keyword" % (name, obj)
+    if not reserved:
+        yield 'PASS', 'No SQL reserved keywords used as field names'
+
+    for key, label, plural in (('indexes', 'Index', 'index'), ('unique', 'Unique constraint', 'unique constraint')):
+        too_long = [c['name'] for obj in objects for c in obj[key] if len(c['name']) > MAX_CONSTRAINT_NAME]
+        for name in too_long:
+            yield 'FAIL', "%s name '%s' exceeds %d characters (%d chars)" % (label, name, MAX_CONSTRAINT_NAME, len(name))
+        if not too_long:
+            yield 'PASS', 'All %s names are within %d character limit' % (plural, MAX_CONSTRAINT_NAME)
+
+
+def countfor_report(model):
+    """The post-edit hook's warning block, or '' when every collection query has a countFor."""
+    missing = missing_countfor(model)
+    if not missing:
+        return ''
+    out = ['', 'BDM WARNING: Collection queries missing countFor counterpart:']
+    out += ['  - %s (needs countFor%s)' % (q, _capitalized(q)) for q in missing]
+    out += ['',
+            'Per project rule (02-datamodel.mdc): queries returning java.util.List',
+            'MUST have a corresponding countFor query for REST API pagination.',
+            'Note: OrderBy variants can reuse the base countFor query in code.',
+            '']
+    return '\n'.join(out)
+
+
+def main(argv):
+    if len(argv) < 2:
+        print(__doc__.strip(), file=sys.stderr)
+        return 0
+    command = argv[1]
+    bom_file = argv[2] if len(argv) > 2 else os.path.join(os.environ.get('CLAUDE_PROJECT_DIR', '.'), 'bdm', 'bom.xml')
+    if not os.path.isfile(bom_file):
+        return 0
+    model = load(bom_file)
+    if command == 'countfor':
+        report = countfor_report(model)
+        if report:
+            print(report, file=sys.stderr)
+    elif command == 'validate':
+        for level, message in validate(model):
+            print('%s\t%s' % (level, message))
+    elif command == 'dump':
+        json.dump(model, sys.stdout, indent=2)
+        print()
+    else:
+        print('bdm_model: unknown command %r' % command, file=sys.stderr)
+    return 0
+
+
+if __name__ == '__main__':
+    try:
+        sys.exit(main(sys.argv))
+    except (OSError, ET.ParseError) as exc:
+        print('bdm_model: %s' % exc, file=sys.stderr)
+        sys.exit(0)
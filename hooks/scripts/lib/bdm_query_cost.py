@@ -0,0 +1,288 @@
+#!/usr/bin/env python3
+"""
+bdm_query_cost.py - Rank BDM query/index gaps by estimated cost
+
+Maps the WHERE and ORDER BY attributes of every BDM query to the declared
+<index> and <uniqueConstraint> entries of its business object (composite
+indexes count only through their leading-column prefix), estimates the rows
+each query reads and sorts, and ranks the gaps so the expensive ones come
+first. Suggested <index> declarations follow the naming rules of
+skills/bonita-bdm-expert/references/query-patterns.md.
+
+Cost model (an estimate for ranking, not a query plan):
+  rows       row-count hint for the object (--rows file), else 10,000
+  scanned    rows x 0.1 per index-served equality predicate (0.3 for a range)
+  sort       m x log2(m) when ORDER BY is not served by the same index, where
+             m is the estimated match count before pagination
+  reach      x3 when a REST controller (extensions/**/*Controller*) calls the
+             query, x1.5 when other extension code does, x1 when unused
+  score      (scanned + sort) x reach
+A predicate no index can serve (LOWER(x) = :v, NOT, OR, LIKE '%...') is reported
+as "not indexable" when it leaves the query with a full scan.
+
+Row-count hints: JSON object keyed by business object simple or qualified name,
+e.g. {"PBProcess": 2000000, "PBTask": 15000000, "default": 10000}.
+
+Usage: bdm_query_cost.py [bom.xml] [--rows hints.json] [--json] [--all]
+  --json   machine-readable output (stable ordering, diffable across commits)
+  --all    include queries whose attributes are fully indexed
+Exit 0 = always (informational only)
+"""
+
+import json
+import math
+import os
+import re
+import sys
+
+import bdm_model
+
+DEFAULT_ROWS = 10000
+EQ_SELECTIVITY = 0.1
+RANGE_SELECTIVITY = 0.3
+NON_INDEXABLE = ('persistenceId', 'persistenceVersion')
+MAX_INDEX_NAME = 20
+
+FROM_ALIAS = re.compile(r'\bFROM\s+[\w.]+\s+(?:AS\s+)?([A-Za-z_]\w*)', re.IGNORECASE)
+CLAUSES = re.compile(r'\b(WHERE|GROUP\s+BY|HAVING|ORDER\s+BY)\b', re.IGNORECASE)
+AND_SPLIT = re.compile(r'\s+AND\s+', re.IGNORECASE)
+OR_WORD = re.compile(r'\bOR\b', re.IGNORECASE)
+
+
+def _clauses(jpql):
+    """Split a JPQL statement into {'WHERE': text, 'ORDER BY': text, ...}."""
+    parts = {}
+    matches = list(CLAUSES.finditer(jpql))
+    for i, match in enumerate(matches):
+        end = matches[i + 1].start() if i + 1 < len(matches) else len(jpql)
+        parts[re.sub(r'\s+', ' ', match.group(1).upper())] = jpql[match.end():end].strip()
+    return parts
+
+
+def parse_query(jpql):
+    """Return (predicates, order_fields) for the root alias of a JPQL query.
+
+    Each predicate is (field, kind) with kind 'eq', 'range' or 'none' (cannot use an index:
+    negation, function-wrapped column, leading wildcard or OR branch).
+    """
+    alias_match = FROM_ALIAS.search(jpql or '')
+    if not alias_match:
+        return [], []
+    alias = alias_match.group(1)
+    field_ref = re.compile(r'(?<![\w.])%s\.([A-Za-z_]\w*)' % re.escape(alias))
+    parts = _clauses(jpql)
+
+    predicates = []
+    where = parts.get('WHERE', '')
+    conjuncts = AND_SPLIT.split(where) if where else []
+    for conjunct in conjuncts:
+        fields = field_ref.findall(conjunct)
+        if not fields:
+            continue
+        upper = conjunct.upper()
+        if OR_WORD.search(conjunct) or re.search(r'\bNOT\b|<>|!=', upper):
+            kind = 'none'
+        elif re.search(r'\b(LOWER|UPPER|TRIM|CONCAT|SUBSTRING|LENGTH)\s*\(\s*%s\.' % re.escape(alias), conjunct,
+                       re.IGNORECASE):
+            kind = 'none'
+        elif re.search(r"\bLIKE\s+'%", upper) or re.search(r"\bLIKE\s+CONCAT\s*\(\s*'%", upper):
+            kind = 'none'
+        elif re.search(r'<|>|\bBETWEEN\b|\bLIKE\b', upper):
+            kind = 'range'
+        else:
+            kind = 'eq'  # =, IN (...), IS NULL, MEMBER OF
+        for field in fields:
+            if field not in NON_INDEXABLE:
+                predicates.append((field, kind))
+
+    order_fields = [f for f in field_ref.findall(parts.get('ORDER BY', '')) if f not in NON_INDEXABLE]
+    return predicates, order_fields
+
+
+def match_index(predicates, order_fields, indexes):
+    """Pick the declared index serving the longest prefix; return (index, eq_served, range_served, order_served)."""
+    eq_fields = {f for f, kind in predicates if kind == 'eq'}
+    range_fields = {f for f, kind in predicates if kind == 'range'}
+    best = (None, [], None, False)
+    best_key = (-1, -1, False)
+    for index in indexes:
+        columns = index['fields']
+        served = []
+        position = 0
+        while position < len(columns) and columns[position] in eq_fields:
+            served.append(columns[position])
+            position += 1
+        range_served = None
+        if position < len(columns) and columns[position] in range_fields:
+            range_served = columns[position]
+        # After the equality prefix the index is sorted by its next columns; a range
+        # column keeps that order only when it is also the first ORDER BY column
+        order_served = bool(order_fields) and columns[position:position + len(order_fields)] == order_fields \
+            and (range_served is None or range_served == order_fields[0])
+        key = (len(served), 1 if range_served else 0, order_served)
+        if key > best_key:
+            best_key = key
+            best = (index, served, range_served, order_served)
+    return best
+
+
+def suggest_columns(predicates, order_fields):
+    """Equality columns first, then one range column, then the ORDER BY columns."""
+    columns = []
+    for field, kind in predicates:
+        if kind == 'eq' and field not in columns:
+            columns.append(field)
+    ranges = [f for f, kind in predicates if kind == 'range' and f not in columns]
+    if ranges and (not order_fields or order_fields[0] != ranges[0]):
+        columns.append(ranges[0])
+    else:
+        columns += [f for f in order_fields if f not in columns]
+    return columns
+
+
+def index_name(object_short, columns, taken):
+    """idx{Object}{Field} abbreviated to MAX_INDEX_NAME characters, unique within the BDM."""
+    base = object_short[2:] if object_short.startswith('PB') and object_short[2:3].isupper() else object_short
+    obj = re.sub(r'[^A-Za-z0-9]', '', base)[:6]
+    field_part = ''.join(c[:1].upper() + c[1:4] for c in columns)
+    name = ('idx' + obj + field_part)[:MAX_INDEX_NAME]
+    suffix = 2
+    candidate = name
+    while candidate.lower() in taken:
+        candidate = name[:MAX_INDEX_NAME - len(str(suffix))] + str(suffix)
+        suffix += 1
+    taken.add(candidate.lower())
+    return candidate
+
+
+def query_reach(project_dir, query_name):
+    """Return (weight, label) from the call sites of the DAO method named after the query."""
+    try:
+        import symbol_index
+        index = symbol_index.open_index(project_dir)
+        index.refresh()
+        hits = [path for root, path, kind, _ in index.usages(query_name) if root == 'Extensions' and kind == 'call']
+    except Exception:
+        return 1.0, 'unknown'
+    if any(re.search(r'(Controller|RestApi|Rest)[^/\\]*\.(java|groovy)$', p) for p in hits):
+        return 3.0, 'rest'
+    if hits:
+        return 1.5, 'code'
+    return 1.0, 'unused'
+
+
+def analyze(model, row_hints=None, project_dir=None, include_covered=False):
+    row_hints = row_hints or {}
+    default_rows = row_hints.get('default', DEFAULT_ROWS)
+    taken = {i['name'].lower() for obj in model['objects'] for i in obj['indexes'] + obj['unique']}
+    findings = []
+    for obj in model['objects']:
+        rows = row_hints.get(obj['short'], row_hints.get(obj['name'], default_rows))
+        indexes = obj['indexes'] + obj['unique']
+        for query in obj['queries']:
+            predicates, order_fields = parse_query(query['content'])
+            if not predicates and not order_fields:
+                continue
+            index, eq_served, range_served, order_served = match_index(predicates, order_fields, indexes)
+            wanted = {f for f, kind in predicates if kind != 'none'}
+            unserved = sorted(wanted - set(eq_served) - ({range_served} if range_served else set()))
+            order_gap = bool(order_fields) and not order_served
+            # A predicate no index can serve (LOWER(x), NOT, OR, LIKE '%...') when nothing else narrows the scan
+            blocked = sorted({f for f, kind in predicates if kind == 'none'}) if not (eq_served or range_served) else []
+
+            scanned = rows * (EQ_SELECTIVITY ** len(eq_served)) * (RANGE_SELECTIVITY if range_served else 1)
+            matched = rows * (EQ_SELECTIVITY ** sum(1 for _, k in predicates if k == 'eq')) * \
+                (RANGE_SELECTIVITY ** sum(1 for _, k in predicates if k == 'range'))
+            is_count = 'COUNT(' in (query['content'] or '').upper()
+            sort = matched * math.log2(matched) if order_gap and matched > 1 and not is_count else 0.0
+            weight, reach = query_reach(project_dir, query['name']) if project_dir else (1.0, 'unknown')
+            score = (scanned + sort) * weight
+
+            covered = not unserved and not order_gap and not blocked
+            if covered and not include_covered:
+                continue
+            columns = suggest_columns(predicates, order_fields)
+            suggestion = None
+            if not covered and columns:
+                name = index_name(obj['short'], columns, taken)
+                description = 'Optimizes %s%s' % (query['name'], ' (ORDER BY %s)' % ', '.join(order_fields)
+                                                  if order_fields else '')
+                suggestion = '<index name="%s" description="%s">\n%s\n</index>' % (
+                    name, description, '\n'.join('  <fieldPath>%s</fieldPath>' % c for c in columns))
+            findings.append({
+                'object': obj['short'], 'query': query['name'], 'rows': rows, 'reach': reach,
+                'where': ['%s:%s' % p for p in predicates], 'order_by': order_fields,
+                'index': index['name'] if index and (eq_served or range_served or order_served) else None,
+                'unindexed': unserved, 'order_by_unindexed': order_gap, 'not_indexable': blocked,
+                'score': round(score, 1), 'suggestion': suggestion,
+            })
+    findings.sort(key=lambda f: (-f['score'], f['object'], f['query']))
+    return findings
+
+
+def _format_rows(n):
+    for unit, size in (('M', 1e6), ('k', 1e3)):
+        if n >= size:
+            return '%.3g%s' % (n / size, unit)
+    return str(int(n))
+
+
+def print_report(findings):
+    if not findings:
+        print('All query WHERE / ORDER BY attributes are served by a declared index.')
+        return
+    print('%-10s %-6s %-7s %-20s %-36s %s' % ('SCORE', 'ROWS', 'REACH', 'OBJECT', 'QUERY', 'GAP'))
+    for f in findings:
+        gap = []
+        if f['unindexed']:
+            gap.append('WHERE ' + ', '.join(f['unindexed']))
+        if f['order_by_unindexed']:
+            gap.append('ORDER BY ' + ', '.join(f['order_by']))
+        if f['not_indexable']:
+            gap.append('not indexable: ' + ', '.join(f['not_indexable']) + ' (function, NOT, OR or leading %)')
+        print('%-10s %-6s %-7s %-20s %-36s %s' % (_format_rows(f['score']), _format_rows(f['rows']), f['reach'],
+                                                  f['object'], f['query'], '; '.join(gap) or 'covered'
+                                                  + (' by ' + f['index'] if f['index'] else '')))
+    suggestions = [f for f in findings if f['suggestion']]
+    if suggestions:
+        print('\nSuggested index declarations (highest score first):')
+        seen = set()
+        for f in suggestions:
+            columns = tuple(re.findall(r'<fieldPath>(\w+)</fieldPath>', f['suggestion']))
+            if (f['object'], columns) in seen:
+                continue
+            seen.add((f['object'], columns))
+            print('\n<!-- %s.%s -->\n%s' % (f['object'], f['query'], f['suggestion']))
+
+
+def main(argv):
+    args = argv[1:]
+    as_json = '--json' in args
+    include_covered = '--all' in args
+    rows_file = args[args.index('--rows') + 1] if '--rows' in args[:-1] else None
+    positional = [a for i, a in enumerate(args) if not a.startswith('--') and (i == 0 or args[i - 1] != '--rows')]
+    project_dir = os.environ.get('CLAUDE_PROJECT_DIR', '.')
+    bom_file = positional[0] if positional else os.path.join(project_dir, 'bdm', 'bom.xml')
+    if not os.path.isfile(bom_file):
+        print('bdm_query_cost: %s not found' % bom_file, file=sys.stderr)
+        return 0
+    row_hints = {}
+    if rows_file:
+        with open(rows_file, encoding='utf-8') as f:
+            row_hints = json.load(f)
+
+    findings = analyze(bdm_model.load(bom_file), row_hints, project_dir, include_covered)
+    if as_json:
+        json.dump({'bom': bom_file, 'findings': findings}, sys.stdout, indent=2, sort_keys=True)
+        print()
+    else:
+        print_report(findings)
+    return 0
+
+
+if __name__ == '__main__':
+    try:
+        sys.exit(main(sys.argv))
+    except (OSError, ValueError) as exc:
+        print('bdm_query_cost: %s' % exc, file=sys.stderr)
+        sys.exit(0)
@@ -0,0 +1,368 @@
+#!/usr/bin/env python3
+"""
+hook_daemon.py - Optional long-lived hook server for hook-client.sh
+
+Keeps the post-edit check rules (post_edit_checks.py) and their parsed-file
+cache warm between tool calls and answers hook requests over a Unix domain
+socket, so a hook costs a socket round trip instead of a Python cold start.
+Shuts itself down after --idle-timeout seconds without requests and records a
+per-check latency histogram.
+
+Usage:
+  hook_daemon.py start [--idle-timeout SEC] [--socket PATH]   Start in the background
+  hook_daemon.py serve [--idle-timeout SEC] [--socket PATH]   Run in the foreground
+  hook_daemon.py stop | status                                Control a running daemon
+  hook_daemon.py stats                                        Latency percentiles per check
+
+Socket: $HOOK_DAEMON_SOCKET, default $CLAUDE_PROJECT_DIR/.claude/cache/hook-daemon.sock
+
+Protocol (one request per connection, client half-closes after sending):
+  request:  "<post|pre|stats|ping|stop> [name ...]\\n" followed by the hook JSON
+  response: "exit <code>\\n<stderr text>"  or  "fallback <name> [...]\\n"
+A fallback response tells the client to run those hook scripts itself.
+"""
+
+import argparse
+import json
+import os
+import re
+import socket
+import socketserver
+import subprocess
+import sys
+import threading
+import time
+
+sys.path.insert(0, os.path.dirname(os.path.abspath(__file__)))
+import post_edit_checks  # noqa: E402
+
+DEFAULT_IDLE_TIMEOUT = 1800
+
+# PreToolUse scripts the daemon can rule out without running them. Anything
+# else, or a command that matches the trigger, is handed back to the client.
+PRE_TRIGGERS = {
+    'safe-git-workflow': re.compile(r'git\s+(commit|push)'),
+    'pre-commit-compile': re.compile(r'git\s+commit'),
+    'pre-push-validate': re.compile(r'git\s+push'),
+}
+
+
+def cache_dir():
+    return os.path.join(post_edit_checks.resolve_project_dir(), '.claude', 'cache')
+
+
+def default_socket_path():
+    return os.environ.get('HOOK_DAEMON_SOCKET') or os.path.join(cache_dir(), 'hook-daemon.sock')
+
+
+class LatencyHistogram:
+    """Log2 latency buckets from 0.1 ms to ~6.5 s, plus count/sum/max."""
+
+    BOUNDS_MS = [0.1 * 2 ** k for k in range(17)]
+
+    def __init__(self):
+        self.buckets = [0] * (len(self.BOUNDS_MS) + 1)
+        self.count = 0
+        self.total_ms = 0.0
+        self.max_ms = 0.0
+
+    def record(self, seconds):
+        ms = seconds * 1000.0
+        index = next((i for i, bound in enumerate(self.BOUNDS_MS) if ms <= bound), len(self.BOUNDS_MS))
+        self.buckets[index] += 1
+        self.count += 1
+        self.total_ms += ms
+        self.max_ms = max(self.max_ms, ms)
+
+    def percentile(self, q):
+        """Upper bound of the bucket holding the q-th quantile, capped at the observed max."""
+        if not self.count:
+            return 0.0
+        rank = q * self.count
+        seen = 0
+        for i, n in enumerate(self.buckets):
+            seen += n
+            if seen >= rank:
+                bound = self.BOUNDS_MS[i] if i < len(self.BOUNDS_MS) else self.max_ms
+                return min(bound, self.max_ms)
+        return self.max_ms
+
+    def to_dict(self):
+        return {'count': self.count, 'mean_ms': round(self.total_ms / self.count, 3) if self.count else 0,
+                'p50_ms': round(self.percentile(0.50), 3), 'p90_ms': round(self.percentile(0.90), 3),
+                'p99_ms': round(self.percentile(0.99), 3), 'max_ms': round(self.max_ms, 3),
+                'buckets': self.buckets}
+
+
+# UnixStreamServer does not exist on Windows builds; serve() refuses to start there.
+_UnixServer = getattr(socketserver, 'UnixStreamServer', socketserver.TCPServer)
+
+
+class HookDaemon(socketserver.ThreadingMixIn, _UnixServer):
+    daemon_threads = True
+
+    def __init__(self, socket_path, idle_timeout):
+        self.socket_path = socket_path
+        self.idle_timeout = idle_timeout
+        self.project_dir = post_edit_checks.resolve_project_dir()
+        self.started = time.time()
+        self.last_activity = time.monotonic()
+        self.histograms = {}
+        self.lock = threading.Lock()
+        _UnixServer.__init__(self, socket_path, HookRequestHandler)
+
+    def record(self, name, seconds):
+        with self.lock:
+            self.histograms.setdefault(name, LatencyHistogram()).record(seconds)
+
+    def stats(self):
+        with self.lock:
+            checks = {name: h.to_dict() for name, h in sorted(self.histograms.items())}
+        return {'pid': os.getpid(), 'uptime_s': round(time.time() - self.started),
+                'idle_timeout_s': self.idle_timeout, 'checks': checks}
+
+    def watch_idle(self):
+        while True:
+            time.sleep(1)
+            if time.monotonic() - self.last_activity > self.idle_timeout:
+                self.shutdown()
+                return
+
+    def prewarm(self):
+        """Fill the parsed-file cache so the first real edit is already warm."""
+        bom_file = os.path.join(self.project_dir, 'bdm', 'bom.xml')
+        if os.path.isfile(bom_file):
+            try:
+                post_edit_checks.bdm_model.load(bom_file)
+            except Exception:
+                pass
+        for root in (os.path.join(self.project_dir, 'extensions'), os.path.join(self.project_dir, 'app', 'src-groovy')):
+            for dirpath, _, filenames in os.walk(root):
+                for name in filenames:
+                    if name.endswith(('.java', '.groovy', '.kt')):
+                        # One unreadable file must not stop the index refresh below
+                        try:
+                            post_edit_checks.cached(os.path.join(dirpath, name), post_edit_checks._read_source)
+                        except Exception:
+                            pass
+        try:
+            post_edit_checks.symbol_index.open_index(self.project_dir).refresh()
+        except Exception:
+            pass
+
+
+class HookRequestHandler(socketserver.StreamRequestHandler):
+
+    def handle(self):
+        server = self.server
+        server.last_activity = time.monotonic()
+        start = time.perf_counter()
+        header = self.rfile.readline().decode('utf-8', 'replace').split()
+        body = self.rfile.read()
+        mode, names = (header[0], header[1:]) if header else ('', [])
+
+        if mode == 'post':
+            response = self.handle_post(names, body)
+        elif mode == 'pre':
+            response = self.handle_pre(names, body)
+        elif mode == 'stats':
+            response = 'exit 0\n' + json.dumps(server.stats(), indent=2)
+        elif mode == 'ping':
+            response = 'exit 0\n'
+        elif mode == 'stop':
+            response = 'exit 0\n'
+            threading.Thread(target=server.shutdown, daemon=True).start()
+        else:
+            response = 'fallback %s\n' % ' '.join(names)
+        self.wfile.write(response.encode('utf-8'))
+
+        if mode in ('post', 'pre'):
+            server.record('%s:request' % mode, time.perf_counter() - start)
+        server.last_activity = time.monotonic()
+
+    def handle_post(self, names, body):
+        try:
+            payload = json.loads(body or b'{}')
+        except ValueError:
+            return 'exit 0\n'
+        ctx = post_edit_checks.EditContext(payload, self.server.project_dir)
+        if not ctx.path:
+            return 'exit 0\n'
+        timings = {}
+        results = post_edit_checks.run_checks(ctx, names, timings)
+        for name, seconds in timings.items():
+            self.server.record(name, seconds)
+        return 'exit 0\n' + ''.join(out + '\n' for _, out in results)
+
+    def handle_pre(self, names, body):
+        start = time.perf_counter()
+        try:
+            command = (json.loads(body or b'{}').get('tool_input', {}) or {}).get('command', '') or ''
+        except ValueError:
+            return 'fallback %s\n' % ' '.join(names)
+        triggered = [name for name in names if name not in PRE_TRIGGERS or PRE_TRIGGERS[name].search(command)]
+        self.server.record('pre:filter', time.perf_counter() - start)
+        if triggered:
+            return 'fallback %s\n' % ' '.join(triggered)
+        return 'exit 0\n'
+
+
+def send(socket_path, header, body=b'', timeout=5.0):
+    """Send one request and return the raw response text (None if the daemon is not reachable)."""
+    if not hasattr(socket, 'AF_UNIX'):
+        return None
+    try:
+        with socket.socket(socket.AF_UNIX, socket.SOCK_STREAM) as sock:
+            sock.settimeout(timeout)
+            sock.connect(socket_path)
+            sock.sendall(header.encode('utf-8') + b'\n' + body)
+            sock.shutdown(socket.SHUT_WR)
+            chunks = []
+            while True:
+                chunk = sock.recv(65536)
+                if not chunk:
+                    break
+                chunks.append(chunk)
+            return b''.join(chunks).decode('utf-8', 'replace')
+    except OSError:
+        return None
+
+
+def serve(socket_path, idle_timeout):
+    if not hasattr(socket, 'AF_UNIX'):
+        print('hook-daemon: Unix domain sockets are not available on this platform; '
+              'hooks keep using the standalone scripts.', file=sys.stderr)
+        return 1
+    if send(socket_path, 'ping') is not None:
+        print('hook-daemon: already running on %s' % socket_path, file=sys.stderr)
+        return 0
+    if os.path.exists(socket_path):
+        os.unlink(socket_path)
+    os.makedirs(os.path.dirname(socket_path) or '.', exist_ok=True)
+
+    os.umask(0o077)
+    server = HookDaemon(socket_path, idle_timeout)
+    threading.Thread(target=server.watch_idle, daemon=True).start()
+    threading.Thread(target=server.prewarm, daemon=True).start()
+    try:
+        server.serve_forever(poll_interval=0.5)
+    finally:
+        server.server_close()
+        try:
+            os.unlink(socket_path)
+        except OSError:
+            pass
+        save_stats(socket_path, server.stats())
+    return 0
+
+
+def stats_file(socket_path):
+    return os.path.join(os.path.dirname(socket_path) or '.', 'hook-daemon-stats.json')
+
+
+def save_stats(socket_path, stats):
+    try:
+        with open(stats_file(socket_path), 'w', encoding='utf-8') as f:
+            json.dump(stats, f, indent=2)
+    except OSError:
+        pass
+
+
+def start(socket_path, idle_timeout):
+    if send(socket_path, 'ping') is not None:
+        print('hook-daemon: already running on %s' % socket_path)
+        return 0
+    if not hasattr(socket, 'AF_UNIX'):
+        return serve(socket_path, idle_timeout)
+    subprocess.Popen([sys.executable, os.path.abspath(__file__), 'serve',
+                      '--socket', socket_path, '--idle-timeout', str(idle_timeout)],
+                     stdin=subprocess.DEVNULL, stdout=subprocess.DEVNULL, stderr=subprocess.DEVNULL,
+                     start_new_session=True)
+    for _ in range(40):
+        if send(socket_path, 'ping') is not None:
+            print('hook-daemon: listening on %s (idle timeout %ss)' % (socket_path, idle_timeout))
+            return 0
+        time.sleep(0.05)
+    print('hook-daemon: failed to start on %s' % socket_path, file=sys.stderr)
+    return 1
+
+
+def _trace_percentiles(trace_file):
+    """Summarize the round-trip log written by hook-client.sh when HOOK_DAEMON_TRACE=1."""
+    samples = {}
+    try:
+        with open(trace_file, encoding='utf-8') as f:
+            for line in f:
+                parts = line.split()
+                if len(parts) == 3 and parts[2].isdigit():
+                    samples.setdefault('%s %s' % (parts[0], parts[1]), []).append(int(parts[2]) / 1000.0)
+    except OSError:
+        return {}
+    result = {}
+    for key, values in sorted(samples.items()):
+        values.sort()
+
+        def pick(q, v=values):
+            return round(v[min(len(v) - 1, int(q * len(v)))], 3)
+        result[key] = {'count': len(values), 'p50_ms': pick(0.50), 'p90_ms': pick(0.90),
+                       'p99_ms': pick(0.99), 'max_ms': round(values[-1], 3)}
+    return result
+
+
+def print_stats(socket_path):
+    response = send(socket_path, 'stats')
+    if response is not None:
+        stats = json.loads(response.split('\n', 1)[1])
+        print('Daemon pid %s, up %ss (live)' % (stats['pid'], stats['uptime_s']))
+    else:
+        try:
+            with open(stats_file(socket_path), encoding='utf-8') as f:
+                stats = json.load(f)
+            print('Daemon not running - last saved statistics:')
+        except (OSError, ValueError):
+            print('hook-daemon: not running and no saved statistics')
+            stats = {'checks': {}}
+
+    row = '  %-24s %7s %9s %9s %9s %9s'
+    if stats['checks']:
+        print('')
+        print('Per-check latency inside the daemon (ms):')
+        print(row % ('check', 'count', 'p50', 'p90', 'p99', 'max'))
+        for name, h in stats['checks'].items():
+            print(row % (name, h['count'], h['p50_ms'], h['p90_ms'], h['p99_ms'], h['max_ms']))
+
+    trace = _trace_percentiles(os.path.join(os.path.dirname(socket_path) or '.', 'hook-latency.log'))
+    if trace:
+        print('')
+        print('Hook round trip seen by hook-client.sh (ms, daemon vs fallback):')
+        print(row % ('route', 'count', 'p50', 'p90', 'p99', 'max'))
+        for key, h in trace.items():
+            print(row % (key, h['count'], h['p50_ms'], h['p90_ms'], h['p99_ms'], h['max_ms']))
+    return 0
+
+
+def main(argv):
+    parser = argparse.ArgumentParser(prog='hook_daemon.py', description='Warm hook server for hook-client.sh')
+    parser.add_argument('action', choices=['start', 'serve', 'stop', 'status', 'stats'])
+    parser.add_argument('--socket', default=default_socket_path())
+    parser.add_argument('--idle-timeout', type=int,
+                        default=int(os.environ.get('HOOK_DAEMON_IDLE_TIMEOUT', DEFAULT_IDLE_TIMEOUT)))
+    args = parser.parse_args(argv[1:])
+
+    if args.action == 'start':
+        return start(args.socket, args.idle_timeout)
+    if args.action == 'serve':
+        return serve(args.socket, args.idle_timeout)
+    if args.action == 'stats':
+        return print_stats(args.socket)
+    if args.action == 'stop':
+        stopped = send(args.socket, 'stop') is not None
+        print('hook-daemon: stopped' if stopped else 'hook-daemon: not running')
+        return 0
+    running = send(args.socket, 'ping') is not None
+    print('hook-daemon: %s (%s)' % ('running' if running else 'not running', args.socket))
+    return 0 if running else 1
+
+
+if __name__ == '__main__':
+    sys.exit(main(sys.argv))
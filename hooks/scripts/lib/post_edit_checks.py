@@ -0,0 +1,562 @@
+#!/usr/bin/env python3
+"""
+post_edit_checks.py - In-process PostToolUse checks for post-edit-dispatcher.sh
+
+Reads the hook JSON from stdin once, routes the edited file to the checks whose
+path filter matches, and runs those checks concurrently in this single process.
+Checks that do not match the path are never started.
+
+Each check mirrors the standalone hooks/scripts/check-<name>.sh script and
+prints the same feedback to stderr. Keep both in sync when changing a rule.
+
+Usage: post_edit_checks.py <check> [<check> ...]
+Exit 0 = always allow (informational only)
+"""
+
+import fnmatch
+import json
+import os
+import re
+import sqlite3
+import sys
+import threading
+import time
+from concurrent.futures import ThreadPoolExecutor
+
+import bdm_model
+import symbol_index
+
+
+class EditContext:
+    """Decoded hook payload plus lazily loaded, shared file content."""
+
+    def __init__(self, payload, project_dir):
+        tool_input = payload.get('tool_input', {}) or {}
+        self.payload = payload
+        self.tool_input = tool_input
+        self.file_path = tool_input.get('file_path', '') or ''
+        self.path = self.file_path.replace('\\', '/')
+        self.project_dir = project_dir
+        self._content = None
+        self._lock = threading.Lock()
+
+    @property
+    def exists(self):
+        return os.path.isfile(self.file_path)
+
+    @property
+    def content(self):
+        with self._lock:
+            if self._content is None:
+                try:
+                    with open(self.file_path, encoding='utf-8', errors='replace', newline='') as f:
+                        self._content = f.read()
+                except OSError:
+                    self._content = ''
+            return self._content
+
+    @property
+    def lines(self):
+        text = self.content
+        lines = text.split('\n')
+        if text.endswith('\n'):
+            lines = lines[:-1]
+        return lines
+
+
+def _line_numbers(lines, pattern, limit):
+    regex = re.compile(pattern)
+    return [str(i) for i, line in enumerate(lines, 1) if regex.search(line)][:limit]
+
+
+def _numbered_lines(lines, pattern, limit):
+    regex = re.compile(pattern)
+    return ['  %d:%s' % (i, line) for i, line in enumerate(lines, 1) if regex.search(line)][:limit]
+
+
+# Parsed-file cache keyed by (mtime, size). A one-shot dispatcher run fills it
+# once; the hook daemon (hook_daemon.py) keeps it warm across tool calls.
+_FILE_CACHE = {}
+_FILE_CACHE_LOCK = threading.Lock()
+_MAX_CACHED_TEXT = 512 * 1024
+
+
+def cached(path, loader):
+    """Return loader(path), reusing the previous result while the file is unchanged."""
+    try:
+        st = os.stat(path)
+    except OSError:
+        return None
+    key = (st.st_mtime_ns, st.st_size)
+    with _FILE_CACHE_LOCK:
+        hit = _FILE_CACHE.get((path, loader))
+    if hit and hit[0] == key:
+        return hit[1]
+    value = loader(path)
+    with _FILE_CACHE_LOCK:
+        _FILE_CACHE[(path, loader)] = (key, value)
+    return value
+
+
+def _read_text(path):
+    with open(path, encoding='utf-8', errors='replace') as f:
+        return f.read()
+
+
+def _read_source(path):
+    if os.path.getsize(path) > _MAX_CACHED_TEXT:
+        return None
+    return _read_text(path)
+
+
+def _contains(path, pattern):
+    try:
+        text = cached(path, _read_source)
+        if text is None:
+            text = _read_text(path)
+    except OSError:
+        return False
+    return pattern.search(text) is not None
+
+
+def _find_files(root, extensions, needle, limit, exclude=None):
+    """Files under root containing needle as a whole word, like grep -rlw."""
+    found = []
+    if not os.path.isdir(root):
+        return found
+    pattern = re.compile(r'(?<!\w)%s(?!\w)' % re.escape(needle))
+    for dirpath, _, filenames in os.walk(root):
+        for name in sorted(filenames):
+            if not name.endswith(extensions):
+                continue
+            path = os.path.join(dirpath, name)
+            if exclude and exclude in path:
+                continue
+            if _contains(path, pattern):
+                found.append(path)
+            if len(found) >= limit:
+                return found
+    return found
+
+
+# =============================================================================
+# Checks — one function per standalone hook script
+# =============================================================================
+
+METHOD_PATTERN = re.compile(
+    r'(public|private|protected|static|void|int|long|String|boolean|List|Map|Set|Optional)\s+\w+\s*\(')
+CONTROL_KEYWORDS = ('if', 'for', 'while', 'switch', 'catch')
+
+
+def check_method_usages(ctx):
+    old_string = ctx.tool_input.get('old_string', '') or ''
+    new_string = ctx.tool_input.get('new_string', '') or ''
+    if not (METHOD_PATTERN.search(old_string) and METHOD_PATTERN.search(new_string)):
+        return ''
+    match = re.search(r'([A-Za-z_][A-Za-z0-9_]*)\s*\(', old_string)
+    if not match or match.group(1) in CONTROL_KEYWORDS:
+        return ''
+    method = match.group(1)
+
+    out = ['Method signature change detected: %s' % method,
+           'Searching for other usages across the project...']
+    try:
+        report = symbol_index.usage_report(ctx.project_dir, method, exclude=ctx.file_path)
+        return '\n'.join(out + [report]) if report else '\n'.join(out)
+    except (sqlite3.Error, OSError):
+        pass  # no writable cache: fall back to scanning the sources
+
+    usages = _find_files(os.path.join(ctx.project_dir, 'extensions'), ('.java', '.groovy', '.kt'),
+                         method, 15, exclude=os.path.basename(ctx.file_path))
+    groovy_usages = _find_files(os.path.join(ctx.project_dir, 'app', 'src-groovy'), ('.groovy',), method, 5)
+    proc_usages = _find_files(os.path.join(ctx.project_dir, 'app', 'diagrams'), ('.proc',), method, 5)
+    if usages or groovy_usages or proc_usages:
+        out += ['', "WARNING: Method '%s' is also used in these files:" % method]
+        for label, paths in (('Extensions', usages), ('Groovy Scripts', groovy_usages),
+                             ('Process Definitions', proc_usages)):
+            if paths:
+                out.append('  [%s]' % label)
+                out += ['    ' + p for p in paths]
+        out += ['', 'Consider updating these files to match the new signature. '
+                    'Use /refactor-method-signature for automated updates.']
+    return '\n'.join(out)
+
+
+def check_bdm_countfor(ctx):
+    bom_file = os.path.join(ctx.project_dir, 'bdm', 'bom.xml')
+    if not os.path.isfile(bom_file):
+        return ''
+    return bdm_model.countfor_report(bdm_model.load(bom_file))
+
+
+HARDCODED_PATTERNS = [
+    (r'"([A-Z_]{3,})"\.equals', 'status/type comparison'),
+    (r'\.equals\("([a-zA-Z_]{3,})"', 'string comparison'),
+    (r'case\s+"([a-zA-Z_]{3,})"', 'switch case string'),
+    (r'==\s*"([a-zA-Z_]{3,})"', 'direct string comparison'),
+]
+
+
+def check_hardcoded_strings(ctx):
+    if re.search(r'(constants/|Constants\.|enums/|Enum|/test/)', ctx.path, re.IGNORECASE):
+        return ''
+    new_string = ctx.tool_input.get('new_string', '') or ''
+    found = []
+    for pattern, desc in HARDCODED_PATTERNS:
+        for value in re.findall(pattern, new_string):
+            if value.lower() not in ('null', 'true', 'false', 'utf-8', 'utf8'):
+                found.append((value, desc))
+    if not found:
+        return ''
+    out = ['', 'NOTICE: Potential hardcoded magic strings detected:']
+    out += ['  - "%s" (%s)' % (value, desc) for value, desc in found]
+    out += ['',
+            'Consider using constants instead. Existing constant files:',
+            '  - extensions/.../utils/constants/Constants.java',
+            '  - extensions/.../utils/constants/ErrorMessages.java',
+            '  - extensions/.../utils/constants/Messages.java',
+            '  - Or add to process-builder-extension-library for cross-project reuse',
+            'Use /create-constants to auto-extract them.',
+            '']
+    return '\n'.join(out)
+
+
+def check_code_format(ctx):
+    if not ctx.exists:
+        return ''
+    lines = ctx.lines
+    warnings = []
+
+    tabs = _line_numbers(lines, r'\t', 5)
+    if tabs:
+        warnings.append('⚠ TABS detected (use spaces): lines %s' % ','.join(tabs))
+    trailing = _line_numbers(lines, r'\s+$', 5)
+    if trailing:
+        warnings.append('⚠ Trailing whitespace: lines %s' % ','.join(trailing))
+    long_lines = [str(i) for i, line in enumerate(lines, 1) if len(line) > 120][:5]
+    if long_lines:
+        warnings.append('⚠ Lines > 120 chars: lines %s' % ','.join(long_lines))
+    wildcard = _line_numbers(lines, r'import .*\.\*;', 5)
+    if wildcard:
+        warnings.append('⚠ Wildcard imports detected (use explicit imports): lines %s' % ','.join(wildcard))
+    if any(lines[i] == '' and lines[i + 1] == '' for i in range(len(lines) - 1)):
+        warnings.append('⚠ Multiple consecutive blank lines detected (max 1 allowed)')
+    if ctx.content and not ctx.content.endswith('\n'):
+        warnings.append('⚠ File does not end with a newline')
+
+    if not warnings:
+        return ''
+    return 'FORMAT CHECK [%s]:\n%s\nConsider fixing these formatting issues for code consistency.' % (
+        ctx.file_path, '\n'.join(warnings))
+
+
+def _long_methods(lines):
+    """Port of the awk method-length heuristic in check-code-style.sh."""
+    signature = re.compile(r'^\s*(public|protected|private)\s+.*\(')
+    result = []
+    method_start = 0
+    method_name = ''
+    brace_count = 0
+    for nr, line in enumerate(lines, 1):
+        if signature.search(line) and ';' not in line:
+            method_start = nr
+            method_name = re.sub(r'\(.*', '', re.sub(r'.*\s+', '', line))
+            brace_count = 0
+        if '{' in line:
+            brace_count += 1
+        if '}' in line:
+            brace_count -= 1
+            if brace_count == 1 and method_start > 0:
+                length = nr - method_start
+                if length > 30:
+                    result.append('  Line %d: %d lines (method around: %s)' % (method_start, length, method_name))
+                method_start = 0
+    return result
+
+
+def check_code_style(ctx):
+    if not ctx.exists:
+        return ''
+    lines = ctx.lines
+    warnings = []
+
+    sysout = _line_numbers(lines, r'System\.(out|err)\.print', 5)
+    if sysout:
+        warnings.append('⚠ System.out/err.print detected (use Logger): lines %s' % ','.join(sysout))
+
+    catch_line = 0
+    for nr, line in enumerate(lines, 1):
+        if re.search(r'catch\s*\(', line):
+            catch_line = nr
+        if catch_line and re.search(r'\{\s*\}', line) and nr <= catch_line + 2:
+            warnings.append('⚠ Empty catch block detected - add proper error handling or logging')
+            break
+
+    wildcard = _numbered_lines(lines, r'import .*\.\*;', 3)
+    if wildcard:
+        warnings.append('⚠ Wildcard imports (Checkstyle: AvoidStarImport):\n%s' % '\n'.join(wildcard))
+
+    long_methods = _long_methods(lines)
+    if long_methods:
+        warnings.append('⚠ Methods exceeding 30 lines (SRP - Single Responsibility):\n%s' % '\n'.join(long_methods))
+
+    todos = _numbered_lines(lines, r'//\s*(TODO|FIXME|HACK|XXX)', 3)
+    if todos:
+        warnings.append('ℹ Technical debt markers found:\n%s' % '\n'.join(todos))
+
+    for method in ('toString', 'equals', 'hashCode', 'compareTo'):
+        numbers = _line_numbers(lines, r'public.*%s\s*\(' % method, 1)
+        if numbers:
+            line_num = int(numbers[0])
+            previous = lines[line_num - 2] if line_num >= 2 else ''
+            if '@Override' not in previous:
+                warnings.append('⚠ Missing @Override on %s() at line %d' % (method, line_num))
+
+    if not warnings:
+        return ''
+    return 'STYLE CHECK [%s]:\n%s\nThese issues should be addressed to maintain code quality standards.' % (
+        ctx.file_path, '\n'.join(warnings))
+
+
+DOC_KEYWORDS = re.compile(r'pdf|PDF|document|Document|report|Report|export|Export')
+
+
+def check_document_pattern(ctx):
+    if not ctx.exists:
+        return ''
+    content = ctx.content
+    lines = ctx.lines
+    libs = []
+    if re.search(r'import com.lowagie|import com.github.librepdf|import org.xhtmlrenderer|import com.openpdf', content):
+        libs.append('OpenPDF/Flying Saucer (PDF)')
+    if 'import org.apache.poi' in content:
+        libs.append('Apache POI (Word/Excel)')
+    if 'import com.itextpdf' in content:
+        libs.append('iText (WARNING: use OpenPDF instead for license reasons)')
+    if 'import org.thymeleaf' in content and DOC_KEYWORDS.search(content):
+        libs.append('Thymeleaf (HTML templates)')
+    if not libs:
+        return ''
+
+    warnings = []
+    if 'BrandingConfig' not in content:
+        warnings.append('⚠ Document generation detected (%s) but BrandingConfig is not referenced.\n'
+                        '  All documents MUST use BrandingConfig constants for colors, fonts, and logos.' % ', '.join(libs))
+    colors = [str(i) for i, line in enumerate(lines, 1)
+              if re.search(r'#[0-9a-fA-F]{6}', line) and not re.match(r'\s*//', line)
+              and 'BrandingConfig' not in line and 'static final' not in line][:5]
+    if colors:
+        warnings.append('⚠ Hardcoded hex colors found at lines %s.\n'
+                        '  Use BrandingConfig constants (PRIMARY_COLOR, SECONDARY_COLOR, etc.) instead.' % ','.join(colors))
+    if any(re.search(r'"Arial"|"Helvetica"|"Times New Roman"|"Courier"|"Verdana"', line)
+           and not re.search(r'BrandingConfig|FONT_FAMILY|static final', line) for line in lines):
+        warnings.append('⚠ Hardcoded font names detected. Use BrandingConfig.FONT_FAMILY instead.')
+    if 'import com.itextpdf' in content:
+        warnings.append('⚠ iText library detected. Use OpenPDF (com.github.librepdf:openpdf) instead '
+                        'to avoid AGPL license issues.')
+    if any(re.search(r'StringBuilder|StringBuffer|"<html"|"<body"|"<table"|"<div"', line)
+           and not re.search(r'test|Test|spec|Spec', line) for line in lines) and DOC_KEYWORDS.search(content):
+        warnings.append('⚠ HTML string concatenation detected in document generation code.\n'
+                        '  Use Thymeleaf templates instead of building HTML with StringBuilder.')
+
+    if not warnings:
+        return ''
+    return ('DOCUMENT BRANDING CHECK [%s]:\n%s\n\n'
+            'Corporate standard: All documents must use BrandingConfig + Thymeleaf templates + corporate.css.\n'
+            'Use /generate-document to scaffold a compliant document service.') % (ctx.file_path, '\n'.join(warnings))
+
+
+def check_openapi_annotations(ctx):
+    if not ctx.exists or 'src/test/' in ctx.path:
+        return ''
+    content = ctx.content
+    if not re.search(r'(implements\s+RestApiController|extends\s+Abstract\w*Controller)', content):
+        return ''
+    if re.search(r'^\s*public\s+abstract\s+class', content, re.MULTILINE):
+        return ''
+
+    warnings = []
+    if not re.search(r'(@Api\b|@Tag\b)', content):
+        warnings.append('  - Missing @Api or @Tag annotation on controller class')
+    if not re.search(r'(@Operation\b|@ApiOperation\b)', content):
+        warnings.append('  - Missing @Operation annotations on endpoint methods')
+    if '@ApiResponse' not in content:
+        warnings.append('  - Missing @ApiResponse annotations (document status codes: 200, 400, 500)')
+    if not warnings:
+        return ''
+    class_name = os.path.splitext(os.path.basename(ctx.path))[0]
+    out = ['', "WARNING: Controller '%s' is missing OpenAPI documentation:" % class_name, '']
+    out += warnings
+    out += ['',
+            'Per bonita-rest-api-expert standards, all controllers should have:',
+            '  - @Tag(name = "...") on the class',
+            '  - @Operation(summary = "...") on endpoint methods',
+            '  - @ApiResponse annotations for each HTTP status code',
+            '']
+    return '\n'.join(out)
+
+
+def check_skill_structure(ctx):
+    if not ctx.exists:
+        return ''
+    content = ctx.content.rstrip('\n')
+    lines = content.split('\n')
+    warnings = []
+
+    def first(prefix):
+        return next((line for line in lines if line.startswith(prefix)), None)
+
+    if lines[0] != '---':
+        warnings.append('✗ Missing YAML frontmatter (must start with ---)')
+
+    name_line = first('name:')
+    if name_line is None:
+        warnings.append("✗ Missing required 'name' field in frontmatter")
+    else:
+        name = re.sub(r'^name: *', '', name_line)
+        if re.search(r'[^a-z0-9-]', name):
+            warnings.append("⚠ Skill name '%s' should only contain lowercase letters, numbers, and hyphens" % name)
+        if len(name) > 64:
+            warnings.append('⚠ Skill name exceeds 64 characters (current: %d)' % len(name))
+        if re.match(r'^(review|helper|expert|utils|tools|misc)$', name):
+            warnings.append("⚠ Skill name '%s' is too generic. Use [domain]-[purpose] format "
+                            "(e.g., bonita-review, java-helper)" % name)
+
+    desc_line = first('description:')
+    if desc_line is None:
+        warnings.append("✗ Missing required 'description' field in frontmatter")
+    else:
+        desc = re.sub(r'^description: *', '', desc_line)
+        if len(desc) > 1024:
+            warnings.append('⚠ Description exceeds 1024 characters (current: %d)' % len(desc))
+        if len(desc) < 20:
+            warnings.append('⚠ Description is too short (%d chars). Should answer: What does it do? '
+                            'When should Claude use it?' % len(desc))
+        if not re.search(r'when|use.*for|use.*when|trigger|invoke|asks about', desc, re.IGNORECASE):
+            warnings.append("⚠ Description should explain WHEN to use this skill "
+                            "(e.g., 'Use when the user asks about...')")
+
+    if not any(line.startswith('# ') for line in lines):
+        warnings.append('⚠ Missing main heading (# Title)')
+    if not re.search(r'## When activated', content, re.IGNORECASE):
+        warnings.append("⚠ Missing '## When activated' section — should define what Claude reads/checks first")
+    if not re.search(r'## .*rules|## .*patterns|## .*standards|## Mandatory', content, re.IGNORECASE):
+        warnings.append('⚠ Missing rules/patterns section — should define mandatory rules or patterns to follow')
+    if not re.search(r'## When the user|## Workflow|## How to|## Usage', content, re.IGNORECASE):
+        warnings.append("⚠ Missing workflow section — should define step-by-step actions "
+                        "(e.g., '## When the user asks about...')")
+    if len(lines) > 500:
+        warnings.append('⚠ SKILL.md is %d lines (max recommended: 500). '
+                        'Use references/ directory for detailed docs.' % len(lines))
+
+    if not warnings:
+        return ''
+    return ('SKILL STRUCTURE CHECK [%s]:\n%s\n\n'
+            'Skill methodology: https://github.com/bonitasoft-ps/claude-code-toolkit\n'
+            'Use the skill-creator skill for guidance: describe what skill you need.') % (
+        ctx.file_path, '\n'.join(warnings))
+
+
+TEST_PAIR_EXEMPT = ('*Configuration', '*Config', '*Controller', '*Handler', '*Application',
+                    '*Exception', '*Constants', '*Enum', 'package-info')
+
+
+def check_test_pair(ctx):
+    class_name = os.path.splitext(os.path.basename(ctx.path))[0]
+    if any(fnmatch.fnmatchcase(class_name, pattern) for pattern in TEST_PAIR_EXEMPT):
+        return ''
+    test_dir = os.path.dirname(re.sub(r'.*src/main/java/', 'src/test/java/', ctx.path))
+    missing = []
+    for suffix in ('Test', 'PropertyTest'):
+        relative = '%s/%s%s.java' % (test_dir, class_name, suffix)
+        if not os.path.isfile(os.path.join(ctx.project_dir, relative)):
+            missing.append('  - MISSING: %s' % relative)
+    if not missing:
+        return ''
+    out = ['', 'WARNING: Test files required for %s (per AGENTS.md):' % class_name, '']
+    out += missing
+    out += ['',
+            'Every class MUST have both *Test.java and *PropertyTest.java.',
+            'Use /generate-tests %s to create them.' % class_name,
+            '']
+    return '\n'.join(out)
+
+
+# =============================================================================
+# Routing table: check name -> (path filter, implementation)
+# Filters are evaluated on the forward-slash path before any check is started.
+# =============================================================================
+
+def _is_extension_source(path):
+    return re.search(r'\.(java|groovy|kt)$', path, re.IGNORECASE) and 'extensions/' in path.lower()
+
+
+CHECKS = {
+    'method-usages': (_is_extension_source, check_method_usages),
+    'bdm-countfor': (lambda p: p.lower().endswith('bom.xml'), check_bdm_countfor),
+    'hardcoded-strings': (_is_extension_source, check_hardcoded_strings),
+    'code-format': (lambda p: re.search(r'\.(java|groovy)$', p), check_code_format),
+    'code-style': (lambda p: p.endswith('.java'), check_code_style),
+    'document-pattern': (lambda p: p.endswith('.java'), check_document_pattern),
+    'openapi-annotations': (lambda p: p.endswith('.java'), check_openapi_annotations),
+    'skill-structure': (lambda p: p.endswith('SKILL.md'), check_skill_structure),
+    'test-pair': (lambda p: re.search(r'src/main/java/.*\.java$', p), check_test_pair),
+}
+
+
+def resolve_project_dir():
+    project_dir = os.environ.get('CLAUDE_PROJECT_DIR', '')
+    if project_dir:
+        return project_dir
+    hooks_dir = os.path.dirname(os.path.dirname(os.path.abspath(__file__)))
+    return os.path.dirname(os.path.dirname(hooks_dir))
+
+
+def run_checks(ctx, names, timings=None):
+    """Run the named checks whose filter matches ctx.path; return their output in request order.
+
+    When a dict is passed as timings, the wall-clock seconds of each started check are stored in it.
+    """
+    selected = [(name, CHECKS[name][1]) for name in names
+                if name in CHECKS and CHECKS[name][0](ctx.path)]
+    if not selected:
+        return []
+
+    def guarded(entry):
+        name, check = entry
+        start = time.perf_counter()
+        try:
+            return check(ctx)
+        except Exception:
+            return ''
+        finally:
+            if timings is not None:
+                timings[name] = time.perf_counter() - start
+
+    if len(selected) == 1:
+        results = [guarded(selected[0])]
+    else:
+        with ThreadPoolExecutor(max_workers=len(selected)) as pool:
+            results = list(pool.map(guarded, selected))
+    return [(name, out) for (name, _), out in zip(selected, results) if out]
+
+
+def main(argv):
+    names = argv[1:] or list(CHECKS)
+    unknown = [name for name in names if name not in CHECKS]
+    if unknown:
+        print('post-edit-dispatcher: unknown check(s): %s' % ', '.join(unknown), file=sys.stderr)
+    try:
+        payload = json.load(sys.stdin)
+    except ValueError:
+        return 0
+    ctx = EditContext(payload, resolve_project_dir())
+    if not ctx.path:
+        return 0
+    for _, out in run_checks(ctx, names):
+        print(out, file=sys.stderr)
+    return 0
+
+
+if __name__ == '__main__':
+    sys.exit(main(sys.argv))
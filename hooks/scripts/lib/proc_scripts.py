@@ -0,0 +1,225 @@
+#!/usr/bin/env python3
+"""
+proc_scripts.py - Streaming extractor for the Groovy scripts embedded in .proc files
+
+Bonita .proc diagrams are multi-megabyte XMI documents whose scripts live in the
+`content` attribute of expression elements (interpreter="GROOVY": init scripts,
+operations, connector inputs/outputs, conditions). This module reads them with
+the expat push parser, so the file is never loaded as a tree, and keeps each
+script with its name, owning element and line in the .proc. JAVA_METHOD operators
+(`<operator type="JAVA_METHOD" expression="setStatus"/>`) are recorded too,
+because they call methods on business objects.
+
+Extracted scripts are cached in .claude/cache/proc-scripts/<sha256>.json, keyed by
+the content hash of the .proc. A small manifest maps each path to its last
+mtime/size/hash, so an unchanged diagram is neither parsed nor re-hashed.
+
+Usage:
+  proc_scripts.py grep <regex> [-w]    # search the extracted scripts of app/diagrams
+  proc_scripts.py list [<file.proc>]   # scripts per diagram (name, owner, line)
+  proc_scripts.py show <file.proc>     # decoded scripts of one diagram
+Exit 0 = always (informational only)
+"""
+
+import hashlib
+import json
+import os
+import re
+import sys
+import threading
+import xml.parsers.expat
+
+CACHE_VERSION = 1
+ExpatError = xml.parsers.expat.ExpatError
+_CHUNK = 1 << 20
+
+
+def extract(path):
+    """Parse one .proc and return its scripts as a list of dicts."""
+    scripts = []
+    owners = []  # stack of (element name attribute or None)
+    parser = xml.parsers.expat.ParserCreate()
+
+    def start(tag, attrs):
+        xmi_type = attrs.get('xmi:type', '')
+        name = attrs.get('name')
+        content = attrs.get('content', '')
+        if attrs.get('interpreter') == 'GROOVY' and content.strip():
+            scripts.append(_record(parser, name, attrs.get('type', ''), _owner(owners), content,
+                                   attrs.get('returnType', '')))
+        elif tag == 'operator' and attrs.get('type') == 'JAVA_METHOD' and attrs.get('expression'):
+            scripts.append(_record(parser, attrs['expression'], 'JAVA_METHOD', _owner(owners),
+                                   attrs['expression'] + '()', ''))
+        is_owner = name and xmi_type.startswith('process:')
+        owners.append('%s %s' % (xmi_type.split(':', 1)[1], name) if is_owner else None)
+
+    def end(_tag):
+        owners.pop()
+
+    parser.StartElementHandler = start
+    parser.EndElementHandler = end
+    with open(path, 'rb') as f:
+        parser.ParseFile(f)
+    return scripts
+
+
+def _record(parser, name, expression_type, owner, content, return_type):
+    return {'name': name or 'unnamed', 'type': expression_type, 'owner': owner,
+            'line': parser.CurrentLineNumber, 'return_type': return_type,
+            'content': content.replace('\r\n', '\n')}
+
+
+def _owner(owners):
+    for owner in reversed(owners):
+        if owner:
+            return owner
+    return ''
+
+
+def _sha256(path):
+    digest = hashlib.sha256()
+    with open(path, 'rb') as f:
+        for chunk in iter(lambda: f.read(_CHUNK), b''):
+            digest.update(chunk)
+    return digest.hexdigest()
+
+
+class ScriptCache:
+    """Content-addressed cache of extracted scripts, shared by hooks and the CLI."""
+
+    def __init__(self, project_dir, cache_dir=None):
+        self.project_dir = project_dir
+        self.cache_dir = cache_dir or os.path.join(project_dir, '.claude', 'cache', 'proc-scripts')
+        self.manifest_path = os.path.join(self.cache_dir, 'manifest.json')
+        self.lock = threading.Lock()
+        self.manifest = None
+
+    def _load_manifest(self):
+        if self.manifest is None:
+            try:
+                with open(self.manifest_path, encoding='utf-8') as f:
+                    data = json.load(f)
+                self.manifest = data.get('files', {}) if data.get('version') == CACHE_VERSION else {}
+            except (OSError, ValueError):
+                self.manifest = {}
+        return self.manifest
+
+    def _write_json(self, path, data):
+        os.makedirs(self.cache_dir, exist_ok=True)
+        tmp = '%s.tmp.%d.%d' % (path, os.getpid(), threading.get_ident())
+        with open(tmp, 'w', encoding='utf-8') as f:
+            json.dump(data, f, separators=(',', ':'))
+        os.replace(tmp, path)
+
+    def scripts(self, path):
+        """Return the scripts of one .proc, parsing it only when its content changed."""
+        st = os.stat(path)
+        key = os.path.relpath(os.path.abspath(path), self.project_dir).replace('\\', '/')
+        with self.lock:
+            manifest = self._load_manifest()
+            entry = manifest.get(key)
+            if entry and entry[0] == st.st_mtime_ns and entry[1] == st.st_size:
+                digest = entry[2]
+            else:
+                digest = _sha256(path)
+            blob = os.path.join(self.cache_dir, digest + '.json')
+            try:
+                with open(blob, encoding='utf-8') as f:
+                    scripts = json.load(f)
+            except (OSError, ValueError):
+                scripts = extract(path)
+                try:
+                    self._write_json(blob, scripts)
+                except OSError:
+                    pass
+            if entry != [st.st_mtime_ns, st.st_size, digest]:
+                manifest[key] = [st.st_mtime_ns, st.st_size, digest]
+                self._save_manifest()
+            return scripts
+
+    def _save_manifest(self):
+        """Write the manifest, forgetting deleted diagrams and their orphaned blobs."""
+        manifest = self.manifest
+        for key in [k for k in manifest if not os.path.isfile(os.path.join(self.project_dir, k))]:
+            del manifest[key]
+        try:
+            self._write_json(self.manifest_path, {'version': CACHE_VERSION, 'files': manifest})
+            live = {entry[2] + '.json' for entry in manifest.values()}
+            for name in os.listdir(self.cache_dir):
+                if name.endswith('.json') and name != 'manifest.json' and name not in live:
+                    os.remove(os.path.join(self.cache_dir, name))
+        except OSError:
+            pass
+
+    def diagrams(self):
+        root = os.path.join(self.project_dir, 'app', 'diagrams')
+        found = []
+        for dirpath, dirnames, filenames in os.walk(root):
+            dirnames[:] = [d for d in dirnames if d not in ('target', '.git')]
+            found += [os.path.join(dirpath, n) for n in filenames if n.endswith('.proc')]
+        return sorted(found)
+
+
+_CACHES = {}
+_CACHES_LOCK = threading.Lock()
+
+
+def open_cache(project_dir):
+    """Return the process-wide cache for project_dir (the hook daemon keeps it warm)."""
+    with _CACHES_LOCK:
+        cache = _CACHES.get(project_dir)
+        if cache is None:
+            cache = _CACHES[project_dir] = ScriptCache(project_dir)
+        return cache
+
+
+def _project_dir():
+    project_dir = os.environ.get('CLAUDE_PROJECT_DIR', '')
+    if project_dir:
+        return project_dir
+    hooks_dir = os.path.dirname(os.path.dirname(os.path.abspath(__file__)))
+    return os.path.dirname(os.path.dirname(hooks_dir))
+
+
+def main(argv):
+    if len(argv) < 2:
+        print(__doc__.strip(), file=sys.stderr)
+        return 0
+    command, args = argv[1], argv[2:]
+    cache = open_cache(_project_dir())
+
+    if command == 'grep' and args:
+        pattern = args[0]
+        if '-w' in args[1:]:
+            pattern = r'\b(?:%s)\b' % pattern
+        regex = re.compile(pattern)
+        for proc in cache.diagrams():
+            for script in cache.scripts(proc):
+                for offset, text in enumerate(script['content'].split('\n')):
+                    if regex.search(text):
+                        print('%s:%d [%s / %s] +%d: %s' % (os.path.relpath(proc, cache.project_dir), script['line'],
+                                                           script['owner'] or '-', script['name'], offset + 1,
+                                                           text.strip()))
+    elif command == 'list':
+        for proc in (args or cache.diagrams()):
+            scripts = cache.scripts(proc)
+            print('%s: %d script(s)' % (os.path.relpath(proc, cache.project_dir), len(scripts)))
+            for script in scripts:
+                print('  line %-6d %-24s %-28s %s' % (script['line'], script['type'], script['name'],
+                                                      script['owner']))
+    elif command == 'show' and args:
+        for script in cache.scripts(args[0]):
+            print('// ---- %s  [%s]  line %d  %s' % (script['name'], script['type'], script['line'],
+                                                   script['owner']))
+            print(script['content'])
+    else:
+        print('proc_scripts: unknown command %r' % command, file=sys.stderr)
+    return 0
+
+
+if __name__ == '__main__':
+    try:
+        sys.exit(main(sys.argv))
+    except (OSError, ExpatError) as exc:
+        print('proc_scripts: %s' % exc, file=sys.stderr)
+        sys.exit(0)
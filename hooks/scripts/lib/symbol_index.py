@@ -0,0 +1,279 @@
+#!/usr/bin/env python3
+"""
+symbol_index.py - Persistent method index for the method-usages check
+
+Records method declarations and call sites found in extensions/ (Java, Groovy,
+Kotlin), app/src-groovy/ and the Groovy scripts embedded in app/diagrams/*.proc
+(extracted by proc_scripts.py, so XML attributes never match) in a SQLite database (.claude/cache/symbol-index.db). Before each query, only
+the files whose mtime or size changed since the previous run are re-parsed, so
+a lookup costs a directory stat walk plus one indexed SELECT.
+
+Matching is on exact identifiers: a lookup for `get` returns the files that
+declare or call `get(...)` (or reference `::get`), not every file containing
+the letters "get". Comments are ignored; string interpolations are kept
+because Groovy GStrings can call methods.
+
+Usage:
+  symbol_index.py report <method> [--exclude <file>]   # warning block used by the hook
+  symbol_index.py query <method>                       # every hit as path:line kind
+  symbol_index.py refresh | stats
+Exit 0 = always (informational only)
+"""
+
+import bisect
+import os
+import re
+import sqlite3
+import sys
+import threading
+
+import proc_scripts
+
+SCHEMA_VERSION = 2
+
+# (label shown in the report, root below the project, extensions, report limit)
+ROOTS = (
+    ('Extensions', 'extensions', ('.java', '.groovy', '.kt'), 15),
+    ('Groovy Scripts', os.path.join('app', 'src-groovy'), ('.groovy',), 5),
+    ('Process Definitions', os.path.join('app', 'diagrams'), ('.proc',), 5),
+)
+SKIP_DIRS = {'target', 'build', 'node_modules', '.git', '.idea', '.gradle'}
+
+COMMENT_OR_STRING = re.compile(
+    r'//[^\n]*|/\*.*?\*/|"""(?:.|\n)*?"""|"(?:\\.|[^"\\\n])*"|\'(?:\\.|[^\'\\\n])*\'', re.S)
+# An identifier followed by "(", with the word (or closing > / ]) right before it when
+# only whitespace separates them: "String name(" or "def name(" declare, "x.name(" calls
+CALL = re.compile(r'(?:([\w$]+|[>\]])\s+)?([A-Za-z_$][\w$]*)\s*\(')
+METHOD_REF = re.compile(r'::\s*([A-Za-z_$][\w$]*)')
+NEWLINE = re.compile(r'\n')
+NOT_METHODS = frozenset(('if', 'for', 'while', 'switch', 'catch', 'synchronized', 'return', 'new',
+                         'super', 'this', 'assert', 'throw', 'try', 'else', 'when'))
+NOT_TYPES = frozenset(('new', 'return', 'throw', 'else', 'case', 'in', 'yield', 'await', 'assert', 'and', 'or'))
+
+
+def _strip_comments(text):
+    def blank(match):
+        token = match.group(0)
+        if token.startswith(('//', '/*')):
+            return '\n' * token.count('\n')
+        return token
+    return COMMENT_OR_STRING.sub(blank, text)
+
+
+def extract_symbols(text):
+    """Return {(name, kind): first_line} where kind is 'decl' or 'call'."""
+    text = _strip_comments(text)
+    newlines = [m.start() for m in NEWLINE.finditer(text)]
+    symbols = {}
+
+    def add(name, kind, offset):
+        key = (name, kind)
+        if key not in symbols:
+            symbols[key] = bisect.bisect_right(newlines, offset) + 1
+
+    for match in CALL.finditer(text):
+        previous, name = match.group(1), match.group(2)
+        if name in NOT_METHODS:
+            continue
+        is_decl = previous is not None and previous not in NOT_TYPES and not previous.isdigit()
+        add(name, 'decl' if is_decl else 'call', match.start(2))
+    for match in METHOD_REF.finditer(text):
+        add(match.group(1), 'call', match.start())
+    return symbols
+
+
+def extract_proc_symbols(scripts):
+    """Symbols of the scripts extracted from a .proc, located at each script's element line."""
+    symbols = {}
+    for script in scripts:
+        for key in extract_symbols(script['content']):
+            symbols.setdefault(key, script['line'])
+    return symbols
+
+
+class SymbolIndex:
+    """SQLite-backed identifier index, refreshed incrementally from file mtimes."""
+
+    def __init__(self, project_dir, db_path=None):
+        self.project_dir = project_dir
+        self.db_path = db_path or os.path.join(project_dir, '.claude', 'cache', 'symbol-index.db')
+        os.makedirs(os.path.dirname(self.db_path), exist_ok=True)
+        self.lock = threading.Lock()
+        self.db = sqlite3.connect(self.db_path, timeout=10, isolation_level=None, check_same_thread=False)
+        self.db.execute('PRAGMA journal_mode=WAL')
+        self.db.execute('PRAGMA synchronous=NORMAL')
+        version = self.db.execute('PRAGMA user_version').fetchone()[0]
+        if version != SCHEMA_VERSION:
+            self.db.executescript('''
+                DROP TABLE IF EXISTS files;
+                DROP TABLE IF EXISTS symbols;
+                CREATE TABLE files (path TEXT PRIMARY KEY, root TEXT, mtime INTEGER, size INTEGER);
+                CREATE TABLE symbols (name TEXT, path TEXT, kind TEXT, line INTEGER);
+                CREATE INDEX symbols_name ON symbols(name);
+                CREATE INDEX symbols_path ON symbols(path);
+                PRAGMA user_version = %d;
+            ''' % SCHEMA_VERSION)
+
+    def _scan(self):
+        """Yield (relative path, root label, mtime_ns, size) for every indexed file on disk."""
+        for label, root, extensions, _ in ROOTS:
+            top = os.path.join(self.project_dir, root)
+            stack = [top] if os.path.isdir(top) else []
+            while stack:
+                try:
+                    entries = list(os.scandir(stack.pop()))
+                except OSError:
+                    continue
+                for entry in entries:
+                    if entry.is_dir(follow_symlinks=False):
+                        if entry.name not in SKIP_DIRS:
+                            stack.append(entry.path)
+                    elif entry.name.endswith(extensions):
+                        try:
+                            st = entry.stat()
+                        except OSError:
+                            continue
+                        yield (os.path.relpath(entry.path, self.project_dir).replace('\\', '/'),
+                               label, st.st_mtime_ns, st.st_size)
+
+    def refresh(self):
+        """Re-parse changed files and drop deleted ones; return the number of files touched."""
+        with self.lock:
+            known = {path: (mtime, size) for path, mtime, size
+                     in self.db.execute('SELECT path, mtime, size FROM files')}
+            seen = set()
+            changed = []
+            for path, label, mtime, size in self._scan():
+                seen.add(path)
+                if known.get(path) != (mtime, size):
+                    changed.append((path, label, mtime, size))
+            removed = [path for path in known if path not in seen]
+            if not changed and not removed:
+                return 0
+
+            parsed = []
+            for path, label, mtime, size in changed:
+                full_path = os.path.join(self.project_dir, path)
+                try:
+                    if path.endswith('.proc'):
+                        symbols = extract_proc_symbols(proc_scripts.open_cache(self.project_dir).scripts(full_path))
+                    else:
+                        with open(full_path, encoding='utf-8', errors='replace') as f:
+                            symbols = extract_symbols(f.read())
+                except (OSError, proc_scripts.ExpatError):
+                    continue
+                parsed.append((path, label, mtime, size, symbols))
+
+            self.db.execute('BEGIN IMMEDIATE')
+            try:
+                for path in removed + [entry[0] for entry in changed]:
+                    self.db.execute('DELETE FROM symbols WHERE path = ?', (path,))
+                    self.db.execute('DELETE FROM files WHERE path = ?', (path,))
+                for path, label, mtime, size, symbols in parsed:
+                    self.db.execute('INSERT INTO files VALUES (?, ?, ?, ?)', (path, label, mtime, size))
+                    self.db.executemany('INSERT INTO symbols VALUES (?, ?, ?, ?)',
+                                        [(name, path, kind, line) for (name, kind), line in symbols.items()])
+                self.db.execute('COMMIT')
+            except Exception:
+                self.db.execute('ROLLBACK')
+                raise
+            return len(changed) + len(removed)
+
+    def usages(self, name):
+        """Return [(root label, absolute path, kind, line)] for an exact method name."""
+        with self.lock:
+            rows = self.db.execute(
+                'SELECT f.root, s.path, s.kind, s.line FROM symbols s JOIN files f ON f.path = s.path '
+                'WHERE s.name = ? ORDER BY s.path, s.kind DESC', (name,)).fetchall()
+        hits = []
+        seen = set()
+        for label, path, kind, line in rows:
+            if path in seen:
+                continue
+            seen.add(path)
+            hits.append((label, os.path.join(self.project_dir, path), kind, line))
+        return hits
+
+    def stats(self):
+        with self.lock:
+            files = self.db.execute('SELECT COUNT(*) FROM files').fetchone()[0]
+            symbols = self.db.execute('SELECT COUNT(*) FROM symbols').fetchone()[0]
+        return {'files': files, 'symbols': symbols, 'db': self.db_path}
+
+
+_INDEXES = {}
+_INDEXES_LOCK = threading.Lock()
+
+
+def open_index(project_dir):
+    """Return the process-wide index for project_dir (the hook daemon keeps it open)."""
+    with _INDEXES_LOCK:
+        index = _INDEXES.get(project_dir)
+        if index is None:
+            index = _INDEXES[project_dir] = SymbolIndex(project_dir)
+        return index
+
+
+def usage_report(project_dir, method, exclude=None):
+    """Return the hook's warning block for other files using method, or '' when there are none."""
+    index = open_index(project_dir)
+    index.refresh()
+    exclude = os.path.abspath(exclude) if exclude else None
+    groups = []
+    for label, _, _, limit in ROOTS:
+        hits = [(path, kind, line) for root, path, kind, line in index.usages(method)
+                if root == label and os.path.abspath(path) != exclude]
+        if hits:
+            groups.append((label, hits[:limit]))
+    if not groups:
+        return ''
+    out = ['', "WARNING: Method '%s' is also used in these files:" % method]
+    for label, hits in groups:
+        out.append('  [%s]' % label)
+        out += ['    %s:%d%s' % (path, line, ' (declares)' if kind == 'decl' else '') for path, kind, line in hits]
+    out += ['', 'Consider updating these files to match the new signature. '
+                'Use /refactor-method-signature for automated updates.']
+    return '\n'.join(out)
+
+
+def _project_dir():
+    project_dir = os.environ.get('CLAUDE_PROJECT_DIR', '')
+    if project_dir:
+        return project_dir
+    hooks_dir = os.path.dirname(os.path.dirname(os.path.abspath(__file__)))
+    return os.path.dirname(os.path.dirname(hooks_dir))
+
+
+def main(argv):
+    if len(argv) < 2:
+        print(__doc__.strip(), file=sys.stderr)
+        return 0
+    command = argv[1]
+    project_dir = _project_dir()
+    if command == 'report' and len(argv) >= 3:
+        exclude = argv[argv.index('--exclude') + 1] if '--exclude' in argv[:-1] else None
+        report = usage_report(project_dir, argv[2], exclude)
+        if report:
+            print(report, file=sys.stderr)
+    elif command == 'query' and len(argv) >= 3:
+        index = open_index(project_dir)
+        index.refresh()
+        for _, path, kind, line in index.usages(argv[2]):
+            print('%s:%d %s' % (path, line, kind))
+    elif command == 'refresh':
+        print('%d file(s) re-indexed' % open_index(project_dir).refresh())
+    elif command == 'stats':
+        index = open_index(project_dir)
+        index.refresh()
+        print(index.stats())
+    else:
+        print('symbol_index: unknown command %r' % command, file=sys.stderr)
+    return 0
+
+
+if __name__ == '__main__':
+    try:
+        sys.exit(main(sys.argv))
+    except (sqlite3.Error, OSError) as exc:
+        print('symbol_index: %s' % exc, file=sys.stderr)
+        sys.exit(0)
@@ -0,0 +1,24 @@
+#!/bin/bash
+# post-edit-dispatcher.sh - Run several PostToolUse checks from one process
+# Fires: PostToolUse on Edit/Write
+# Behavior: Reads the tool-call JSON once, routes the edited file by path to the
+#           named checks and runs them concurrently in a single Python process.
+#           Checks whose path filter does not match are never started.
+#           Warns only (does not block).
+# Scope: ★★★ Enterprise — drop-in replacement for the individual check-*.sh entries
+#
+# Usage: bash post-edit-dispatcher.sh <check> [<check> ...]
+#   Checks (same rules as the matching check-<name>.sh script):
+#     method-usages  bdm-countfor  hardcoded-strings  code-format  code-style
+#     document-pattern  openapi-annotations  skill-structure  test-pair
+# Requires: lib/post_edit_checks.py next to this script
+# Exit 0 = always allow (informational only)
+
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+
+HOOK_DIR="${0%/*}"
+[ "$HOOK_DIR" = "$0" ] && HOOK_DIR="."
+
+"$PYTHON_CMD" "$HOOK_DIR/lib/post_edit_checks.py" "$@"
+
+exit 0
@@ -4,6 +4,21 @@
 # Purpose: Run mvn compile before git commit to ensure project stability
 # Exit 0 = allow, Exit 2 = block
 # Skip: set SKIP_COMPILE=1 to bypass
+# Mode: COMPILE_MODE=incremental (default) builds only the Maven modules owning
+#       the staged files, plus what they need and what depends on them
+#       (-pl ... -am -amd). COMPILE_MODE=full compiles the whole reactor.
+#       COMPILE_MODE=daemon sends up to COMPILE_DAEMON_MAX_FILES (default 5) staged
+#       sources to a warm javac server (lib/CompileDaemon.java) and compiles them
+#       in memory; it starts the server on first use and falls back to the
+#       incremental Maven build when the server is not ready, a pom.xml is staged
+#       or a .java file is deleted.
+# Cache: tree hashes that compiled successfully are kept in .claude/cache/compile-verdicts
+#        (shared with pre-push-validate.sh); a staged tree (git write-tree) found there
+#        skips Maven. A verdict is only recorded when Maven compiled exactly the index
+#        (no unstaged changes, no untracked sources): "<tree><TAB>full" for a
+#        whole-reactor build, "<tree><TAB>partial" for an incremental one. Both skip a
+#        re-run of this hook on the same staged tree; pre-push-validate.sh only trusts
+#        full verdicts (COMPILE_MODE=full). Untagged lines are not trusted.
 
 PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
 
@@ -31,23 +46,144 @@ if [ ! -f "$PROJECT_DIR/pom.xml" ]; then
 fi
 
 # Only compile if .java files are staged
-if ! (cd "$PROJECT_DIR" && git diff --cached --name-only 2>/dev/null | grep -qE '\.java$'); then
+STAGED_FILES=$(cd "$PROJECT_DIR" && git diff --cached --name-only --relative 2>/dev/null)
+if ! echo "$STAGED_FILES" | grep -qE '\.java$'; then
     exit 0
 fi
 
-echo "Pre-commit hook: Running mvn compile (Java files staged)..." >&2
-
-# Run Maven compile (without clean for speed)
-MVN_OUTPUT=$(cd "$PROJECT_DIR" && mvn compile -q 2>&1)
-MVN_EXIT=$?
+# Skip when this exact staged content already compiled successfully
+CACHE_DIR="$PROJECT_DIR/.claude/cache"
+VERDICT_FILE="$CACHE_DIR/compile-verdicts"
+TREE_HASH=$(cd "$PROJECT_DIR" && git write-tree 2>/dev/null)
+if [ -n "$TREE_HASH" ] && grep -qxF -e "$TREE_HASH"$'\t'full -e "$TREE_HASH"$'\t'partial "$VERDICT_FILE" 2>/dev/null; then
+    echo "Pre-commit hook: Staged content already compiled successfully (tree ${TREE_HASH:0:12}). Skipping mvn compile." >&2
+    exit 0
+fi
 
-if [ $MVN_EXIT -ne 0 ]; then
-    echo "BLOCKED: Maven compilation failed. Fix the following errors before committing:" >&2
+block_commit() {
+    echo "BLOCKED: ${2:-Maven} compilation failed. Fix the following errors before committing:" >&2
     echo "" >&2
-    echo "$MVN_OUTPUT" | grep -E "^\[ERROR\]" | head -20 >&2
+    echo "$1" | grep -E "^\[ERROR\]" | head -20 >&2
     echo "" >&2
     echo "Run /compile-project for full details. Set SKIP_COMPILE=1 to bypass." >&2
     exit 2
+}
+
+# Client for lib/CompileDaemon.java: exit 0 = compiled, 1 = errors, 3 = daemon unreachable
+COMPILE_CLIENT='
+import socket, sys
+try:
+    sock = socket.socket(socket.AF_UNIX, socket.SOCK_STREAM)
+    sock.settimeout(120)
+    sock.connect(sys.argv[1])
+    sock.sendall(("COMPILE\n" + sys.stdin.read()).encode("utf-8"))
+    sock.shutdown(socket.SHUT_WR)
+    chunks = []
+    while True:
+        chunk = sock.recv(65536)
+        if not chunk:
+            break
+        chunks.append(chunk)
+except (OSError, AttributeError):
+    sys.exit(3)
+lines = b"".join(chunks).decode("utf-8", "replace").splitlines()
+status = lines.pop() if lines else ""
+print("\n".join(lines))
+sys.exit(0 if status == "EXIT 0" else 1 if status.startswith("EXIT") else 3)
+'
+
+if [ "${COMPILE_MODE:-incremental}" = "daemon" ]; then
+    STAGED_SOURCES=$(echo "$STAGED_FILES" | grep -E '\.java$' | while IFS= read -r staged; do
+        [ -f "$PROJECT_DIR/$staged" ] && echo "$PROJECT_DIR/$staged"
+    done)
+    SOURCE_COUNT=$(echo "$STAGED_SOURCES" | grep -c .)
+    # A deleted (or renamed) class can break sources that are not staged: leave it to Maven
+    DELETED_SOURCES=$(cd "$PROJECT_DIR" && git diff --cached --name-only --relative --no-renames --diff-filter=D 2>/dev/null \
+        | grep -E '\.java$')
+    if [ "$SOURCE_COUNT" -gt 0 ] && [ "$SOURCE_COUNT" -le "${COMPILE_DAEMON_MAX_FILES:-5}" ] \
+        && [ -z "$DELETED_SOURCES" ] && ! echo "$STAGED_FILES" | grep -qE 'pom\.xml$'; then
+        DAEMON_SOCK="${COMPILE_DAEMON_SOCKET:-$CACHE_DIR/compile-daemon.sock}"
+        DAEMON_OUTPUT=$(echo "$STAGED_SOURCES" | "$PYTHON_CMD" -c "$COMPILE_CLIENT" "$DAEMON_SOCK" 2>/dev/null)
+        case $? in
+            0)
+                echo "Pre-commit hook: javac daemon compiled $SOURCE_COUNT staged file(s) successfully. Proceeding with commit." >&2
+                exit 0
+                ;;
+            1)
+                block_commit "$DAEMON_OUTPUT" javac
+                ;;
+            *)
+                DAEMON_PID_FILE="$CACHE_DIR/compile-daemon.pid"
+                if command -v java >/dev/null 2>&1 && ! kill -0 "$(cat "$DAEMON_PID_FILE" 2>/dev/null)" 2>/dev/null; then
+                    mkdir -p "$CACHE_DIR"
+                    nohup java "$(dirname "$0")/lib/CompileDaemon.java" --project "$PROJECT_DIR" \
+                        --socket "$DAEMON_SOCK" > "$CACHE_DIR/compile-daemon.log" 2>&1 &
+                    echo $! > "$DAEMON_PID_FILE"
+                    echo "Pre-commit hook: Starting javac daemon in the background; using Maven for this commit." >&2
+                fi
+                ;;
+        esac
+    fi
+fi
+
+# Find the Maven module (nearest pom.xml below the project root) owning a path
+owning_module() {
+    local dir
+    dir=$(dirname "$1")
+    while [ "$dir" != "." ] && [ "$dir" != "/" ]; do
+        if [ -f "$PROJECT_DIR/$dir/pom.xml" ]; then
+            echo "$dir"
+            return
+        fi
+        dir=$(dirname "$dir")
+    done
+    echo "."
+}
+
+MVN_ARGS=(compile -q)
+if [ "${COMPILE_MODE:-incremental}" != "full" ]; then
+    MODULES=$(echo "$STAGED_FILES" | grep -E '(\.java|pom\.xml)$' | while IFS= read -r staged; do
+        owning_module "$staged"
+    done | sort -u)
+    if [ -n "$MODULES" ] && ! echo "$MODULES" | grep -qx '\.'; then
+        MVN_ARGS+=(-pl "$(echo "$MODULES" | paste -sd, -)" -am -amd)
+    fi
+fi
+
+if [ ${#MVN_ARGS[@]} -gt 2 ]; then
+    echo "Pre-commit hook: Running mvn compile for $(echo "$MODULES" | wc -l | tr -d ' ') module(s) owning staged files: $(echo "$MODULES" | paste -sd' ' -)" >&2
+else
+    echo "Pre-commit hook: Running mvn compile (Java files staged)..." >&2
+fi
+
+# Run Maven compile (without clean for speed)
+MVN_OUTPUT=$(cd "$PROJECT_DIR" && mvn "${MVN_ARGS[@]}" 2>&1)
+MVN_EXIT=$?
+FULL_BUILD=$([ ${#MVN_ARGS[@]} -eq 2 ] && echo 1 || echo 0)
+
+# A module outside the reactor cannot be selected with -pl: compile everything instead
+if [ $MVN_EXIT -ne 0 ] && echo "$MVN_OUTPUT" | grep -q "Could not find the selected project in the reactor"; then
+    echo "Pre-commit hook: Staged module not in the reactor, running full mvn compile..." >&2
+    MVN_OUTPUT=$(cd "$PROJECT_DIR" && mvn compile -q 2>&1)
+    MVN_EXIT=$?
+    FULL_BUILD=1
+fi
+
+if [ $MVN_EXIT -ne 0 ]; then
+    block_commit "$MVN_OUTPUT"
+fi
+
+# Remember the verdict; the committed tree is what pre-push-validate.sh looks up.
+# Maven compiled the working tree: it stands for the staged tree only when the working
+# tree has no unstaged edits or untracked sources, and for the whole tree (full) only
+# when the whole reactor was built.
+if [ -n "$TREE_HASH" ] \
+    && (cd "$PROJECT_DIR" && git diff --quiet 2>/dev/null) \
+    && [ -z "$(cd "$PROJECT_DIR" && git ls-files --others --exclude-standard -- '*.java' '*pom.xml' 2>/dev/null)" ] \
+    && mkdir -p "$CACHE_DIR" 2>/dev/null; then
+    { tail -n 199 "$VERDICT_FILE" 2>/dev/null
+      printf '%s\t%s\n' "$TREE_HASH" "$([ "$FULL_BUILD" = "1" ] && echo full || echo partial)"; } > "$VERDICT_FILE.tmp.$$" \
+        && mv "$VERDICT_FILE.tmp.$$" "$VERDICT_FILE"
 fi
 
 echo "Pre-commit hook: Compilation successful. Proceeding with commit." >&2
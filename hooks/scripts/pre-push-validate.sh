@@ -3,6 +3,14 @@
 # Fires: PreToolUse on Bash (intercepts git push)
 # Behavior: Blocks push if critical issues detected
 # Scope: ★★★ Enterprise — prevents pushing broken code
+# Cache: skips mvn compile when the HEAD tree is listed in .claude/cache/compile-verdicts
+#        as "<tree><TAB>full": a whole-reactor build of exactly that tree, written by
+#        pre-commit-compile.sh and by this hook on a clean working tree.
+#        Limitation: pre-commit-compile.sh only writes full verdicts with
+#        COMPILE_MODE=full. Its default incremental mode writes "partial" verdicts,
+#        which cover only the modules that were built, so they are ignored here.
+#        In that mode the first push of a tree runs mvn compile; later pushes of
+#        the same tree from a clean working tree skip it.
 # Exit 0 = allow, Exit 2 = block
 
 PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
@@ -41,8 +49,12 @@ if [ "$UNCOMMITTED" -gt 0 ]; then
     # This is a warning, not a blocker
 fi
 
-# Check 2: Maven project compiles (if pom.xml exists)
-if [ -f "$CWD/pom.xml" ]; then
+# Check 2: Maven project compiles (if pom.xml exists), unless its HEAD tree already did
+VERDICT_FILE="${CLAUDE_PROJECT_DIR:-$CWD}/.claude/cache/compile-verdicts"
+HEAD_TREE=$(cd "$CWD" && git rev-parse -q --verify "HEAD^{tree}" 2>/dev/null)
+if [ -f "$CWD/pom.xml" ] && [ -n "$HEAD_TREE" ] && grep -qxF "$HEAD_TREE"$'\t'full "$VERDICT_FILE" 2>/dev/null; then
+    echo "Pre-push: HEAD tree ${HEAD_TREE:0:12} already compiled successfully. Skipping mvn compile." >&2
+elif [ -f "$CWD/pom.xml" ]; then
     MVN_OUTPUT=$(cd "$CWD" && mvn compile -q -Dmaven.test.skip=true 2>&1)
     if [ $? -ne 0 ]; then
         echo "" >&2
@@ -51,6 +63,11 @@ if [ -f "$CWD/pom.xml" ]; then
         echo "" >&2
         exit 2
     fi
+    # Only a clean working tree compiles exactly the HEAD tree
+    if [ -n "$HEAD_TREE" ] && [ "$UNCOMMITTED" -eq 0 ] && mkdir -p "${VERDICT_FILE%/*}" 2>/dev/null; then
+        { tail -n 199 "$VERDICT_FILE" 2>/dev/null; printf '%s\tfull\n' "$HEAD_TREE"; } > "$VERDICT_FILE.tmp.$$" \
+            && mv "$VERDICT_FILE.tmp.$$" "$VERDICT_FILE"
+    fi
 fi
 
 # Check 3: No TODO/FIXME in staged files (warning only)
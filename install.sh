@@ -112,6 +112,12 @@ install_enterprise() {
         cp "$TOOLKIT_DIR/hooks/scripts/$hook" "$MANAGED_DIR/hooks/"
     done
     chmod +x "$MANAGED_DIR/hooks/"*.sh 2>/dev/null || true
+    # Shared BDM model used by skills/bonita-bdm-expert/scripts/validate-bdm.sh and
+    # analyze-query-indexes.sh (symbol_index/proc_scripts give the query call sites)
+    mkdir -p "$MANAGED_DIR/hooks/lib"
+    for lib in bdm_model.py bdm_query_cost.py symbol_index.py proc_scripts.py; do
+        cp "$TOOLKIT_DIR/hooks/scripts/lib/$lib" "$MANAGED_DIR/hooks/lib/"
+    done
 
     # Copy all 21 skills
     mkdir -p "$MANAGED_DIR/skills"
@@ -280,6 +286,12 @@ install_project() {
         cp "$TOOLKIT_DIR/hooks/scripts/$hook" "$PROJECT_DIR/.claude/hooks/"
     done
 
+    echo -e "  Copying post-edit dispatcher (used by the settings templates)..."
+    cp "$TOOLKIT_DIR/hooks/scripts/post-edit-dispatcher.sh" "$PROJECT_DIR/.claude/hooks/"
+    cp "$TOOLKIT_DIR/hooks/scripts/hook-client.sh" "$PROJECT_DIR/.claude/hooks/"
+    mkdir -p "$PROJECT_DIR/.claude/hooks/lib"
+    cp "$TOOLKIT_DIR/hooks/scripts/lib/"*.py "$TOOLKIT_DIR/hooks/scripts/lib/"*.java "$PROJECT_DIR/.claude/hooks/lib/"
+
     echo -e "  Copying config files to project root..."
     cp "$TOOLKIT_DIR/configs/checkstyle.xml" "$PROJECT_DIR/"
     cp "$TOOLKIT_DIR/configs/pmd-ruleset.xml" "$PROJECT_DIR/"
@@ -379,6 +391,12 @@ GENERIC_EOF
     # Make all hooks executable
     chmod +x "$PROJECT_DIR/.claude/hooks/"*.sh 2>/dev/null || true
 
+    # Hook caches (compile verdicts, daemon socket) are local state, never committed
+    if ! grep -qxF ".claude/cache/" "$PROJECT_DIR/.gitignore" 2>/dev/null; then
+        echo -e "  Adding .claude/cache/ to .gitignore..."
+        echo ".claude/cache/" >> "$PROJECT_DIR/.gitignore"
+    fi
+
     # Copy CLAUDE.md template if none exists
     if [ ! -f "$PROJECT_DIR/CLAUDE.md" ]; then
         echo -e "  Creating CLAUDE.md from template..."
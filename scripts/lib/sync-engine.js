@@ -0,0 +1,587 @@
+#!/usr/bin/env node
+// sync-engine.js — Parallel, content-hash based engine behind sync-claude-project.sh
+//
+// Usage: node sync-engine.js [--json <file>|-] [--jobs N] <repo-path>...
+//        node sync-engine.js --watch [--poll] [--debounce MS] [--interval MS] <repo-path>...
+//
+// Repos and the files of each mapping are processed concurrently (at most --jobs
+// file operations in flight, default 2 x CPUs). A file is compared in three steps:
+//   1. size differs                       -> modified (nothing read)
+//   2. size+mtime of both sides match the
+//      cache and the cached hashes agree  -> unchanged (nothing read)
+//   3. otherwise sha256 of each side whose stat changed since the cache
+// A modified target is patched in place: only the 64 KB blocks that differ are
+// written, then the file is truncated to the source length.
+//
+// The cache lives outside the synced repos, in the user cache directory
+// ($XDG_CACHE_HOME or ~/.cache, %LOCALAPPDATA% on Windows)/claude-project-sync/, one
+// file per repo (size, mtime and hash per path). The colored report goes to stdout, or to stderr when the JSON
+// summary is written to stdout (--json -).
+//
+// --watch syncs once, then subscribes to change events (fs.watch: inotify, FSEvents,
+// ReadDirectoryChangesW) on the directory of every mapping source and of each manifest.
+// Events are debounced (--debounce, default 300 ms) and only the files named in them
+// are mirrored. Directories fs.watch cannot follow (missing, network shares, inotify
+// limit reached) are polled every --interval ms (default 2000) instead; --poll polls all.
+// A changed manifest reloads the mappings of its repo. Deleted sources keep their target.
+//
+// Exit code: the number of new + modified files (capped at 255) for a single repo;
+// 0 with several repos, as the shell script did.
+
+'use strict';
+
+const crypto = require('crypto');
+const fs = require('fs');
+const os = require('os');
+const path = require('path');
+
+const CACHE_VERSION = 1;
+const BLOCK_SIZE = 64 * 1024;
+const GREEN = '\x1b[0;32m';
+const YELLOW = '\x1b[1;33m';
+const NC = '\x1b[0m';
+const MANIFEST = '.claude-project-sync.json';
+
+/** Run async task functions with at most `limit` of them in flight. */
+function createLimiter(limit) {
+  let active = 0;
+  const queue = [];
+  const next = () => {
+    if (active >= limit || queue.length === 0) {
+      return;
+    }
+    active++;
+    const { task, resolve, reject } = queue.shift();
+    task().then(resolve, reject).finally(() => {
+      active--;
+      next();
+    });
+  };
+  return (task) => new Promise((resolve, reject) => {
+    queue.push({ task, resolve, reject });
+    next();
+  });
+}
+
+/** Translate the bash glob of a mapping (*, ?, [...]) into an anchored RegExp. */
+function globToRegExp(glob) {
+  let out = '';
+  for (let i = 0; i < glob.length; i++) {
+    const c = glob[i];
+    if (c === '*') {
+      out += '[^/]*';
+    } else if (c === '?') {
+      out += '[^/]';
+    } else if (c === '[') {
+      const end = glob.indexOf(']', i + 1);
+      if (end < 0) {
+        out += '\\[';
+      } else {
+        out += '[' + glob.slice(i + 1, end).replace(/^!/, '^').replace(/\\/g, '\\\\') + ']';
+        i = end;
+      }
+    } else {
+      out += c.replace(/[.+^${}()|\\]/g, '\\$&');
+    }
+  }
+  return new RegExp('^' + out + '$');
+}
+
+async function statOrNull(file) {
+  try {
+    const st = await fs.promises.stat(file);
+    return st.isFile() ? st : null;
+  } catch (e) {
+    return null;
+  }
+}
+
+async function sha256(file) {
+  return crypto.createHash('sha256').update(await fs.promises.readFile(file)).digest('hex');
+}
+
+/** Cache file of a repo: keyed by its absolute path, so nothing is written into the repo. */
+function cacheFile(repoPath) {
+  const base = process.env.XDG_CACHE_HOME
+    || (process.platform === 'win32' && process.env.LOCALAPPDATA)
+    || path.join(os.homedir(), '.cache');
+  const key = crypto.createHash('sha256').update(path.resolve(repoPath)).digest('hex').slice(0, 16);
+  return path.join(base, 'claude-project-sync', path.basename(path.resolve(repoPath)) + '-' + key + '.json');
+}
+
+class HashCache {
+  constructor(repoPath) {
+    this.file = cacheFile(repoPath);
+    // Earlier versions kept the cache inside the repo, where it showed up as untracked
+    fs.rm(path.join(repoPath, '.claude', 'cache', 'claude-project-sync.json'), { force: true }, () => {});
+    this.entries = {};
+    this.dirty = false;
+    try {
+      const data = JSON.parse(fs.readFileSync(this.file, 'utf8'));
+      if (data.version === CACHE_VERSION) {
+        this.entries = data.files || {};
+      }
+    } catch (e) {
+      // No cache yet: every file is hashed once
+    }
+  }
+
+  /** Cached hash when size and mtime still match, else null. */
+  lookup(key, st) {
+    const entry = this.entries[key];
+    return entry && entry[0] === st.size && entry[1] === st.mtimeMs ? entry[2] : null;
+  }
+
+  async hash(key, file, st) {
+    const cached = this.lookup(key, st);
+    if (cached) {
+      return cached;
+    }
+    const digest = await sha256(file);
+    this.record(key, st, digest);
+    return digest;
+  }
+
+  record(key, st, digest) {
+    this.entries[key] = [st.size, st.mtimeMs, digest];
+    this.dirty = true;
+  }
+
+  /** Persist the cache; with liveKeys, forget the paths no mapping produced this run. */
+  save(liveKeys) {
+    for (const key of Object.keys(this.entries)) {
+      if (liveKeys && !liveKeys.has(key)) {
+        delete this.entries[key];
+        this.dirty = true;
+      }
+    }
+    if (!this.dirty) {
+      return;
+    }
+    try {
+      fs.mkdirSync(path.dirname(this.file), { recursive: true });
+      const tmp = this.file + '.tmp.' + process.pid;
+      fs.writeFileSync(tmp, JSON.stringify({ version: CACHE_VERSION, files: this.entries }));
+      fs.renameSync(tmp, this.file);
+    } catch (e) {
+      // An unwritable cache directory still syncs, it just hashes again next time
+    }
+  }
+}
+
+/** Overwrite only the blocks of dst that differ from src; return the number of bytes written. */
+async function patchFile(src, dst) {
+  const [srcData, dstData] = await Promise.all([fs.promises.readFile(src), fs.promises.readFile(dst)]);
+  const handle = await fs.promises.open(dst, 'r+');
+  let written = 0;
+  try {
+    for (let offset = 0; offset < srcData.length; offset += BLOCK_SIZE) {
+      const block = srcData.subarray(offset, offset + BLOCK_SIZE);
+      if (!block.equals(dstData.subarray(offset, offset + BLOCK_SIZE))) {
+        await handle.write(block, 0, block.length, offset);
+        written += block.length;
+      }
+    }
+    if (dstData.length !== srcData.length) {
+      await handle.truncate(srcData.length);
+    }
+  } finally {
+    await handle.close();
+  }
+  return written;
+}
+
+/** Compare one source/target pair and bring the target up to date. */
+async function syncFile(repoPath, cache, src, dst) {
+  const srcKey = path.relative(repoPath, src).split(path.sep).join('/');
+  const dstKey = path.relative(repoPath, dst).split(path.sep).join('/');
+  const [srcStat, dstStat] = await Promise.all([statOrNull(src), statOrNull(dst)]);
+  const file = { source: srcKey, target: dstKey, status: 'unchanged', bytes: 0 };
+  if (!srcStat) {
+    file.status = 'missing-source';
+    return file;
+  }
+  const srcHash = () => cache.hash(srcKey, src, srcStat);
+
+  if (!dstStat) {
+    await fs.promises.mkdir(path.dirname(dst), { recursive: true });
+    await fs.promises.copyFile(src, dst);
+    file.status = 'new';
+    file.bytes = srcStat.size;
+  } else if (dstStat.size === srcStat.size && (await srcHash()) === (await cache.hash(dstKey, dst, dstStat))) {
+    return file;
+  } else {
+    file.status = 'modified';
+    file.bytes = await patchFile(src, dst);
+  }
+  // Target now has the source content: record it so the next run reads nothing
+  cache.record(dstKey, await fs.promises.stat(dst), await srcHash());
+  return file;
+}
+
+/** Where a mapping reads from, and the [source, target] pair of a file name in that directory. */
+function describeMapping(repoPath, m) {
+  if ((m.type || 'directory') === 'file') {
+    const src = path.join(repoPath, m.source || '');
+    const dst = path.join(repoPath, m.target || '');
+    return {
+      type: 'file', dir: path.dirname(src), pair: [src, dst],
+      pairFor: (name) => (name === path.basename(src) ? [src, dst] : null),
+    };
+  }
+  // "$SRC_DIR"$GLOB: a glob such as "sub/*.md" reads sub/ and still flattens into the target
+  const glob = m.glob || '*';
+  const dir = path.join(repoPath, m.source || '', path.posix.dirname(glob));
+  const pattern = globToRegExp(path.posix.basename(glob));
+  const targetDir = path.join(repoPath, m.target || '');
+  // Same concatenation as "$DST_DIR$FILENAME": targets end with a slash
+  const dstPrefix = targetDir + ((m.target || '').endsWith('/') ? path.sep : '');
+  return {
+    type: 'directory', dir, targetDir,
+    pairFor: (name) => (pattern.test(name) ? [path.join(dir, name), dstPrefix + name] : null),
+  };
+}
+
+/** Expand the manifest mappings into [source, target] pairs, as the shell loop did. */
+async function listPairs(repoPath, mappings) {
+  const pairs = [];
+  for (const spec of mappings.map((m) => describeMapping(repoPath, m))) {
+    if (spec.type === 'file') {
+      pairs.push(spec.pair);
+      continue;
+    }
+    let names;
+    try {
+      names = await fs.promises.readdir(spec.dir, { withFileTypes: true });
+    } catch (e) {
+      continue;
+    }
+    await fs.promises.mkdir(spec.targetDir, { recursive: true });
+    for (const entry of names) {
+      const pair = entry.isFile() ? spec.pairFor(entry.name) : null;
+      if (pair) {
+        pairs.push(pair);
+      }
+    }
+  }
+  return pairs;
+}
+
+async function readManifest(repoPath) {
+  return JSON.parse(await fs.promises.readFile(path.join(repoPath, MANIFEST), 'utf8'));
+}
+
+async function syncRepo(repoPath, limit) {
+  const started = Date.now();
+  const manifestPath = path.join(repoPath, MANIFEST);
+  const result = { path: repoPath, repo: path.basename(repoPath), label: '', status: 'skipped',
+    total: 0, new: 0, modified: 0, unchanged: 0, bytesWritten: 0, files: [], durationMs: 0 };
+  let manifest;
+  try {
+    manifest = await readManifest(repoPath);
+  } catch (e) {
+    result.reason = fs.existsSync(manifestPath) ? 'invalid .claude-project-sync.json' : 'no .claude-project-sync.json';
+    return result;
+  }
+  result.repo = manifest.repo || result.repo;
+  result.label = manifest.label || '';
+
+  const cache = new HashCache(repoPath);
+  const pairs = await listPairs(repoPath, manifest.mappings || []);
+  const files = await Promise.all(pairs.map(([src, dst]) => limit(() => syncFile(repoPath, cache, src, dst))));
+  const live = new Set();
+  for (const file of files) {
+    result.total++;
+    live.add(file.source).add(file.target);
+    if (file.status === 'new' || file.status === 'modified') {
+      result[file.status]++;
+      result.bytesWritten += file.bytes;
+      result.files.push(file);
+    } else if (file.status === 'unchanged') {
+      result.unchanged++;
+    }
+  }
+  cache.save(live);
+  result.status = result.new + result.modified === 0 ? 'in-sync' : 'synced';
+  result.durationMs = Date.now() - started;
+  return result;
+}
+
+function timestamp() {
+  return new Date().toTimeString().slice(0, 8);
+}
+
+/** Keeps one repo's targets in sync from change events on its mapping sources. */
+class RepoWatcher {
+  constructor(repoPath, limit, options, out) {
+    this.repoPath = repoPath;
+    this.limit = limit;
+    this.options = options;
+    this.out = out;
+    this.cache = new HashCache(repoPath);
+    this.specs = [];
+    this.label = '';
+    this.repo = path.basename(repoPath);
+    this.handles = [];
+    this.pending = new Map(); // directory -> Set of names, or null for "rescan everything"
+    this.timer = null;
+    this.running = Promise.resolve();
+  }
+
+  /** (Re)read the manifest and subscribe to every directory a mapping reads from. */
+  async start() {
+    this.stop();
+    try {
+      const manifest = await readManifest(this.repoPath);
+      this.repo = manifest.repo || this.repo;
+      this.label = manifest.label || '';
+      this.specs = (manifest.mappings || []).map((m) => describeMapping(this.repoPath, m));
+    } catch (e) {
+      this.specs = [];
+    }
+    // The repo root is always watched, for the manifest itself
+    const dirs = new Set([path.resolve(this.repoPath)].concat(this.specs.map((spec) => path.resolve(spec.dir))));
+    dirs.forEach((dir) => this.subscribe(dir));
+    return { mappings: this.specs.length, directories: dirs.size, polled: this.handles.filter((h) => h.polled).length };
+  }
+
+  subscribe(dir) {
+    if (!this.options.poll) {
+      try {
+        const watcher = fs.watch(dir, { persistent: true }, (event, name) => this.queue(dir, name ? String(name) : null));
+        watcher.on('error', () => {
+          watcher.close();
+          this.handles = this.handles.filter((h) => h.watcher !== watcher);
+          this.poll(dir);
+        });
+        this.handles.push({ dir, watcher, close: () => watcher.close() });
+        return;
+      } catch (e) {
+        // Missing directory, network share or inotify limit: poll instead
+      }
+    }
+    this.poll(dir);
+  }
+
+  /** Stat-poll one directory; the first listing is the baseline, later differences are queued. */
+  poll(dir) {
+    let previous = null;
+    const scan = async () => {
+      const current = new Map();
+      try {
+        for (const entry of await fs.promises.readdir(dir, { withFileTypes: true })) {
+          if (entry.isFile()) {
+            const st = await statOrNull(path.join(dir, entry.name));
+            current.set(entry.name, st ? st.size + ':' + st.mtimeMs : '');
+          }
+        }
+      } catch (e) {
+        // Directory absent for now: every file is new once it appears
+      }
+      if (previous) {
+        for (const [name, signature] of current) {
+          if (previous.get(name) !== signature) {
+            this.queue(dir, name);
+          }
+        }
+        for (const name of previous.keys()) {
+          if (!current.has(name)) {
+            this.queue(dir, name);
+          }
+        }
+      }
+      previous = current;
+    };
+    scan();
+    const timer = setInterval(scan, this.options.interval);
+    this.handles.push({ dir, polled: true, close: () => clearInterval(timer) });
+  }
+
+  queue(dir, name) {
+    if (name === null) {
+      this.pending.set(dir, null);
+    } else if (this.pending.get(dir) !== null) {
+      this.pending.set(dir, (this.pending.get(dir) || new Set()).add(name));
+    }
+    clearTimeout(this.timer);
+    this.timer = setTimeout(() => {
+      this.running = this.running.then(() => this.flush()).catch((err) => {
+        this.out.write(`${timestamp()} ${YELLOW}ERROR${NC} [${this.label}] ${this.repo}: ${err.message}\n`);
+      });
+    }, this.options.debounce);
+  }
+
+  /** Mirror the files named by the debounced events. */
+  async flush() {
+    const pending = this.pending;
+    this.pending = new Map();
+    const root = path.resolve(this.repoPath);
+    const manifestChanged = pending.has(root) && (pending.get(root) === null || pending.get(root).has(MANIFEST));
+    if (manifestChanged) {
+      const watched = await this.start();
+      this.out.write(`${timestamp()} ${GREEN}RELOAD${NC} [${this.label}] ${this.repo}: ${MANIFEST} changed, ` +
+        `${watched.mappings} mapping(s)\n`);
+      // New or changed mappings: one full pass, the cache keeps it cheap
+      const result = await syncRepo(this.repoPath, this.limit);
+      this.cache = new HashCache(this.repoPath);
+      if (result.status === 'synced') {
+        report(result, this.out);
+      }
+      return;
+    }
+
+    const jobs = [];
+    const seen = new Set();
+    for (const [dir, names] of pending) {
+      let list = names;
+      if (list === null) {
+        try {
+          list = (await fs.promises.readdir(dir)).filter((name) => name !== MANIFEST);
+        } catch (e) {
+          list = [];
+        }
+      }
+      for (const spec of this.specs.filter((s) => path.resolve(s.dir) === dir)) {
+        for (const name of list) {
+          const pair = spec.pairFor(name);
+          if (pair && !seen.has(pair[1])) {
+            seen.add(pair[1]);
+            jobs.push(this.limit(() => syncFile(this.repoPath, this.cache, pair[0], pair[1])));
+          }
+        }
+      }
+    }
+    for (const file of await Promise.all(jobs)) {
+      if (file.status === 'new' || file.status === 'modified') {
+        this.out.write(`${timestamp()} ${YELLOW}SYNC${NC} [${this.label}] ${this.repo}: ${file.source} -> ${file.target} ` +
+          `(${file.status}, ${file.bytes} bytes written)\n`);
+      } else if (file.status === 'missing-source' && names(pending).has(path.basename(file.source))) {
+        this.out.write(`${timestamp()} ${YELLOW}SKIP${NC} [${this.label}] ${this.repo}: ${file.source} removed, ` +
+          `${file.target} kept\n`);
+      }
+    }
+    this.cache.save();
+  }
+
+  stop() {
+    clearTimeout(this.timer);
+    this.handles.forEach((handle) => handle.close());
+    this.handles = [];
+  }
+}
+
+/** Every file name carried by a batch of events. */
+function names(pending) {
+  const all = new Set();
+  for (const list of pending.values()) {
+    (list || []).forEach((name) => all.add(name));
+  }
+  return all;
+}
+
+async function watchRepos(repos, limit, options, out) {
+  const watchers = repos.map((repo) => new RepoWatcher(repo, limit, options, out));
+  let directories = 0;
+  let polled = 0;
+  for (const watcher of watchers) {
+    const watched = await watcher.start();
+    directories += watched.directories;
+    polled += watched.polled;
+  }
+  out.write(`\nWatching ${directories} director${directories === 1 ? 'y' : 'ies'} in ${repos.length} repo(s)` +
+    (polled ? ` (${polled} polled every ${options.interval} ms)` : '') + ' - Ctrl+C to stop\n');
+  const stop = () => {
+    watchers.forEach((watcher) => {
+      watcher.stop();
+      watcher.cache.save();
+    });
+    process.exit(0);
+  };
+  process.on('SIGINT', stop);
+  process.on('SIGTERM', stop);
+}
+
+function report(result, out) {
+  if (result.status === 'skipped') {
+    out.write(`${YELLOW}SKIP${NC} ${path.basename(result.path)}: ${result.reason}\n`);
+  } else if (result.status === 'in-sync') {
+    out.write(`${GREEN}OK${NC}   [${result.label}] ${result.repo}: ${result.total} files checked, all in sync\n`);
+  } else {
+    out.write(`${YELLOW}SYNC${NC} [${result.label}] ${result.repo}: ${result.new} new, ${result.modified} modified, ` +
+      `${result.unchanged} unchanged (of ${result.total} total)\n`);
+    out.write('     Remember to update claude-project/CHANGELOG.md\n');
+  }
+}
+
+async function main(argv) {
+  let jsonTarget = null;
+  let jobs = Math.max(4, os.cpus().length * 2);
+  const watch = { enabled: false, poll: false, debounce: 300, interval: 2000 };
+  const repos = [];
+  for (let i = 0; i < argv.length; i++) {
+    if (argv[i] === '--json') {
+      jsonTarget = argv[++i] || '-';
+    } else if (argv[i] === '--jobs') {
+      jobs = Math.max(1, parseInt(argv[++i], 10) || jobs);
+    } else if (argv[i] === '--watch') {
+      watch.enabled = true;
+    } else if (argv[i] === '--poll') {
+      watch.enabled = true;
+      watch.poll = true;
+    } else if (argv[i] === '--debounce' || argv[i] === '--interval') {
+      watch[argv[i].slice(2)] = Math.max(10, parseInt(argv[++i], 10) || watch[argv[i - 1].slice(2)]);
+    } else {
+      repos.push(argv[i]);
+    }
+  }
+  const out = jsonTarget === '-' ? process.stderr : process.stdout;
+  const limit = createLimiter(jobs);
+  const started = Date.now();
+
+  const results = await Promise.all(repos.map((repo) => syncRepo(repo, limit)));
+  results.forEach((result) => report(result, out));
+
+  const changes = results.reduce((sum, r) => sum + r.new + r.modified, 0);
+  if (repos.length > 1) {
+    out.write('\n');
+    out.write(changes === 0 ? `${GREEN}All repos in sync!${NC}\n`
+      : `${YELLOW}${changes} files need attention across repos${NC}\n`);
+  }
+  if (jsonTarget) {
+    const summary = JSON.stringify({
+      generated: new Date().toISOString(),
+      durationMs: Date.now() - started,
+      jobs,
+      totals: {
+        repos: results.length,
+        files: results.reduce((sum, r) => sum + r.total, 0),
+        new: results.reduce((sum, r) => sum + r.new, 0),
+        modified: results.reduce((sum, r) => sum + r.modified, 0),
+        unchanged: results.reduce((sum, r) => sum + r.unchanged, 0),
+        bytesWritten: results.reduce((sum, r) => sum + r.bytesWritten, 0),
+      },
+      repos: results,
+    }, null, 2) + '\n';
+    if (jsonTarget === '-') {
+      process.stdout.write(summary);
+    } else {
+      fs.writeFileSync(jsonTarget, summary);
+    }
+  }
+  if (watch.enabled) {
+    await watchRepos(repos, limit, watch, out);
+    return 0;
+  }
+  return repos.length === 1 ? Math.min(changes, 255) : 0;
+}
+
+module.exports = { syncRepo, watchRepos, createLimiter, globToRegExp, report };
+
+if (require.main === module) {
+  main(process.argv.slice(2)).then((code) => {
+    process.exitCode = code;
+  }, (err) => {
+    process.stderr.write(`sync-engine: ${err.stack || err}\n`);
+    process.exitCode = 1;
+  });
+}
@@ -1,14 +1,17 @@
 #!/bin/bash
 # sync-claude-project.sh — Sync claude-project/ folders using .claude-project-sync.json manifests
-# Usage: sync-claude-project.sh [--all | <repo-path>]
-# Dependencies: node (for JSON parsing, no jq needed)
+# Usage: sync-claude-project.sh [--all | <repo-path>] [--json <file>|-] [--jobs N]
+#                               [--watch [--poll] [--debounce MS] [--interval MS]]
+#   --json      also write a machine-readable summary (- = stdout; the colored report then goes to stderr)
+#   --jobs      maximum concurrent file operations (default: 2 x CPUs)
+#   --watch     after the initial sync, keep running and mirror each source file as soon as it changes
+#   --poll      watch by polling instead of filesystem notifications (network drives, WSL mounts)
+#   --debounce  quiet period before a burst of changes is synced (default: 300 ms)
+#   --interval  polling period (default: 2000 ms)
+# Dependencies: node (lib/sync-engine.js: parallel, size+mtime then sha256 comparison, no jq needed)
 
 set -e
 
-GREEN='\033[0;32m'
-YELLOW='\033[1;33m'
-NC='\033[0m'
-
 REPOS=(
   "/c/PSProjects/bonita-upgrade-toolkit"
   "/c/PSProjects/bonita-audit-toolkit"
@@ -19,111 +22,39 @@ REPOS=(
   "/c/PSProjects/claude-code-toolkit"
 )
 
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+
 # Convert Git Bash path (/c/...) to Windows path (c:/...) for Node.js
 to_node_path() {
   echo "$1" | sed 's|^/\([a-zA-Z]\)/|\1:/|'
 }
 
-sync_repo() {
-  local REPO_PATH="$1"
-  local MANIFEST="$REPO_PATH/.claude-project-sync.json"
-
-  if [ ! -f "$MANIFEST" ]; then
-    echo -e "${YELLOW}SKIP${NC} $(basename "$REPO_PATH"): no .claude-project-sync.json"
-    return 0
-  fi
-
-  # Parse entire manifest in one node call — outputs pipe-separated lines
-  local NODE_PATH
-  NODE_PATH=$(to_node_path "$MANIFEST")
-  local PARSED
-  PARSED=$(node -e "
-    const d=JSON.parse(require('fs').readFileSync('$NODE_PATH','utf8'));
-    console.log('META|'+d.repo+'|'+d.label);
-    (d.mappings||[]).forEach(m=>console.log('MAP|'+(m.source||'')+'|'+(m.target||'')+'|'+(m.glob||'')+'|'+(m.type||'directory')));
-  " 2>/dev/null)
-
-  local REPO_NAME LABEL
-  REPO_NAME=$(echo "$PARSED" | grep "^META" | cut -d'|' -f2)
-  LABEL=$(echo "$PARSED" | grep "^META" | cut -d'|' -f3)
-
-  local TOTAL=0 MODIFIED=0 NEW=0 UNCHANGED=0
-
-  while IFS='|' read -r TAG SOURCE TARGET GLOB TYPE; do
-    [ "$TAG" = "MAP" ] || continue
-
-    if [ "$TYPE" = "file" ]; then
-      local SRC_FILE="$REPO_PATH/$SOURCE"
-      local DST_FILE="$REPO_PATH/$TARGET"
-      TOTAL=$((TOTAL + 1))
-
-      if [ ! -f "$SRC_FILE" ]; then
-        continue
-      fi
-      if [ ! -f "$DST_FILE" ]; then
-        mkdir -p "$(dirname "$DST_FILE")"
-        cp "$SRC_FILE" "$DST_FILE"
-        NEW=$((NEW + 1))
-      elif ! diff -q "$SRC_FILE" "$DST_FILE" > /dev/null 2>&1; then
-        cp "$SRC_FILE" "$DST_FILE"
-        MODIFIED=$((MODIFIED + 1))
-      else
-        UNCHANGED=$((UNCHANGED + 1))
-      fi
-    else
-      local SRC_DIR="$REPO_PATH/$SOURCE"
-      local DST_DIR="$REPO_PATH/$TARGET"
-
-      if [ ! -d "$SRC_DIR" ]; then
-        continue
-      fi
-
-      mkdir -p "$DST_DIR"
-
-      for SRC_FILE in "$SRC_DIR"$GLOB; do
-        [ -f "$SRC_FILE" ] || continue
-        local FILENAME
-        FILENAME=$(basename "$SRC_FILE")
-        local DST_FILE="$DST_DIR$FILENAME"
-        TOTAL=$((TOTAL + 1))
-
-        if [ ! -f "$DST_FILE" ]; then
-          cp "$SRC_FILE" "$DST_FILE"
-          NEW=$((NEW + 1))
-        elif ! diff -q "$SRC_FILE" "$DST_FILE" > /dev/null 2>&1; then
-          cp "$SRC_FILE" "$DST_FILE"
-          MODIFIED=$((MODIFIED + 1))
-        else
-          UNCHANGED=$((UNCHANGED + 1))
-        fi
-      done
-    fi
-  done <<< "$PARSED"
-
-  if [ $NEW -eq 0 ] && [ $MODIFIED -eq 0 ]; then
-    echo -e "${GREEN}OK${NC}   [$LABEL] $REPO_NAME: $TOTAL files checked, all in sync"
-  else
-    echo -e "${YELLOW}SYNC${NC} [$LABEL] $REPO_NAME: $NEW new, $MODIFIED modified, $UNCHANGED unchanged (of $TOTAL total)"
-    echo -e "     Remember to update claude-project/CHANGELOG.md"
-  fi
+TARGETS=()
+ENGINE_ARGS=()
+while [ $# -gt 0 ]; do
+  case "$1" in
+    --all) ;;
+    --watch|--poll) ENGINE_ARGS+=("$1") ;;
+    --json|--jobs|--debounce|--interval)
+      [ "$1" = "--json" ] && [ "${2:--}" = "-" ] && BANNER_FD=2
+      ENGINE_ARGS+=("$1" "$(to_node_path "${2:--}")")
+      shift
+      ;;
+    *) TARGETS+=("$1") ;;
+  esac
+  shift
+done
+
+if [ ${#TARGETS[@]} -eq 0 ]; then
+  # With --json - stdout carries the summary only, as in the engine
+  { echo "=== Claude Project Sync ==="; echo ""; } >&"${BANNER_FD:-1}"
+  TARGETS=("${REPOS[@]}")
+fi
 
-  return $((NEW + MODIFIED))
-}
+NODE_TARGETS=()
+for REPO in "${TARGETS[@]}"; do
+  NODE_TARGETS+=("$(to_node_path "$REPO")")
+done
 
-# Main
-if [ "$1" = "--all" ] || [ -z "$1" ]; then
-  echo "=== Claude Project Sync ==="
-  echo ""
-  TOTAL_CHANGES=0
-  for REPO in "${REPOS[@]}"; do
-    sync_repo "$REPO" || TOTAL_CHANGES=$((TOTAL_CHANGES + $?))
-  done
-  echo ""
-  if [ $TOTAL_CHANGES -eq 0 ]; then
-    echo -e "${GREEN}All repos in sync!${NC}"
-  else
-    echo -e "${YELLOW}$TOTAL_CHANGES files need attention across repos${NC}"
-  fi
-else
-  sync_repo "$1"
-fi
+# Single repo: exit code = files copied, as before
+exec node "$(to_node_path "$SCRIPT_DIR/lib/sync-engine.js")" "${ENGINE_ARGS[@]}" "${NODE_TARGETS[@]}"
@@ -3,12 +3,19 @@
 # generate-audit-report.sh
 # Converts a Markdown audit report to DOCX and PDF formats using Pandoc.
 #
-# Usage: bash generate-audit-report.sh [backend|uib|full] [output-dir] [report-file]
+# Usage: bash generate-audit-report.sh [backend|uib|full] [output-dir] [report-file] [findings-file]
 #
 # Arguments:
 #   $1 - Audit type: "backend", "uib", or "full" (default: "backend")
 #   $2 - Output directory for generated files (default: "./reports-out")
 #   $3 - Path to the Markdown report file (default: auto-detected)
+#   $4 - audit-findings.jsonl written by run-audit-checks.sh
+#        (default: <output-dir>/audit-findings.jsonl when present)
+#
+# The findings are appended to the converted documents as an "Automated
+# Checks" appendix; the Markdown report itself is not modified. Without a
+# Markdown report, the template of the audit type is rendered from the findings
+# into <output-dir>/<name>_draft.md (render-audit-findings.sh), then converted.
 #
 # Examples:
 #   bash generate-audit-report.sh backend ./output report.md
@@ -22,6 +29,8 @@ set -euo pipefail
 AUDIT_TYPE="${1:-backend}"
 OUTPUT_DIR="${2:-./reports-out}"
 REPORT_FILE="${3:-}"
+FINDINGS_FILE="${4:-}"
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
 DATE_PREFIX=$(date +"%Y_%m")
 CUSTOMER="Customer"
 
@@ -50,6 +59,10 @@ if [ "$OUTPUT_DIR" = "./reports-out" ]; then
   OUTPUT_DIR="$DEFAULT_REPORT_DIR"
 fi
 
+if [ -z "$FINDINGS_FILE" ] && [ -f "$OUTPUT_DIR/audit-findings.jsonl" ]; then
+  FINDINGS_FILE="$OUTPUT_DIR/audit-findings.jsonl"
+fi
+
 # --- Auto-detect report file if not specified ---
 if [ -z "$REPORT_FILE" ]; then
   # Look for the most recent .md file in the output directory or current directory
@@ -59,6 +72,13 @@ if [ -z "$REPORT_FILE" ]; then
   if [ -z "$REPORT_FILE" ]; then
     REPORT_FILE=$(find . -maxdepth 2 -name "*audit*report*.md" -o -name "*report*.md" -type f 2>/dev/null | head -1)
   fi
+  if [ -z "$REPORT_FILE" ] && [ -n "$FINDINGS_FILE" ] && [ -f "$FINDINGS_FILE" ]; then
+    # No report written yet: start from the template, filled from the automated checks
+    mkdir -p "$OUTPUT_DIR"
+    REPORT_FILE="$OUTPUT_DIR/${REPORT_NAME}_draft.md"
+    bash "$SCRIPT_DIR/render-audit-findings.sh" template "$AUDIT_TYPE" "$FINDINGS_FILE" > "$REPORT_FILE"
+    echo "Rendered the $AUDIT_TYPE template from $FINDINGS_FILE: $REPORT_FILE"
+  fi
   if [ -z "$REPORT_FILE" ]; then
     echo "ERROR: No Markdown report file found. Please specify the report file as the third argument."
     echo "Usage: bash generate-audit-report.sh [backend|uib|full] [output-dir] [report-file.md]"
@@ -73,6 +93,7 @@ echo "  Audit Type:  $AUDIT_TYPE"
 echo "  Report File: $REPORT_FILE"
 echo "  Output Dir:  $OUTPUT_DIR"
 echo "  Output Name: $REPORT_NAME"
+echo "  Findings:    ${FINDINGS_FILE:-none}"
 echo "============================================="
 
 # --- Step 0: Check if Pandoc is installed ---
@@ -135,6 +156,25 @@ if [ ! -f "$REPORT_FILE" ]; then
 fi
 echo "  Report file found: $REPORT_FILE ($(wc -l < "$REPORT_FILE") lines)"
 
+# --- Step 2b: Append the automated check results ---
+if [ -n "$FINDINGS_FILE" ]; then
+  echo ""
+  echo "[Step 2b] Appending automated check results..."
+  if [ ! -f "$FINDINGS_FILE" ]; then
+    echo "  ERROR: Findings file not found: $FINDINGS_FILE"
+    exit 1
+  fi
+  # pandoc picks the input format from the .md suffix; mktemp --suffix is GNU-only
+  COMBINED_TMP=$(mktemp "${TMPDIR:-/tmp}/audit-report.XXXXXX")
+  COMBINED_REPORT="$COMBINED_TMP.md"
+  trap 'rm -f "$COMBINED_TMP" "$COMBINED_REPORT"' EXIT
+  mv "$COMBINED_TMP" "$COMBINED_REPORT"
+  cat "$REPORT_FILE" > "$COMBINED_REPORT"
+  bash "$SCRIPT_DIR/render-audit-findings.sh" appendix "$FINDINGS_FILE" >> "$COMBINED_REPORT"
+  REPORT_FILE="$COMBINED_REPORT"
+  echo "  Automated checks from $FINDINGS_FILE appended (the Markdown report is unchanged)"
+fi
+
 # --- Step 3: Generate DOCX ---
 echo ""
 echo "[Step 3] Generating DOCX..."
@@ -0,0 +1,238 @@
+#!/bin/bash
+# =============================================================================
+# render-audit-findings.sh
+# Renders the audit-findings.jsonl stream of run-audit-checks.sh as Markdown.
+#
+# Usage:
+#   bash render-audit-findings.sh template <backend|uib|full> <findings.jsonl>
+#   bash render-audit-findings.sh appendix <findings.jsonl>
+#
+# Commands:
+#   template - the report template from references/ with the metadata filled in
+#              and the automated evidence under the section it supports
+#              (e.g. BDM index findings under 4.2.2, Checkstyle/PMD under 4.5.2)
+#   appendix - the "Automated Checks" appendix: counts, findings, and the
+#              violations grouped by rule
+#
+# The stream is read record by record: a first pass counts (per section,
+# severity and rule, keeping AUDIT_SAMPLES examples of each), then the findings
+# table is written by one pass per severity. Memory stays bounded by the number of
+# rules and sections, whatever the number of findings. The findings table
+# stops at AUDIT_MAX_ROWS rows (default 200); the stream keeps them all.
+#
+# Environment:
+#   AUDIT_SAMPLES    examples per section or rule (default: 5)
+#   AUDIT_MAX_ROWS   rows of the findings table (default: 200)
+#
+# Output: Markdown on stdout
+# =============================================================================
+
+set -euo pipefail
+
+if [ $# -lt 2 ]; then
+  echo "Usage: $0 template <backend|uib|full> <findings.jsonl> | appendix <findings.jsonl>"
+  exit 1
+fi
+
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+
+"$PYTHON_CMD" - "$SCRIPT_DIR/../references" "$@" <<'PY'
+import json
+import os
+import re
+import sys
+import time
+
+references, command = sys.argv[1], sys.argv[2]
+SAMPLES = int(os.environ.get('AUDIT_SAMPLES') or 5)
+MAX_ROWS = int(os.environ.get('AUDIT_MAX_ROWS') or 200)
+HEADING = re.compile(r'^(#{1,4})\s+(?:(\d+(?:\.\d+)*)\.?\s+)?(.*)$')
+# Auditor instructions, not report content
+SKIPPED_SECTIONS = ('PDF Generation Instructions', 'For Client Audits', 'Export and Delivery Instructions')
+# (check, message pattern, backend template section) - first match wins;
+# Checkstyle and PMD violations support 4.5.2, grouped by rule
+VIOLATIONS_SECTION = '4.5.2'
+BACKEND_SECTIONS = [
+    ('bdm', re.compile(r'index|countFor', re.I), '4.2.2'),
+    ('bdm', re.compile(r'audit fields', re.I), '4.2.3'),
+    ('bdm', re.compile(r'date', re.I), '4.2.4'),
+    ('bdm', None, '4.1.1'),
+    ('javadoc', None, '4.1.1'),
+    ('readme', None, '4.5'),
+    ('process', None, '4.3.3'),
+    ('checkstyle', None, VIOLATIONS_SECTION),
+    ('pmd', None, VIOLATIONS_SECTION),
+    (None, None, '7'),
+]
+TOOLS = {'checkstyle': 'Checkstyle', 'pmd': 'PMD'}
+SEVERITY_ORDER = ('error', 'finding', 'warning')
+
+
+def records(path):
+    with open(path, encoding='utf-8') as f:
+        for line in f:
+            if line.strip():
+                yield json.loads(line)
+
+
+def cell(value):
+    return str(value if value is not None else '').replace('|', '\\|').replace('\n', ' ')
+
+
+def location(record):
+    path = record.get('file') or ''
+    return '%s:%d' % (path, record['line']) if path and record.get('line') else path
+
+
+def section_of(finding):
+    for check, pattern, section in BACKEND_SECTIONS:
+        if check in (None, finding['check']) and (pattern is None or pattern.search(finding['message'])):
+            return section
+    return None
+
+
+class Totals:
+    """First pass: everything the Markdown needs before the rows, bounded by rules and sections."""
+
+    def __init__(self, path):
+        self.audit, self.summary = {}, {}
+        self.sections = {}   # section -> [findings, samples]
+        self.rules = {}      # (tool, rule) -> [count, samples]
+        self.severities = {}
+        for record in records(path):
+            kind = record.get('type')
+            if kind == 'audit':
+                self.audit = record
+            elif kind == 'summary':
+                self.summary = record
+            elif kind == 'finding':
+                self.severities[record['severity']] = self.severities.get(record['severity'], 0) + 1
+                if record['severity'] != 'error':
+                    self.add(self.sections, section_of(record), record)
+            elif kind == 'violation':
+                self.add(self.rules, (record['tool'], record['rule']), record)
+
+    @staticmethod
+    def add(table, key, record):
+        entry = table.setdefault(key, [0, []])
+        entry[0] += 1
+        if len(entry[1]) < SAMPLES:
+            entry[1].append(record)
+
+    def top_rules(self, limit):
+        return sorted(self.rules.items(), key=lambda item: -item[1][0])[:limit]
+
+
+def evidence(totals, section):
+    """Markdown bullets supporting a template section, or []."""
+    count, samples = totals.sections.get(section, (0, []))
+    rules = totals.top_rules(SAMPLES) if section == VIOLATIONS_SECTION else []
+    if not count and not rules:
+        return []
+    lines = ['', '* **Automated evidence** (run-audit-checks.sh, %s):' % totals.audit.get('date', '')[:10]]
+    for record in samples:
+        where = location(record)
+        lines.append('    * %s%s' % (record['message'], ' (`%s`)' % where if where else ''))
+    if count > len(samples):
+        lines.append('    * ... %d more findings' % (count - len(samples)))
+    for (tool, rule), (rule_count, examples) in rules:
+        lines.append('    * %s `%s`: %d violation(s), e.g. %s' % (
+            TOOLS.get(tool, tool), rule, rule_count,
+            ', '.join('`%s`' % location(e).rsplit('/', 1)[-1] for e in examples[:3])))
+    if rules and len(totals.rules) > len(rules):
+        lines.append('    * ... %d more rules' % (len(totals.rules) - len(rules)))
+    return lines
+
+
+def render_template(kind, path):
+    totals = Totals(path)
+    project = os.path.basename(totals.audit.get('project', '')) or '[Project Name]'
+    month = time.strftime('%B %Y', time.strptime(totals.audit['date'][:10], '%Y-%m-%d')) \
+        if totals.audit.get('date') else '[Month Year]'
+    emitted = set()
+    for name in (['backend', 'uib'] if kind == 'full' else [kind]):
+        with open(os.path.join(references, '%s-audit-template.md' % name), encoding='utf-8') as f:
+            lines = f.read().split('\n')
+        # The template's own title and usage note end at the first rule
+        start = lines.index('---') + 1 if '---' in lines else 0
+        section, skipping, tail = None, None, []
+        for line in lines[start:]:
+            heading = HEADING.match(line)
+            if heading:
+                level = len(heading.group(1))
+                if skipping is not None and level > skipping:
+                    continue
+                if name == 'backend' and section and section not in emitted:
+                    print('\n'.join(evidence(totals, section)))
+                    emitted.add(section)
+                skipping = level if heading.group(3).strip() in SKIPPED_SECTIONS else None
+                if skipping is not None:
+                    continue
+                section = heading.group(2)
+            elif skipping is not None:
+                continue
+            if not line.strip() or line == '---':
+                tail.append(line)
+                continue
+            line = re.sub(r'\[Month Year\](?: \(e\.g\.[^)]*\))?', month, line).replace('[Project Name]', project)
+            print('\n'.join(tail + [line]))
+            tail = []
+        if name == 'backend' and section and section not in emitted:
+            print('\n'.join(evidence(totals, section)))
+        print('\n'.join(tail))
+    if totals.severities.get('error'):
+        print('\n> **Blocking:** run-audit-checks.sh reported %d error(s), see the Automated Checks appendix.'
+              % totals.severities['error'])
+
+
+def render_appendix(path):
+    totals = Totals(path)
+    summary, audit = totals.summary, totals.audit
+    line_coverage = (audit.get('coverage') or {}).get('LINE', {}).get('percent')
+    print('\n\n## Appendix: Automated Checks\n')
+    print('Generated by run-audit-checks.sh on %s%s.\n' % (
+        audit.get('date', ''), ' (incremental; coverage from the full audit of %s)' % audit.get('full_audit')
+        if audit.get('incremental') else ''))
+    print('| Findings | Warnings | Errors | Checkstyle/PMD violations | Line coverage |')
+    print('|---|---|---|---|---|')
+    print('| %d | %d | %d | %d | %s |\n' % (summary.get('finding', 0), summary.get('warning', 0),
+                                         summary.get('error', 0), summary.get('violations', 0),
+                                         '%s%%' % line_coverage if line_coverage is not None else 'n/a'))
+    if any(totals.severities.values()):
+        print('### Findings\n')
+        print('| Severity | Check | Location | Message |')
+        print('|---|---|---|---|')
+        rows = 0
+        # One more pass per severity, so the table is ordered without holding it
+        for severity in SEVERITY_ORDER:
+            if not totals.severities.get(severity) or rows >= MAX_ROWS:
+                continue
+            for record in records(path):
+                if record.get('type') == 'finding' and record['severity'] == severity:
+                    print('| %s | %s | %s | %s |' % (severity, record['check'], cell(location(record)),
+                                                     cell(record['message'])))
+                    rows += 1
+                    if rows >= MAX_ROWS:
+                        break
+        if sum(totals.severities.values()) > rows:
+            print('\n%d more findings in audit-findings.jsonl.' % (sum(totals.severities.values()) - rows))
+        print('')
+    if totals.rules:
+        print('### Static Analysis Violations by Rule\n')
+        print('| Tool | Rule | Count | First occurrences |')
+        print('|---|---|---|---|')
+        for (tool, rule), (count, examples) in totals.top_rules(25):
+            print('| %s | %s | %d | %s |' % (TOOLS.get(tool, tool), cell(rule), count,
+                                             cell(', '.join(location(e).rsplit('/', 1)[-1] for e in examples[:3]))))
+        if len(totals.rules) > 25:
+            print('\n%d more rules in audit-findings.jsonl.' % (len(totals.rules) - 25))
+
+
+if command == 'template' and len(sys.argv) > 4 and sys.argv[3] in ('backend', 'uib', 'full'):
+    render_template(sys.argv[3], sys.argv[4])
+elif command == 'appendix':
+    render_appendix(sys.argv[3])
+else:
+    sys.exit('Usage: render-audit-findings.sh template <backend|uib|full> <findings.jsonl> | appendix <findings.jsonl>')
+PY
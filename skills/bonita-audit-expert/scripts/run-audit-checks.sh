@@ -3,31 +3,66 @@
 # run-audit-checks.sh
 # Executes automated audit checks on a Bonita project directory.
 #
-# Usage: bash run-audit-checks.sh [project-directory]
+# Usage: bash run-audit-checks.sh [--since <ref|last>] [project-directory]
 #
 # Arguments:
 #   $1 - Path to the Bonita project root directory (default: current directory)
+#   --since last   - re-check only the Java files whose content changed since the
+#                    last audit, plus the files that import them
+#   --since <ref>  - same, also re-checking the files changed since git <ref>
 #
 # This script runs:
-#   1. Maven compilation check
-#   2. Checkstyle analysis
-#   3. PMD analysis
-#   4. JaCoCo code coverage report
-#   5. Missing Javadoc check on public methods
-#   6. BDM missing descriptions check
-#   7. Summary of all findings
+#   1. Java version check
+#   2-5. ONE Maven build: compilation, tests with the JaCoCo agent and PMD (the
+#        project's configuration), then Checkstyle (toolkit configs/checkstyle.xml)
+#        on its own, so that one analyzer failing does not skip the other
+#   6-10. Javadoc, BDM, controller README, EditorConfig and process variable
+#        checks, concurrently with the Maven build
+#   Summary of all findings
+#
+# Results are streamed to reports/audit-out/audit-findings.jsonl (AUDIT_FINDINGS
+# to override), one JSON record per line:
+#   {"type": "audit", ...}       project, date, coverage totals, per-check durations
+#   {"type": "finding", ...}     check, severity, file, line, message
+#   {"type": "violation", ...}   Checkstyle/PMD: tool, rule, severity, file, line, message
+#   {"type": "summary", ...}     counts, always the last line
+# and, for IDEs and code scanning, to audit-findings.sarif (SARIF 2.1.0).
+# generate-audit-report.sh renders them into the report templates.
+#
+# Incremental audits: every audit stores its per-file results (Checkstyle/PMD
+# violations, Javadoc counts), keyed by the file's sha256, in
+# .claude/cache/audit-files.json. With --since, Maven only compiles and runs
+# Checkstyle/PMD on the changed files and their dependents (no clean, no
+# tests); the other files keep their cached results and coverage is the last
+# full audit's. A changed pom.xml or Checkstyle configuration, or no cache yet,
+# runs the full audit. Checks 7-10 are cheap and always run on the whole tree.
 #
 # Examples:
 #   bash run-audit-checks.sh /path/to/bonita-project
 #   bash run-audit-checks.sh .
+#   bash run-audit-checks.sh --since last /path/to/bonita-project
+#   bash run-audit-checks.sh --since v1.2.0 .
 # =============================================================================
 
 set -uo pipefail
 
-PROJECT_DIR="${1:-.}"
-FINDINGS_COUNT=0
-WARNINGS_COUNT=0
-ERRORS_COUNT=0
+PROJECT_DIR="."
+SINCE=""
+while [ $# -gt 0 ]; do
+  case "$1" in
+    --since)   SINCE="${2:?--since needs a git ref or 'last'}"; shift 2 ;;
+    --since=*) SINCE="${1#--since=}"; shift ;;
+    *)         PROJECT_DIR="$1"; shift ;;
+  esac
+done
+INCREMENTAL=false
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+CONFIG_DIR="${AUDIT_CONFIG_DIR:-$(cd "$SCRIPT_DIR/../../../configs" 2>/dev/null && pwd)}"
+FINDINGS_FILE="${AUDIT_FINDINGS:-reports/audit-out/audit-findings.jsonl}"
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+CHECK_ID="java"
 
 # --- Output formatting ---
 RED='\033[0;31m'
@@ -36,341 +71,729 @@ YELLOW='\033[1;33m'
 BLUE='\033[0;34m'
 NC='\033[0m' # No Color
 
+# Every warning, error and finding is also recorded for audit-findings.jsonl:
+# check, severity, file, line, message (one TSV file per check, jobs write concurrently)
+record()      { printf '%s\t%s\t%s\t%s\t%s\n' "$CHECK_ID" "$1" "${3:-}" "${4:-}" "$(printf '%s' "$2" | tr '\t\n' '  ')" >> "$WORK_DIR/$CHECK_ID.tsv"; }
 log_info()    { echo -e "${BLUE}[INFO]${NC} $1"; }
 log_success() { echo -e "${GREEN}[PASS]${NC} $1"; }
-log_warning() { echo -e "${YELLOW}[WARN]${NC} $1"; WARNINGS_COUNT=$((WARNINGS_COUNT + 1)); }
-log_error()   { echo -e "${RED}[FAIL]${NC} $1"; ERRORS_COUNT=$((ERRORS_COUNT + 1)); }
-log_finding() { echo -e "${YELLOW}[FIND]${NC} $1"; FINDINGS_COUNT=$((FINDINGS_COUNT + 1)); }
-
-echo "============================================="
-echo "  Bonita Project Audit Checks"
-echo "============================================="
-echo "  Project Directory: $PROJECT_DIR"
-echo "  Date: $(date '+%Y-%m-%d %H:%M:%S')"
-echo "============================================="
-echo ""
-
-# --- Validate project directory ---
-if [ ! -d "$PROJECT_DIR" ]; then
-  log_error "Project directory not found: $PROJECT_DIR"
-  exit 1
-fi
-
-cd "$PROJECT_DIR"
-
-if [ ! -f "pom.xml" ]; then
-  log_error "pom.xml not found in $PROJECT_DIR. Is this a Maven project?"
-  exit 1
-fi
+log_warning() { echo -e "${YELLOW}[WARN]${NC} $1"; record warning "$@"; }
+log_error()   { echo -e "${RED}[FAIL]${NC} $1"; record error "$@"; }
+log_finding() { echo -e "${YELLOW}[FIND]${NC} $1"; record finding "$@"; }
+
+# Run a check function in the background; its console output is replayed in order later
+run_check() {
+  local id="$1" fn="$2"
+  (
+    CHECK_ID="$id"
+    local started=$SECONDS
+    "$fn"
+    echo $(( SECONDS - started )) > "$WORK_DIR/$id.time"
+  ) > "$WORK_DIR/$id.log" 2>&1 &
+}
 
 # =============================================================================
-# CHECK 1: Java Version
+# CHECKS 2-5: one Maven build (compile, tests + JaCoCo, Checkstyle, PMD)
 # =============================================================================
-echo "--- Check 1: Java Version ---"
-if command -v java &>/dev/null; then
-  JAVA_VERSION=$(java -version 2>&1 | head -1)
-  log_info "Java: $JAVA_VERSION"
-  if echo "$JAVA_VERSION" | grep -q '"17\|" 17\|version "17'; then
-    log_success "Java 17 detected"
-  else
-    log_warning "Java 17 is recommended for Bonita projects. Current: $JAVA_VERSION"
+maven_build() {
+  # Checkstyle runs in its own invocation: a configuration it rejects must not stop
+  # the build before PMD (and the other way round)
+  local goals=(clean org.jacoco:jacoco-maven-plugin:prepare-agent test org.jacoco:jacoco-maven-plugin:report
+               pmd:pmd)
+  local props=(-Dmaven.test.failure.ignore=true -Dcheckstyle.consoleOutput=false)
+  if [ -n "$CHECKSTYLE_CONFIG" ]; then
+    props+=(-Dcheckstyle.config.location="$CHECKSTYLE_CONFIG")
   fi
-else
-  log_error "Java not found in PATH"
-fi
-echo ""
-
-# =============================================================================
-# CHECK 2: Maven Compilation
-# =============================================================================
-echo "--- Check 2: Maven Compilation (mvn clean compile) ---"
-log_info "Running mvn clean compile..."
-MVN_OUTPUT_FILE=$(mktemp)
-
-if mvn clean compile -Dmaven.test.skip=true -q 2>"$MVN_OUTPUT_FILE"; then
-  log_success "Project compiles successfully"
-else
-  log_error "Compilation FAILED. This is a BLOCKING issue."
-  log_error "Error output:"
-  cat "$MVN_OUTPUT_FILE" | head -50
-  echo ""
-  log_error "AUDIT CANNOT PROCEED: Fix compilation errors first."
-  rm -f "$MVN_OUTPUT_FILE"
-  # Continue with other checks but note the failure
-fi
-rm -f "$MVN_OUTPUT_FILE"
-echo ""
-
-# =============================================================================
-# CHECK 3: Checkstyle
-# =============================================================================
-echo "--- Check 3: Checkstyle Analysis ---"
-if grep -q "checkstyle" pom.xml 2>/dev/null; then
-  log_info "Checkstyle plugin found in pom.xml. Running check..."
-  CHECKSTYLE_OUTPUT=$(mktemp)
-  if mvn checkstyle:check -q 2>"$CHECKSTYLE_OUTPUT"; then
-    log_success "Checkstyle: No violations found"
+  echo "--- Check 2: Maven Build (compile, tests + JaCoCo, Checkstyle, PMD) ---"
+  if [ "$INCREMENTAL" = true ]; then
+    # Checkstyle on the selected files only; PMD skips the files its analysis cache knows
+    local includes
+    includes=$(grep '\.java$' "$WORK_DIR/analyzed" | sed 's|.*/|**/|' | sort -u | paste -sd, -)
+    if [ -z "$includes" ]; then
+      log_info "No Java file to re-check: Maven build skipped"
+      echo skipped > "$WORK_DIR/maven.status"
+      return
+    fi
+    goals=(compile pmd:pmd)
+    props+=(-Dcheckstyle.includes="$includes" -Dpmd.analysisCache=true)
+  fi
+  log_info "Running mvn ${goals[*]}..."
+  if mvn -B "${goals[@]}" "${props[@]}" > "$WORK_DIR/maven.out" 2>&1; then
+    log_success "Project compiles successfully"
+    echo ok > "$WORK_DIR/maven.status"
+  elif grep -q "COMPILATION ERROR\|Compilation failure" "$WORK_DIR/maven.out"; then
+    log_error "Compilation FAILED. This is a BLOCKING issue."
+    echo "  Error output:"
+    grep "ERROR" "$WORK_DIR/maven.out" | head -50
+    echo ""
+    echo -e "  ${RED}AUDIT CANNOT PROCEED: Fix compilation errors first.${NC}"
+    echo failed > "$WORK_DIR/maven.status"
   else
-    VIOLATION_COUNT=$(grep -c "violation" "$CHECKSTYLE_OUTPUT" 2>/dev/null || echo "unknown")
-    log_finding "Checkstyle violations detected ($VIOLATION_COUNT violations)"
-    cat "$CHECKSTYLE_OUTPUT" | grep -i "violation\|error" | head -20
+    log_warning "Maven build failed after compilation (see the Checkstyle/PMD/JaCoCo results below)"
+    grep "\[ERROR\]" "$WORK_DIR/maven.out" | head -10
+    echo ok > "$WORK_DIR/maven.status"
   fi
-  rm -f "$CHECKSTYLE_OUTPUT"
-else
-  log_warning "Checkstyle plugin NOT configured in pom.xml"
-  log_finding "Recommendation: Add maven-checkstyle-plugin to pom.xml"
-fi
-echo ""
+  if [ "$(cat "$WORK_DIR/maven.status")" = ok ]; then
+    log_info "Running mvn checkstyle:checkstyle..."
+    if ! mvn -B checkstyle:checkstyle "${props[@]}" >> "$WORK_DIR/maven.out" 2>&1; then
+      log_warning "Checkstyle failed (see below)"
+      grep "\[ERROR\]" "$WORK_DIR/maven.out" | tail -5
+    fi
+  fi
+  if grep -q "There are test failures\|Tests run:.*Failures: [1-9]\|Tests run:.*Errors: [1-9]" "$WORK_DIR/maven.out"; then
+    log_warning "Some tests failed: coverage is measured on a failing suite"
+  fi
+  if ! grep -q "maven-pmd-plugin" pom.xml 2>/dev/null; then
+    log_warning "PMD plugin NOT configured in pom.xml: PMD ran with the plugin's default rules"
+    log_finding "Recommendation: Add maven-pmd-plugin to pom.xml with the toolkit pmd-ruleset.xml"
+  fi
+  if ! grep -q "jacoco" pom.xml 2>/dev/null; then
+    log_finding "Recommendation: Add jacoco-maven-plugin to pom.xml for code coverage"
+  fi
+}
 
-# =============================================================================
-# CHECK 4: PMD
-# =============================================================================
-echo "--- Check 4: PMD Analysis ---"
-if grep -q "pmd" pom.xml 2>/dev/null; then
-  log_info "PMD plugin found in pom.xml. Running check..."
-  PMD_OUTPUT=$(mktemp)
-  if mvn pmd:check -q 2>"$PMD_OUTPUT"; then
-    log_success "PMD: No violations found"
+# CHECK 6: Missing Javadoc on Public Methods
+check_javadoc() {
+  echo "--- Check 6: Missing Javadoc on Public Methods ---"
+  JAVA_FILES=$(find . -name "*.java" -not -path "*/test/*" -not -path "*/target/*" 2>/dev/null | sed 's|^\./||')
+  if [ "$INCREMENTAL" = true ]; then
+    # Unchanged files keep their cached counts (audit_results javadoc-totals)
+    SCANNED_FILES=$(grep -Fxf "$WORK_DIR/analyzed" <<< "$JAVA_FILES")
   else
-    VIOLATION_COUNT=$(grep -c "violation" "$PMD_OUTPUT" 2>/dev/null || echo "unknown")
-    log_finding "PMD violations detected ($VIOLATION_COUNT violations)"
-    cat "$PMD_OUTPUT" | grep -i "violation\|error" | head -20
+    SCANNED_FILES="$JAVA_FILES"
   fi
-  rm -f "$PMD_OUTPUT"
-else
-  log_warning "PMD plugin NOT configured in pom.xml"
-  log_finding "Recommendation: Add maven-pmd-plugin to pom.xml"
-fi
-echo ""
+  : > "$WORK_DIR/javadoc.counts"
+  if [ -n "$JAVA_FILES" ]; then
+    TOTAL_PUBLIC_METHODS=0
+    MISSING_JAVADOC=0
+
+    while IFS= read -r java_file; do
+      [ -n "$java_file" ] || continue
+      # Count public methods
+      PUBLIC_METHODS=$(grep -c "public.*(" "$java_file" 2>/dev/null || true)
+      TOTAL_PUBLIC_METHODS=$((TOTAL_PUBLIC_METHODS + PUBLIC_METHODS))
+      FILE_MISSING=$MISSING_JAVADOC
+
+      # Check for public methods without preceding Javadoc (/** ... */)
+      # Simple heuristic: look for "public" lines not preceded by "*/" within 5 lines
+      while IFS= read -r line_num; do
+        if [ -n "$line_num" ]; then
+          # Check if there's a Javadoc closing tag within 5 lines before this public method
+          START_LINE=$((line_num - 5))
+          if [ "$START_LINE" -lt 1 ]; then START_LINE=1; fi
+          PRECEDING=$(sed -n "${START_LINE},${line_num}p" "$java_file" 2>/dev/null)
+          if ! echo "$PRECEDING" | grep -q '\*/'; then
+            MISSING_JAVADOC=$((MISSING_JAVADOC + 1))
+          fi
+        fi
+      done < <(grep -n "public.*(" "$java_file" 2>/dev/null | grep -v "class\|interface\|enum" | cut -d: -f1)
+      printf '%s\t%s\t%s\n' "$java_file" "$PUBLIC_METHODS" $((MISSING_JAVADOC - FILE_MISSING)) >> "$WORK_DIR/javadoc.counts"
+    done <<< "$SCANNED_FILES"
 
-# =============================================================================
-# CHECK 5: JaCoCo Code Coverage
-# =============================================================================
-echo "--- Check 5: JaCoCo Code Coverage ---"
-if grep -q "jacoco" pom.xml 2>/dev/null; then
-  log_info "JaCoCo plugin found in pom.xml. Running report..."
-  JACOCO_OUTPUT=$(mktemp)
-  if mvn test jacoco:report -q 2>"$JACOCO_OUTPUT"; then
-    # Try to extract coverage percentage from the report
-    JACOCO_REPORT=$(find . -path "*/jacoco/index.html" -type f 2>/dev/null | head -1)
-    if [ -n "$JACOCO_REPORT" ]; then
-      log_success "JaCoCo report generated: $JACOCO_REPORT"
-      # Try to extract total coverage
-      COVERAGE=$(grep -oP 'Total.*?(\d+%?)' "$JACOCO_REPORT" 2>/dev/null | head -1 || echo "")
-      if [ -n "$COVERAGE" ]; then
-        log_info "Coverage: $COVERAGE"
+    if [ "$INCREMENTAL" = true ]; then
+      read -r TOTAL_PUBLIC_METHODS MISSING_JAVADOC < <(audit_results javadoc-totals)
+      log_info "Re-scanned $(grep -c . <<< "$SCANNED_FILES") of $(grep -c . <<< "$JAVA_FILES") Java files"
+    fi
+
+    if [ "$TOTAL_PUBLIC_METHODS" -gt 0 ]; then
+      JAVADOC_COVERAGE=$(( (TOTAL_PUBLIC_METHODS - MISSING_JAVADOC) * 100 / TOTAL_PUBLIC_METHODS ))
+      log_info "Total public methods found: $TOTAL_PUBLIC_METHODS"
+      log_info "Methods with Javadoc: $((TOTAL_PUBLIC_METHODS - MISSING_JAVADOC))"
+      log_info "Methods WITHOUT Javadoc: $MISSING_JAVADOC"
+      log_info "Javadoc coverage: ${JAVADOC_COVERAGE}%"
+
+      if [ "$JAVADOC_COVERAGE" -lt 50 ]; then
+        log_finding "Javadoc coverage is LOW (${JAVADOC_COVERAGE}%). Target: >80%"
+      elif [ "$JAVADOC_COVERAGE" -lt 80 ]; then
+        log_warning "Javadoc coverage is MODERATE (${JAVADOC_COVERAGE}%). Target: >80%"
       else
-        log_info "Open $JACOCO_REPORT in a browser to view coverage details"
+        log_success "Javadoc coverage is GOOD (${JAVADOC_COVERAGE}%)"
       fi
     else
-      log_warning "JaCoCo report file not found after generation"
+      log_info "No public methods found in Java source files"
     fi
   else
-    log_warning "JaCoCo report generation failed (tests may have failed)"
-    cat "$JACOCO_OUTPUT" | grep -i "error\|fail" | head -10
+    log_info "No Java source files found (excluding tests and target)"
   fi
-  rm -f "$JACOCO_OUTPUT"
-else
-  log_warning "JaCoCo plugin NOT configured in pom.xml"
-  log_finding "Recommendation: Add jacoco-maven-plugin to pom.xml for code coverage"
-fi
-echo ""
+}
 
-# =============================================================================
-# CHECK 6: Missing Javadoc on Public Methods
-# =============================================================================
-echo "--- Check 6: Missing Javadoc on Public Methods ---"
-JAVA_FILES=$(find . -name "*.java" -not -path "*/test/*" -not -path "*/target/*" 2>/dev/null)
-if [ -n "$JAVA_FILES" ]; then
-  TOTAL_PUBLIC_METHODS=0
-  MISSING_JAVADOC=0
-
-  while IFS= read -r java_file; do
-    # Count public methods
-    PUBLIC_METHODS=$(grep -c "public.*(" "$java_file" 2>/dev/null || echo 0)
-    TOTAL_PUBLIC_METHODS=$((TOTAL_PUBLIC_METHODS + PUBLIC_METHODS))
-
-    # Check for public methods without preceding Javadoc (/** ... */)
-    # Simple heuristic: look for "public" lines not preceded by "*/" within 5 lines
-    while IFS= read -r line_num; do
-      if [ -n "$line_num" ]; then
-        # Check if there's a Javadoc closing tag within 5 lines before this public method
-        START_LINE=$((line_num - 5))
-        if [ "$START_LINE" -lt 1 ]; then START_LINE=1; fi
-        PRECEDING=$(sed -n "${START_LINE},${line_num}p" "$java_file" 2>/dev/null)
-        if ! echo "$PRECEDING" | grep -q '\*/'; then
-          MISSING_JAVADOC=$((MISSING_JAVADOC + 1))
-        fi
-      fi
-    done < <(grep -n "public.*(" "$java_file" 2>/dev/null | grep -v "class\|interface\|enum" | cut -d: -f1)
-  done <<< "$JAVA_FILES"
-
-  if [ "$TOTAL_PUBLIC_METHODS" -gt 0 ]; then
-    JAVADOC_COVERAGE=$(( (TOTAL_PUBLIC_METHODS - MISSING_JAVADOC) * 100 / TOTAL_PUBLIC_METHODS ))
-    log_info "Total public methods found: $TOTAL_PUBLIC_METHODS"
-    log_info "Methods with Javadoc: $((TOTAL_PUBLIC_METHODS - MISSING_JAVADOC))"
-    log_info "Methods WITHOUT Javadoc: $MISSING_JAVADOC"
-    log_info "Javadoc coverage: ${JAVADOC_COVERAGE}%"
-
-    if [ "$JAVADOC_COVERAGE" -lt 50 ]; then
-      log_finding "Javadoc coverage is LOW (${JAVADOC_COVERAGE}%). Target: >80%"
-    elif [ "$JAVADOC_COVERAGE" -lt 80 ]; then
-      log_warning "Javadoc coverage is MODERATE (${JAVADOC_COVERAGE}%). Target: >80%"
+# CHECK 7: BDM Missing Descriptions
+check_bdm() {
+  echo "--- Check 7: BDM Missing Descriptions ---"
+  BOM_FILE=$(find . -name "bom.xml" -not -path "*/target/*" 2>/dev/null | head -1)
+  if [ -n "$BOM_FILE" ] && [ -f "$BOM_FILE" ]; then
+    log_info "BDM file found: $BOM_FILE"
+
+    # Count business objects
+    BO_COUNT=$(grep -c "<businessObject" "$BOM_FILE" 2>/dev/null || true)
+    log_info "Business objects found: $BO_COUNT"
+
+    # Check for empty descriptions on business objects
+    EMPTY_BO_DESC=$(grep -A1 "<businessObject" "$BOM_FILE" 2>/dev/null | grep "<description></description>\|<description/>" | wc -l)
+    MISSING_BO_DESC=$(grep "<businessObject" "$BOM_FILE" 2>/dev/null | grep -v "description" | wc -l)
+    TOTAL_MISSING_BO=$((EMPTY_BO_DESC + MISSING_BO_DESC))
+
+    if [ "$TOTAL_MISSING_BO" -gt 0 ]; then
+      log_finding "Business objects with empty/missing descriptions: $TOTAL_MISSING_BO" "$BOM_FILE"
     else
-      log_success "Javadoc coverage is GOOD (${JAVADOC_COVERAGE}%)"
+      log_success "All business objects have descriptions"
     fi
-  else
-    log_info "No public methods found in Java source files"
-  fi
-else
-  log_info "No Java source files found (excluding tests and target)"
-fi
-echo ""
 
-# =============================================================================
-# CHECK 7: BDM Missing Descriptions
-# =============================================================================
-echo "--- Check 7: BDM Missing Descriptions ---"
-BOM_FILE=$(find . -name "bom.xml" -not -path "*/target/*" 2>/dev/null | head -1)
-if [ -n "$BOM_FILE" ] && [ -f "$BOM_FILE" ]; then
-  log_info "BDM file found: $BOM_FILE"
-
-  # Count business objects
-  BO_COUNT=$(grep -c "<businessObject" "$BOM_FILE" 2>/dev/null || echo 0)
-  log_info "Business objects found: $BO_COUNT"
-
-  # Check for empty descriptions on business objects
-  EMPTY_BO_DESC=$(grep -A1 "<businessObject" "$BOM_FILE" 2>/dev/null | grep "<description></description>\|<description/>" | wc -l)
-  MISSING_BO_DESC=$(grep "<businessObject" "$BOM_FILE" 2>/dev/null | grep -v "description" | wc -l)
-  TOTAL_MISSING_BO=$((EMPTY_BO_DESC + MISSING_BO_DESC))
-
-  if [ "$TOTAL_MISSING_BO" -gt 0 ]; then
-    log_finding "Business objects with empty/missing descriptions: $TOTAL_MISSING_BO"
-  else
-    log_success "All business objects have descriptions"
-  fi
+    # Check for empty field descriptions
+    EMPTY_FIELD_DESC=$(grep -c "<description></description>\|<description/>" "$BOM_FILE" 2>/dev/null || true)
+    if [ "$EMPTY_FIELD_DESC" -gt 0 ]; then
+      log_finding "Empty <description> tags found in BDM: $EMPTY_FIELD_DESC" "$BOM_FILE"
+    else
+      log_success "No empty description tags found"
+    fi
 
-  # Check for empty field descriptions
-  EMPTY_FIELD_DESC=$(grep -c "<description></description>\|<description/>" "$BOM_FILE" 2>/dev/null || echo 0)
-  if [ "$EMPTY_FIELD_DESC" -gt 0 ]; then
-    log_finding "Empty <description> tags found in BDM: $EMPTY_FIELD_DESC"
-  else
-    log_success "No empty description tags found"
-  fi
+    # Check for missing indexes
+    INDEX_COUNT=$(grep -c "<index " "$BOM_FILE" 2>/dev/null || true)
+    QUERY_COUNT=$(grep -c "<query " "$BOM_FILE" 2>/dev/null || true)
+    log_info "Indexes defined: $INDEX_COUNT"
+    log_info "Custom queries defined: $QUERY_COUNT"
 
-  # Check for missing indexes
-  INDEX_COUNT=$(grep -c "<index " "$BOM_FILE" 2>/dev/null || echo 0)
-  QUERY_COUNT=$(grep -c "<query " "$BOM_FILE" 2>/dev/null || echo 0)
-  log_info "Indexes defined: $INDEX_COUNT"
-  log_info "Custom queries defined: $QUERY_COUNT"
+    if [ "$QUERY_COUNT" -gt 0 ] && [ "$INDEX_COUNT" -eq 0 ]; then
+      log_finding "Custom queries exist ($QUERY_COUNT) but NO indexes are defined" "$BOM_FILE"
+    elif [ "$QUERY_COUNT" -gt "$INDEX_COUNT" ]; then
+      log_warning "More queries ($QUERY_COUNT) than indexes ($INDEX_COUNT). Some queries may lack indexes." "$BOM_FILE"
+    fi
 
-  if [ "$QUERY_COUNT" -gt 0 ] && [ "$INDEX_COUNT" -eq 0 ]; then
-    log_finding "Custom queries exist ($QUERY_COUNT) but NO indexes are defined"
-  elif [ "$QUERY_COUNT" -gt "$INDEX_COUNT" ]; then
-    log_warning "More queries ($QUERY_COUNT) than indexes ($INDEX_COUNT). Some queries may lack indexes."
-  fi
+    # Check for countFor queries
+    LIST_QUERIES=$(grep -c 'returnType="java.util.List"' "$BOM_FILE" 2>/dev/null || true)
+    COUNT_FOR_QUERIES=$(grep -c "countFor" "$BOM_FILE" 2>/dev/null || true)
+    log_info "List-returning queries: $LIST_QUERIES"
+    log_info "CountFor queries: $COUNT_FOR_QUERIES"
 
-  # Check for countFor queries
-  LIST_QUERIES=$(grep -c 'returnType="java.util.List"' "$BOM_FILE" 2>/dev/null || echo 0)
-  COUNT_FOR_QUERIES=$(grep -c "countFor" "$BOM_FILE" 2>/dev/null || echo 0)
-  log_info "List-returning queries: $LIST_QUERIES"
-  log_info "CountFor queries: $COUNT_FOR_QUERIES"
+    if [ "$LIST_QUERIES" -gt "$COUNT_FOR_QUERIES" ]; then
+      MISSING_COUNTFOR=$((LIST_QUERIES - COUNT_FOR_QUERIES))
+      log_finding "Missing countFor queries: $MISSING_COUNTFOR (every List query needs a countFor)" "$BOM_FILE"
+    else
+      log_success "CountFor queries appear complete"
+    fi
+
+    # Check for STRING fields that might be dates
+    DATE_STRINGS=$(grep -B5 'type="STRING"' "$BOM_FILE" 2>/dev/null | grep -ic "date\|fecha\|time\|hora" || true)
+    if [ "$DATE_STRINGS" -gt 0 ]; then
+      log_finding "Potential date fields using STRING type: $DATE_STRINGS (should use DATE ONLY or DATE-TIME)" "$BOM_FILE"
+    fi
+
+    # Check for deprecated DATE type
+    DEPRECATED_DATE=$(grep -c 'type="DATE"' "$BOM_FILE" 2>/dev/null || true)
+    if [ "$DEPRECATED_DATE" -gt 0 ]; then
+      log_finding "Deprecated DATE (java.util.Date) type used: $DEPRECATED_DATE times. Use DATE ONLY or DATE-TIME." "$BOM_FILE"
+    fi
+
+    # Check for audit fields
+    AUDIT_FIELDS_PATTERN="auFechaCreacion\|auUsuarioCreacion\|auFechaModificacion\|auUsuarioModificacion"
+    AUDIT_FIELDS_FOUND=$(grep -c "$AUDIT_FIELDS_PATTERN" "$BOM_FILE" 2>/dev/null || true)
+    if [ "$BO_COUNT" -gt 0 ]; then
+      EXPECTED_AUDIT_FIELDS=$((BO_COUNT * 4))
+      if [ "$AUDIT_FIELDS_FOUND" -lt "$EXPECTED_AUDIT_FIELDS" ]; then
+        log_finding "Audit fields incomplete: found $AUDIT_FIELDS_FOUND, expected $EXPECTED_AUDIT_FIELDS (4 per business object)" "$BOM_FILE"
+      else
+        log_success "Audit fields appear complete"
+      fi
+    fi
 
-  if [ "$LIST_QUERIES" -gt "$COUNT_FOR_QUERIES" ]; then
-    MISSING_COUNTFOR=$((LIST_QUERIES - COUNT_FOR_QUERIES))
-    log_finding "Missing countFor queries: $MISSING_COUNTFOR (every List query needs a countFor)"
   else
-    log_success "CountFor queries appear complete"
+    log_warning "BDM file (bom.xml) not found in project"
   fi
+}
+
+# CHECK 8: REST API Extension READMEs
+check_controller_readmes() {
+  echo "--- Check 8: REST API Extension Documentation ---"
+  CONTROLLER_DIRS=$(find . -path "*/controller/*" -name "*.java" -not -path "*/target/*" 2>/dev/null | xargs -I{} dirname {} | sort -u)
+  if [ -n "$CONTROLLER_DIRS" ]; then
+    TOTAL_CONTROLLERS=0
+    MISSING_README=0
+    while IFS= read -r ctrl_dir; do
+      TOTAL_CONTROLLERS=$((TOTAL_CONTROLLERS + 1))
+      if [ ! -f "$ctrl_dir/README.md" ]; then
+        MISSING_README=$((MISSING_README + 1))
+        log_finding "Missing README.md in controller: $ctrl_dir" "$ctrl_dir"
+      fi
+    done <<< "$CONTROLLER_DIRS"
 
-  # Check for STRING fields that might be dates
-  DATE_STRINGS=$(grep -B5 'type="STRING"' "$BOM_FILE" 2>/dev/null | grep -ic "date\|fecha\|time\|hora" || echo 0)
-  if [ "$DATE_STRINGS" -gt 0 ]; then
-    log_finding "Potential date fields using STRING type: $DATE_STRINGS (should use DATE ONLY or DATE-TIME)"
+    log_info "Controller packages found: $TOTAL_CONTROLLERS"
+    if [ "$MISSING_README" -eq 0 ]; then
+      log_success "All controller packages have README.md"
+    else
+      log_finding "$MISSING_README controller packages missing README.md"
+    fi
+  else
+    log_info "No REST API Extension controllers found"
   fi
+}
 
-  # Check for deprecated DATE type
-  DEPRECATED_DATE=$(grep -c 'type="DATE"' "$BOM_FILE" 2>/dev/null || echo 0)
-  if [ "$DEPRECATED_DATE" -gt 0 ]; then
-    log_finding "Deprecated DATE (java.util.Date) type used: $DEPRECATED_DATE times. Use DATE ONLY or DATE-TIME."
+# CHECK 9: EditorConfig
+check_editorconfig() {
+  echo "--- Check 9: EditorConfig ---"
+  if [ -f ".editorconfig" ]; then
+    log_success ".editorconfig file present"
+  else
+    log_finding ".editorconfig file NOT found. Recommended for consistent formatting." ".editorconfig"
   fi
+}
 
-  # Check for audit fields
-  AUDIT_FIELDS_PATTERN="auFechaCreacion\|auUsuarioCreacion\|auFechaModificacion\|auUsuarioModificacion"
-  AUDIT_FIELDS_FOUND=$(grep -c "$AUDIT_FIELDS_PATTERN" "$BOM_FILE" 2>/dev/null || echo 0)
-  if [ "$BO_COUNT" -gt 0 ]; then
-    EXPECTED_AUDIT_FIELDS=$((BO_COUNT * 4))
-    if [ "$AUDIT_FIELDS_FOUND" -lt "$EXPECTED_AUDIT_FIELDS" ]; then
-      log_finding "Audit fields incomplete: found $AUDIT_FIELDS_FOUND, expected $EXPECTED_AUDIT_FIELDS (4 per business object)"
-    else
-      log_success "Audit fields appear complete"
-    fi
+# CHECK 10: Process Variable Count (quick heuristic)
+check_process_variables() {
+  echo "--- Check 10: Process Variables (heuristic) ---"
+  PROC_FILES=$(find . -name "*.proc" -not -path "*/target/*" 2>/dev/null)
+  if [ -n "$PROC_FILES" ]; then
+    while IFS= read -r proc_file; do
+      VAR_COUNT=$(grep -c "<data " "$proc_file" 2>/dev/null || true)
+      PROC_NAME=$(basename "$proc_file" .proc)
+      if [ "$VAR_COUNT" -gt 40 ]; then
+        log_finding "Process '$PROC_NAME' has $VAR_COUNT variables (>40 threshold)" "$proc_file"
+      elif [ "$VAR_COUNT" -gt 20 ]; then
+        log_warning "Process '$PROC_NAME' has $VAR_COUNT variables (consider reducing)" "$proc_file"
+      else
+        log_info "Process '$PROC_NAME': $VAR_COUNT variables"
+      fi
+    done <<< "$PROC_FILES"
+  else
+    log_info "No .proc files found"
   fi
+}
+
+# Checkstyle, PMD and JaCoCo results of the Maven build, the per-file cache, the findings file.
+# audit_results plan <since> <checkstyle-config>: write $WORK_DIR/analyzed, exit 2 for a full audit
+# audit_results javadoc-totals: "public missing" Javadoc counts, scanned files + cached ones
+# audit_results analyzers <incremental>: print checks 3-5 and record their findings
+# audit_results assemble <incremental> <findings-file> <project-dir> <checkstyle-config>:
+#   stream audit-findings.jsonl and .sarif, update the cache, print the counts
+audit_results() {
+  "$PYTHON_CMD" - "$WORK_DIR" "$@" <<'PY'
+import glob
+import hashlib
+import json
+import os
+import re
+import subprocess
+import sys
+import time
+import xml.etree.ElementTree as ET
+
+work_dir, command = sys.argv[1], sys.argv[2]
+YELLOW, GREEN, BLUE, NC = '\033[1;33m', '\033[0;32m', '\033[0;34m', '\033[0m'
+CACHE_FILE = os.path.join('.claude', 'cache', 'audit-files.json')
+CACHE_VERSION = 1
+SKIPPED_DIRS = {'target', 'node_modules', '.git', '.claude', 'reports'}
+PACKAGE = re.compile(r'^\s*package\s+([\w.]+)\s*;', re.M)
+IMPORT = re.compile(r'^\s*import\s+(?:static\s+)?([\w.]+?)(?:\.\*)?\s*;', re.M)
+
+
+def reports(name):
+    """Non-empty reports written by this run's Maven build."""
+    marker = os.path.join(work_dir, 'started')
+    since = os.path.getmtime(marker) if os.path.exists(marker) else 0
+    return sorted(p for p in glob.glob('**/target/' + name, recursive=True)
+                  if os.path.getsize(p) and os.path.getmtime(p) >= since)
+
+
+def relative(path):
+    return os.path.relpath(path).replace(os.sep, '/')
+
+
+def record(check, severity, message):
+    with open(os.path.join(work_dir, check + '.tsv'), 'a', encoding='utf-8') as f:
+        f.write('%s\t%s\t\t\t%s\n' % (check, severity, message))
+
+
+def sha256(path):
+    digest = hashlib.sha256()
+    with open(path, 'rb') as f:
+        for block in iter(lambda: f.read(1 << 16), b''):
+            digest.update(block)
+    return digest.hexdigest()
+
+
+def tracked_files():
+    """{path: sha256} of the files whose results are cached: Java sources and pom.xml."""
+    files = {}
+    for root, dirs, names in os.walk('.'):
+        dirs[:] = [d for d in dirs if d not in SKIPPED_DIRS]
+        for name in names:
+            if name.endswith('.java') or name == 'pom.xml':
+                path = relative(os.path.join(root, name))
+                files[path] = sha256(path)
+    return files
+
+
+def load_cache():
+    try:
+        with open(CACHE_FILE, encoding='utf-8') as f:
+            cache = json.load(f)
+        return cache if cache.get('version') == CACHE_VERSION else None
+    except (OSError, ValueError):
+        return None
+
+
+def analyzed():
+    path = os.path.join(work_dir, 'analyzed')
+    if not os.path.exists(path):
+        return None
+    with open(path, encoding='utf-8') as f:
+        return set(f.read().split('\n')) - {''}
+
+
+def dependents(changed, files):
+    """Java files importing a changed class, or in its package (no import needed)."""
+    classes, packages = set(), set()
+    sources = {}
+    for path in files:
+        if path.endswith('.java') and os.path.exists(path):
+            with open(path, encoding='utf-8', errors='replace') as f:
+                text = f.read()
+            package = PACKAGE.search(text)
+            sources[path] = (package.group(1) if package else '', set(IMPORT.findall(text)))
+    for path in changed:
+        if path in sources:
+            package = sources[path][0]
+            packages.add(package)
+            classes.add((package + '.' if package else '') + os.path.basename(path)[:-len('.java')])
+    return {path for path, (package, imports) in sources.items()
+            if package in packages or imports & (classes | packages)} - set(changed)
+
+
+def plan(since, checkstyle_config):
+    cache = load_cache()
+    if cache is None:
+        print('No audit cache yet (%s): running the full audit' % CACHE_FILE)
+        return 2
+    if cache.get('checkstyle') != (sha256(checkstyle_config) if checkstyle_config else None):
+        print('The Checkstyle configuration changed since the last audit: running the full audit')
+        return 2
+    files = tracked_files()
+    cached = cache.get('files', {})
+    changed = {path for path, digest in files.items() if cached.get(path, {}).get('sha') != digest}
+    if since != 'last':
+        result = subprocess.run(['git', 'diff', '--name-only', '--relative', since],
+                                capture_output=True, text=True)
+        if result.returncode:
+            sys.stderr.write(result.stderr)
+            return 1
+        changed.update(path for path in result.stdout.split() if path in files)
+    poms = sorted(path for path in changed if os.path.basename(path) == 'pom.xml')
+    if poms:
+        print('%s changed: running the full audit' % ', '.join(poms))
+        return 2
+    deleted = set(cached) - set(files)
+    affected = dependents(changed, files)
+    with open(os.path.join(work_dir, 'analyzed'), 'w', encoding='utf-8') as f:
+        f.write(''.join(path + '\n' for path in sorted(changed | affected)))
+    print('%d file(s) changed since %s, %d deleted, %d dependent(s): re-checking %d of %d Java files '
+          '(last full audit: %s)' % (len(changed), 'the last audit' if since == 'last' else since, len(deleted),
+                                     len(affected), len(changed | affected),
+                                     sum(1 for path in files if path.endswith('.java')),
+                                     cache.get('full_audit', 'unknown')))
+    return 0
+
+
+def javadoc_counts():
+    counts = {}
+    with open(os.path.join(work_dir, 'javadoc.counts'), encoding='utf-8') as f:
+        for line in f:
+            path, public, missing = line.rstrip('\n').split('\t')
+            counts[path] = [int(public), int(missing)]
+    return counts
+
+
+def fresh_violations():
+    """Yield the violations of this run's reports, one <file> element in memory at a time."""
+    for tool, name in (('checkstyle', 'checkstyle-result.xml'), ('pmd', 'pmd.xml')):
+        for report in reports(name):
+            for _, element in ET.iterparse(report):
+                if element.tag.split('}')[-1] != 'file':
+                    continue
+                path = relative(element.get('name'))
+                for item in element:
+                    if tool == 'checkstyle':
+                        yield {'tool': tool, 'rule': item.get('source', '').rsplit('.', 1)[-1],
+                               'severity': item.get('severity', 'warning'), 'file': path,
+                               'line': int(item.get('line') or 0), 'message': item.get('message', '')}
+                    else:
+                        yield {'tool': tool, 'rule': item.get('rule', ''),
+                               'severity': 'priority-%s' % item.get('priority', '3'), 'file': path,
+                               'line': int(item.get('beginline') or 0), 'message': (item.text or '').strip()}
+                element.clear()
+
+
+def violations(incremental, cache=None):
+    """Yield this run's violations; in an incremental run, cached ones for the files not re-checked."""
+    if not incremental:
+        yield from fresh_violations()
+        return
+    selected = analyzed()
+    for violation in fresh_violations():
+        if violation['file'] in selected:
+            yield violation
+    for path, entry in sorted((cache or {}).get('files', {}).items()):
+        if path not in selected and os.path.exists(path):
+            yield from entry.get('violations', [])
+
+
+def coverage(incremental):
+    if incremental:
+        return (load_cache() or {}).get('coverage', {})
+    totals = {}
+    for report in reports('site/jacoco/jacoco.xml'):
+        for counter in ET.parse(report).getroot().findall('counter'):
+            missed, covered = totals.get(counter.get('type'), (0, 0))
+            totals[counter.get('type')] = (missed + int(counter.get('missed')), covered + int(counter.get('covered')))
+    return {kind: {'covered': c, 'missed': m, 'percent': round(100.0 * c / (c + m), 1) if c + m else None}
+            for kind, (m, c) in totals.items()}
+
+
+def top(counts):
+    return ', '.join('%s (%d)' % kv for kv in sorted(counts.items(), key=lambda kv: -kv[1])[:5])
+
+
+# SARIF levels of the findings and of the Checkstyle severities / PMD priorities
+SARIF_LEVEL = {'error': 'error', 'warning': 'warning', 'finding': 'warning', 'info': 'note', 'ignore': 'none',
+               'priority-1': 'error', 'priority-2': 'error', 'priority-3': 'warning', 'priority-4': 'note',
+               'priority-5': 'note'}
+
+
+def sarif_result(record):
+    result = {'ruleId': '%s/%s' % (record['tool'], record['rule']) if record['type'] == 'violation'
+              else 'audit/%s' % record['check'],
+              'level': SARIF_LEVEL.get(record['severity'], 'warning'), 'message': {'text': record['message']}}
+    if record.get('file'):
+        location = {'artifactLocation': {'uri': record['file'], 'uriBaseId': 'SRCROOT'}}
+        if record.get('line'):
+            location['region'] = {'startLine': record['line']}
+        result['locations'] = [{'physicalLocation': location}]
+    return result
+
+
+def maven_status():
+    try:
+        with open(os.path.join(work_dir, 'maven.status'), encoding='utf-8') as f:
+            return f.read().strip()
+    except OSError:
+        return 'failed'
+
+
+if command == 'plan':
+    sys.exit(plan(sys.argv[3], sys.argv[4] if len(sys.argv) > 4 else ''))
+
+if command == 'javadoc-totals':
+    counts = javadoc_counts()
+    cached = (load_cache() or {}).get('files', {})
+    for path, entry in cached.items():
+        if path not in counts and 'javadoc' in entry and os.path.exists(path):
+            counts[path] = entry['javadoc']
+    print('%d %d' % (sum(c[0] for c in counts.values()), sum(c[1] for c in counts.values())))
+    sys.exit(0)
+
+incremental = sys.argv[3] == 'true'
+if command == 'analyzers':
+    rules = {'checkstyle': {}, 'pmd': {}}
+    for violation in violations(incremental, load_cache() if incremental else None):
+        counts = rules[violation['tool']]
+        counts[violation['rule']] = counts.get(violation['rule'], 0) + 1
+    for number, tool, label in ((3, 'checkstyle', 'Checkstyle'), (4, 'pmd', 'PMD')):
+        print('--- Check %d: %s Analysis ---' % (number, label))
+        total = sum(rules[tool].values())
+        ran = reports('checkstyle-result.xml' if tool == 'checkstyle' else 'pmd.xml')
+        if not ran and not (incremental and maven_status() == 'skipped'):
+            print('%s[WARN]%s %s did not run (compilation failed or plugin unavailable)' % (YELLOW, NC, label))
+            record(tool, 'warning', '%s did not run' % label)
+        elif total:
+            message = '%s violations detected (%d violations)' % (label, total)
+            print('%s[FIND]%s %s' % (YELLOW, NC, message))
+            print('%s[INFO]%s Top rules: %s' % (BLUE, NC, top(rules[tool])))
+            record(tool, 'finding', message)
+        else:
+            print('%s[PASS]%s %s: No violations found' % (GREEN, NC, label))
+        print('')
+    print('--- Check 5: JaCoCo Code Coverage ---')
+    totals = coverage(incremental)
+    if incremental:
+        print('%s[INFO]%s Incremental audit: coverage of the last full audit (%s)' % (
+            BLUE, NC, (load_cache() or {}).get('full_audit', 'unknown')))
+    if 'LINE' in totals:
+        print('%s[INFO]%s Coverage: lines %s%%, branches %s%%' % (
+            BLUE, NC, totals['LINE']['percent'], (totals.get('BRANCH') or {}).get('percent')))
+        if totals['LINE']['percent'] is not None and totals['LINE']['percent'] < 80:
+            message = 'Line coverage is %s%% (target: 80%%)' % totals['LINE']['percent']
+            print('%s[FIND]%s %s' % (YELLOW, NC, message))
+            record('jacoco', 'finding', message)
+        else:
+            print('%s[PASS]%s Line coverage meets the 80%% target' % (GREEN, NC))
+    else:
+        print('%s[WARN]%s JaCoCo report file not found after generation' % (YELLOW, NC))
+        record('jacoco', 'warning', 'JaCoCo report file not found after generation')
+    print('')
+    sys.exit(0)
+
+# assemble: records are written as they are read, only the per-file cache is kept in memory
+findings_file, project_dir = sys.argv[4], sys.argv[5]
+checkstyle_config = sys.argv[6] if len(sys.argv) > 6 else ''
+now = time.strftime('%Y-%m-%dT%H:%M:%S')
+previous = load_cache() or {}
+totals = coverage(incremental)
+checks = {}
+for timing in sorted(glob.glob(os.path.join(work_dir, '*.time'))):
+    with open(timing, encoding='utf-8') as f:
+        checks[os.path.basename(timing)[:-len('.time')]] = {'seconds': int(f.read().strip() or 0)}
+update_cache = maven_status() != 'failed'
+# Tools whose violations this run knows; the others keep their cached results
+ran = {tool for tool, name in (('checkstyle', 'checkstyle-result.xml'), ('pmd', 'pmd.xml')) if reports(name)}
+by_file = {}
+counts = {'finding': 0, 'warning': 0, 'error': 0, 'violations': 0}
+sarif_file = os.path.splitext(findings_file)[0] + '.sarif'
+os.makedirs(os.path.dirname(findings_file) or '.', exist_ok=True)
+with open(findings_file, 'w', encoding='utf-8') as jsonl, open(sarif_file, 'w', encoding='utf-8') as sarif:
+    sarif.write('{"$schema": "https://json.schemastore.org/sarif-2.1.0.json", "version": "2.1.0", "runs": '
+                '[{"tool": {"driver": {"name": "run-audit-checks", "informationUri": '
+                '"https://github.com/bonitasoft-ps/claude-code-toolkit"}}, '
+                '"originalUriBaseIds": {"SRCROOT": {"uri": %s}}, "results": [\n'
+                % json.dumps('file://' + os.path.abspath(project_dir).replace(os.sep, '/') + '/'))
+    jsonl.write(json.dumps({'type': 'audit', 'project': os.path.abspath(project_dir), 'date': now,
+                            'incremental': incremental, 'full_audit': previous.get('full_audit') if incremental
+                            else now, 'checks': checks, 'coverage': totals}) + '\n')
+
+    def emit(record):
+        if counts['finding'] + counts['warning'] + counts['error'] + counts['violations']:
+            sarif.write(',\n')
+        sarif.write(json.dumps(sarif_result(record)))
+        jsonl.write(json.dumps(record) + '\n')
+
+    for fragment in sorted(glob.glob(os.path.join(work_dir, '*.tsv'))):
+        with open(fragment, encoding='utf-8') as f:
+            for line in f:
+                check, severity, file, line_number, message = line.rstrip('\n').split('\t', 4)
+                file = file[2:] if file.startswith('./') else file
+                emit({'type': 'finding', 'check': check, 'severity': severity, 'file': file or None,
+                      'line': int(line_number) if line_number else None, 'message': message})
+                counts[severity] = counts.get(severity, 0) + 1
+    for violation in violations(incremental, previous):
+        emit(dict(type='violation', **violation))
+        counts['violations'] += 1
+        if update_cache:
+            by_file.setdefault(violation['file'], []).append(violation)
+    jsonl.write(json.dumps(dict(type='summary', **counts)) + '\n')
+    sarif.write('\n]}]}\n')
+
+# Per-file cache for the next --since run; a build that did not compile leaves the cache as it was.
+# A tool without a report keeps its cached violations, and a changed file it did not check keeps
+# its previous entry (or gets none), so the next --since run checks it again.
+if update_cache:
+    javadoc = {path: entry['javadoc'] for path, entry in previous.get('files', {}).items() if 'javadoc' in entry}
+    javadoc.update(javadoc_counts())
+    cache = {'version': CACHE_VERSION,
+             'checkstyle': (sha256(checkstyle_config) if checkstyle_config else None) if 'checkstyle' in ran
+             else previous.get('checkstyle'),
+             'full_audit': previous.get('full_audit') if incremental else now,
+             'coverage': totals or previous.get('coverage', {}),
+             'files': {}}
+    missing = {'checkstyle', 'pmd'} - ran
+    for path, digest in tracked_files().items():
+        before = previous.get('files', {}).get(path)
+        if missing and (before or {}).get('sha') != digest:
+            if before:
+                cache['files'][path] = before
+            continue
+        entry = {'sha': digest,
+                 'violations': [v for v in by_file.get(path, []) if v['tool'] in ran]
+                 + [v for v in (before or {}).get('violations', []) if v['tool'] in missing]}
+        if path in javadoc:
+            entry['javadoc'] = javadoc[path]
+        cache['files'][path] = entry
+    os.makedirs(os.path.dirname(CACHE_FILE), exist_ok=True)
+    with open(CACHE_FILE + '.tmp', 'w', encoding='utf-8') as f:
+        json.dump(cache, f, separators=(',', ':'))
+    os.replace(CACHE_FILE + '.tmp', CACHE_FILE)
+print('%d %d %d' % (counts['finding'], counts['warning'], counts['error']))
+PY
+}
 
-else
-  log_warning "BDM file (bom.xml) not found in project"
-fi
+echo "============================================="
+echo "  Bonita Project Audit Checks"
+echo "============================================="
+echo "  Project Directory: $PROJECT_DIR"
+echo "  Date: $(date '+%Y-%m-%d %H:%M:%S')"
+echo "============================================="
 echo ""
 
-# =============================================================================
-# CHECK 8: REST API Extension READMEs
-# =============================================================================
-echo "--- Check 8: REST API Extension Documentation ---"
-CONTROLLER_DIRS=$(find . -path "*/controller/*" -name "*.java" -not -path "*/target/*" 2>/dev/null | xargs -I{} dirname {} | sort -u)
-if [ -n "$CONTROLLER_DIRS" ]; then
-  TOTAL_CONTROLLERS=0
-  MISSING_README=0
-  while IFS= read -r ctrl_dir; do
-    TOTAL_CONTROLLERS=$((TOTAL_CONTROLLERS + 1))
-    if [ ! -f "$ctrl_dir/README.md" ]; then
-      MISSING_README=$((MISSING_README + 1))
-      log_finding "Missing README.md in controller: $ctrl_dir"
-    fi
-  done <<< "$CONTROLLER_DIRS"
+# --- Validate project directory ---
+if [ ! -d "$PROJECT_DIR" ]; then
+  log_error "Project directory not found: $PROJECT_DIR"
+  exit 1
+fi
 
-  log_info "Controller packages found: $TOTAL_CONTROLLERS"
-  if [ "$MISSING_README" -eq 0 ]; then
-    log_success "All controller packages have README.md"
-  else
-    log_finding "$MISSING_README controller packages missing README.md"
-  fi
-else
-  log_info "No REST API Extension controllers found"
+cd "$PROJECT_DIR"
+
+if [ ! -f "pom.xml" ]; then
+  log_error "pom.xml not found in $PROJECT_DIR. Is this a Maven project?"
+  exit 1
+fi
+
+AUDIT_STARTED=$SECONDS
+touch "$WORK_DIR/started"
+CHECKSTYLE_CONFIG=""
+if [ -f "$CONFIG_DIR/checkstyle.xml" ]; then
+  CHECKSTYLE_CONFIG="$CONFIG_DIR/checkstyle.xml"
+elif [ -f checkstyle.xml ]; then
+  CHECKSTYLE_CONFIG="$PWD/checkstyle.xml"
 fi
-echo ""
 
 # =============================================================================
-# CHECK 9: EditorConfig
+# CHECK 1: Java Version
 # =============================================================================
-echo "--- Check 9: EditorConfig ---"
-if [ -f ".editorconfig" ]; then
-  log_success ".editorconfig file present"
+echo "--- Check 1: Java Version ---"
+if command -v java &>/dev/null; then
+  JAVA_VERSION=$(java -version 2>&1 | head -1)
+  log_info "Java: $JAVA_VERSION"
+  if echo "$JAVA_VERSION" | grep -q '"17\|" 17\|version "17'; then
+    log_success "Java 17 detected"
+  else
+    log_warning "Java 17 is recommended for Bonita projects. Current: $JAVA_VERSION"
+  fi
 else
-  log_finding ".editorconfig file NOT found. Recommended for consistent formatting."
+  log_error "Java not found in PATH"
 fi
 echo ""
 
-# =============================================================================
-# CHECK 10: Process Variable Count (quick heuristic)
-# =============================================================================
-echo "--- Check 10: Process Variables (heuristic) ---"
-PROC_FILES=$(find . -name "*.proc" -not -path "*/target/*" 2>/dev/null)
-if [ -n "$PROC_FILES" ]; then
-  while IFS= read -r proc_file; do
-    VAR_COUNT=$(grep -c "<data " "$proc_file" 2>/dev/null || echo 0)
-    PROC_NAME=$(basename "$proc_file" .proc)
-    if [ "$VAR_COUNT" -gt 40 ]; then
-      log_finding "Process '$PROC_NAME' has $VAR_COUNT variables (>40 threshold)"
-    elif [ "$VAR_COUNT" -gt 20 ]; then
-      log_warning "Process '$PROC_NAME' has $VAR_COUNT variables (consider reducing)"
-    else
-      log_info "Process '$PROC_NAME': $VAR_COUNT variables"
-    fi
-  done <<< "$PROC_FILES"
-else
-  log_info "No .proc files found"
+# --- Incremental audit: select the files to re-check ---
+if [ -n "$SINCE" ]; then
+  echo "--- Incremental Audit (--since $SINCE) ---"
+  audit_results plan "$SINCE" "$CHECKSTYLE_CONFIG"
+  case $? in
+    0) INCREMENTAL=true ;;
+    2) ;;
+    *) log_error "Cannot list the files changed since $SINCE"; exit 1 ;;
+  esac
+  echo ""
 fi
+
+# The Maven build and the file-based checks run concurrently
+log_info "Running the Maven build and checks 6-10 in parallel..."
+echo ""
+run_check maven maven_build
+run_check javadoc check_javadoc
+run_check bdm check_bdm
+run_check readme check_controller_readmes
+run_check editorconfig check_editorconfig
+run_check process check_process_variables
+wait
+
+cat "$WORK_DIR/maven.log"
 echo ""
+CHECK_ID="analyzers"
+audit_results analyzers "$INCREMENTAL"
+for id in javadoc bdm readme editorconfig process; do
+  cat "$WORK_DIR/$id.log"
+  echo ""
+done
+
+read -r FINDINGS_COUNT WARNINGS_COUNT ERRORS_COUNT < <(audit_results assemble "$INCREMENTAL" "$FINDINGS_FILE" "$PWD" "$CHECKSTYLE_CONFIG")
+FINDINGS_COUNT=${FINDINGS_COUNT:-0}
+WARNINGS_COUNT=${WARNINGS_COUNT:-0}
+ERRORS_COUNT=${ERRORS_COUNT:-0}
 
 # =============================================================================
 # SUMMARY
@@ -381,8 +804,9 @@ echo "============================================="
 echo -e "  Findings:  ${YELLOW}${FINDINGS_COUNT}${NC}"
 echo -e "  Warnings:  ${YELLOW}${WARNINGS_COUNT}${NC}"
 echo -e "  Errors:    ${RED}${ERRORS_COUNT}${NC}"
+echo "  Duration:  $(( SECONDS - AUDIT_STARTED ))s"
+echo "  Findings file: $FINDINGS_FILE (SARIF: ${FINDINGS_FILE%.*}.sarif)"
 echo ""
-
 TOTAL_ISSUES=$((FINDINGS_COUNT + WARNINGS_COUNT + ERRORS_COUNT))
 if [ "$ERRORS_COUNT" -gt 0 ]; then
   echo -e "  ${RED}RESULT: CRITICAL ISSUES FOUND${NC}"
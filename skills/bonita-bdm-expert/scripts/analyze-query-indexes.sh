@@ -0,0 +1,40 @@
+#!/bin/bash
+# =============================================================================
+# analyze-query-indexes.sh - Rank BDM query/index gaps by estimated cost
+# =============================================================================
+# Maps the WHERE / ORDER BY attributes of every query in bom.xml to the declared
+# indexes (composite indexes through their leading columns), estimates the rows
+# each query scans and sorts, weights queries called from REST controllers, and
+# prints the gaps most expensive first with ready-to-paste <index> declarations.
+#
+# Usage: bash scripts/analyze-query-indexes.sh [path/to/bom.xml] [--rows hints.json] [--json] [--all]
+#   --rows  JSON row-count hints per business object, e.g. {"PBTask": 15000000}
+#   --json  machine-readable output (diffable across commits)
+#   --all   include queries that are already fully indexed
+# Default: bdm/bom.xml
+#
+# Exit code: Always 0 (informational report)
+# =============================================================================
+
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+QUERY_COST=""
+for candidate in \
+    "${BDM_QUERY_COST_PY:-}" \
+    "$SCRIPT_DIR/../../../hooks/scripts/lib/bdm_query_cost.py" \
+    "$SCRIPT_DIR/../../../hooks/lib/bdm_query_cost.py" \
+    "${CLAUDE_PROJECT_DIR:-.}/.claude/hooks/lib/bdm_query_cost.py"; do
+    if [ -n "$candidate" ] && [ -f "$candidate" ]; then
+        QUERY_COST="$candidate"
+        break
+    fi
+done
+
+if [ -z "$QUERY_COST" ]; then
+    echo "[ERROR] bdm_query_cost.py not found"
+    echo "  Install the toolkit hooks (.claude/hooks/lib/) or set BDM_QUERY_COST_PY."
+    exit 0
+fi
+
+"$PYTHON_CMD" "$QUERY_COST" "$@"
+exit 0
@@ -0,0 +1,109 @@
+#!/usr/bin/env bash
+# =============================================================================
+# compare-benchmarks.sh
+# Summarizes or compares JMH JSON results (java -jar benchmarks.jar -rf json).
+#
+# Usage:
+#   ./compare-benchmarks.sh <results.json>                              # stable summary
+#   ./compare-benchmarks.sh <before.json> <after.json> [--threshold 10]  # delta table
+#
+# The summary has one line per benchmark and row count, sorted, with the score
+# rounded to 3 significant digits, so it can be committed next to the code and
+# read with `git diff`. With -prof gc, the allocation per operation is included.
+#
+# In comparison mode a line is flagged REGRESSION (or IMPROVED) when the score
+# moved by more than the threshold (percent, default 10) AND by more than the
+# combined error margins of the two runs.
+#
+# Exit code: 0, or 1 when at least one REGRESSION is reported
+# =============================================================================
+
+set -euo pipefail
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 <results.json> | <before.json> <after.json> [--threshold PCT]"
+    exit 1
+fi
+
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+
+"$PYTHON_CMD" - "$@" <<'PY'
+import json
+import sys
+
+args = sys.argv[1:]
+threshold = 10.0
+if '--threshold' in args:
+    position = args.index('--threshold')
+    threshold = float(args[position + 1])
+    del args[position:position + 2]
+
+
+def load(path):
+    """Return {(benchmark, params): (score, error, unit, alloc B/op or None)}."""
+    with open(path, encoding='utf-8') as f:
+        runs = json.load(f)
+    results = {}
+    for run in runs:
+        name = run['benchmark'].rsplit('.', 2)
+        name = '.'.join(name[-2:])
+        params = ','.join('%s=%s' % item for item in sorted((run.get('params') or {}).items()))
+        metric = run['primaryMetric']
+        error = metric.get('scoreError')
+        alloc = (run.get('secondaryMetrics') or {}).get('gc.alloc.rate.norm') or \
+            (run.get('secondaryMetrics') or {}).get('·gc.alloc.rate.norm')
+        results[(name, params)] = (metric['score'], error if isinstance(error, (int, float)) else 0.0,
+                                   metric['scoreUnit'], alloc['score'] if alloc else None)
+    return results
+
+
+def sig(value):
+    """3 significant digits, written without exponent from 100 up (5201.7 -> 5200)."""
+    if value is None:
+        return '-'
+    return '%d' % round(float('%.3g' % value)) if abs(value) >= 100 else '%.3g' % value
+
+
+def sort_key(key):
+    name, params = key
+    numbers = [int(p.split('=', 1)[1]) if p.split('=', 1)[1].isdigit() else 0 for p in params.split(',') if '=' in p]
+    return name, numbers, params
+
+
+if len(args) == 1:
+    results = load(args[0])
+    print('%-52s %-12s %12s %10s %-8s %12s' % ('BENCHMARK', 'PARAMS', 'SCORE', 'ERROR', 'UNIT', 'ALLOC B/op'))
+    for key in sorted(results, key=sort_key):
+        score, error, unit, alloc = results[key]
+        print('%-52s %-12s %12s %10s %-8s %12s' % (key[0], key[1] or '-', sig(score), sig(error), unit, sig(alloc)))
+    sys.exit(0)
+
+before, after = load(args[0]), load(args[1])
+regressions = 0
+print('%-52s %-12s %12s %12s %9s %18s  %s' % ('BENCHMARK', 'PARAMS', 'BEFORE', 'AFTER', 'DELTA', 'ALLOC B/op', ''))
+for key in sorted(set(before) | set(after), key=sort_key):
+    if key not in before or key not in after:
+        print('%-52s %-12s %12s %12s %9s %18s  %s' % (key[0], key[1] or '-',
+                                                      sig(before[key][0]) if key in before else '-',
+                                                      sig(after[key][0]) if key in after else '-',
+                                                      '', '', 'ADDED' if key in after else 'REMOVED'))
+        continue
+    old, old_error, unit, old_alloc = before[key]
+    new, new_error, _, new_alloc = after[key]
+    delta = (new - old) / old * 100 if old else 0.0
+    verdict = ''
+    if abs(delta) > threshold and abs(new - old) > old_error + new_error:
+        # Lower is better for time per operation, higher for throughput
+        worse = (new > old) == (not unit.startswith('ops/'))
+        verdict = 'REGRESSION' if worse else 'IMPROVED'
+        regressions += verdict == 'REGRESSION'
+    alloc = sig(new_alloc)
+    if old_alloc and new_alloc is not None and abs(new_alloc - old_alloc) > old_alloc * 0.01:
+        alloc += ' (%+.0f%%)' % ((new_alloc - old_alloc) / old_alloc * 100)
+    print('%-52s %-12s %12s %12s %+8.1f%% %18s  %s' % (key[0], key[1] or '-', sig(old), sig(new), delta, alloc,
+                                                       verdict))
+print('')
+print('%d regression(s) above %.0f%% (unit: %s)' % (regressions, threshold,
+                                                    next(iter(after.values()))[2] if after else '-'))
+sys.exit(1 if regressions else 0)
+PY
@@ -0,0 +1,260 @@
+#!/usr/bin/env bash
+# =============================================================================
+# generate-controller-benchmark.sh
+# Generates a JMH benchmark for a Bonita REST API controller.
+#
+# Usage:
+#   ./generate-controller-benchmark.sh <controller-directory-path> [--force]
+#
+# Example:
+#   ./generate-controller-benchmark.sh extensions/processBuilderRestAPI/src/main/java/com/bonitasoft/processbuilder/rest/api/controller/processesAccessible
+#
+# Generates:
+#   - extensions/<extension>-jmh/pom.xml (once per extension, from assets/jmh-pom.xml.template)
+#   - extensions/<extension>-jmh/src/main/java/<package>/<Controller>Benchmark.java
+#     (from assets/ControllerBenchmark.java.template)
+#
+# The benchmark class gets the controller's parameter/result DTO types, one stubbed
+# DAO per getDAO(...) call of the concrete controller, and one row factory per
+# business object, filled from bdm/bom.xml. Existing files are kept unless --force.
+# =============================================================================
+
+set -euo pipefail
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 <controller-directory-path> [--force]"
+    echo ""
+    echo "Example:"
+    echo "  $0 extensions/processBuilderRestAPI/src/main/java/com/bonitasoft/processbuilder/rest/api/controller/processesAccessible"
+    exit 1
+fi
+
+CONTROLLER_DIR="$1"
+FORCE="${2:-}"
+
+if [ ! -d "$CONTROLLER_DIR" ]; then
+    echo "Error: Directory does not exist: ${CONTROLLER_DIR}"
+    exit 1
+fi
+
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+ASSETS_DIR="$(cd "$(dirname "$0")/../assets" && pwd)"
+
+"$PYTHON_CMD" - "$CONTROLLER_DIR" "$ASSETS_DIR" "$FORCE" <<'PY'
+import glob
+import os
+import re
+import sys
+import xml.etree.ElementTree as ET
+
+controller_dir, assets_dir, force = sys.argv[1], sys.argv[2], sys.argv[3] == '--force'
+
+abstract_files = sorted(glob.glob(os.path.join(controller_dir, 'Abstract*.java')))
+if not abstract_files:
+    sys.exit('Error: no Abstract*.java in %s' % controller_dir)
+abstract_file = abstract_files[0]
+controller = os.path.basename(abstract_file)[len('Abstract'):-len('.java')]
+concrete_file = os.path.join(controller_dir, controller + '.java')
+if not os.path.isfile(concrete_file):
+    sys.exit('Error: concrete controller %s not found' % concrete_file)
+
+with open(abstract_file, encoding='utf-8') as f:
+    abstract_src = f.read()
+with open(concrete_file, encoding='utf-8') as f:
+    concrete_src = f.read()
+sources = abstract_src + '\n' + concrete_src
+
+package = re.search(r'^\s*package\s+([\w.]+)\s*;', concrete_src, re.M).group(1)
+
+
+def method_type(name):
+    match = re.search(r'(?:abstract|public|protected)\s+(?:abstract\s+)?([\w.<>, ]+?)\s+%s\s*\(' % name, sources)
+    if not match:
+        sys.exit('Error: cannot find %s() in %s' % (name, controller_dir))
+    return match.group(1).strip()
+
+
+param_type = method_type('validateInputParameters')
+result_type = method_type('execute')
+imports = set()
+
+
+def import_for(simple_name):
+    match = re.search(r'^\s*import\s+([\w.]+\.%s)\s*;' % re.escape(simple_name), sources, re.M)
+    return match.group(1) if match else None
+
+
+for type_name in (param_type, result_type):
+    for simple in re.findall(r'[A-Z]\w*', type_name):
+        found = import_for(simple)
+        if found:
+            imports.add(found)
+
+# --- BDM DAOs and the business objects they return ------------------------------
+daos = list(dict.fromkeys(re.findall(r'getDAO\(\s*(\w+)\.class', concrete_src)))
+
+module_src = controller_dir.replace('\\', '/').split('/src/main/java')[0]
+project_dir = os.path.abspath(module_src)
+bom_file = None
+while True:
+    candidate = os.path.join(project_dir, 'bdm', 'bom.xml')
+    if os.path.isfile(candidate):
+        bom_file = candidate
+        break
+    parent = os.path.dirname(project_dir)
+    if parent == project_dir:
+        break
+    project_dir = parent
+
+bom_fields = {}
+if bom_file:
+    for obj in ET.parse(bom_file).getroot().iter():
+        if obj.tag.split('}')[-1] != 'businessObject':
+            continue
+        short = obj.get('qualifiedName', '').rsplit('.', 1)[-1]
+        bom_fields[short] = [(e.get('name'), e.get('type'), e.get('collection') == 'true')
+                             for e in obj.iter() if e.tag.split('}')[-1] == 'field']
+
+VALUES = {
+    'STRING': ('"%s-" + i', None),
+    'TEXT': ('"%s " + i + " lorem ipsum dolor sit amet, consectetur adipiscing elit"', None),
+    'BOOLEAN': ('i % 2 == 0', None),
+    'INTEGER': ('i', None),
+    'LONG': ('(long) i', None),
+    'FLOAT': ('i * 1.5f', None),
+    'DOUBLE': ('i * 1.5d', None),
+    'DATE': ('new Date(1_700_000_000_000L + i * 60_000L)', 'java.util.Date'),
+    'LOCALDATE': ('LocalDate.of(2024, 1, 1).plusDays(i % 365)', 'java.time.LocalDate'),
+    'LOCALDATETIME': ('LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i)', 'java.time.LocalDateTime'),
+    'OFFSETDATETIME': ('OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).plusMinutes(i)',
+                       'java.time.OffsetDateTime'),
+}
+
+dao_setup = []
+factories = []
+for dao in daos:
+    entity = dao[:-3] if dao.endswith('DAO') else dao
+    dao_import = import_for(dao)
+    if dao_import:
+        imports.add(dao_import)
+        imports.add(dao_import.rsplit('.', 1)[0] + '.' + entity)
+    dao_setup.append('                when(apiClient.getDAO(%s.class))\n'
+                     '                    .thenReturn(stubDao(%s.class, %sBenchmark::new%s));'
+                     % (dao, dao, controller, entity))
+    body = ['        %s row = new %s();' % (entity, entity)]
+    skipped = []
+    for name, bdm_type, collection in bom_fields.get(entity, []):
+        value = VALUES.get(bdm_type)
+        if collection or value is None:
+            skipped.append(name)
+            continue
+        expression, needed = value
+        if needed:
+            imports.add(needed)
+            if needed == 'java.time.OffsetDateTime':
+                imports.add('java.time.ZoneOffset')
+        if '%s' in expression:
+            expression = expression % name
+        body.append('        row.set%s(%s);' % (name[:1].upper() + name[1:], expression))
+    if entity not in bom_fields:
+        body.append('        // TODO: set the fields execute() maps and serializes (%s not found in bdm/bom.xml)' % entity)
+    elif skipped:
+        body.append('        // TODO: collection fields not filled: %s' % ', '.join(skipped))
+    factories.append('\n'.join([
+        '    /**',
+        '     * Row {@code i} returned by %s. Values vary per row so serialization is not flattered.' % dao,
+        '     */',
+        '    static %s new%s(int i) {' % (entity, entity)] + body + ['        return row;', '    }']))
+
+if not dao_setup:
+    dao_setup.append('                // TODO: no getDAO(...) call found in %s.java; stub its data sources here' % controller)
+
+# --- benchmark class -----------------------------------------------------------
+with open(os.path.join(assets_dir, 'ControllerBenchmark.java.template'), encoding='utf-8') as f:
+    template = f.read()
+java_imports = sorted(i for i in imports if i.startswith('java.'))
+java = (template.replace('__JAVA_IMPORTS__', ''.join('import %s;\n' % i for i in java_imports))
+        .replace('__IMPORTS__', '\n'.join('import %s;' % i for i in sorted(imports) if i not in java_imports))
+        .replace('__DAO_SETUP__', '\n'.join(dao_setup))
+        .replace('__ROW_FACTORIES__', '\n\n'.join(factories) or '    // No BDM row factory needed')
+        .replace('__PARAM_TYPE__', param_type)
+        .replace('__RESULT_TYPE__', result_type)
+        .replace('__CONTROLLER__', controller)
+        .replace('__PACKAGE__', package))
+# Keep each blank-line separated import group sorted once the generated imports are in
+java = re.sub(r'(?:^import [\w.]+;\n)+', lambda m: ''.join(sorted(set(m.group(0).splitlines(True)))), java, flags=re.M)
+
+extension = os.path.basename(os.path.normpath(module_src))
+module_dir = os.path.join(os.path.dirname(os.path.normpath(module_src)), extension + '-jmh')
+java_file = os.path.join(module_dir, 'src', 'main', 'java', *package.split('.'), controller + 'Benchmark.java')
+
+
+def write(path, content):
+    if os.path.exists(path) and not force:
+        print('  [SKIP] %s exists (use --force to overwrite)' % path)
+        return
+    os.makedirs(os.path.dirname(path), exist_ok=True)
+    with open(path, 'w', encoding='utf-8') as f:
+        f.write(content)
+    print('  [OK]   %s' % path)
+
+
+print('')
+print('Controller: %s (%s -> %s), DAOs: %s' % (controller, param_type, result_type, ', '.join(daos) or 'none'))
+write(java_file, java)
+
+# --- module pom: same parent, properties and Bonita-provided dependencies -------------
+with open(os.path.join(module_src, 'pom.xml'), encoding='utf-8') as f:
+    pom = f.read()
+without_parent = re.sub(r'<parent>.*?</parent>', '', pom, flags=re.S)
+parent_block = re.search(r'<parent>.*?</parent>', pom, re.S)
+project_level = re.sub(r'<(dependencies|dependencyManagement|build|profiles|properties)>.*?</\1>', '', without_parent,
+                       flags=re.S)
+
+
+def pom_value(tag):
+    match = re.search(r'<%s>([^<]+)</%s>' % (tag, tag), project_level) or \
+        re.search(r'<parent>.*?<%s>([^<]+)</%s>' % (tag, tag), pom, re.S)
+    return match.group(1).strip() if match else ''
+
+
+def indent(block, prefix):
+    """Re-indent a copied XML fragment to the template's 4-space layout, one level per open element."""
+    out = []
+    depth = 0
+    for line in (l.strip() for l in block.strip('\n').split('\n')):
+        if not line:
+            continue
+        if line.startswith('</'):
+            depth -= 1
+        out.append(prefix + '    ' * max(depth, 0) + line)
+        if re.match(r'<[^/!?][^>]*[^/]>$|<[^/!?]>$', line) and '</' not in line:
+            depth += 1
+    return '\n'.join(out)
+
+
+properties = re.search(r'<properties>(.*?)</properties>', without_parent, re.S)
+dependencies = re.sub(r'<dependencyManagement>.*?</dependencyManagement>', '', without_parent, flags=re.S)
+provided = [re.sub(r'\s*<scope>provided</scope>', '', d)
+            for d in re.findall(r'<dependency>.*?</dependency>', dependencies, re.S) if '<scope>provided</scope>' in d]
+
+with open(os.path.join(assets_dir, 'jmh-pom.xml.template'), encoding='utf-8') as f:
+    pom_template = f.read()
+module_pom = (pom_template.replace('__PARENT__', indent(parent_block.group(0), '    ') + '\n' if parent_block else '')
+              .replace('__PROPERTIES__', indent(properties.group(1), '        ') if properties else '')
+              .replace('__PROVIDED_DEPENDENCIES__', '\n'.join(indent(d, '        ') for d in provided))
+              .replace('__GROUP_ID__', pom_value('groupId'))
+              .replace('__VERSION__', pom_value('version'))
+              .replace('__MODULE_DIR__', os.path.relpath(module_dir).replace('\\', '/'))
+              .replace('__EXTENSION__', extension))
+write(os.path.join(module_dir, 'pom.xml'), module_pom)
+
+print('')
+print('Next steps:')
+print('  1. Review the TODO markers (QUERY_PARAMETERS, row factories) in %sBenchmark.java' % controller)
+print('  2. mvn -f extensions/pom.xml install -pl %s -am -DskipTests' % extension)
+print('  3. mvn -f %s/pom.xml package' % os.path.relpath(module_dir))
+print('  4. java -jar %s/target/benchmarks.jar %sBenchmark -prof gc -rf json -rff %s.json'
+      % (os.path.relpath(module_dir), controller, controller))
+print('  5. Compare two runs: compare-benchmarks.sh <before.json> <after.json>')
+PY
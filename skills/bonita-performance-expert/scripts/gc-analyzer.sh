@@ -0,0 +1,504 @@
+#!/usr/bin/env bash
+# =============================================================================
+# gc-analyzer.sh - Pause, allocation and heap occupancy report from JVM GC logs
+#
+# Usage:
+#   ./gc-analyzer.sh <gc.log|log-dir>... [--json] [--windows N]
+#
+#   --json      the analysis as JSON instead of the report
+#   --windows   time windows of the heap floor trend (default: 12)
+#
+# Reads JDK 11/17/21 unified logging (-Xlog:gc*:file=gc.log:time,uptime,level,tags
+# or any subset of these decorations) written by G1, ZGC (single and generational)
+# and, for pauses and heap only, Parallel/Serial. A directory argument takes
+# every gc*.log* file in it (rotated gc.log.0, gc.log.1 ... included), ordered
+# by their first timestamp. The logs are streamed line by line.
+#
+# Computed:
+#   pauses      count, total, p50/p90/p99/max, GC overhead (pause time / run time)
+#   allocation  heap growth between a GC and the next one, MB/s
+#   promotion   G1 old regions growth during young pauses, MB/s
+#   humongous   G1 pauses caused by humongous allocations, peak humongous regions
+#   heap floor  lowest post-GC heap per time window; a steady rise (least squares,
+#               r2 >= 0.8, +10% of the max heap or more) is flagged as leak-like
+#   trouble     Full GCs, to-space exhausted / evacuation failures, ZGC allocation stalls
+#
+# Recommendations (heap 3-4x the live set, G1 region size, pause target, IHOP,
+# ZGC headroom) come with numbers from the log. They are starting points for a
+# load test, not production settings.
+#
+# Exit code: 0, or 1 when no GC event was found
+# =============================================================================
+
+set -euo pipefail
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 <gc.log|log-dir>... [--json] [--windows N]"
+    exit 1
+fi
+
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+
+"$PYTHON_CMD" - "$@" <<'PY'
+import array
+import calendar
+import glob
+import gzip
+import json
+import math
+import os
+import re
+import sys
+
+MB = 1024.0 * 1024.0
+UNITS = {'B': 1, 'K': 1024, 'M': 1024 ** 2, 'G': 1024 ** 3, 'T': 1024 ** 4}
+DEFAULT_PAUSE_TARGET_MS = 200
+G1_TARGET_REGIONS = 2048
+LEAK_R2 = 0.8
+LEAK_GROWTH = 0.10
+
+LINE = re.compile(r'^((?:\[[^\]]*\])+)\s*(?:GC\((\d+)\)\s*)?(.*)$')
+ISO_TIME = re.compile(r'^(\d{4})-(\d\d)-(\d\d)T(\d\d):(\d\d):(\d\d)(?:\.(\d+))?([+-]\d{4}|Z)?$')
+UPTIME = re.compile(r'^(\d+(?:\.\d+)?)(s|ms|ns)$')
+SIZE = r'(\d+(?:\.\d+)?)([BKMGT])'
+# G1, Parallel, Serial: "Pause Young (Normal) (G1 Evacuation Pause) 312M->120M(1024M) 15.234ms"
+STW_SUMMARY = re.compile(r'^Pause (Young|Full|Remark|Cleanup|Initial Mark)((?: \([^)]*\))*) ' + SIZE + '->' + SIZE +
+                         r'\(' + SIZE + r'\) (\d+(?:\.\d+)?)ms')
+# ZGC: "Garbage Collection (Allocation Rate) 600M(59%)->200M(20%)", JDK 21 "Minor Collection (...) ... 0.050s"
+Z_SUMMARY = re.compile(r'^(Garbage Collection|Major Collection|Minor Collection) \(([^)]*)\) ' + SIZE +
+                       r'\(\d+%\)->' + SIZE + r'\(\d+%\)')
+Z_PAUSE = re.compile(r'^(?:[yYoO]: )?(Pause (?:Mark Start|Mark End|Relocate Start)(?: \(\w+\))?) (\d+(?:\.\d+)?)ms')
+Z_STALL = re.compile(r'Allocation Stall \(([^)]*)\) (\d+(?:\.\d+)?)ms')
+REGIONS = re.compile(r'^(Eden|Survivor|Old|Humongous) regions: (\d+)->(\d+)')
+REGION_SIZE = re.compile(r'^Heap [Rr]egion [Ss]ize: ' + SIZE)
+MAX_HEAP = re.compile(r'^(?:Heap Max Capacity|Max Capacity): ' + SIZE)
+COLLECTOR = re.compile(r'^Using (G1|The Z Garbage Collector|Z Garbage Collector|Parallel|Serial|Shenandoah)')
+PAUSE_TARGET = re.compile(r'MaxGCPauseMillis[=: ]+(\d+)')
+EVACUATION_FAILURE = re.compile(r'To-space exhausted|Evacuation Failure', re.I)
+
+
+def size(number, unit):
+    return float(number) * UNITS[unit]
+
+
+def gc_files(args):
+    paths = []
+    for arg in args:
+        if os.path.isdir(arg):
+            paths.extend(p for p in glob.glob(os.path.join(arg, 'gc*.log*')) if os.path.isfile(p))
+        elif os.path.isfile(arg):
+            paths.append(arg)
+    return paths
+
+
+def open_text(path):
+    if path.endswith('.gz'):
+        return gzip.open(path, 'rt', encoding='utf-8', errors='replace')
+    return open(path, encoding='utf-8', errors='replace')
+
+
+def timestamp(decorations):
+    """Seconds on one timeline: wall-clock time when decorated, else uptime."""
+    uptime = None
+    for decoration in decorations:
+        iso = ISO_TIME.match(decoration)
+        if iso:
+            y, mo, d, h, mi, s, fraction, zone = iso.groups()
+            seconds = calendar.timegm((int(y), int(mo), int(d), int(h), int(mi), int(s)))
+            if zone and zone != 'Z':
+                sign = 1 if zone[0] == '+' else -1
+                seconds -= sign * (int(zone[1:3]) * 3600 + int(zone[3:5]) * 60)
+            return seconds + float('0.' + (fraction or '0'))
+        up = UPTIME.match(decoration)
+        if up and uptime is None:
+            value = float(up.group(1)) / {'s': 1, 'ms': 1e3, 'ns': 1e9}[up.group(2)]
+            uptime = value
+    return uptime
+
+
+def first_timestamp(path):
+    with open_text(path) as f:
+        for line in f:
+            match = LINE.match(line)
+            if match:
+                ts = timestamp(re.findall(r'\[([^\]]*)\]', match.group(1)))
+                if ts is not None:
+                    return ts
+    return 0.0
+
+
+def percentile(values, fraction):
+    return values[min(len(values) - 1, int(math.ceil(len(values) * fraction)) - 1)] if values else 0.0
+
+
+def round_up(value, step):
+    return int(math.ceil(value / step) * step) if value > 0 else 0
+
+
+def fit(points):
+    """(slope, r2) of a least squares line through (x, y) points."""
+    n = len(points)
+    mean_x = sum(x for x, _ in points) / n
+    mean_y = sum(y for _, y in points) / n
+    sxx = sum((x - mean_x) ** 2 for x, _ in points)
+    syy = sum((y - mean_y) ** 2 for _, y in points)
+    sxy = sum((x - mean_x) * (y - mean_y) for x, y in points)
+    if not sxx or not syy:
+        return 0.0, 0.0
+    return sxy / sxx, sxy * sxy / (sxx * syy)
+
+
+class Analysis:
+    def __init__(self):
+        self.collector = None
+        self.region_bytes = None
+        self.max_heap = 0.0
+        self.pause_target = None
+        self.pauses = array.array('d')          # ms
+        self.pause_kinds = {}                   # kind -> [count, total ms, max ms]
+        self.events = []                        # (ts, before bytes, after bytes, kind)
+        self.start = self.end = None
+        self.regions = {}                       # GC id -> {kind: (before, after)}
+        self.promoted = 0.0
+        self.promotion_span = 0.0
+        self.humongous_pauses = 0
+        self.humongous_peak = 0
+        self.full_gcs = 0
+        self.evacuation_failures = 0
+        self.stalls = array.array('d')
+        self.young_pause_ts = None
+
+    def pause(self, kind, ms):
+        self.pauses.append(ms)
+        entry = self.pause_kinds.setdefault(kind, [0, 0.0, 0.0])
+        entry[0] += 1
+        entry[1] += ms
+        entry[2] = max(entry[2], ms)
+
+    def feed(self, line):
+        match = LINE.match(line)
+        if not match:
+            return
+        decorations = re.findall(r'\[([^\]]*)\]', match.group(1))
+        ts = timestamp(decorations)
+        gc_id, message = match.group(2), match.group(3).strip()
+        if ts is not None:
+            self.start = ts if self.start is None else min(self.start, ts)
+            self.end = ts if self.end is None else max(self.end, ts)
+
+        if self.collector is None:
+            collector = COLLECTOR.match(message)
+            if collector:
+                self.collector = 'ZGC' if 'Z' in collector.group(1) else collector.group(1)
+        region = REGION_SIZE.match(message)
+        if region:
+            self.region_bytes = size(*region.groups())
+        heap = MAX_HEAP.match(message)
+        if heap:
+            self.max_heap = max(self.max_heap, size(*heap.groups()))
+        target = PAUSE_TARGET.search(message)
+        if target:
+            self.pause_target = int(target.group(1))
+        if EVACUATION_FAILURE.search(message):
+            self.evacuation_failures += 1
+
+        regions = REGIONS.match(message)
+        if regions and gc_id is not None:
+            kind, before, after = regions.group(1), int(regions.group(2)), int(regions.group(3))
+            self.regions.setdefault(gc_id, {})[kind] = (before, after)
+            if kind == 'Humongous':
+                self.humongous_peak = max(self.humongous_peak, before, after)
+            return
+
+        summary = STW_SUMMARY.match(message)
+        if summary:
+            kind, causes = summary.group(1), summary.group(2)
+            before, after, committed = size(*summary.group(3, 4)), size(*summary.group(5, 6)), \
+                size(*summary.group(7, 8))
+            ms = float(summary.group(9))
+            label = 'Pause %s%s' % (kind, ' (%s)' % causes.split(') (')[0].strip(' ()') if causes else '')
+            self.pause(label, ms)
+            self.max_heap = max(self.max_heap, committed)
+            if self.collector is None:
+                self.collector = 'G1' if 'G1' in causes or gc_id in self.regions else 'STW'
+            if kind == 'Full':
+                self.full_gcs += 1
+            if 'Humongous' in causes:
+                self.humongous_pauses += 1
+            if ts is not None:
+                self.events.append((ts, before, after, kind))
+            self.promotion(gc_id, kind, causes, ts)
+            return
+
+        z_summary = Z_SUMMARY.match(message)
+        if z_summary:
+            self.collector = self.collector or 'ZGC'
+            before, after = size(*z_summary.group(3, 4)), size(*z_summary.group(5, 6))
+            if ts is not None:
+                self.events.append((ts, before, after, z_summary.group(1).split()[0]))
+            return
+        z_pause = Z_PAUSE.match(message)
+        if z_pause:
+            self.collector = self.collector or 'ZGC'
+            self.pause(z_pause.group(1), float(z_pause.group(2)))
+            return
+        stall = Z_STALL.search(message)
+        if stall:
+            self.stalls.append(float(stall.group(2)))
+
+    def promotion(self, gc_id, kind, causes, ts):
+        """Old regions added by a young pause that collects no old region (Normal, Concurrent Start, Prepare Mixed)."""
+        counts = self.regions.pop(gc_id, None)
+        if kind != 'Young' or 'Mixed' in causes or not counts or 'Old' not in counts or not self.region_bytes:
+            return
+        old_before, old_after = counts['Old']
+        if ts is not None and self.young_pause_ts is not None:
+            self.promoted += max(0, old_after - old_before) * self.region_bytes
+            self.promotion_span += ts - self.young_pause_ts
+        if ts is not None:
+            self.young_pause_ts = ts
+
+    def allocation(self):
+        """(bytes allocated, seconds) between consecutive GCs: heap before a GC minus heap after the previous one."""
+        allocated, span = 0.0, 0.0
+        for (ts0, _, after0, _), (ts1, before1, _, _) in zip(self.events, self.events[1:]):
+            if ts1 > ts0 and before1 >= after0:
+                allocated += before1 - after0
+                span += ts1 - ts0
+        return allocated, span
+
+    def floors(self, windows):
+        """Lowest post-GC heap per time window: [(window start, floor bytes, GCs)]."""
+        if not self.events:
+            return []
+        first, last = self.events[0][0], self.events[-1][0]
+        width = (last - first) / windows if last > first else 1.0
+        buckets = {}
+        for ts, _, after, _ in self.events:
+            key = min(windows - 1, int((ts - first) / width))
+            floor = buckets.get(key)
+            buckets[key] = (min(floor[0], after), floor[1] + 1) if floor else (after, 1)
+        return [(first + key * width, floor, count) for key, (floor, count) in sorted(buckets.items())]
+
+
+def analyze(paths, windows):
+    analysis = Analysis()
+    for path in sorted(paths, key=lambda p: (first_timestamp(p), p)):
+        with open_text(path) as f:
+            for line in f:
+                analysis.feed(line)
+        analysis.regions = {}
+    analysis.events.sort(key=lambda e: e[0])
+    if not analysis.pauses and not analysis.events:
+        return None
+
+    pauses = sorted(analysis.pauses)
+    run = (analysis.end - analysis.start) if analysis.start is not None else 0.0
+    allocated, alloc_span = analysis.allocation()
+    floors = analysis.floors(windows)
+    result = {
+        'collector': analysis.collector or 'unknown',
+        'files': sorted(paths),
+        'run_seconds': round(run, 1),
+        'max_heap_mb': round(analysis.max_heap / MB, 1) or None,
+        'region_size_mb': round(analysis.region_bytes / MB, 2) if analysis.region_bytes else None,
+        'pauses': {
+            'count': len(pauses), 'total_ms': round(sum(pauses), 1),
+            'p50_ms': round(percentile(pauses, 0.5), 2), 'p90_ms': round(percentile(pauses, 0.9), 2),
+            'p99_ms': round(percentile(pauses, 0.99), 2), 'max_ms': round(pauses[-1], 2) if pauses else 0.0,
+            'overhead_percent': round(sum(pauses) / 10.0 / run, 2) if run else None,
+            'histogram': histogram(pauses),
+            'by_kind': {kind: {'count': c, 'total_ms': round(t, 1), 'max_ms': round(m, 2)}
+                        for kind, (c, t, m) in sorted(analysis.pause_kinds.items(), key=lambda kv: -kv[1][1])},
+        },
+        'allocation_mb_per_s': round(allocated / MB / alloc_span, 2) if alloc_span else None,
+        'promotion_mb_per_s': round(analysis.promoted / MB / analysis.promotion_span, 2)
+        if analysis.promotion_span else None,
+        'humongous': {'pauses': analysis.humongous_pauses, 'peak_regions': analysis.humongous_peak},
+        'full_gcs': analysis.full_gcs,
+        'evacuation_failures': analysis.evacuation_failures,
+        'allocation_stalls': {'count': len(analysis.stalls), 'total_ms': round(sum(analysis.stalls), 1),
+                              'max_ms': round(max(analysis.stalls), 2) if analysis.stalls else 0.0},
+        'heap_floor': [{'start': round(start - (analysis.start or 0), 1), 'floor_mb': round(floor / MB, 1),
+                        'gcs': count} for start, floor, count in floors],
+    }
+    result['leak'] = leak(floors, analysis.max_heap)
+    result['recommendations'] = recommend(analysis, result, floors)
+    return result
+
+
+def histogram(pauses):
+    bounds = [1, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, float('inf')]
+    counts, lower = [], 0
+    for bound in bounds:
+        count = sum(1 for p in pauses if lower <= p < bound)
+        counts.append({'range_ms': '%g-%s' % (lower, '' if bound == float('inf') else '%g' % bound), 'count': count})
+        lower = bound
+    return [c for c in counts if c['count']]
+
+
+def leak(floors, max_heap):
+    """Leak-like when the post-GC floor rises steadily across the windows."""
+    if len(floors) < 4:
+        return {'suspected': False, 'reason': 'fewer than 4 windows with a GC'}
+    points = [(start, floor) for start, floor, _ in floors]
+    slope, r2 = fit(points)
+    growth = points[-1][1] - points[0][1]
+    reference = max_heap or max(f for _, f in points)
+    suspected = slope > 0 and r2 >= LEAK_R2 and growth >= LEAK_GROWTH * reference
+    result = {'suspected': suspected, 'slope_mb_per_hour': round(slope * 3600 / MB, 1), 'r2': round(r2, 3),
+              'growth_mb': round(growth / MB, 1)}
+    if suspected and max_heap and slope > 0:
+        result['hours_to_max_heap'] = round(max(0.0, (max_heap - points[-1][1]) / slope / 3600), 1)
+    return result
+
+
+def recommend(analysis, result, floors):
+    out = []
+    max_heap = analysis.max_heap
+    pauses = result['pauses']
+    live = max(f for _, f, _ in floors[len(floors) * 2 // 3:]) if floors else 0.0
+    if result['leak']['suspected']:
+        out.append('Post-GC heap floor grows %.0f MB/h (r2 %.2f): take two heap dumps an hour apart '
+                   '(jcmd <pid> GC.heap_dump) and compare them before resizing anything'
+                   % (result['leak']['slope_mb_per_hour'], result['leak']['r2']))
+    # ZGC stalls get their own -Xmx figure below
+    if live and not result['leak']['suspected'] and not (analysis.collector == 'ZGC' and analysis.stalls):
+        low, high = round_up(3 * live / MB, 256), round_up(4 * live / MB, 256)
+        current = ' (current %.0f MB)' % (max_heap / MB) if max_heap else ''
+        if max_heap and max_heap < 3 * live:
+            out.append('Live set ~%.0f MB: raise -Xmx to %d-%d MB (3-4x the live set)%s'
+                       % (live / MB, low, high, current))
+        elif max_heap and max_heap > 6 * live:
+            out.append('Live set ~%.0f MB: -Xmx %d-%d MB (3-4x the live set) is enough%s'
+                       % (live / MB, low, high, current))
+        else:
+            out.append('Live set ~%.0f MB: -Xmx %d-%d MB keeps 3-4x headroom%s' % (live / MB, low, high, current))
+    if analysis.collector == 'G1':
+        target = analysis.pause_target or DEFAULT_PAUSE_TARGET_MS
+        if pauses['p99_ms'] > target:
+            out.append('p99 pause %.0f ms exceeds the %d ms target: check the pause kinds above; for young '
+                       'pauses cap the young generation (-XX:G1MaxNewSizePercent=40) before lowering '
+                       '-XX:MaxGCPauseMillis' % (pauses['p99_ms'], target))
+        region = analysis.region_bytes
+        heap = max_heap or (3 * live)
+        if region and (analysis.humongous_pauses or analysis.humongous_peak * region > 0.05 * heap):
+            suggested = min(32, max(2 * region / MB, 2 ** math.ceil(math.log2(max(1.0, heap / G1_TARGET_REGIONS / MB)))))
+            out.append('%d pause(s) caused by humongous allocations, up to %d humongous regions (%.0f MB): objects '
+                       'of %.1f MB or more are humongous with %.0f MB regions, set -XX:G1HeapRegionSize=%dm'
+                       % (analysis.humongous_pauses, analysis.humongous_peak,
+                          analysis.humongous_peak * region / MB, region / MB / 2, region / MB, suggested))
+        if analysis.full_gcs or analysis.evacuation_failures:
+            out.append('%d Full GC(s), %d evacuation failure(s): the concurrent cycle starts too late; raise the '
+                       'heap or set -XX:InitiatingHeapOccupancyPercent=%d -XX:-G1UseAdaptiveIHOP, '
+                       'and -XX:G1ReservePercent=15'
+                       % (analysis.full_gcs, analysis.evacuation_failures,
+                          max(20, min(45, int(100 * live / max_heap) + 10)) if max_heap and live else 35))
+        if result['promotion_mb_per_s'] and result['allocation_mb_per_s'] and \
+                result['promotion_mb_per_s'] > 0.2 * result['allocation_mb_per_s']:
+            out.append('%.0f%% of the allocation is promoted: objects outlive young collections (caches, long '
+                       'transactions); a larger young generation (-XX:G1NewSizePercent=10) lets them die young'
+                       % (100 * result['promotion_mb_per_s'] / result['allocation_mb_per_s']))
+    if analysis.collector == 'ZGC':
+        stalls = result['allocation_stalls']
+        if stalls['count']:
+            # Headroom is what lets ZGC finish a cycle before the application allocates it all
+            out.append('%d allocation stall(s), up to %.0f ms: ZGC cannot keep up with %.0f MB/s; raise -Xmx to '
+                       '%d MB or give it more concurrent threads (-XX:ConcGCThreads)'
+                       % (stalls['count'], stalls['max_ms'], result['allocation_mb_per_s'] or 0,
+                          round_up(max(1.25 * max_heap, 4 * live) / MB, 256)))
+        elif max_heap and live and max_heap > 3 * live:
+            out.append('-XX:SoftMaxHeapSize=%dm keeps ZGC working within %d MB while -Xmx stays the hard limit'
+                       % (round_up(3 * live / MB, 256), round_up(3 * live / MB, 256)))
+    if pauses['overhead_percent'] and pauses['overhead_percent'] > 5:
+        out.append('GC pauses take %.1f%% of the run time (over 5%%): reduce the allocation rate (%.0f MB/s) '
+                   'or give the heap more room' % (pauses['overhead_percent'], result['allocation_mb_per_s'] or 0))
+    return out
+
+
+def mb(value):
+    return '%.1f MB/s' % value if value is not None else 'n/a'
+
+
+def report(result):
+    p = result['pauses']
+    print('GC log analysis: %s, %s of run time, %d file(s)' % (result['collector'], duration(result['run_seconds']),
+                                                              len(result['files'])))
+    print('Max heap: %s, region size: %s' % ('%.0f MB' % result['max_heap_mb'] if result['max_heap_mb'] else 'n/a',
+                                             '%g MB' % result['region_size_mb'] if result['region_size_mb'] else 'n/a'))
+    print('')
+    print('Pauses: %d, total %.0f ms, overhead %s' % (p['count'], p['total_ms'],
+                                                      '%.2f%%' % p['overhead_percent']
+                                                      if p['overhead_percent'] is not None else 'n/a'))
+    print('  p50 %.2f ms  p90 %.2f ms  p99 %.2f ms  max %.2f ms' % (p['p50_ms'], p['p90_ms'], p['p99_ms'], p['max_ms']))
+    peak = max([h['count'] for h in p['histogram']] or [1])
+    for bucket in p['histogram']:
+        print('  %-12s %7d  %s' % (bucket['range_ms'] + ' ms', bucket['count'], '#' * max(1, bucket['count'] * 40 // peak)))
+    print('')
+    print('%-40s %7s %11s %10s' % ('PAUSE KIND', 'COUNT', 'TOTAL ms', 'MAX ms'))
+    for kind, stats in p['by_kind'].items():
+        print('%-40s %7d %11.1f %10.2f' % (kind[:40], stats['count'], stats['total_ms'], stats['max_ms']))
+    print('')
+    print('Allocation rate: %s   Promotion rate: %s' % (mb(result['allocation_mb_per_s']),
+                                                       mb(result['promotion_mb_per_s'])))
+    print('Humongous: %d pause(s), peak %d region(s)   Full GCs: %d   Evacuation failures: %d   '
+          'Allocation stalls: %d (%.0f ms)' % (result['humongous']['pauses'], result['humongous']['peak_regions'],
+                                              result['full_gcs'], result['evacuation_failures'],
+                                              result['allocation_stalls']['count'],
+                                              result['allocation_stalls']['total_ms']))
+    print('')
+    print('Post-GC heap floor:')
+    floors = result['heap_floor']
+    top = max([f['floor_mb'] for f in floors] or [1]) or 1
+    for floor in floors:
+        print('  +%-10s %8.1f MB  %5d GC(s)  %s' % (duration(floor['start']), floor['floor_mb'], floor['gcs'],
+                                                   '#' * max(1, int(floor['floor_mb'] * 40 / top))))
+    leak_info = result['leak']
+    if leak_info['suspected']:
+        print('  LEAK-LIKE GROWTH: +%.0f MB/h (r2 %.2f)%s' % (
+            leak_info['slope_mb_per_hour'], leak_info['r2'], ', max heap in ~%.1f h' % leak_info['hours_to_max_heap']
+            if 'hours_to_max_heap' in leak_info else ''))
+    elif 'slope_mb_per_hour' in leak_info:
+        print('  No leak-like trend (%+.1f MB/h, r2 %.2f)' % (leak_info['slope_mb_per_hour'], leak_info['r2']))
+    print('')
+    print('Recommendations:')
+    for line in result['recommendations'] or ['None: the GC is healthy for this workload']:
+        print('  - %s' % line)
+
+
+def duration(seconds):
+    seconds = int(seconds)
+    if seconds >= 3600:
+        return '%dh%02dm' % (seconds // 3600, seconds % 3600 // 60)
+    if seconds >= 60:
+        return '%dm%02ds' % (seconds // 60, seconds % 60)
+    return '%ds' % seconds
+
+
+def main(argv):
+    as_json = '--json' in argv
+    windows = 12
+    args = []
+    i = 0
+    while i < len(argv):
+        if argv[i] == '--windows' and i + 1 < len(argv):
+            windows = max(1, int(argv[i + 1]))
+            i += 1
+        elif argv[i] != '--json':
+            args.append(argv[i])
+        i += 1
+    paths = gc_files(args)
+    result = analyze(paths, windows) if paths else None
+    if result is None:
+        sys.stderr.write('No GC event found in %s (expected -Xlog:gc* unified logging)\n' % ' '.join(args))
+        return 1
+    if as_json:
+        json.dump(result, sys.stdout, indent=1)
+        print()
+    else:
+        report(result)
+    return 0
+
+
+sys.exit(main(sys.argv[1:]))
+PY
@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+# =============================================================================
+# jfr-profile.sh - Flight Recorder profiling of a Bonita runtime with the Bonita settings
+#
+# Usage:
+#   ./jfr-profile.sh record <pid> [seconds] [output.jfr]
+#   ./jfr-profile.sh analyze <recording.jfr> [--top N] [--json]
+#
+#   record    starts a recording on a running JVM with assets/bonita.jfc
+#             (default: 300 seconds, written to bonita-<pid>-<date>.jfr)
+#   analyze   attributes the recording to Bonita code (lib/JfrAnalyzer.java)
+#   --top     rows per table (default: 15)
+#   --json    the analysis as JSON instead of the report
+#
+# assets/bonita.jfc samples CPU every 10 ms, allocations through the JDK 16+
+# throttled sampler, and records monitor and park waits above 10 ms and
+# socket/file I/O above 20 ms, all with stack traces. On JDK 11, which has no
+# allocation sampler, enable the two TLAB events in bonita.jfc. To record
+# from startup instead, add to setenv.sh (CATALINA_OPTS):
+#   -XX:StartFlightRecording=settings=/path/to/bonita.jfc,duration=10m,filename=/tmp/bonita.jfr
+#
+# The analysis reads the recording once and splits CPU samples, allocated bytes,
+# blocking time and I/O time by component: groovy:<script>, connector:<class>,
+# rest-api:<class>, bonita:<engine package> or other:<library>. Socket I/O with
+# a JDBC driver on the stack is reported as jdbc, and parks in a connection
+# pool as db-pool. Needs a JDK 11+ (java, and jcmd for record) on the PATH.
+#
+# Exit code: 0, or 1 on a usage error, an unreadable or empty recording
+# =============================================================================
+
+set -euo pipefail
+
+usage() {
+    echo "Usage: $0 record <pid> [seconds] [output.jfr] | analyze <recording.jfr> [--top N] [--json]"
+    exit 1
+}
+
+[ $# -ge 2 ] || usage
+
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+SETTINGS="$(cd "$SCRIPT_DIR/../assets" && pwd)/bonita.jfc"
+JAVA_CMD="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+JCMD_CMD="${JAVA_HOME:+$JAVA_HOME/bin/}jcmd"
+
+case "$1" in
+    record)
+        PID="$2"
+        SECONDS_TO_RECORD="${3:-300}"
+        OUTPUT="${4:-bonita-$PID-$(date +%Y%m%d-%H%M%S).jfr}"
+        # jcmd resolves relative paths against the target JVM's working directory
+        case "$OUTPUT" in
+            /*) ;;
+            *) OUTPUT="$PWD/$OUTPUT" ;;
+        esac
+        "$JCMD_CMD" "$PID" JFR.start name=bonita settings="$SETTINGS" \
+            duration="${SECONDS_TO_RECORD}s" filename="$OUTPUT"
+        echo "Recording for ${SECONDS_TO_RECORD}s to $OUTPUT, then:"
+        echo "  $0 analyze $OUTPUT"
+        ;;
+    analyze)
+        shift
+        exec "$JAVA_CMD" "$SCRIPT_DIR/lib/JfrAnalyzer.java" "$@"
+        ;;
+    *)
+        usage
+        ;;
+esac
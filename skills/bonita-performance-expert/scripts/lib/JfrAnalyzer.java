@@ -0,0 +1,646 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Offline analysis of a JDK Flight Recorder file for jfr-profile.sh (assets/bonita.jfc).
+ *
+ * Streams the recording once with jdk.jfr.consumer.RecordingFile and attributes CPU
+ * samples, allocation, blocking time and socket/file I/O to the code a Bonita team can
+ * change. Each stack is walked from its innermost frame: the first Groovy script class,
+ * connector (executeBusinessLogic, connect, disconnect called by the engine) or REST API
+ * extension (doHandle called by Bonita) wins; otherwise the innermost org.bonitasoft
+ * frame gives a "bonita:" package, then the innermost library frame an "other:" one.
+ *
+ * JFR has no JDBC event: socket reads and writes with a JDBC driver frame on the stack
+ * are reported as jdbc, with an HTTP client frame as http. Parks and waits of idle pool
+ * threads (ThreadPoolExecutor.getTask, Quartz, reference handler) are left out of the
+ * blocking figures; waits for a pooled database connection are reported as db-pool.
+ *
+ * Run with the JDK source launcher (no build step, JDK 11+):
+ *   java JfrAnalyzer.java <recording.jfr> [--top N] [--json]
+ */
+public final class JfrAnalyzer {
+
+    private static final Pattern GROOVY_SCRIPT = Pattern.compile("Script[0-9a-fA-F_]+");
+    private static final String[] JDK_PACKAGES = {"java.", "javax.", "jdk.", "sun.", "com.sun."};
+    private static final String[] JDBC_DRIVERS = {"org.postgresql.", "com.mysql.", "org.mariadb.", "oracle.jdbc.",
+            "oracle.net.", "com.microsoft.sqlserver.", "org.h2.", "net.sourceforge.jtds."};
+    private static final String[] HTTP_CLIENTS = {"org.apache.http.", "org.apache.hc.", "okhttp3.", "java.net.http.",
+            "jdk.internal.net.http.", "sun.net.www.", "org.glassfish.jersey.client.", "org.springframework.web.client."};
+    private static final String[] CONNECTION_POOLS = {"org.apache.commons.pool2.", "org.apache.commons.dbcp2.",
+            "org.apache.tomcat.dbcp.", "com.zaxxer.hikari.", "bitronix.tm.resource.", "com.arjuna.ats.jdbc."};
+    private static final String[] IDLE_FRAMES = {"ThreadPoolExecutor.getTask", "DelayedWorkQueue.take",
+            "ForkJoinPool.awaitWork", "org.quartz.core.QuartzSchedulerThread.run",
+            "org.quartz.simpl.SimpleThreadPool$WorkerThread.run", "java.util.TimerThread.mainLoop",
+            "java.lang.ref.Reference.waitForReferencePendingList", "java.lang.ref.ReferenceQueue.remove",
+            "jdk.internal.misc.InnocuousThread.run", "jdk.jfr.internal."};
+    private static final int IDLE_DEPTH = 12;
+
+    /** Count, total (samples, bytes or nanoseconds) and maximum of one key. */
+    private static final class Stat {
+        long count;
+        long total;
+        long max;
+        long bytes;
+
+        void add(long value, long ioBytes) {
+            count++;
+            total += value;
+            max = Math.max(max, value);
+            bytes += ioBytes;
+        }
+    }
+
+    private final int top;
+    private final Map<String, Stat> cpuByComponent = new HashMap<>();
+    private final Map<String, Stat> cpuByMethod = new HashMap<>();
+    private final Map<String, Stat> sampledByComponent = new HashMap<>();
+    private final Map<String, Stat> sampledBySite = new HashMap<>();
+    private final Map<String, Stat> tlabByComponent = new HashMap<>();
+    private final Map<String, Stat> tlabBySite = new HashMap<>();
+    private final Map<String, Stat> blockingByComponent = new HashMap<>();
+    private final Map<String, Stat> blockingBySite = new HashMap<>();
+    private final Map<String, Stat> ioByComponent = new HashMap<>();
+    private final Map<String, Stat> ioByEndpoint = new HashMap<>();
+    private final Map<String, Stat> gcByName = new HashMap<>();
+    private final Map<String, Stat> nativeByComponent = new HashMap<>();
+    private final Map<String, String> methodComponent = new HashMap<>();
+    private long events;
+    private long idleWaits;
+    private long cpuLoads;
+    private double jvmCpu;
+    private double machineCpu;
+    private Instant start;
+    private Instant end;
+    private String jvm = "";
+
+    private JfrAnalyzer(int top) {
+        this.top = top;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path recording = null;
+        int top = 15;
+        boolean json = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("--top".equals(args[i]) && i + 1 < args.length) {
+                top = Integer.parseInt(args[++i]);
+            } else if ("--json".equals(args[i])) {
+                json = true;
+            } else if (recording == null && !args[i].startsWith("--")) {
+                recording = Paths.get(args[i]);
+            } else {
+                recording = null;
+                break;
+            }
+        }
+        if (recording == null) {
+            System.err.println("Usage: java JfrAnalyzer.java <recording.jfr> [--top N] [--json]");
+            System.exit(1);
+        }
+        JfrAnalyzer analyzer = new JfrAnalyzer(top);
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                analyzer.accept(file.readEvent());
+            }
+        }
+        if (analyzer.events == 0) {
+            System.err.println("No events in " + recording);
+            System.exit(1);
+        }
+        if (json) {
+            StringBuilder out = new StringBuilder();
+            writeJson(out, analyzer.toMap(recording), "");
+            System.out.println(out);
+        } else {
+            analyzer.report(recording);
+        }
+    }
+
+    private void accept(RecordedEvent event) {
+        events++;
+        if (start == null || event.getStartTime().isBefore(start)) {
+            start = event.getStartTime();
+        }
+        if (end == null || event.getEndTime().isAfter(end)) {
+            end = event.getEndTime();
+        }
+        String type = event.getEventType().getName();
+        RecordedStackTrace stack = event.getStackTrace();
+        switch (type) {
+            case "jdk.ExecutionSample":
+                if (stack != null && !stack.getFrames().isEmpty()) {
+                    String component = component(stack);
+                    String method = frame(stack.getFrames().get(0));
+                    cpuByComponent.computeIfAbsent(component, k -> new Stat()).add(1, 0);
+                    cpuByMethod.computeIfAbsent(method, k -> new Stat()).add(1, 0);
+                    methodComponent.putIfAbsent(method, component);
+                }
+                break;
+            case "jdk.NativeMethodSample":
+                if (stack != null && !stack.getFrames().isEmpty() && !isIdle(stack)) {
+                    nativeByComponent.computeIfAbsent(component(stack) + "\t" + frame(stack.getFrames().get(0)),
+                            k -> new Stat()).add(1, 0);
+                }
+                break;
+            case "jdk.ObjectAllocationSample":
+                allocation(sampledByComponent, sampledBySite, stack, event, event.getLong("weight"));
+                break;
+            case "jdk.ObjectAllocationInNewTLAB":
+                allocation(tlabByComponent, tlabBySite, stack, event, event.getLong("tlabSize"));
+                break;
+            case "jdk.ObjectAllocationOutsideTLAB":
+                allocation(tlabByComponent, tlabBySite, stack, event, event.getLong("allocationSize"));
+                break;
+            case "jdk.JavaMonitorEnter":
+                blocking("monitor", className(event, "monitorClass"), stack, event);
+                break;
+            case "jdk.JavaMonitorWait":
+                blocking("wait", className(event, "monitorClass"), stack, event);
+                break;
+            case "jdk.ThreadPark":
+                blocking("park", className(event, "parkedClass"), stack, event);
+                break;
+            case "jdk.ThreadSleep":
+                blocking("sleep", "Thread.sleep", stack, event);
+                break;
+            case "jdk.SocketRead":
+            case "jdk.SocketWrite":
+                String host = event.getString("host");
+                io(socketKind(stack), (host == null || host.isEmpty() ? event.getString("address") : host)
+                        + ":" + event.getInt("port"), stack, event,
+                        event.getLong(type.endsWith("Read") ? "bytesRead" : "bytesWritten"));
+                break;
+            case "jdk.FileRead":
+            case "jdk.FileWrite":
+                io("file", String.valueOf(event.getString("path")), stack, event,
+                        event.getLong(type.endsWith("Read") ? "bytesRead" : "bytesWritten"));
+                break;
+            case "jdk.CPULoad":
+                cpuLoads++;
+                jvmCpu += event.getFloat("jvmUser") + event.getFloat("jvmSystem");
+                machineCpu += event.getFloat("machineTotal");
+                break;
+            case "jdk.GarbageCollection":
+                gcByName.computeIfAbsent(event.getString("name"), k -> new Stat())
+                        .add(event.getDuration("sumOfPauses").toNanos(), 0);
+                break;
+            case "jdk.JVMInformation":
+                jvm = event.getString("jvmVersion").split(" for ")[0];
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void allocation(Map<String, Stat> byComponent, Map<String, Stat> bySite, RecordedStackTrace stack,
+                            RecordedEvent event, long bytes) {
+        if (stack == null || stack.getFrames().isEmpty()) {
+            return;
+        }
+        byComponent.computeIfAbsent(component(stack), k -> new Stat()).add(bytes, 0);
+        bySite.computeIfAbsent(site(stack) + " -> " + typeName(className(event, "objectClass")), k -> new Stat())
+                .add(bytes, 0);
+    }
+
+    private void blocking(String kind, String lock, RecordedStackTrace stack, RecordedEvent event) {
+        if (stack == null || isIdle(stack)) {
+            idleWaits++;
+            return;
+        }
+        if (!"sleep".equals(kind) && hasFrame(stack, CONNECTION_POOLS)) {
+            kind = "db-pool";
+        }
+        long nanos = event.getDuration().toNanos();
+        blockingByComponent.computeIfAbsent(kind + "\t" + component(stack), k -> new Stat()).add(nanos, 0);
+        blockingBySite.computeIfAbsent(kind + "\t" + lock + "\t" + site(stack), k -> new Stat()).add(nanos, 0);
+    }
+
+    private void io(String kind, String endpoint, RecordedStackTrace stack, RecordedEvent event, long bytes) {
+        long nanos = event.getDuration().toNanos();
+        String component = stack == null ? "unknown" : component(stack);
+        ioByComponent.computeIfAbsent(kind + "\t" + component, k -> new Stat()).add(nanos, bytes);
+        ioByEndpoint.computeIfAbsent(kind + "\t" + endpoint, k -> new Stat()).add(nanos, bytes);
+    }
+
+    /** The code a Bonita team owns behind a stack, innermost frame first. */
+    static String component(RecordedStackTrace stack) {
+        List<RecordedFrame> frames = stack.getFrames();
+        String bonita = null;
+        String library = null;
+        boolean compiling = false;
+        for (int i = 0; i < frames.size(); i++) {
+            if (!frames.get(i).isJavaFrame()) {
+                continue;
+            }
+            String cls = frames.get(i).getMethod().getType().getName();
+            String method = frames.get(i).getMethod().getName();
+            String caller = i + 1 < frames.size() ? frames.get(i + 1).getMethod().getType().getName() : "";
+            if (GROOVY_SCRIPT.matcher(cls).matches()) {
+                return "groovy:" + cls;
+            }
+            if (cls.startsWith("org.codehaus.groovy.control.") || cls.startsWith("groovy.lang.GroovyClassLoader")) {
+                compiling = true;
+            }
+            if (cls.startsWith("org.bonitasoft.engine.expression.") && cls.contains("Groovy")) {
+                return compiling ? "groovy:(compilation)" : "groovy:(runtime)";
+            }
+            if (!cls.startsWith("org.bonitasoft.") && !isJdk(cls)) {
+                if (caller.startsWith("org.bonitasoft.engine.") && (method.equals("executeBusinessLogic")
+                        || method.equals("connect") || method.equals("disconnect"))) {
+                    return "connector:" + simpleName(cls);
+                }
+                if (caller.startsWith("org.bonitasoft.") && method.equals("doHandle")) {
+                    return "rest-api:" + simpleName(cls);
+                }
+                if (library == null) {
+                    library = "other:" + packagePrefix(cls, 0, 2);
+                }
+            }
+            if (bonita == null && cls.startsWith("org.bonitasoft.")) {
+                bonita = "bonita:" + packagePrefix(cls, 2, 3);
+            }
+        }
+        return bonita != null ? bonita : library != null ? library : "jdk";
+    }
+
+    /** The innermost frame outside the JDK, where the allocation or wait comes from. */
+    private static String site(RecordedStackTrace stack) {
+        for (RecordedFrame frame : stack.getFrames()) {
+            if (frame.isJavaFrame() && !isJdk(frame.getMethod().getType().getName())) {
+                return frame(frame);
+            }
+        }
+        return stack.getFrames().isEmpty() ? "?" : frame(stack.getFrames().get(0));
+    }
+
+    private static boolean isIdle(RecordedStackTrace stack) {
+        List<RecordedFrame> frames = stack.getFrames();
+        for (int i = 0; i < Math.min(IDLE_DEPTH, frames.size()); i++) {
+            if (frames.get(i).isJavaFrame()) {
+                String frame = frames.get(i).getMethod().getType().getName() + "." + frames.get(i).getMethod().getName();
+                for (String idle : IDLE_FRAMES) {
+                    if (frame.contains(idle)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String socketKind(RecordedStackTrace stack) {
+        if (stack == null) {
+            return "socket";
+        }
+        return hasFrame(stack, JDBC_DRIVERS) ? "jdbc" : hasFrame(stack, HTTP_CLIENTS) ? "http" : "socket";
+    }
+
+    private static boolean hasFrame(RecordedStackTrace stack, String[] packages) {
+        for (RecordedFrame frame : stack.getFrames()) {
+            if (frame.isJavaFrame()) {
+                String cls = frame.getMethod().getType().getName();
+                for (String prefix : packages) {
+                    if (cls.startsWith(prefix)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isJdk(String cls) {
+        for (String prefix : JDK_PACKAGES) {
+            if (cls.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String frame(RecordedFrame frame) {
+        if (frame.getMethod() == null) {
+            return "?";
+        }
+        String name = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+        return frame.getLineNumber() > 0 ? name + ":" + frame.getLineNumber() : name;
+    }
+
+    private static String className(RecordedEvent event, String field) {
+        RecordedClass cls = event.hasField(field) ? event.getClass(field) : null;
+        return cls == null ? "?" : cls.getName();
+    }
+
+    /** Java spelling of an array descriptor ("[B" -> "byte[]", "[Ljava.lang.String;" -> "java.lang.String[]"). */
+    private static String typeName(String cls) {
+        int dimensions = 0;
+        while (dimensions < cls.length() && cls.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+        if (dimensions == 0) {
+            return cls;
+        }
+        String element = cls.substring(dimensions);
+        int primitive = "ZBCSIJFD".indexOf(element);
+        element = element.length() == 1 && primitive >= 0
+                ? new String[] {"boolean", "byte", "char", "short", "int", "long", "float", "double"}[primitive]
+                : element.substring(1, element.length() - 1);
+        return element + "[]".repeat(dimensions);
+    }
+
+    private static String simpleName(String cls) {
+        return cls.substring(cls.lastIndexOf('.') + 1);
+    }
+
+    /** Package segments [from, from + count) of a class name, skipping impl/internal segments. */
+    private static String packagePrefix(String cls, int from, int count) {
+        String[] parts = cls.split("\\.");
+        List<String> kept = new ArrayList<>();
+        for (int i = from; i < parts.length - 1 && kept.size() < count; i++) {
+            if (!parts[i].equals("impl") && !parts[i].equals("internal")) {
+                kept.add(parts[i]);
+            }
+        }
+        return kept.isEmpty() ? cls : String.join(".", kept);
+    }
+
+    private List<Map.Entry<String, Stat>> ranked(Map<String, Stat> stats) {
+        List<Map.Entry<String, Stat>> entries = new ArrayList<>(stats.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, Stat> e) -> e.getValue().total).reversed());
+        return entries.subList(0, Math.min(top, entries.size()));
+    }
+
+    private static long sum(Map<String, Stat> stats) {
+        return stats.values().stream().mapToLong(s -> s.total).sum();
+    }
+
+    private boolean sampledAllocation() {
+        return !sampledByComponent.isEmpty();
+    }
+
+    private void report(Path recording) {
+        long seconds = Duration.between(start, end).getSeconds();
+        long samples = sum(cpuByComponent);
+        System.out.printf("Recording %s: %d s from %s, %d events%s%n", recording.getFileName(), seconds, start,
+                events, jvm.isEmpty() ? "" : " (" + jvm + ")");
+        if (cpuLoads > 0) {
+            System.out.printf("CPU load: JVM %.0f%%, machine %.0f%% on average%n",
+                    100 * jvmCpu / cpuLoads, 100 * machineCpu / cpuLoads);
+        }
+
+        System.out.printf("%n=== CPU by component (%d samples) ===%n", samples);
+        System.out.printf("%-48s %8s %6s%n", "COMPONENT", "SAMPLES", "%");
+        for (Map.Entry<String, Stat> e : ranked(cpuByComponent)) {
+            System.out.printf("%-48s %8d %5.1f%%%n", e.getKey(), e.getValue().total, percent(e.getValue().total, samples));
+        }
+        System.out.printf("%nHot methods (top frame):%n");
+        for (Map.Entry<String, Stat> e : ranked(cpuByMethod)) {
+            System.out.printf("  %5.1f%%  %s  [%s]%n", percent(e.getValue().total, samples), e.getKey(),
+                    methodComponent.get(e.getKey()));
+        }
+
+        if (!nativeByComponent.isEmpty()) {
+            System.out.printf("%nNative code (threads in native methods, mostly blocking I/O; not CPU):%n");
+            for (Map.Entry<String, Stat> e : ranked(nativeByComponent)) {
+                String[] key = e.getKey().split("\t");
+                System.out.printf("  %6d samples  %s  [%s]%n", e.getValue().total, key[1], key[0]);
+            }
+        }
+
+        Map<String, Stat> allocByComponent = sampledAllocation() ? sampledByComponent : tlabByComponent;
+        long allocated = sum(allocByComponent);
+        System.out.printf("%n=== Allocation by component (%s, %s over %d s) ===%n",
+                sampledAllocation() ? "ObjectAllocationSample" : "TLAB events", bytes(allocated), seconds);
+        if (allocByComponent.isEmpty()) {
+            System.out.printf("No allocation events (JDK 11: enable the TLAB events in bonita.jfc)%n");
+        }
+        System.out.printf("%-48s %10s %6s%n", "COMPONENT", "BYTES", "%");
+        for (Map.Entry<String, Stat> e : ranked(allocByComponent)) {
+            System.out.printf("%-48s %10s %5.1f%%%n", e.getKey(), bytes(e.getValue().total),
+                    percent(e.getValue().total, allocated));
+        }
+        System.out.printf("%nTop allocation sites (site -> class):%n");
+        for (Map.Entry<String, Stat> e : ranked(sampledAllocation() ? sampledBySite : tlabBySite)) {
+            System.out.printf("  %5.1f%%  %s%n", percent(e.getValue().total, allocated), e.getKey());
+        }
+
+        System.out.printf("%n=== Blocking above the recording thresholds (%d idle pool waits left out) ===%n", idleWaits);
+        System.out.printf("%-8s %-48s %7s %10s %8s%n", "KIND", "COMPONENT", "EVENTS", "TOTAL ms", "MAX ms");
+        for (Map.Entry<String, Stat> e : ranked(blockingByComponent)) {
+            String[] key = e.getKey().split("\t");
+            System.out.printf("%-8s %-48s %7d %10d %8d%n", key[0], key[1], e.getValue().count,
+                    millis(e.getValue().total), millis(e.getValue().max));
+        }
+        System.out.printf("%nContention sites (kind, lock class, site):%n");
+        for (Map.Entry<String, Stat> e : ranked(blockingBySite)) {
+            String[] key = e.getKey().split("\t");
+            System.out.printf("  %8d ms %6d x  %-7s %s at %s%n", millis(e.getValue().total), e.getValue().count,
+                    key[0], key[1], key[2]);
+        }
+
+        System.out.printf("%n=== I/O above the recording thresholds ===%n");
+        System.out.printf("%-6s %-48s %7s %10s %8s %10s%n", "KIND", "COMPONENT", "EVENTS", "TOTAL ms", "MAX ms", "BYTES");
+        for (Map.Entry<String, Stat> e : ranked(ioByComponent)) {
+            String[] key = e.getKey().split("\t");
+            System.out.printf("%-6s %-48s %7d %10d %8d %10s%n", key[0], key[1], e.getValue().count,
+                    millis(e.getValue().total), millis(e.getValue().max), bytes(e.getValue().bytes));
+        }
+        System.out.printf("%nEndpoints:%n");
+        for (Map.Entry<String, Stat> e : ranked(ioByEndpoint)) {
+            String[] key = e.getKey().split("\t");
+            System.out.printf("  %8d ms %6d x  %-6s %s%n", millis(e.getValue().total), e.getValue().count, key[0], key[1]);
+        }
+
+        if (!gcByName.isEmpty()) {
+            System.out.printf("%n=== GC pauses ===%n");
+            for (Map.Entry<String, Stat> e : ranked(gcByName)) {
+                System.out.printf("  %-24s %6d collections, %8d ms paused, longest %d ms%n", e.getKey(),
+                        e.getValue().count, millis(e.getValue().total), millis(e.getValue().max));
+            }
+        }
+
+        List<String> signals = signals(samples);
+        System.out.printf("%n=== Signals ===%n");
+        if (signals.isEmpty()) {
+            System.out.println("None above the thresholds");
+        }
+        for (String signal : signals) {
+            System.out.println("- " + signal);
+        }
+    }
+
+    /** Findings that map to a section of the skill, with the figures that triggered them. */
+    private List<String> signals(long samples) {
+        List<String> signals = new ArrayList<>();
+        long compilation = cpuByComponent.containsKey("groovy:(compilation)")
+                ? cpuByComponent.get("groovy:(compilation)").total : 0;
+        if (compilation > 0.05 * samples) {
+            signals.add(String.format(Locale.ROOT, "Groovy compilation in %.0f%% of CPU samples: scripts are compiled "
+                    + "at run time again and again (script content built per call, or script cache too small)",
+                    percent(compilation, samples)));
+        }
+        long userCode = 0;
+        for (Map.Entry<String, Stat> e : cpuByComponent.entrySet()) {
+            if (e.getKey().startsWith("groovy:") || e.getKey().startsWith("connector:")
+                    || e.getKey().startsWith("rest-api:")) {
+                userCode += e.getValue().total;
+            }
+        }
+        if (userCode > 0.3 * samples) {
+            signals.add(String.format(Locale.ROOT, "Project code (scripts, connectors, REST API extensions) in %.0f%% "
+                    + "of CPU samples: start with the components above before tuning the engine",
+                    percent(userCode, samples)));
+        }
+        long pool = 0;
+        for (Map.Entry<String, Stat> e : blockingByComponent.entrySet()) {
+            if (e.getKey().startsWith("db-pool\t")) {
+                pool += e.getValue().total;
+            }
+        }
+        if (pool > 0) {
+            signals.add(String.format(Locale.ROOT, "Threads waited %d ms for a database connection: the datasource "
+                    + "pool is smaller than the work service and connector threads using it", millis(pool)));
+        }
+        Map.Entry<String, Stat> jdbc = null;
+        for (Map.Entry<String, Stat> e : ioByComponent.entrySet()) {
+            if (e.getKey().startsWith("jdbc\t") && (jdbc == null || e.getValue().total > jdbc.getValue().total)) {
+                jdbc = e;
+            }
+        }
+        if (jdbc != null && jdbc.getValue().total > Duration.ofSeconds(1).toNanos()) {
+            signals.add(String.format(Locale.ROOT, "%d ms of slow JDBC reads/writes from %s: check its queries with "
+                    + "n-plus-one.sh and the slow query log", millis(jdbc.getValue().total), jdbc.getKey().split("\t")[1]));
+        }
+        for (Map.Entry<String, Stat> e : ranked(blockingBySite)) {
+            if (e.getKey().startsWith("monitor\t") && e.getValue().total > Duration.ofSeconds(1).toNanos()) {
+                String[] key = e.getKey().split("\t");
+                signals.add(String.format(Locale.ROOT, "%d ms of monitor contention on %s at %s", millis(e.getValue().total),
+                        key[1], key[2]));
+            }
+        }
+        return signals;
+    }
+
+    private Map<String, Object> toMap(Path recording) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("recording", recording.toString());
+        result.put("start", String.valueOf(start));
+        result.put("seconds", Duration.between(start, end).getSeconds());
+        result.put("events", events);
+        result.put("jvm", jvm);
+        if (cpuLoads > 0) {
+            result.put("jvm_cpu", Math.round(1000 * jvmCpu / cpuLoads) / 1000.0);
+            result.put("machine_cpu", Math.round(1000 * machineCpu / cpuLoads) / 1000.0);
+        }
+        result.put("cpu_samples", sum(cpuByComponent));
+        result.put("cpu_by_component", rows(cpuByComponent, "component", "samples"));
+        result.put("hot_methods", rows(cpuByMethod, "method", "samples"));
+        result.put("native_samples", rows(nativeByComponent, "component\tmethod", "samples"));
+        result.put("allocation_source", sampledAllocation() ? "ObjectAllocationSample" : "TLAB");
+        result.put("allocation_by_component", rows(sampledAllocation() ? sampledByComponent : tlabByComponent,
+                "component", "bytes"));
+        result.put("allocation_sites", rows(sampledAllocation() ? sampledBySite : tlabBySite, "site", "bytes"));
+        result.put("idle_waits", idleWaits);
+        result.put("blocking_by_component", rows(blockingByComponent, "kind\tcomponent", "nanos"));
+        result.put("contention_sites", rows(blockingBySite, "kind\tlock\tsite", "nanos"));
+        result.put("io_by_component", rows(ioByComponent, "kind\tcomponent", "nanos"));
+        result.put("io_endpoints", rows(ioByEndpoint, "kind\tendpoint", "nanos"));
+        result.put("gc", rows(gcByName, "collector", "pause_nanos"));
+        result.put("signals", signals(sum(cpuByComponent)));
+        return result;
+    }
+
+    private List<Object> rows(Map<String, Stat> stats, String keys, String total) {
+        List<Object> rows = new ArrayList<>();
+        String[] names = keys.split("\t");
+        for (Map.Entry<String, Stat> e : ranked(stats)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            String[] values = e.getKey().split("\t");
+            for (int i = 0; i < names.length; i++) {
+                row.put(names[i], values[i]);
+            }
+            row.put("count", e.getValue().count);
+            row.put(total, e.getValue().total);
+            if (total.endsWith("nanos")) {
+                row.put("max_nanos", e.getValue().max);
+            }
+            if (e.getValue().bytes > 0) {
+                row.put("bytes", e.getValue().bytes);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static void writeJson(StringBuilder out, Object value, String indent) {
+        if (value instanceof Map) {
+            out.append("{");
+            String separator = "\n";
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                out.append(separator).append(indent).append(' ');
+                writeJson(out, String.valueOf(e.getKey()), indent + ' ');
+                out.append(": ");
+                writeJson(out, e.getValue(), indent + ' ');
+                separator = ",\n";
+            }
+            out.append("\n").append(indent).append("}");
+        } else if (value instanceof List) {
+            out.append("[");
+            String separator = "\n";
+            for (Object item : (List<?>) value) {
+                out.append(separator).append(indent).append(' ');
+                writeJson(out, item, indent + ' ');
+                separator = ",\n";
+            }
+            out.append(((List<?>) value).isEmpty() ? "]" : "\n" + indent + "]");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value);
+        } else {
+            out.append('"');
+            for (char c : String.valueOf(value).toCharArray()) {
+                if (c == '"' || c == '\\') {
+                    out.append('\\').append(c);
+                } else if (c < 0x20) {
+                    out.append(String.format("\\u%04x", (int) c));
+                } else {
+                    out.append(c);
+                }
+            }
+            out.append('"');
+        }
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    private static String bytes(long bytes) {
+        if (bytes >= 1L << 30) {
+            return String.format(Locale.ROOT, "%.1f GB", bytes / (double) (1L << 30));
+        }
+        return bytes >= 1L << 20 ? String.format(Locale.ROOT, "%.1f MB", bytes / (double) (1L << 20))
+                : String.format(Locale.ROOT, "%d KB", bytes / 1024);
+    }
+}
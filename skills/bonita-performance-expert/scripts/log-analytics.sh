@@ -0,0 +1,451 @@
+#!/usr/bin/env bash
+# =============================================================================
+# log-analytics.sh - Indexed analysis of bonita-technical.log
+#
+# Usage:
+#   ./log-analytics.sh index <log-file|log-dir>...    # parse the logs once into the index
+#   ./log-analytics.sh summary                        # records, time range, levels
+#   ./log-analytics.sh slow-connectors [TOP]          # connectors by p95 duration (default top 20)
+#   ./log-analytics.sh queue [BUCKET_SECONDS]         # work queue / thread pool warnings per minute
+#   ./log-analytics.sh errors [TOP]                   # WARN/ERROR counts by logger
+#   ./log-analytics.sh around <caseId> [SECONDS]      # the case's records, and the WARN/ERROR
+#                                                     # records within SECONDS (default 60) of them
+#
+# Environment:
+#   LOG_INDEX_DIR   index directory (default: .claude/cache/log-index)
+#
+# A directory argument takes every bonita-technical*.log* segment in it,
+# rotated (bonita-technical.2024-01-15.log, .1) and gzipped (.gz) included;
+# segments are ordered by their first timestamp. Plain files are memory-mapped.
+# Every record (first line plus its continuation/stack-trace lines) becomes one
+# row of fixed-width columns: timestamp, level, logger, case id, source file and
+# byte offset. Connector durations and work queue warnings go to side tables.
+# Queries load the columns with array.fromfile and never re-read the logs, except
+# `around`, which reads the selected records back by offset.
+#
+# Before every query the sources are stat'ed: a segment that only grew is
+# parsed from where the previous run stopped; a rotation re-indexes everything.
+# Timestamps are the log's wall-clock time (the UTC offset is not applied).
+#
+# Recognized layouts: Bonita log4j2 ("2024-01-15 10:23:45.123 +0100 INFO
+# (thread) logger message"), Tomcat ("15-Jan-2024 10:23:45.123 INFO [thread]
+# logger message") and java.util.logging (two-line records).
+#
+# Exit code: 0, or 1 when no index exists yet / no log file was found
+# =============================================================================
+
+set -euo pipefail
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 index <log-file|log-dir>... | summary | slow-connectors [TOP] | queue [BUCKET_SECONDS]"
+    echo "       | errors [TOP] | around <caseId> [SECONDS]"
+    exit 1
+fi
+
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+
+"$PYTHON_CMD" - "$@" <<'PY'
+import array
+import bisect
+import calendar
+import glob
+import gzip
+import hashlib
+import json
+import mmap
+import os
+import re
+import sys
+import time
+
+INDEX_DIR = os.environ.get('LOG_INDEX_DIR') or os.path.join('.claude', 'cache', 'log-index')
+INDEX_VERSION = 1
+# column name -> array typecode; one row per log record
+COLUMNS = {'ts': 'q', 'level': 'B', 'logger': 'I', 'case': 'q', 'file': 'H', 'offset': 'Q'}
+# side tables: one row per connector duration / per work queue warning
+SIDES = {'conn_row': 'I', 'conn_id': 'I', 'conn_ms': 'I', 'queue_row': 'I'}
+LEVELS = ['TRACE', 'DEBUG', 'INFO', 'WARN', 'ERROR', 'FATAL']
+LEVEL_OF = {b'TRACE': 0, b'FINEST': 0, b'FINER': 0, b'DEBUG': 1, b'FINE': 1, b'INFO': 2, b'CONFIG': 2,
+            b'WARN': 3, b'WARNING': 3, b'ERROR': 4, b'SEVERE': 4, b'FATAL': 5}
+WARN = 3
+MONTHS = {m.encode(): i for i, m in enumerate(('Jan', 'Feb', 'Mar', 'Apr', 'May', 'Jun', 'Jul', 'Aug', 'Sep',
+                                               'Oct', 'Nov', 'Dec'), 1)}
+
+LOG4J = re.compile(rb'(\d{4})-(\d\d)-(\d\d)[ T](\d\d):(\d\d):(\d\d)[.,](\d{3})(?:\s*(?:[+-]\d{4}|Z))?\s+([A-Z]+)\s+'
+                   rb'(?:\([^)]*\)\s+|\[[^\]]*\]\s+)?([\w.$]+)')
+TOMCAT = re.compile(rb'(\d\d)-(\w{3})-(\d{4}) (\d\d):(\d\d):(\d\d)\.(\d{3}) ([A-Z]+) \[[^\]]*\] ([\w.$]+)')
+JUL_HEADER = re.compile(rb'(\w{3}) (\d{1,2}), (\d{4}) (\d{1,2}):(\d\d):(\d\d) ([AP])M ([\w.$]+)')
+JUL_LEVEL = re.compile(rb'(SEVERE|WARNING|INFO|CONFIG|FINEST|FINER|FINE): ')
+CASE = re.compile(rb'(?:ROOT_PROCESS_INSTANCE_ID|PROCESS_INSTANCE_ID|root ?process ?instance ?id|'
+                  rb'process ?instance(?: ?id)?|caseId|\bcase(?: ?id)?\s*[:=#])\s*[:=#]?\s*[<\'"]?(\d+)', re.I)
+CONNECTOR = re.compile(rb'connector(?:\s+definition)?(?:\s+(?:id|name))?\s*[:=]?\s*[\'"<\[]([^\'">\]\s]+)'
+                       rb'|connector(?:DefinitionId|DefinitionName|Name|Id)\s*[:=]\s*([\w.-]+)', re.I)
+DURATION = re.compile(rb'(\d+(?:\.\d+)?)\s?(ms|millis(?:econds)?|s|secs?|seconds)\b', re.I)
+QUEUE = re.compile(rb'work ?queue|queue (?:is )?full|thread ?pool|RejectedExecution|WorkService|'
+                   rb'work executor', re.I)
+
+
+def segments(args):
+    paths = []
+    for arg in args:
+        if os.path.isdir(arg):
+            paths.extend(p for p in glob.glob(os.path.join(arg, 'bonita-technical*.log*')) if os.path.isfile(p))
+        elif os.path.isfile(arg):
+            paths.append(arg)
+    return [os.path.abspath(p) for p in paths]
+
+
+def open_lines(path, start=0):
+    """Yield (offset, line) from start; plain files are memory-mapped, .gz are streamed."""
+    if path.endswith('.gz'):
+        offset = 0
+        with gzip.open(path, 'rb') as f:
+            for line in f:
+                if offset >= start:
+                    yield offset, line
+                offset += len(line)
+        return
+    with open(path, 'rb') as f:
+        if os.fstat(f.fileno()).st_size <= start:
+            return
+        with mmap.mmap(f.fileno(), 0, access=mmap.ACCESS_READ) as mm:
+            mm.seek(start)
+            while True:
+                offset = mm.tell()
+                line = mm.readline()
+                if not line:
+                    return
+                yield offset, line
+
+
+def head_digest(path):
+    opener = gzip.open if path.endswith('.gz') else open
+    with opener(path, 'rb') as f:
+        return hashlib.sha256(f.read(4096)).hexdigest()
+
+
+class Index:
+    def __init__(self):
+        self.meta = {'version': INDEX_VERSION, 'sources': [], 'files': [], 'loggers': [], 'connectors': []}
+        self.cols = {name: array.array(code) for name, code in COLUMNS.items()}
+        self.sides = {name: array.array(code) for name, code in SIDES.items()}
+        self.logger_ids, self.connector_ids = {}, {}
+        self.seconds = {}   # (y, m, d, h, m, s) -> epoch seconds, timestamps repeat a lot
+
+    @classmethod
+    def load(cls):
+        index = cls()
+        try:
+            with open(os.path.join(INDEX_DIR, 'meta.json'), encoding='utf-8') as f:
+                meta = json.load(f)
+        except (OSError, ValueError):
+            return None
+        if meta.get('version') != INDEX_VERSION:
+            return None
+        index.meta = meta
+        for name, table in list(index.cols.items()) + list(index.sides.items()):
+            path = os.path.join(INDEX_DIR, name + '.col')
+            with open(path, 'rb') as f:
+                table.fromfile(f, os.path.getsize(path) // table.itemsize)
+        index.logger_ids = {name: i for i, name in enumerate(meta['loggers'])}
+        index.connector_ids = {name: i for i, name in enumerate(meta['connectors'])}
+        return index
+
+    def save(self):
+        os.makedirs(INDEX_DIR, exist_ok=True)
+        for name, table in list(self.cols.items()) + list(self.sides.items()):
+            with open(os.path.join(INDEX_DIR, name + '.col.tmp'), 'wb') as f:
+                table.tofile(f)
+            os.replace(os.path.join(INDEX_DIR, name + '.col.tmp'), os.path.join(INDEX_DIR, name + '.col'))
+        with open(os.path.join(INDEX_DIR, 'meta.json.tmp'), 'w', encoding='utf-8') as f:
+            json.dump(self.meta, f, indent=1)
+        os.replace(os.path.join(INDEX_DIR, 'meta.json.tmp'), os.path.join(INDEX_DIR, 'meta.json'))
+
+    def epoch_ms(self, year, month, day, hour, minute, second, millis):
+        key = (year, month, day, hour, minute, second)
+        seconds = self.seconds.get(key)
+        if seconds is None:
+            seconds = self.seconds[key] = calendar.timegm((year, month, day, hour, minute, second))
+        return seconds * 1000 + millis
+
+    def intern(self, ids, names, name):
+        found = ids.get(name)
+        if found is None:
+            found = ids[name] = len(names)
+            names.append(name)
+        return found
+
+    def record_start(self, line):
+        """(epoch ms, level, logger, message) of a single-line record header, or None."""
+        match = LOG4J.match(line)
+        if match:
+            y, mo, d, h, mi, s, ms, level, logger = match.groups()
+            return (self.epoch_ms(int(y), int(mo), int(d), int(h), int(mi), int(s), int(ms)), level, logger,
+                    line[match.end():])
+        match = TOMCAT.match(line)
+        if match:
+            d, mon, y, h, mi, s, ms, level, logger = match.groups()
+            return (self.epoch_ms(int(y), MONTHS.get(mon, 1), int(d), int(h), int(mi), int(s), int(ms)), level,
+                    logger, line[match.end():])
+        return None
+
+    def parse(self, file_id, path, start=0):
+        """Append the records of path from byte start; return the offset after the last complete line."""
+        cols, sides = self.cols, self.sides
+        row = None
+        end = start
+        jul = None   # pending java.util.logging header: (ts, logger, offset)
+        for offset, line in open_lines(path, start):
+            if not line.endswith(b'\n'):
+                break   # partial last line of a log being written: parsed by the next run
+            end = offset + len(line)
+            start_of_record = self.record_start(line)
+            jul_level = JUL_LEVEL.match(line) if jul is not None else None
+            if start_of_record:
+                ts, level, logger, message = start_of_record
+            elif jul_level:
+                ts, logger, offset = jul
+                level, message, jul = jul_level.group(1), line, None
+            else:
+                header = JUL_HEADER.match(line)
+                if header:
+                    mon, d, y, h, mi, s, ampm, logger = header.groups()
+                    hour = int(h) % 12 + (12 if ampm == b'P' else 0)
+                    jul = (self.epoch_ms(int(y), MONTHS.get(mon, 1), int(d), hour, int(mi), int(s), 0), logger, offset)
+                elif row is not None:
+                    self.annotate(row, line)   # continuation / stack trace line
+                continue
+            row = len(cols['ts'])
+            cols['ts'].append(ts)
+            cols['level'].append(LEVEL_OF.get(level, 2))
+            cols['logger'].append(self.intern(self.logger_ids, self.meta['loggers'], logger.decode('utf-8', 'replace')))
+            cols['case'].append(-1)
+            cols['file'].append(file_id)
+            cols['offset'].append(offset)
+            self.annotate(row, message)
+        return end
+
+    def annotate(self, row, text):
+        cols, sides = self.cols, self.sides
+        if cols['case'][row] < 0 and (b'nstance' in text or b'NSTANCE' in text or b'ase' in text):
+            case = CASE.search(text)
+            if case:
+                cols['case'][row] = int(case.group(1))
+        if b'onnector' in text and (not sides['conn_row'] or sides['conn_row'][-1] != row):
+            name = CONNECTOR.search(text)
+            duration = DURATION.search(text, name.end() if name else 0)
+            if name and duration:
+                value = float(duration.group(1))
+                unit = duration.group(2).lower()
+                sides['conn_row'].append(row)
+                sides['conn_id'].append(self.intern(self.connector_ids, self.meta['connectors'],
+                                                    (name.group(1) or name.group(2)).decode('utf-8', 'replace')))
+                sides['conn_ms'].append(int(value if unit.startswith(b'm') else value * 1000))
+        if cols['level'][row] >= WARN and (not sides['queue_row'] or sides['queue_row'][-1] != row) \
+                and QUEUE.search(text):
+            sides['queue_row'].append(row)
+
+    def first_timestamp(self, path):
+        for _, line in open_lines(path):
+            start_of_record = self.record_start(line)
+            if start_of_record:
+                return start_of_record[0]
+            header = JUL_HEADER.match(line)
+            if header:
+                mon, d, y, h, mi, s, ampm, _ = header.groups()
+                return self.epoch_ms(int(y), MONTHS.get(mon, 1), int(d), int(h) % 12 + (12 if ampm == b'P' else 0),
+                                     int(mi), int(s), 0)
+        return 0
+
+    def build(self, sources):
+        paths = segments(sources)
+        paths.sort(key=lambda p: (self.first_timestamp(p), p))
+        self.meta['sources'] = [os.path.abspath(s) for s in sources]
+        for path in paths:
+            st = os.stat(path)
+            file_id = len(self.meta['files'])
+            entry = {'path': path, 'size': st.st_size, 'mtime': st.st_mtime, 'head': head_digest(path)}
+            entry['parsed_to'] = self.parse(file_id, path)
+            self.meta['files'].append(entry)
+        return len(paths)
+
+    def refresh(self):
+        """Bring the index up to date with its sources; return a status line or None."""
+        files = self.meta['files']
+        current = segments(self.meta['sources'])
+        known = [f['path'] for f in files]
+        if sorted(current) != sorted(known) or any(head_digest(f['path']) != f['head'] for f in files
+                                                   if os.path.exists(f['path'])):
+            rebuilt = Index()
+            count = rebuilt.build(self.meta['sources'])
+            self.__dict__.update(rebuilt.__dict__)
+            return 'sources rotated: re-indexed %d segment(s)' % count
+        grown = []
+        for file_id, entry in enumerate(files):
+            st = os.stat(entry['path'])
+            if st.st_size != entry['size'] or st.st_mtime != entry['mtime']:
+                if file_id != len(files) - 1 or entry['path'].endswith('.gz'):
+                    rebuilt = Index()
+                    count = rebuilt.build(self.meta['sources'])
+                    self.__dict__.update(rebuilt.__dict__)
+                    return '%s changed: re-indexed %d segment(s)' % (os.path.basename(entry['path']), count)
+                before = len(self.cols['ts'])
+                entry['parsed_to'] = self.parse(file_id, entry['path'], entry['parsed_to'])
+                entry['size'], entry['mtime'] = st.st_size, st.st_mtime
+                grown.append('%s +%d records' % (os.path.basename(entry['path']), len(self.cols['ts']) - before))
+        return ', '.join(grown) or None
+
+    def window(self, start_ms, end_ms):
+        """Row range [lo, hi) between two timestamps; rows are in time order."""
+        ts = self.cols['ts']
+        return bisect.bisect_left(ts, start_ms), bisect.bisect_right(ts, end_ms)
+
+    def rows_of_case(self, case):
+        """Rows whose case id is case, found with bytes.find over the raw column."""
+        raw = self.cols['case'].tobytes()
+        needle = array.array('q', [case]).tobytes()
+        rows, pos = [], raw.find(needle)
+        while pos >= 0:
+            if pos % 8 == 0:
+                rows.append(pos // 8)
+            pos = raw.find(needle, pos + 1)
+        return rows
+
+    def record_text(self, row):
+        entry = self.meta['files'][self.cols['file'][row]]
+        for _, line in open_lines(entry['path'], self.cols['offset'][row]):
+            return line.decode('utf-8', 'replace').rstrip()
+        return ''
+
+
+def stamp(ms):
+    return time.strftime('%Y-%m-%d %H:%M:%S', time.gmtime(ms // 1000)) + '.%03d' % (ms % 1000)
+
+
+def percentile(values, fraction):
+    return values[min(len(values) - 1, int(len(values) * fraction))]
+
+
+def summary(index):
+    ts, levels = index.cols['ts'], index.cols['level']
+    if not ts:
+        print('The index is empty')
+        return
+    counts = [0] * len(LEVELS)
+    for level in levels:
+        counts[level] += 1
+    print('%d records in %d segment(s), %s .. %s' % (len(ts), len(index.meta['files']), stamp(ts[0]), stamp(ts[-1])))
+    print('Levels: %s' % ', '.join('%s %d' % (LEVELS[i], c) for i, c in enumerate(counts) if c))
+    print('Connector durations: %d, work queue warnings: %d, records with a case id: %d' % (
+        len(index.sides['conn_row']), len(index.sides['queue_row']),
+        len(index.cols['case']) - index.cols['case'].tobytes().count(array.array('q', [-1]).tobytes())))
+
+
+def slow_connectors(index, top):
+    durations = {}
+    for connector, ms in zip(index.sides['conn_id'], index.sides['conn_ms']):
+        durations.setdefault(connector, []).append(ms)
+    if not durations:
+        print('No connector duration found in the logs')
+        return
+    stats = []
+    for connector, values in durations.items():
+        values.sort()
+        stats.append((percentile(values, 0.95), index.meta['connectors'][connector], len(values),
+                      percentile(values, 0.5), values[-1]))
+    print('%-40s %7s %9s %9s %9s' % ('CONNECTOR', 'COUNT', 'P50 ms', 'P95 ms', 'MAX ms'))
+    for p95, name, count, p50, worst in sorted(stats, reverse=True)[:top]:
+        print('%-40s %7d %9d %9d %9d' % (name[:40], count, p50, p95, worst))
+
+
+def queue(index, bucket):
+    rows = index.sides['queue_row']
+    if not rows:
+        print('No work queue / thread pool warning in the logs')
+        return
+    per_bucket = {}
+    for row in rows:
+        key = index.cols['ts'][row] // (bucket * 1000)
+        per_bucket[key] = per_bucket.get(key, 0) + 1
+    peak = max(per_bucket.values())
+    print('%d warnings in %d bucket(s) of %ds, peak %d' % (len(rows), len(per_bucket), bucket, peak))
+    for key in sorted(per_bucket):
+        print('%s  %5d  %s' % (stamp(key * bucket * 1000)[:16], per_bucket[key],
+                               '#' * max(1, per_bucket[key] * 50 // peak)))
+
+
+def errors(index, top):
+    counts = {}
+    for level, logger in zip(index.cols['level'], index.cols['logger']):
+        if level >= WARN:
+            key = (logger, level)
+            counts[key] = counts.get(key, 0) + 1
+    if not counts:
+        print('No WARN/ERROR record')
+        return
+    print('%-7s %8s  %s' % ('LEVEL', 'COUNT', 'LOGGER'))
+    for (logger, level), count in sorted(counts.items(), key=lambda kv: -kv[1])[:top]:
+        print('%-7s %8d  %s' % (LEVELS[level], count, index.meta['loggers'][logger]))
+
+
+def around(index, case, seconds):
+    rows = index.rows_of_case(case)
+    if not rows:
+        print('No record mentions case %d' % case)
+        return
+    ts, levels = index.cols['ts'], index.cols['level']
+    nearby = set()
+    reached = 0   # windows overlap for chatty cases: scan each row once
+    for row in rows:
+        lo, hi = index.window(ts[row] - seconds * 1000, ts[row] + seconds * 1000)
+        nearby.update(r for r in range(max(lo, reached), hi) if levels[r] >= WARN)
+        reached = max(reached, hi)
+    selected = sorted(set(rows) | nearby)
+    print('Case %d: %d record(s) %s .. %s, %d WARN/ERROR record(s) within %ds' % (
+        case, len(rows), stamp(ts[rows[0]]), stamp(ts[rows[-1]]), len(selected) - len(rows), seconds))
+    case_rows = set(rows)
+    for row in selected:
+        print('%s %s' % ('*' if row in case_rows else ' ', index.record_text(row)))
+
+
+def main(argv):
+    command = argv[0]
+    if command == 'index':
+        if len(argv) < 2:
+            sys.exit('Usage: log-analytics.sh index <log-file|log-dir>...')
+        started = time.time()
+        index = Index()
+        count = index.build(argv[1:])
+        if not count:
+            sys.stderr.write('No log file found in %s\n' % ' '.join(argv[1:]))
+            return 1
+        index.save()
+        print('%d record(s) from %d segment(s) indexed in %.1fs into %s' % (
+            len(index.cols['ts']), count, time.time() - started, INDEX_DIR))
+        return 0
+    index = Index.load()
+    if index is None:
+        sys.stderr.write('No log index in %s: run log-analytics.sh index <log-dir> first\n' % INDEX_DIR)
+        return 1
+    status = index.refresh()
+    if status:
+        index.save()
+        sys.stderr.write('Index refreshed: %s\n' % status)
+    if command == 'summary':
+        summary(index)
+    elif command == 'slow-connectors':
+        slow_connectors(index, int(argv[1]) if len(argv) > 1 else 20)
+    elif command == 'queue':
+        queue(index, int(argv[1]) if len(argv) > 1 else 60)
+    elif command == 'errors':
+        errors(index, int(argv[1]) if len(argv) > 1 else 20)
+    elif command == 'around' and len(argv) > 1:
+        around(index, int(argv[1]), int(argv[2]) if len(argv) > 2 else 60)
+    else:
+        sys.exit('Usage: log-analytics.sh index <log-file|log-dir>... | summary | slow-connectors [TOP] | '
+                 'queue [BUCKET_SECONDS] | errors [TOP] | around <caseId> [SECONDS]')
+    return 0
+
+
+sys.exit(main(sys.argv[1:]))
+PY
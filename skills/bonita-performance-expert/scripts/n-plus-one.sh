@@ -0,0 +1,507 @@
+#!/usr/bin/env bash
+# =============================================================================
+# n-plus-one.sh - SQL fingerprint digest and N+1 detection over database logs
+#
+# Usage:
+#   ./n-plus-one.sh <log|csv>... [--format postgres|mysql|oracle] [--bom bdm/bom.xml]
+#                   [--window MS] [--min-burst N] [--top N] [--json]
+#
+# Inputs (the format is detected from the first lines unless --format is given):
+#   postgres  postgresql.log with log_min_duration_statement (or log_statement)
+#             and a log_line_prefix carrying the timestamp and [%p] or [%c]
+#   mysql     MySQL/MariaDB slow query log (# Time / # User@Host ... Id / # Query_time)
+#   oracle    CSV export of V$SQL (SQL_FULLTEXT or SQL_TEXT, EXECUTIONS,
+#             ELAPSED_TIME in microseconds, ROWS_PROCESSED)
+#
+# Every statement is normalized into a fingerprint: comments dropped, string,
+# numeric and boolean literals and bind markers ($1, :1, ?) replaced by ?,
+# IN (...) and VALUES lists collapsed, whitespace and case folded. A burst is a
+# series of executions of one fingerprint in one session, each less than
+# --window ms (default 1000) after the previous one, other statements in between
+# allowed; --min-burst executions (default 10) or more flag the fingerprint as
+# N+1, and the statement the session ran just before the burst is reported as
+# its parent (the "1"). V$SQL carries no session nor time:
+# there, a fingerprint is flagged when it runs --min-burst times as often as the
+# statements it is most executed with and returns at most one row per execution.
+#
+# Each fingerprint is matched to the bom.xml query that most likely generated it
+# (business object table, WHERE and ORDER BY columns) using the toolkit's BDM
+# model (hooks/scripts/lib/bdm_model.py). A lookup on a *_pid column matching a
+# relation field is reported as a lazy relation load. The logs are streamed:
+# memory is bounded by the fingerprints and open sessions, not by the log size.
+#
+# N+1 statements are fast: the default slow log thresholds (1s) hide them.
+# Capture a representative window with log_min_duration_statement = 0
+# (PostgreSQL) or long_query_time = 0 (MySQL), then restore the threshold.
+#
+# Exit code: 0, or 1 when no statement was found
+# =============================================================================
+
+set -euo pipefail
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 <log|csv>... [--format postgres|mysql|oracle] [--bom bdm/bom.xml] [--window MS]"
+    echo "       [--min-burst N] [--top N] [--json]"
+    exit 1
+fi
+
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+BDM_LIB_DIR=""
+for candidate in \
+    "$SCRIPT_DIR/../../../hooks/scripts/lib" \
+    "$SCRIPT_DIR/../../../hooks/lib" \
+    "${CLAUDE_PROJECT_DIR:-.}/.claude/hooks/lib"; do
+    if [ -f "$candidate/bdm_query_cost.py" ]; then
+        BDM_LIB_DIR="$candidate"
+        break
+    fi
+done
+export BDM_LIB_DIR
+
+"$PYTHON_CMD" - "$@" <<'PY'
+import calendar
+import csv
+import gzip
+import hashlib
+import json
+import os
+import re
+import sys
+
+WINDOW_MS = 1000
+MIN_BURST = 10
+EXAMPLE_CHARS = 300
+
+# --- normalization -----------------------------------------------------------
+COMMENT = re.compile(r'/\*.*?\*/|--[^\n]*', re.S)
+STRING = re.compile(r"[NE]?'(?:[^']|'')*'", re.I)
+NUMBER = re.compile(r'(?<![\w$.])-?\d+(?:\.\d+)?(?:e[+-]?\d+)?\b', re.I)
+BIND = re.compile(r'\$\d+|(?<![:\w]):\w+|\?')
+BOOLEAN = re.compile(r'\b(?:true|false)\b', re.I)
+IN_LIST = re.compile(r'\bin\s*\(\s*\?(?:\s*,\s*\?)*\s*\)', re.I)
+VALUES_LIST = re.compile(r'\bvalues\s*\(\s*\?(?:\s*,\s*\?)*\s*\)(?:\s*,\s*\(\s*\?(?:\s*,\s*\?)*\s*\))*', re.I)
+SPACES = re.compile(r'\s+')
+
+
+def fingerprint(sql):
+    text = COMMENT.sub(' ', sql)
+    text = STRING.sub('?', text)
+    text = BIND.sub('?', text)
+    text = NUMBER.sub('?', text)
+    text = BOOLEAN.sub('?', text)
+    text = SPACES.sub(' ', text).strip().rstrip(';').strip().lower()
+    text = IN_LIST.sub('in (?+)', text)
+    text = VALUES_LIST.sub('values (?+)', text)
+    return text
+
+
+def fingerprint_id(text):
+    return hashlib.sha1(text.encode('utf-8')).hexdigest()[:16]
+
+
+# --- readers: yield (epoch ms or None, session or None, duration ms, sql, executions, rows) ---
+PG_ENTRY = re.compile(r'^(\d{4}-\d\d-\d\d)[ T](\d\d):(\d\d):(\d\d)(?:[.,](\d+))?\S*(?:\s+[A-Z]{2,5}\b)?(.*?)'
+                      r'\b(?:LOG|STATEMENT|DETAIL|ERROR|WARNING|NOTICE|FATAL|HINT|CONTEXT):\s\s?(.*)$')
+PG_SESSION = re.compile(r'\[([\w.]+?)(?:-\d+)?\]|\b(?:pid|session)[=:]\s*([\w.]+)')
+PG_STATEMENT = re.compile(r'^(?:duration:\s*([\d.]+)\s*ms\s+)?(?:statement|execute\s+[^:]*):\s*(.*)$', re.S)
+PG_DURATION_ONLY = re.compile(r'^duration:\s*([\d.]+)\s*ms\s*$')
+MY_TIME = re.compile(r'^# Time:\s*(?:(\d{4})-(\d\d)-(\d\d)T(\d\d):(\d\d):(\d\d)(?:\.(\d+))?|'
+                     r'(\d\d)(\d\d)(\d\d)\s+(\d+):(\d\d):(\d\d))')
+MY_SESSION = re.compile(r'^# User@Host:.*?\bId:\s*(\d+)')
+MY_QUERY_TIME = re.compile(r'^# Query_time:\s*([\d.]+)(?:.*?Rows_sent:\s*(\d+))?')
+MY_TIMESTAMP = re.compile(r'^SET timestamp=(\d+);', re.I)
+
+
+def epoch_ms(y, mo, d, h, mi, s, fraction=None):
+    millis = int((fraction or '0')[:3].ljust(3, '0'))
+    return calendar.timegm((int(y), int(mo), int(d), int(h), int(mi), int(s))) * 1000 + millis
+
+
+def open_text(path):
+    if path.endswith('.gz'):
+        return gzip.open(path, 'rt', encoding='utf-8', errors='replace')
+    return open(path, encoding='utf-8', errors='replace', newline='')
+
+
+def detect(path):
+    with open_text(path) as f:
+        head = [f.readline() for _ in range(50)]
+    text = ''.join(head)
+    if re.search(r'\bSQL_(?:FULL)?TEXT\b', head[0], re.I):
+        return 'oracle'
+    if '# User@Host:' in text or '# Query_time:' in text or '# Time:' in text:
+        return 'mysql'
+    if PG_ENTRY.search(text.split('\n', 1)[0]) or re.search(r'(?m)\b(?:LOG|STATEMENT):\s\s?', text):
+        return 'postgres'
+    return None
+
+
+def read_postgres(path):
+    entry = None   # [ts, session, message lines]
+
+    def emit(entry):
+        message = '\n'.join(entry[2])
+        match = PG_STATEMENT.match(message)
+        if match:
+            yield entry[0], entry[1], float(match.group(1) or 0), match.group(2), 1, None
+
+    with open_text(path) as f:
+        for line in f:
+            line = line.rstrip('\r\n')
+            head = PG_ENTRY.match(line)
+            if head:
+                if entry:
+                    yield from emit(entry)
+                y_m_d, h, mi, s, fraction, prefix, message = head.groups()
+                session = PG_SESSION.search(prefix)
+                entry = [epoch_ms(*y_m_d.split('-'), h, mi, s, fraction),
+                         (session.group(1) or session.group(2)) if session else None, [message]]
+                if PG_DURATION_ONLY.match(message):
+                    entry = None   # log_duration without the statement: nothing to fingerprint
+            elif entry and (line.startswith(('\t', ' ')) or not line.strip()):
+                entry[2].append(line)
+        if entry:
+            yield from emit(entry)
+
+
+def read_mysql(path):
+    ts = session = None
+    duration, rows, lines = 0.0, None, []
+
+    def emit():
+        sql = '\n'.join(lines).strip()
+        if sql and not re.match(r'^(?:use\s+\w+|set\s+timestamp=\d+)\s*;?$', sql, re.I):
+            yield ts, session, duration, sql, 1, rows
+
+    with open_text(path) as f:
+        for line in f:
+            line = line.rstrip('\r\n')
+            if line.startswith('#'):
+                if lines:
+                    yield from emit()
+                    lines = []
+                time_match = MY_TIME.match(line)
+                if time_match:
+                    g = time_match.groups()
+                    ts = epoch_ms(*g[0:7]) if g[0] else epoch_ms('20' + g[7], g[8], g[9], g[10], g[11], g[12])
+                    continue
+                session_match = MY_SESSION.match(line)
+                if session_match:
+                    session = session_match.group(1)
+                    continue
+                query_time = MY_QUERY_TIME.match(line)
+                if query_time:
+                    duration = float(query_time.group(1)) * 1000
+                    rows = int(query_time.group(2)) if query_time.group(2) else None
+                continue
+            stamp = MY_TIMESTAMP.match(line)
+            if stamp:
+                ts = int(stamp.group(1)) * 1000 + (ts % 1000 if ts else 0)
+                continue
+            if line.startswith(('/usr/', 'Tcp port:', 'Time ')) and not lines:
+                continue   # server banner at the top of the file and after restarts
+            lines.append(line)
+        if lines:
+            yield from emit()
+
+
+def read_oracle(path):
+    csv.field_size_limit(1 << 30)
+    with open_text(path) as f:
+        reader = csv.DictReader(f)
+        columns = {name.strip().upper(): name for name in reader.fieldnames or []}
+
+        def value(row, *names):
+            for name in names:
+                if name in columns and (row.get(columns[name]) or '').strip():
+                    return row[columns[name]].strip()
+            return None
+
+        for row in reader:
+            sql = value(row, 'SQL_FULLTEXT', 'SQL_TEXT')
+            if not sql:
+                continue
+            executions = int(float(value(row, 'EXECUTIONS') or 1)) or 1
+            elapsed = float(value(row, 'ELAPSED_TIME') or 0) / 1000.0
+            rows = value(row, 'ROWS_PROCESSED')
+            yield None, None, elapsed, sql, executions, int(float(rows)) if rows else None
+
+
+READERS = {'postgres': read_postgres, 'mysql': read_mysql, 'oracle': read_oracle}
+
+
+# --- aggregation -------------------------------------------------------------
+class Digest:
+    def __init__(self, window_ms, min_burst):
+        self.window_ms, self.min_burst = window_ms, min_burst
+        self.prints = {}      # id -> stats
+        self.sessions = {}    # session -> previous fingerprint id
+        self.open = {}        # (session, fingerprint id) -> [burst start ts, count, last ts, parent id]
+        self.statements = 0
+        self.timed = False
+        self.latest = 0
+
+    def stats(self, fid, text, sql):
+        entry = self.prints.get(fid)
+        if entry is None:
+            entry = self.prints[fid] = {'id': fid, 'fingerprint': text, 'example': SPACES.sub(' ', sql)[:EXAMPLE_CHARS],
+                                        'count': 0, 'total_ms': 0.0, 'max_ms': 0.0, 'rows': 0, 'rows_known': 0,
+                                        'variants': 0, 'sessions': set(), 'bursts': 0, 'burst_executions': 0,
+                                        'max_burst': 0, 'parents': {}}
+        return entry
+
+    def add(self, ts, session, duration, sql, executions, rows):
+        text = fingerprint(sql)
+        if not text:
+            return
+        fid = fingerprint_id(text)
+        entry = self.stats(fid, text, sql)
+        self.statements += executions
+        entry['count'] += executions
+        entry['variants'] += 1
+        entry['total_ms'] += duration
+        entry['max_ms'] = max(entry['max_ms'], duration / executions)
+        if rows is not None:
+            entry['rows'] += rows
+            entry['rows_known'] += executions
+        if ts is None:
+            return
+        self.timed = True
+        session = session or '-'
+        if len(entry['sessions']) < 1000:
+            entry['sessions'].add(session)
+        # A burst tolerates other statements in between: the loop body of an
+        # N+1 often runs several lookups per row
+        key = (session, fid)
+        state = self.open.get(key)
+        if state and ts - state[2] <= self.window_ms:
+            state[1] += 1
+            state[2] = ts
+        else:
+            if state:
+                self.close(fid, state)
+            self.open[key] = [ts, 1, ts, self.sessions.get(session)]
+        self.sessions[session] = fid
+        if ts - self.latest > self.window_ms * 10:
+            self.expire(ts)
+
+    def expire(self, now):
+        """Close the bursts no longer reachable, so memory follows the open sessions only."""
+        self.latest = now
+        for key, state in list(self.open.items()):
+            if now - state[2] > self.window_ms:
+                self.close(key[1], self.open.pop(key))
+
+    def close(self, fid, state):
+        _, count, _, parent = state
+        if count < self.min_burst:
+            return
+        entry = self.prints[fid]
+        entry['bursts'] += 1
+        entry['burst_executions'] += count
+        entry['max_burst'] = max(entry['max_burst'], count)
+        if parent and parent != fid:
+            entry['parents'][parent] = entry['parents'].get(parent, 0) + 1
+
+    def finish(self):
+        for (_, fid), state in self.open.items():
+            self.close(fid, state)
+        self.open, self.sessions = {}, {}
+        if not self.timed:
+            self.flag_aggregated()
+
+    def flag_aggregated(self):
+        """V$SQL: no session nor time, flag single-row lookups executed far more often than the median."""
+        counts = sorted(entry['count'] for entry in self.prints.values())
+        median = counts[len(counts) // 2] if counts else 0
+        for entry in self.prints.values():
+            single_row = entry['rows_known'] and entry['rows'] <= entry['rows_known']
+            if single_row and median and entry['count'] >= self.min_burst * median and ' where ' in entry['fingerprint']:
+                entry['bursts'] = 1
+                entry['burst_executions'] = entry['count']
+                entry['max_burst'] = entry['count']
+
+
+# --- BDM mapping -------------------------------------------------------------
+SQL_TABLE = re.compile(r'\b(?:from|join)\s+("?[\w.]+"?)(?:\s+(?:as\s+)?(?!where\b|on\b|join\b|left\b|inner\b|'
+                       r'order\b|group\b|cross\b|right\b|full\b|limit\b|offset\b|fetch\b)(\w+))?', re.I)
+SQL_CLAUSE = re.compile(r'\b(where|order by|group by|limit|offset|fetch|for update|union)\b')
+SQL_PREDICATE = re.compile(r'(?:(\w+)\.)?(\w+)\s*(?:=|<>|!=|<=|>=|<|>|\blike\b|\bin\b|\bis\b|\bbetween\b)')
+SQL_ORDER = re.compile(r'(?:(\w+)\.)?(\w+)(?:\s+(?:asc|desc))?\s*(?:,|$)')
+SQL_WORDS = {'and', 'or', 'not', 'null', 'select', 'case', 'when', 'then', 'else', 'end', 'exists', 'lower', 'upper'}
+
+
+def sql_shape(text):
+    """(main table, WHERE columns, ORDER BY columns) of a fingerprint, lower case, unqualified."""
+    tables = [(t.strip('"').rsplit('.', 1)[-1], alias) for t, alias in SQL_TABLE.findall(text)]
+    if not tables or not text.startswith(('select', 'with')):
+        return None, set(), []
+    main, alias = tables[0]
+    clauses, last, name = {}, 0, None
+    for match in SQL_CLAUSE.finditer(text):
+        if name:
+            clauses[name] = text[last:match.start()]
+        name, last = match.group(1), match.end()
+    if name:
+        clauses[name] = text[last:]
+    aliases = {a for _, a in tables[1:] if a}
+
+    def own(qualifier):
+        return not qualifier or qualifier == alias or (not alias and qualifier == main) or qualifier not in aliases
+
+    where = {col for q, col in SQL_PREDICATE.findall(clauses.get('where', ''))
+             if own(q) and col not in SQL_WORDS and not col.isdigit()}
+    order = [col for q, col in SQL_ORDER.findall(clauses.get('order by', '').strip()) if own(q)]
+    return main, where, order
+
+
+def load_bdm(bom_file):
+    lib = os.environ.get('BDM_LIB_DIR')
+    if not lib or not bom_file or not os.path.isfile(bom_file):
+        return None
+    sys.path.insert(0, lib)
+    import bdm_model
+    import bdm_query_cost
+    model = bdm_model.load(bom_file)
+    tables = {}
+    for obj in model['objects']:
+        queries = [('findByPersistenceId', {'persistenceid'}, [])]
+        for query in obj['queries']:
+            predicates, order = bdm_query_cost.parse_query(query['content'])
+            queries.append((query['name'], {f.lower() for f, _ in predicates}, [f.lower() for f in order]))
+        relations = [f['name'] for f in obj['fields'] if f['kind'] == 'relationField']
+        tables[obj['short'].lower()] = {'object': obj['short'], 'queries': queries, 'relations': relations}
+    return tables
+
+
+def relation_of(tables, table, column):
+    """'Object.relation' whose lazy load reads table (a join table) or filters on column (a *_pid key)."""
+    for name, target in tables.items():
+        for relation in target['relations']:
+            if table == '%s_%s' % (name, relation.lower()):
+                return '%s.%s' % (target['object'], relation)
+    stem = column[:-len('_pid')] if column else ''
+    for target in tables.values():
+        for relation in target['relations']:
+            if stem and (stem == relation.lower() or stem.endswith('_' + relation.lower())):
+                return '%s.%s' % (target['object'], relation)
+    return None
+
+
+def match_bdm(tables, text):
+    """(label, confidence) of the bom.xml query most likely behind a fingerprint, or None."""
+    main, where, order = sql_shape(text)
+    if not main:
+        return None
+    lazy = sorted(c for c in where if c.endswith('_pid'))
+    if lazy and where <= set(lazy) | {'persistenceid'} or main not in tables:
+        relation = relation_of(tables, main, lazy[0] if lazy else None)
+        if relation:
+            return 'lazy relation %s' % relation, 'likely'
+    target = tables.get(main)
+    if not target:
+        return None
+    scored = []
+    for name, columns, order_by in target['queries']:
+        union = where | columns
+        score = (len(where & columns) / len(union) if union else 1.0) * 0.8
+        score += 0.2 if order_by == order[:len(order_by)] and (order_by or not order) else 0.0
+        scored.append((score, name))
+    scored.sort(reverse=True)
+    best, name = scored[0]
+    if best < 0.5:
+        return '%s (no matching query)' % target['object'], 'table only'
+    tied = [n for s, n in scored[1:] if s == best]
+    label = '%s.%s' % (target['object'], name) + (' or ' + ', '.join(tied[:2]) if tied else '')
+    return label, 'exact' if best >= 0.99 and not tied else 'likely'
+
+
+# --- report ------------------------------------------------------------------
+def parse_args(argv):
+    options = {'format': None, 'bom': 'bdm/bom.xml', 'window': WINDOW_MS, 'min_burst': MIN_BURST, 'top': 20,
+               'json': False, 'paths': []}
+    i = 0
+    while i < len(argv):
+        arg = argv[i]
+        if arg == '--json':
+            options['json'] = True
+        elif arg in ('--format', '--bom', '--window', '--min-burst', '--top') and i + 1 < len(argv):
+            key = arg[2:].replace('-', '_')
+            options[key] = argv[i + 1] if key in ('format', 'bom') else int(argv[i + 1])
+            i += 1
+        else:
+            options['paths'].append(arg)
+        i += 1
+    return options
+
+
+def main(argv):
+    options = parse_args(argv)
+    digest = Digest(options['window'], options['min_burst'])
+    formats = set()
+    for path in options['paths']:
+        kind = options['format'] or detect(path)
+        if kind not in READERS:
+            sys.stderr.write('%s: unknown format, use --format postgres|mysql|oracle\n' % path)
+            continue
+        formats.add(kind)
+        for record in READERS[kind](path):
+            digest.add(*record)
+    digest.finish()
+    if not digest.prints:
+        sys.stderr.write('No SQL statement found in %s\n' % ' '.join(options['paths']))
+        return 1
+
+    tables = load_bdm(options['bom'])
+    prints = sorted(digest.prints.values(), key=lambda e: (-e['burst_executions'], -e['total_ms'], e['id']))
+    results = []
+    for entry in prints[:options['top']]:
+        bdm = match_bdm(tables, entry['fingerprint']) if tables else None
+        parents = sorted(entry['parents'].items(), key=lambda kv: -kv[1])
+        results.append({
+            'id': entry['id'], 'n_plus_one': entry['bursts'] > 0, 'count': entry['count'],
+            'variants': entry['variants'], 'total_ms': round(entry['total_ms'], 1),
+            'avg_ms': round(entry['total_ms'] / entry['count'], 2), 'max_ms': round(entry['max_ms'], 1),
+            'rows_per_exec': round(entry['rows'] / entry['rows_known'], 2) if entry['rows_known'] else None,
+            'sessions': len(entry['sessions']), 'bursts': entry['bursts'], 'max_burst': entry['max_burst'],
+            'burst_executions': entry['burst_executions'],
+            'parent': parents[0][0] if parents else None,
+            'parent_fingerprint': digest.prints[parents[0][0]]['fingerprint'] if parents else None,
+            'bdm_query': bdm[0] if bdm else None, 'bdm_confidence': bdm[1] if bdm else None,
+            'fingerprint': entry['fingerprint'], 'example': entry['example'],
+        })
+
+    if options['json']:
+        json.dump({'formats': sorted(formats), 'statements': digest.statements, 'fingerprints': len(digest.prints),
+                   'window_ms': options['window'], 'min_burst': options['min_burst'],
+                   'bom': options['bom'] if tables else None, 'top': results}, sys.stdout, indent=1)
+        print()
+        return 0
+
+    flagged = [r for r in results if r['n_plus_one']]
+    print('%d statement(s), %d fingerprint(s) (%s)%s' % (
+        digest.statements, len(digest.prints), ', '.join(sorted(formats)),
+        '' if tables else '; no bom.xml mapping (--bom %s not found)' % options['bom']))
+    print('N+1 candidates: %d (bursts of >= %d in one session, < %dms apart%s)\n' % (
+        sum(1 for e in digest.prints.values() if e['bursts']), options['min_burst'], options['window'],
+        '' if digest.timed else '; V$SQL: >= %dx the median executions, <= 1 row each' % options['min_burst']))
+    print('%-16s %-5s %9s %10s %8s %7s %9s  %s' % ('FINGERPRINT', 'N+1', 'COUNT', 'TOTAL ms', 'AVG ms', 'BURSTS',
+                                                 'MAX BURST', 'BDM QUERY'))
+    for r in results:
+        print('%-16s %-5s %9d %10.0f %8.2f %7d %9d  %s' % (
+            r['id'], 'yes' if r['n_plus_one'] else '', r['count'], r['total_ms'], r['avg_ms'], r['bursts'],
+            r['max_burst'], '%s [%s]' % (r['bdm_query'], r['bdm_confidence']) if r['bdm_query'] else '-'))
+    for r in flagged:
+        print('\n%s  %d burst(s), up to %d executions%s' % (r['id'], r['bursts'], r['max_burst'],
+                                                            ', %d variants' % r['variants'] if r['variants'] > 1 and not digest.timed else ''))
+        print('  statement: %s' % r['fingerprint'][:EXAMPLE_CHARS])
+        if r['parent_fingerprint']:
+            print('  after:     %s' % r['parent_fingerprint'][:EXAMPLE_CHARS])
+        if r['bdm_query']:
+            print('  bom.xml:   %s [%s]' % (r['bdm_query'], r['bdm_confidence']))
+    return 0
+
+
+sys.exit(main(sys.argv[1:]))
+PY
@@ -0,0 +1,416 @@
+#!/usr/bin/env bash
+# =============================================================================
+# thread-dump.sh - Bonita thread pool, lock and stuck-thread analysis of thread dumps
+#
+# Usage:
+#   ./thread-dump.sh <dump-file|dump-dir>... [--cores N] [--top N] [--json]
+#
+#   --cores   CPU cores of the Bonita server, to turn the observed I/O wait share
+#             into a work service pool size (default: the formula only)
+#   --top     identical-stack groups shown per pool (default: 5)
+#   --json    the analysis as JSON instead of the report
+#
+# Reads jstack and jcmd <pid> Thread.print output; one file may hold several
+# dumps appended one after the other. Take 3 dumps 5-10 seconds apart:
+#   for i in 1 2 3; do jcmd <pid> Thread.print >> dumps.txt; sleep 5; done
+#
+# Per dump, threads are grouped by Bonita pool from their names (work service,
+# connector executor, scheduler, HTTP, JVM, other) and each thread gets an
+# activity from its stack: idle (parked in its pool), jdbc, http-client,
+# connector:<class>, groovy, blocked, running. Identical stacks are collapsed
+# with a count. Lock contention is rebuilt from "waiting to lock" / "parking to
+# wait for" and "locked" / ownable synchronizer lines: chains of waiters are
+# reported with the owner's frame, and cycles as deadlocks.
+#
+# With several dumps, a thread found with the same top frames in every dump and
+# not idle (in its pool, or in a plain Thread.sleep / Object.wait) is reported
+# as stuck (in JDBC, a connector, an HTTP call or a lock),
+# with the time between the first and last dump and its CPU time delta (JDK 11+).
+#
+# Exit code: 0, or 1 when no thread dump was found
+# =============================================================================
+
+set -euo pipefail
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 <dump-file|dump-dir>... [--cores N] [--top N] [--json]"
+    exit 1
+fi
+
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+
+"$PYTHON_CMD" - "$@" <<'PY'
+import calendar
+import glob
+import json
+import os
+import re
+import sys
+import time
+
+STUCK_FRAMES = 8
+SHOWN_FRAMES = 6
+
+DUMP_START = re.compile(r'^Full thread dump ')
+DUMP_TIME = re.compile(r'^(\d{4})-(\d\d)-(\d\d) (\d\d):(\d\d):(\d\d)\s*$')
+THREAD = re.compile(r'^"(.*)"\s')
+CPU = re.compile(r'\bcpu=([\d.]+)ms')
+NID = re.compile(r'\bnid=(\S+)')
+STATE = re.compile(r'^\s+java\.lang\.Thread\.State: (\w+)')
+FRAME = re.compile(r'^\s+at ([\w$.<>/]+)\.([\w$<>]+)\(')
+LOCK = re.compile(r'^\s+- (locked|waiting to lock|parking to wait for)\s+<(0x[0-9a-f]+)> \(a ([\w.$/]+)\)')
+OWNABLE = re.compile(r'^\s+- <(0x[0-9a-f]+)> \(a ([\w.$/]+)\)')
+JVM_DEADLOCK = re.compile(r'^Found (?:one|\d+) Java-level deadlocks?')
+# A thread sleeping or in Object.wait outside JDBC, a connector or an HTTP call is not stuck
+SLEEP_OR_WAIT = re.compile(r'^java\.lang\.(?:Thread\.sleep|Object\.wait)\w*$')
+
+# Thread name -> Bonita pool; first match wins
+POOLS = [
+    ('work service', re.compile(r'bonita.?work|work.?executor|^Bonita-Worker', re.I)),
+    ('connector executor', re.compile(r'connector', re.I)),
+    ('scheduler', re.compile(r'scheduler|quartz', re.I)),
+    ('http', re.compile(r'^(?:https?|ajp)-.*-exec-\d+|^qtp\d+|^XNIO-\d+ task', re.I)),
+    ('jvm', re.compile(r'^(?:GC |G1 |ZGC|C[12] Compiler|VM |Signal Dispatcher|Finalizer|Reference Handler|'
+                       r'Common-Cleaner|Service Thread|Sweeper|Notification Thread|Attach Listener|'
+                       r'Monitor Deflation|VM Periodic|Concurrent |Gang worker|ZDirector|ZStat|ZUncommit)')),
+]
+JDBC = re.compile(r'^(?:org\.postgresql|oracle\.jdbc|com\.mysql|org\.mariadb|com\.microsoft\.sqlserver|org\.h2|'
+                  r'com\.zaxxer\.hikari|org\.apache\.tomcat\.dbcp|org\.apache\.commons\.dbcp|bitronix|'
+                  r'com\.arjuna)')
+HTTP_CLIENT = re.compile(r'^(?:org\.apache\.http|org\.apache\.hc|okhttp3|java\.net\.http|sun\.net\.www\.protocol\.https?|'
+                         r'org\.springframework\.web\.client|javax\.ws\.rs\.client|org\.glassfish\.jersey\.client|'
+                         r'org\.apache\.cxf|javax\.xml\.ws)')
+IDLE = re.compile(r'^(?:java\.util\.concurrent\.ThreadPoolExecutor\.getTask|'
+                  r'java\.util\.concurrent\.(?:LinkedBlockingQueue|ArrayBlockingQueue|SynchronousQueue|'
+                  r'LinkedBlockingDeque|DelayQueue|PriorityBlockingQueue)\.(?:take|poll)|'
+                  r'java\.util\.concurrent\.ScheduledThreadPoolExecutor\$DelayedWorkQueue\.take|'
+                  r'org\.apache\.tomcat\.util\.threads\.TaskQueue\.(?:take|poll)|'
+                  r'org\.quartz\.simpl\.SimpleThreadPool\$WorkerThread\.run|'
+                  r'org\.quartz\.core\.QuartzSchedulerThread\.run|'
+                  r'sun\.nio\.ch\.\w*SelectorImpl\.|org\.apache\.tomcat\.util\.net\.NioEndpoint\$Poller)')
+BONITA_ENGINE = re.compile(r'^org\.bonitasoft\.engine\.')
+
+
+def dump_files(args):
+    paths = []
+    for arg in args:
+        if os.path.isdir(arg):
+            paths.extend(sorted(p for p in glob.glob(os.path.join(arg, '*')) if os.path.isfile(p)))
+        elif os.path.isfile(arg):
+            paths.append(arg)
+    return paths
+
+
+def new_thread(line):
+    cpu, nid = CPU.search(line), NID.search(line)
+    return {'name': THREAD.match(line).group(1), 'nid': nid.group(1) if nid else None,
+            'cpu_ms': float(cpu.group(1)) if cpu else None, 'state': 'NEW' if 'nid=' not in line else None,
+            'frames': [], 'waiting_for': None, 'locked': set()}
+
+
+def read_dumps(paths):
+    """Yield dicts {'source', 'time', 'threads', 'jvm_deadlock'} in file order."""
+    for path in paths:
+        with open(path, encoding='utf-8', errors='replace') as f:
+            dump, thread, previous, ownable = None, None, '', False
+            for line in f:
+                line = line.rstrip('\r\n')
+                if DUMP_START.match(line):
+                    if dump:
+                        yield dump
+                    stamp = DUMP_TIME.match(previous)
+                    dump = {'source': path, 'time': calendar.timegm(tuple(int(g) for g in stamp.groups()))
+                            if stamp else None, 'threads': [], 'jvm_deadlock': False}
+                    thread = None
+                elif dump is None:
+                    pass
+                elif THREAD.match(line):
+                    thread = new_thread(line)
+                    dump['threads'].append(thread)
+                    ownable = False
+                elif JVM_DEADLOCK.match(line):
+                    dump['jvm_deadlock'] = True
+                    thread = None
+                elif thread is not None:
+                    state, frame, lock = STATE.match(line), FRAME.match(line), LOCK.match(line)
+                    if state:
+                        thread['state'] = state.group(1)
+                    elif frame:
+                        thread['frames'].append('%s.%s' % frame.groups())
+                    elif lock:
+                        if lock.group(1) == 'locked':
+                            thread['locked'].add(lock.group(2))
+                        elif thread['waiting_for'] is None:
+                            thread['waiting_for'] = (lock.group(2), lock.group(3))
+                    elif 'Locked ownable synchronizers' in line:
+                        ownable = True
+                    elif ownable and OWNABLE.match(line):
+                        thread['locked'].add(OWNABLE.match(line).group(1))
+                if line.strip():
+                    previous = line
+            if dump:
+                yield dump
+
+
+def pool_of(name):
+    for pool, pattern in POOLS:
+        if pattern.search(name):
+            return pool
+    return 'other'
+
+
+def activity(thread):
+    frames = thread['frames']
+    if not frames:
+        return 'native'
+    if thread['state'] == 'BLOCKED':
+        return 'blocked'
+    for frame in frames:
+        if JDBC.match(frame):
+            return 'jdbc'
+    for frame in frames:
+        if HTTP_CLIENT.match(frame):
+            return 'http-client'
+    connector = connector_class(frames)
+    if connector:
+        return 'connector:' + connector
+    if any('groovy' in f or re.match(r'^Script\d+\.', f) for f in frames):
+        return 'groovy'
+    if any(IDLE.match(f) for f in frames[:12]):
+        return 'idle'
+    if thread['state'] == 'RUNNABLE':
+        return 'running'
+    return 'waiting'
+
+
+def connector_class(frames):
+    """The user connector class executing on a thread, from the frames above the engine's connector executor."""
+    for i, frame in enumerate(frames):
+        if BONITA_ENGINE.match(frame) and '.connector.' in frame:
+            for above in reversed(frames[:i]):
+                owner = above.rsplit('.', 1)[0]
+                if not owner.startswith(('java.', 'javax.', 'jdk.', 'sun.', 'org.bonitasoft.engine.')):
+                    return owner.rsplit('.', 1)[-1]
+            return None
+    return None
+
+
+def first_own_frame(frames):
+    for frame in frames:
+        if not frame.startswith(('java.', 'javax.', 'jdk.', 'sun.')):
+            return frame
+    return frames[0] if frames else ''
+
+
+def locks(threads):
+    """Contention chains [(owner, lock class, waiters)] and deadlock cycles [[thread names]]."""
+    owner_of = {}
+    for thread in threads:
+        for address in thread['locked']:
+            owner_of[address] = thread
+    waiters = {}
+    for thread in threads:
+        wanted = thread['waiting_for']
+        if wanted and wanted[0] in owner_of and owner_of[wanted[0]] is not thread:
+            waiters.setdefault(wanted[0], []).append(thread)
+    chains = []
+    for address, waiting in waiters.items():
+        owner = owner_of[address]
+        chains.append({'lock': address, 'class': waiting[0]['waiting_for'][1], 'owner': owner['name'],
+                       'owner_state': owner['state'], 'owner_frame': first_own_frame(owner['frames']),
+                       'owner_waits_for': owner['waiting_for'][0] if owner['waiting_for'] else None,
+                       'waiters': sorted(t['name'] for t in waiting)})
+    chains.sort(key=lambda c: -len(c['waiters']))
+
+    deadlocks, seen = [], set()
+    for start in threads:
+        path, thread = [], start
+        while thread is not None and thread['name'] not in path:
+            path.append(thread['name'])
+            wanted = thread['waiting_for']
+            thread = owner_of.get(wanted[0]) if wanted else None
+        if thread is not None:
+            cycle = path[path.index(thread['name']):]
+            key = frozenset(cycle)
+            if len(cycle) > 1 and key not in seen:
+                seen.add(key)
+                deadlocks.append(cycle)
+    return chains, deadlocks
+
+
+def analyze_dump(dump, top):
+    pools = {}
+    for thread in dump['threads']:
+        thread['pool'] = pool_of(thread['name'])
+        thread['activity'] = activity(thread)
+        pool = pools.setdefault(thread['pool'], {'threads': 0, 'busy': 0, 'states': {}, 'activities': {}, 'stacks': {}})
+        pool['threads'] += 1
+        pool['busy'] += thread['activity'] not in ('idle', 'native')
+        pool['states'][thread['state']] = pool['states'].get(thread['state'], 0) + 1
+        pool['activities'][thread['activity']] = pool['activities'].get(thread['activity'], 0) + 1
+        key = (thread['state'], tuple(thread['frames']))
+        group = pool['stacks'].setdefault(key, {'count': 0, 'activity': thread['activity'], 'threads': []})
+        group['count'] += 1
+        if len(group['threads']) < 3:
+            group['threads'].append(thread['name'])
+    for pool in pools.values():
+        stacks = sorted(pool['stacks'].items(), key=lambda kv: -kv[1]['count'])
+        pool['distinct_stacks'] = len(stacks)
+        pool['stacks'] = [{'count': g['count'], 'state': state, 'activity': g['activity'], 'threads': g['threads'],
+                           'frames': list(frames[:SHOWN_FRAMES])} for (state, frames), g in stacks[:top]]
+    chains, deadlocks = locks(dump['threads'])
+    return {'source': dump['source'], 'time': dump['time'], 'threads': len(dump['threads']), 'pools': pools,
+            'contention': chains, 'deadlocks': deadlocks, 'jvm_reported_deadlock': dump['jvm_deadlock']}
+
+
+def stuck_threads(dumps):
+    """Threads busy on the same top frames in every dump."""
+    if len(dumps) < 2:
+        return []
+    def key(thread):
+        return thread['name'], thread['nid']
+    first = {key(t): t for t in dumps[0]['threads']}
+    stuck = []
+    for k, thread in first.items():
+        if thread['activity'] in ('idle', 'native') or thread['pool'] == 'jvm':
+            continue
+        if thread['activity'] == 'waiting' and SLEEP_OR_WAIT.match(thread['frames'][0]):
+            continue
+        top = thread['frames'][:STUCK_FRAMES]
+        same = [thread]
+        for dump in dumps[1:]:
+            other = next((t for t in dump['threads'] if key(t) == k), None)
+            if other is None or other['frames'][:STUCK_FRAMES] != top:
+                break
+            same.append(other)
+        if len(same) == len(dumps):
+            last = same[-1]
+            stuck.append({'thread': thread['name'], 'pool': thread['pool'], 'activity': thread['activity'],
+                          'state': last['state'], 'frame': first_own_frame(thread['frames']),
+                          'top_frame': thread['frames'][0] if thread['frames'] else '',
+                          'seconds': (dumps[-1]['time'] - dumps[0]['time'])
+                          if dumps[0]['time'] is not None and dumps[-1]['time'] is not None else None,
+                          'cpu_ms_delta': round(last['cpu_ms'] - thread['cpu_ms'], 1)
+                          if last['cpu_ms'] is not None and thread['cpu_ms'] is not None else None})
+    order = {'work service': 0, 'connector executor': 1, 'http': 2, 'scheduler': 3}
+    stuck.sort(key=lambda s: (order.get(s['pool'], 9), s['activity'], s['thread']))
+    return stuck
+
+
+def sizing(dumps, analyses, cores):
+    """Work service evidence: pool size, busy threads and their I/O wait share across the dumps."""
+    work = [a['pools'].get('work service') for a in analyses]
+    work = [w for w in work if w]
+    if not work:
+        return None
+    busy = [w['busy'] for w in work]
+    size = max(w['threads'] for w in work)
+    io_wait = waiting = 0
+    for dump in dumps:
+        for thread in dump['threads']:
+            if thread['pool'] == 'work service' and thread['activity'] not in ('idle', 'native'):
+                waiting += 1
+                io_wait += thread['activity'] in ('jdbc', 'http-client', 'blocked', 'waiting') or \
+                    thread['activity'].startswith('connector:')
+    share = io_wait / float(waiting) if waiting else 0.0
+    result = {'pool_threads': size, 'busy_per_dump': busy, 'saturated': min(busy) >= size,
+              'io_wait_share': round(share, 2),
+              'multiplier': round(1 / (1 - share), 1) if share < 1 else None}
+    if cores and result['multiplier']:
+        result['cores'] = cores
+        result['suggested_core_pool_size'] = int(round(cores * result['multiplier']))
+    return result
+
+
+def report(result, top):
+    analyses = result['dumps']
+    print('%d dump(s), %d thread(s) in the first' % (len(analyses), analyses[0]['threads']))
+    for index, analysis in enumerate(analyses, 1):
+        print('\n=== Dump %d%s (%s) ===' % (index, ' at ' + stamp(analysis['time']) if analysis['time'] else '',
+                                            os.path.basename(analysis['source'])))
+        print('%-20s %7s %6s  %s' % ('POOL', 'THREADS', 'BUSY', 'ACTIVITIES'))
+        for name, pool in sorted(analysis['pools'].items(), key=lambda kv: -kv[1]['busy']):
+            print('%-20s %7d %6d  %s' % (name, pool['threads'], pool['busy'], ', '.join(
+                '%s %d' % kv for kv in sorted(pool['activities'].items(), key=lambda kv: -kv[1]))))
+        if index > 1:
+            continue   # the stacks of the first dump are enough; stuck threads cover the others
+        for name, pool in sorted(analysis['pools'].items(), key=lambda kv: -kv[1]['busy']):
+            if name == 'jvm' or not pool['busy']:
+                continue
+            print('\n%s: %d distinct stack(s)' % (name, pool['distinct_stacks']))
+            for group in pool['stacks'][:top]:
+                if group['activity'] in ('idle', 'native'):
+                    continue
+                print('  %3d x %-8s %-24s e.g. %s' % (group['count'], group['state'], group['activity'],
+                                                      ', '.join(group['threads'])))
+                for frame in group['frames']:
+                    print('          at %s' % frame)
+        for chain in analysis['contention']:
+            print('\nLock %s (%s) held by "%s" [%s] at %s%s' % (
+                chain['lock'], chain['class'], chain['owner'], chain['owner_state'], chain['owner_frame'],
+                ', itself waiting for %s' % chain['owner_waits_for'] if chain['owner_waits_for'] else ''))
+            print('  %d waiter(s): %s%s' % (len(chain['waiters']), ', '.join(chain['waiters'][:5]),
+                                            ', ...' if len(chain['waiters']) > 5 else ''))
+        for cycle in analysis['deadlocks']:
+            print('\nDEADLOCK: %s' % ' -> '.join('"%s"' % name for name in cycle + cycle[:1]))
+        if analysis['jvm_reported_deadlock'] and not analysis['deadlocks']:
+            print('\nDEADLOCK reported by the JVM (see the end of the dump)')
+
+    if len(analyses) > 1:
+        stuck = result['stuck']
+        print('\n=== Stuck threads (same top %d frames in all %d dumps) ===' % (STUCK_FRAMES, len(analyses)))
+        if not stuck:
+            print('None')
+        for s in stuck:
+            print('%-20s %-32s %-26s %s%s' % (s['pool'], s['thread'][:32], s['activity'][:26], s['frame'],
+                                              ' (%ds, cpu +%.0fms)' % (s['seconds'], s['cpu_ms_delta'])
+                                              if s['seconds'] is not None and s['cpu_ms_delta'] is not None else ''))
+    work = result['work_service']
+    if work:
+        print('\n=== Work service sizing evidence ===')
+        print('Pool threads: %d, busy per dump: %s%s' % (work['pool_threads'], work['busy_per_dump'],
+                                                          ' (saturated in every dump)' if work['saturated'] else ''))
+        if work['multiplier']:
+            print('Busy threads waiting (JDBC, HTTP, connectors, locks): %.0f%% -> core pool = cores x %.1f%s'
+                  % (work['io_wait_share'] * 100, work['multiplier'],
+                     ' = %d for %d cores' % (work['suggested_core_pool_size'], work['cores'])
+                     if 'suggested_core_pool_size' in work else ' (pass --cores N for a number)'))
+        else:
+            print('Every busy thread waits on I/O or locks: more threads only add load downstream; '
+                  'fix the stuck JDBC/connector calls first')
+
+
+def stamp(seconds):
+    return time.strftime('%Y-%m-%d %H:%M:%S', time.gmtime(seconds))
+
+
+def main(argv):
+    options = {'cores': None, 'top': 5, 'json': False}
+    args = []
+    i = 0
+    while i < len(argv):
+        if argv[i] in ('--cores', '--top') and i + 1 < len(argv):
+            options[argv[i][2:]] = int(argv[i + 1])
+            i += 1
+        elif argv[i] == '--json':
+            options['json'] = True
+        else:
+            args.append(argv[i])
+        i += 1
+    dumps = [d for d in read_dumps(dump_files(args)) if d['threads']]
+    if not dumps:
+        sys.stderr.write('No thread dump found in %s (expected jstack or jcmd Thread.print output)\n' % ' '.join(args))
+        return 1
+    analyses = [analyze_dump(dump, options['top']) for dump in dumps]
+    result = {'dumps': analyses, 'stuck': stuck_threads(dumps),
+              'work_service': sizing(dumps, analyses, options['cores'])}
+    if options['json']:
+        json.dump(result, sys.stdout, indent=1)
+        print()
+    else:
+        report(result, options['top'])
+    return 0
+
+
+sys.exit(main(sys.argv[1:]))
+PY
@@ -6,6 +6,9 @@
 #   ./check-coverage.sh              # Run JaCoCo and check thresholds
 #   ./check-coverage.sh --report     # Generate report only (skip threshold check)
 #   ./check-coverage.sh --verbose    # Show detailed per-class coverage
+#   ./check-coverage.sh --changed [BASE_REF]
+#                                    # Uncovered lines among the lines changed since BASE_REF,
+#                                    # from the last test run (no mvn, see coverage-index.sh)
 #
 # Thresholds:
 #   Line coverage:   minimum 80%  (target 95%+)
@@ -28,6 +31,7 @@ JACOCO_REPORT_XML="extensions/target/site/jacoco/jacoco.xml"
 JACOCO_REPORT_HTML="extensions/target/site/jacoco/index.html"
 LINE_THRESHOLD=80
 BRANCH_THRESHOLD=70
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
 
 # Find the project root
 find_project_root() {
@@ -264,6 +268,9 @@ show_usage() {
     echo "  (none)       Run JaCoCo report and check thresholds"
     echo "  --report     Generate report only (skip threshold check)"
     echo "  --verbose    Show detailed per-class coverage"
+    echo "  --changed [BASE_REF]"
+    echo "               Coverage of the lines changed since BASE_REF (default: merge-base with"
+    echo "               origin/main), from the existing jacoco.exec files; tests are not re-run"
     echo "  --help       Show this help message"
     echo ""
     echo "Thresholds:"
@@ -277,10 +284,20 @@ show_usage() {
 
 main() {
     local mode="check"
+    local base_ref=""
 
     # Parse arguments
-    for arg in "$@"; do
+    while [[ $# -gt 0 ]]; do
+        local arg="$1"
+        shift
         case "$arg" in
+            --changed)
+                mode="changed"
+                if [[ $# -gt 0 && "$1" != -* ]]; then
+                    base_ref="$1"
+                    shift
+                fi
+                ;;
             --report)
                 mode="report"
                 ;;
@@ -310,6 +327,16 @@ main() {
     cd "$project_root"
     echo -e "${BLUE}Project root: ${project_root}${NC}"
 
+    if [[ "$mode" == "changed" ]]; then
+        print_header "Coverage of Changed Lines${base_ref:+ since ${base_ref}}"
+        local exit_code=0
+        COVERAGE_THRESHOLD=$LINE_THRESHOLD bash "${SCRIPT_DIR}/coverage-index.sh" changed ${base_ref:+"$base_ref"} \
+            || exit_code=$?
+        echo ""
+        echo -e "  ${YELLOW}Uncovered lines of one class: bash ${SCRIPT_DIR}/coverage-index.sh lines MyClass${NC}"
+        exit $exit_code
+    fi
+
     # Check Maven
     if ! command -v mvn &>/dev/null; then
         echo -e "${RED}ERROR: Maven (mvn) is not installed or not in PATH${NC}"
@@ -330,6 +357,9 @@ main() {
     # Step 2: Parse and display the report
     parse_jacoco_report "$JACOCO_REPORT_XML"
 
+    # Keep the line index current so that --changed answers without a new test run
+    bash "${SCRIPT_DIR}/coverage-index.sh" refresh || true
+
     # Step 3: Additional output based on mode
     case "$mode" in
         verbose)
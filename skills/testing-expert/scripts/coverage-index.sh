@@ -0,0 +1,350 @@
+#!/usr/bin/env bash
+# =============================================================================
+# coverage-index.sh - Line coverage index built from the JaCoCo execution data
+#
+# Usage:
+#   ./coverage-index.sh changed [BASE_REF]   # uncovered changed lines (default: merge-base with origin/main)
+#   ./coverage-index.sh lines <Class|path>   # uncovered lines of one source file
+#   ./coverage-index.sh refresh | summary
+#
+# The per-module extensions/*/target/jacoco.exec files (written by the JaCoCo
+# agent during `mvn test`) are merged with the JaCoCo CLI into one report, so a
+# class tested from another module counts as covered. The XML is read once into
+# extensions/target/coverage/coverage.idx: a binary index with one record per
+# source file (line numbers, covered/partly/missed status, branch counts) and a
+# lookup table, so a query reads only the files it needs. The index is rebuilt
+# only when an exec file or a compiled class changed.
+#
+# The CLI jar is JACOCO_CLI, or org.jacoco.cli nodeps in the local Maven
+# repository (downloaded once with dependency:get). Without it, the per-module
+# reports (target/site/jacoco/jacoco.xml) are indexed instead, not merged.
+#
+# Exit code: 0; `changed` exits 1 when the changed lines are below
+# COVERAGE_THRESHOLD percent (default: 80)
+# =============================================================================
+
+set -euo pipefail
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 changed [BASE_REF] | lines <Class|path> | refresh | summary"
+    exit 1
+fi
+
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+
+"$PYTHON_CMD" - "$@" <<'PY'
+import glob
+import json
+import os
+import re
+import struct
+import subprocess
+import sys
+import xml.etree.ElementTree as ET
+
+INDEX_DIR = os.path.join('extensions', 'target', 'coverage')
+INDEX_FILE = os.path.join(INDEX_DIR, 'coverage.idx')
+MAGIC = b'JCIX'
+VERSION = 1
+DEFAULT_CLI_VERSION = '0.8.12'
+NOT_COVERED, PARTLY_COVERED, FULLY_COVERED = 1, 2, 3
+threshold = float(os.environ.get('COVERAGE_THRESHOLD') or 80)
+
+
+# --- varint encoding ------------------------------------------------------------
+def put_varint(out, value):
+    while value >= 0x80:
+        out.append((value & 0x7F) | 0x80)
+        value >>= 7
+    out.append(value)
+
+
+def get_varint(data, pos):
+    result = shift = 0
+    while True:
+        byte = data[pos]
+        pos += 1
+        result |= (byte & 0x7F) << shift
+        if byte < 0x80:
+            return result, pos
+        shift += 7
+
+
+# --- inputs ---------------------------------------------------------------------
+def module_dirs():
+    return sorted(os.path.dirname(os.path.dirname(p)) for p in glob.glob('extensions/**/target/jacoco.exec',
+                                                                           recursive=True))
+
+
+def signature():
+    """Size and mtime of every exec file, plus the newest compiled class of each module."""
+    parts = []
+    for module in module_dirs():
+        st = os.stat(os.path.join(module, 'target', 'jacoco.exec'))
+        newest = 0
+        for root, _, names in os.walk(os.path.join(module, 'target', 'classes')):
+            for name in names:
+                newest = max(newest, os.stat(os.path.join(root, name)).st_mtime_ns)
+        parts.append('%s:%d:%d:%d' % (module, st.st_size, st.st_mtime_ns, newest))
+    return '|'.join(parts)
+
+
+def jacoco_cli():
+    configured = os.environ.get('JACOCO_CLI')
+    if configured and os.path.isfile(configured):
+        return configured
+    repository = os.path.join(os.path.expanduser('~'), '.m2', 'repository', 'org', 'jacoco', 'org.jacoco.cli')
+    found = sorted(glob.glob(os.path.join(repository, '*', 'org.jacoco.cli-*-nodeps.jar')))
+    if found:
+        return found[-1]
+    version = DEFAULT_CLI_VERSION
+    try:
+        with open(os.path.join('extensions', 'pom.xml'), encoding='utf-8') as f:
+            match = re.search(r'<artifactId>jacoco-maven-plugin</artifactId>\s*<version>([^<$]+)</version>', f.read())
+        version = match.group(1).strip() if match else version
+    except OSError:
+        pass
+    subprocess.run(['mvn', '-q', 'dependency:get', '-Dartifact=org.jacoco:org.jacoco.cli:%s:jar:nodeps' % version],
+                   stdout=subprocess.DEVNULL, stderr=subprocess.DEVNULL, check=False)
+    found = sorted(glob.glob(os.path.join(repository, '*', 'org.jacoco.cli-*-nodeps.jar')))
+    return found[-1] if found else None
+
+
+def xml_reports():
+    """Return (list of JaCoCo XML reports to index, merged?)."""
+    modules = module_dirs()
+    cli = jacoco_cli() if modules else None
+    if cli:
+        merged_exec = os.path.join(INDEX_DIR, 'merged.exec')
+        merged_xml = os.path.join(INDEX_DIR, 'merged.xml')
+        execs = [os.path.join(m, 'target', 'jacoco.exec') for m in modules]
+        command = ['java', '-jar', cli, 'report', merged_exec, '--xml', merged_xml, '--quiet']
+        for module in modules:
+            if os.path.isdir(os.path.join(module, 'target', 'classes')):
+                command += ['--classfiles', os.path.join(module, 'target', 'classes')]
+            if os.path.isdir(os.path.join(module, 'src', 'main', 'java')):
+                command += ['--sourcefiles', os.path.join(module, 'src', 'main', 'java')]
+        merge = subprocess.run(['java', '-jar', cli, 'merge'] + execs + ['--destfile', merged_exec, '--quiet'],
+                               capture_output=True, text=True)
+        if merge.returncode == 0 and subprocess.run(command, capture_output=True, text=True).returncode == 0:
+            return [merged_xml], True
+    return sorted(glob.glob('extensions/**/target/site/jacoco/jacoco.xml', recursive=True)), False
+
+
+# --- index ----------------------------------------------------------------------
+def build_index(reports, sig, merged):
+    """Write the index: header, one record per source file, then the lookup table."""
+    records = bytearray()
+    table = []
+    for report in reports:
+        package = ''
+        for event, element in ET.iterparse(report, events=('start', 'end')):
+            tag = element.tag
+            if event == 'start':
+                if tag == 'package':
+                    package = element.get('name')
+                continue
+            if tag != 'sourcefile':
+                if tag in ('class', 'package'):
+                    element.clear()
+                continue
+            source = package + '/' + element.get('name') if package else element.get('name')
+            lines = []
+            for line in element.iter('line'):
+                mi, ci = int(line.get('mi')), int(line.get('ci'))
+                mb, cb = int(line.get('mb')), int(line.get('cb'))
+                status = NOT_COVERED if ci == 0 else PARTLY_COVERED if mi or mb else FULLY_COVERED
+                lines.append((int(line.get('nr')), status, mb, cb))
+            element.clear()
+            record = bytearray()
+            put_varint(record, len(lines))
+            previous = 0
+            for number, status, mb, cb in lines:
+                put_varint(record, number - previous)
+                record.append(status)
+                put_varint(record, mb)
+                put_varint(record, cb)
+                previous = number
+            covered = sum(1 for l in lines if l[1] != NOT_COVERED)
+            table.append((source, len(records), len(record), covered, len(lines)))
+            records += record
+
+    header = json.dumps({'signature': sig, 'merged': merged}).encode('utf-8')
+    out = bytearray(MAGIC + struct.pack('>BI', VERSION, len(header)) + header)
+    records_start = len(out) + 4
+    out += struct.pack('>I', len(records)) + records
+    for path, offset, length, covered, total in table:
+        encoded = path.encode('utf-8')
+        put_varint(out, len(encoded))
+        out += encoded
+        for value in (records_start + offset, length, covered, total):
+            put_varint(out, value)
+    os.makedirs(INDEX_DIR, exist_ok=True)
+    with open(INDEX_FILE + '.tmp', 'wb') as f:
+        f.write(out)
+    os.replace(INDEX_FILE + '.tmp', INDEX_FILE)
+
+
+class Index:
+    def __init__(self, path):
+        with open(path, 'rb') as f:
+            self.data = f.read()
+        if self.data[:4] != MAGIC or self.data[4] != VERSION:
+            raise ValueError('unsupported index')
+        header_length = struct.unpack('>I', self.data[5:9])[0]
+        self.header = json.loads(self.data[9:9 + header_length].decode('utf-8'))
+        pos = 9 + header_length
+        records_length = struct.unpack('>I', self.data[pos:pos + 4])[0]
+        pos += 4 + records_length
+        self.files = {}
+        while pos < len(self.data):
+            length, pos = get_varint(self.data, pos)
+            path = self.data[pos:pos + length].decode('utf-8')
+            pos += length
+            values = []
+            for _ in range(4):
+                value, pos = get_varint(self.data, pos)
+                values.append(value)
+            self.files[path] = tuple(values)
+
+    def lines(self, path):
+        """{line number: (status, missed branches, covered branches)} of an indexed source file."""
+        offset = self.files[path][0]
+        count, pos = get_varint(self.data, offset)
+        result = {}
+        number = 0
+        for _ in range(count):
+            delta, pos = get_varint(self.data, pos)
+            number += delta
+            status = self.data[pos]
+            mb, pos = get_varint(self.data, pos + 1)
+            cb, pos = get_varint(self.data, pos)
+            result[number] = (status, mb, cb)
+        return result
+
+
+def open_index(refresh_only=False):
+    sig = signature()
+    try:
+        index = Index(INDEX_FILE)
+        if index.header.get('signature') == sig:
+            return index, False
+    except (OSError, ValueError):
+        pass
+    if not sig:
+        sys.stderr.write('No jacoco.exec under extensions/*/target: run the tests with the JaCoCo agent first\n')
+        sys.exit(0 if refresh_only else 1)
+    reports, merged = xml_reports()
+    build_index(reports, sig, merged)
+    return Index(INDEX_FILE), True
+
+
+# --- queries --------------------------------------------------------------------
+def ranges(numbers):
+    out = []
+    for number in sorted(numbers):
+        if out and number == out[-1][1] + 1:
+            out[-1][1] = number
+        else:
+            out.append([number, number])
+    return ', '.join(str(a) if a == b else '%d-%d' % (a, b) for a, b in out)
+
+
+def changed_lines(base_ref):
+    """{source path: set of added or modified line numbers} for src/main/java files."""
+    diff = subprocess.run(['git', 'diff', '--unified=0', '--no-color', base_ref, '--', 'extensions'],
+                          capture_output=True, text=True, check=True).stdout
+    result = {}
+    current = None
+    for line in diff.splitlines():
+        if line.startswith('+++ '):
+            path = line[4:]
+            current = path[2:] if path.startswith('b/') and '/src/main/java/' in path else None
+            if current:
+                result.setdefault(current, set())
+        elif current and line.startswith('@@'):
+            match = re.match(r'@@ -\S+ \+(\d+)(?:,(\d+))? @@', line)
+            start, count = int(match.group(1)), int(match.group(2) or 1)
+            result[current].update(range(start, start + count))
+    untracked = subprocess.run(['git', 'ls-files', '--others', '--exclude-standard', '--', 'extensions'],
+                               capture_output=True, text=True, check=True).stdout.split()
+    for path in untracked:
+        if '/src/main/java/' in path and path.endswith('.java'):
+            with open(path, encoding='utf-8', errors='replace') as f:
+                result[path] = set(range(1, sum(1 for _ in f) + 1))
+    return result
+
+
+def changed(base_ref):
+    index, rebuilt = open_index()
+    exec_time = max(os.path.getmtime(os.path.join(m, 'target', 'jacoco.exec')) for m in module_dirs())
+    total_covered = total_lines = 0
+    print('%-70s %9s  %s' % ('FILE', 'COVERED', 'UNCOVERED CHANGED LINES'))
+    for path, numbers in sorted(changed_lines(base_ref).items()):
+        key = path.split('/src/main/java/', 1)[1]
+        stale = os.path.exists(path) and os.path.getmtime(path) > exec_time
+        if key not in index.files:
+            print('%-70s %9s  %s' % (key, '-', 'no coverage data (not loaded by any test%s)'
+                                     % (', edited after the last test run' if stale else '')))
+            continue
+        lines = index.lines(key)
+        executable = [n for n in numbers if n in lines]
+        if not executable:
+            continue
+        missed = [n for n in executable if lines[n][0] == NOT_COVERED]
+        partly = ['%d (%d/%d branches)' % (n, lines[n][2], lines[n][1] + lines[n][2])
+                  for n in sorted(executable) if lines[n][0] == PARTLY_COVERED]
+        total_lines += len(executable)
+        total_covered += len(executable) - len(missed)
+        detail = ranges(missed) or 'none'
+        if partly:
+            detail += '; partly: ' + ', '.join(partly)
+        if stale:
+            detail += '  [edited after the last test run]'
+        print('%-70s %4d/%-4d  %s' % (key, len(executable) - len(missed), len(executable), detail))
+    print('')
+    if not total_lines:
+        print('No executable changed line with coverage data since %s' % base_ref)
+        return 0
+    percent = 100.0 * total_covered / total_lines
+    print('Changed lines covered: %d/%d (%.1f%%), threshold %.0f%%%s' % (
+        total_covered, total_lines, percent, threshold,
+        '' if index.header.get('merged') else ' - per-module reports, cross-module tests not counted'))
+    return 0 if percent >= threshold else 1
+
+
+def source_key(index, name):
+    name = name.replace('\\', '/')
+    if '/src/main/java/' in name:
+        name = name.split('/src/main/java/', 1)[1]
+    candidates = [k for k in index.files if k == name or k[:-len('.java')].replace('/', '.') == name or
+                  k.rsplit('/', 1)[-1] in (name, name + '.java')]
+    return candidates[0] if candidates else None
+
+
+command = sys.argv[1]
+if command == 'changed':
+    base = sys.argv[2] if len(sys.argv) > 2 else (
+        subprocess.run(['git', 'merge-base', 'HEAD', 'origin/main'], capture_output=True, text=True).stdout.strip()
+        or 'HEAD')
+    sys.exit(changed(base))
+elif command == 'lines' and len(sys.argv) > 2:
+    idx, _ = open_index()
+    key = source_key(idx, sys.argv[2])
+    if not key:
+        sys.exit('%s is not in the coverage data' % sys.argv[2])
+    data = idx.lines(key)
+    print('%s: %d/%d lines covered' % (key, idx.files[key][2], idx.files[key][3]))
+    print('  missed: %s' % (ranges(n for n, v in data.items() if v[0] == NOT_COVERED) or 'none'))
+    print('  partly: %s' % (ranges(n for n, v in data.items() if v[0] == PARTLY_COVERED) or 'none'))
+elif command in ('refresh', 'summary'):
+    idx, rebuilt = open_index(refresh_only=True)
+    covered = sum(v[2] for v in idx.files.values())
+    lines_total = sum(v[3] for v in idx.files.values())
+    print('%d source files, %d/%d lines covered (%.1f%%), %s, index %s (%d bytes)' % (
+        len(idx.files), covered, lines_total, 100.0 * covered / lines_total if lines_total else 0,
+        'merged exec files' if idx.header.get('merged') else 'per-module reports',
+        'rebuilt' if rebuilt else 'up to date', len(idx.data)))
+else:
+    sys.exit('Usage: coverage-index.sh changed [BASE_REF] | lines <Class|path> | refresh | summary')
+PY
@@ -0,0 +1,178 @@
+#!/usr/bin/env bash
+# =============================================================================
+# property-budget.sh - Tries budget for the jqwik *PropertyTest suites
+#
+# Usage:
+#   ./property-budget.sh plan <plan-file>             # write "tries<TAB>class,class..." tiers
+#   ./property-budget.sh record <plan-file> <marker>  # read the Surefire reports newer than
+#                                                     # <marker>, update history, print report
+#
+# Environment:
+#   PROPERTY_TRIES    base tries per property (default: 1000, the jqwik default)
+#   PROPERTY_BUDGET   seconds for the whole property run (default: none)
+#   PROPERTY_TIERS    0 = every class at the base tries, no history tiers or budget
+#                     (the serial baseline for run-tests.sh --parallel property)
+#
+# Each *PropertyTest class gets a tries count from its history in
+# .claude/cache/property-history.json (last 20 runs):
+#   - failed in one of its last 5 runs  -> 4 x base, run first
+#   - 20 runs without a failure         -> base / 4
+#   - otherwise                         -> base
+# With a budget, every count is scaled down (never up) so the estimated time,
+# from each class's measured seconds per try, fits in PROPERTY_BUDGET. Classes
+# never measured count at the suite's median cost. Counts are bucketed into at
+# most 3 tiers, one Maven run each. @Property(tries = N) in the code wins over
+# the tier's jqwik.tries.default.
+#
+# Exit code: 0
+# =============================================================================
+
+set -euo pipefail
+
+if [ $# -lt 2 ]; then
+    echo "Usage: $0 plan <plan-file> | record <plan-file> <marker>"
+    exit 1
+fi
+
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+
+"$PYTHON_CMD" - "$@" <<'PY'
+import glob
+import json
+import os
+import re
+import sys
+import xml.etree.ElementTree as ET
+
+HISTORY_FILE = os.path.join('.claude', 'cache', 'property-history.json')
+KEEP_RUNS = 20
+HOT_RUNS = 5
+MIN_TRIES = 10
+PINNED_TRIES = re.compile(r'@Property\s*\([^)]*\btries\s*=')
+
+base_tries = int(os.environ.get('PROPERTY_TRIES') or 1000)
+budget = float(os.environ.get('PROPERTY_BUDGET') or 0)
+tiered = os.environ.get('PROPERTY_TIERS', '1') != '0'
+
+
+def load_history():
+    try:
+        with open(HISTORY_FILE, encoding='utf-8') as f:
+            return json.load(f)
+    except (OSError, ValueError):
+        return {}
+
+
+def property_classes():
+    """Return {fully qualified class: source path} of the *PropertyTest classes."""
+    classes = {}
+    for path in glob.glob('extensions/**/src/test/java/**/*PropertyTest.java', recursive=True):
+        path = path.replace(os.sep, '/')
+        if '/target/' not in path:
+            classes[re.sub(r'^.*/src/test/java/', '', path)[:-len('.java')].replace('/', '.')] = path
+    return classes
+
+
+def tier(entry):
+    runs = entry.get('runs', [])
+    if any(runs[-HOT_RUNS:]):
+        return 'hot', 4.0
+    if len(runs) >= KEEP_RUNS and not any(runs):
+        return 'stable', 0.25
+    return 'normal', 1.0
+
+
+def plan(plan_file):
+    history = load_history()
+    classes = property_classes()
+    wanted = {}
+    for name in classes:
+        label, factor = tier(history.get(name, {})) if tiered else ('normal', 1.0)
+        wanted[name] = (label, base_tries * factor)
+
+    costs = sorted(h['seconds'] / h['tries'] for h in history.values() if h.get('tries') and 'seconds' in h)
+    median = costs[len(costs) // 2] if costs else None
+    scale = 1.0
+    estimate = None
+    if median is not None:
+        estimate = 0.0
+        for name, (_, tries) in wanted.items():
+            entry = history.get(name, {})
+            per_try = entry['seconds'] / entry['tries'] if entry.get('tries') and 'seconds' in entry else median
+            estimate += per_try * tries
+        if tiered and budget and estimate > budget:
+            scale = budget / estimate
+
+    pinned = 0
+    for path in classes.values():
+        with open(path, encoding='utf-8', errors='replace') as f:
+            pinned += len(PINNED_TRIES.findall(f.read()))
+
+    tiers = {}
+    for name, (label, tries) in wanted.items():
+        tiers.setdefault((label, max(MIN_TRIES, int(tries * scale))), []).append(name)
+    order = {'hot': 0, 'normal': 1, 'stable': 2}
+    with open(plan_file, 'w', encoding='utf-8') as f:
+        for (label, tries), names in sorted(tiers.items(), key=lambda item: order[item[0][0]]):
+            f.write('%d\t%s\t%s\n' % (tries, label, ','.join(names)))
+            print('  %-7s %6d tries  %3d class(es)' % (label, tries, len(names)))
+    if estimate is not None:
+        print('  Estimated: %.0fs%s' % (estimate * scale, ' (budget %.0fs, tries x %.2f)' % (budget, scale)
+                                        if scale < 1 else ''))
+    elif tiered and budget:
+        print('  No timing history yet: the budget applies from the next run')
+    if pinned:
+        print('  %d @Property(tries = N) keep their own count: drop the attribute to let the tier decide' % pinned)
+
+
+def record(plan_file, marker):
+    planned = {}
+    with open(plan_file, encoding='utf-8') as f:
+        for line in f:
+            tries, label, names = line.rstrip('\n').split('\t')
+            for name in names.split(','):
+                planned[name] = (int(tries), label)
+    since = os.path.getmtime(marker)
+    history = load_history()
+    properties = []
+    for report in glob.glob('extensions/**/target/surefire-reports/TEST-*.xml', recursive=True):
+        if os.path.getmtime(report) < since:
+            continue
+        suite = ET.parse(report).getroot()
+        name = suite.get('name')
+        if name not in planned:
+            continue
+        tries, label = planned[name]
+        failed = int(suite.get('failures') or 0) + int(suite.get('errors') or 0) > 0
+        seconds = float((suite.get('time') or '0').replace(',', ''))
+        entry = history.setdefault(name, {})
+        entry['runs'] = (entry.get('runs', []) + [1 if failed else 0])[-KEEP_RUNS:]
+        entry['seconds'] = seconds
+        entry['tries'] = tries
+        for case in suite.iter('testcase'):
+            outcome = 'FAILED' if case.find('failure') is not None or case.find('error') is not None else \
+                'skipped' if case.find('skipped') is not None else ''
+            properties.append((float((case.get('time') or '0').replace(',', '')), name.rsplit('.', 1)[-1],
+                               case.get('name'), tries, label, outcome))
+    os.makedirs(os.path.dirname(HISTORY_FILE), exist_ok=True)
+    with open(HISTORY_FILE, 'w', encoding='utf-8') as f:
+        json.dump(history, f, indent=1, sort_keys=True)
+
+    total = sum(p[0] for p in properties)
+    print('%-40s %-40s %7s %-7s %8s' % ('CLASS', 'PROPERTY', 'TRIES', 'TIER', 'TIME'))
+    for seconds, owner, prop, tries, label, outcome in sorted(properties, reverse=True)[:20]:
+        print('%-40s %-40s %7d %-7s %7.2fs %s' % (owner[:40], (prop or '')[:40], tries, label, seconds, outcome))
+    if len(properties) > 20:
+        print('... %d more properties' % (len(properties) - 20))
+    print('')
+    print('%d properties in %d classes, %.1fs%s' % (len(properties), len({p[1] for p in properties}), total,
+                                                   ' (budget %.0fs)' % budget if tiered and budget else ''))
+
+
+if sys.argv[1] == 'plan':
+    plan(sys.argv[2])
+elif sys.argv[1] == 'record' and len(sys.argv) > 3:
+    record(sys.argv[2], sys.argv[3])
+else:
+    sys.exit('Usage: property-budget.sh plan <plan-file> | record <plan-file> <marker>')
+PY
@@ -3,7 +3,9 @@
 # run-tests.sh - Test runner for the process-builder project
 #
 # Usage:
-#   ./run-tests.sh [unit|integration|property|mutation|all] [ClassName]
+#   ./run-tests.sh [--parallel] [unit|integration|property|mutation|all] [ClassName]
+#   ./run-tests.sh changed [BASE_REF]
+#   ./run-tests.sh mutation-changed [BASE_REF]
 #
 # Examples:
 #   ./run-tests.sh                          # Run unit tests (default)
@@ -12,8 +14,25 @@
 #   ./run-tests.sh property                 # Run property-based tests
 #   ./run-tests.sh mutation                 # Run mutation tests (PIT)
 #   ./run-tests.sh all                      # Run unit + property tests
+#   ./run-tests.sh --parallel unit          # Run unit tests in parallel forks and threads
 #   ./run-tests.sh unit MyClassTest         # Run specific test class
+#   ./run-tests.sh changed                  # Run tests affected by uncommitted changes
+#   ./run-tests.sh changed origin/main      # Run tests affected by the branch
 #   ./run-tests.sh mutation MyClass         # Run mutation tests for class
+#   ./run-tests.sh mutation-changed         # PIT on classes changed since origin/main
+#   ./run-tests.sh mutation-changed v2.3.0  # PIT on classes changed since a tag
+#
+# Environment (--parallel, applies to full unit/property/all runs):
+#   TEST_FORKS         Surefire JVM forks (default: 2 with 4+ CPUs, else 1)
+#   TEST_THREADS       JUnit 5 threads per fork (default: CPUs / TEST_FORKS)
+#
+# Environment (property, full run; see property-budget.sh):
+#   PROPERTY_TRIES     base jqwik tries per property (default: 1000)
+#   PROPERTY_BUDGET    seconds for the whole property run (default: no limit)
+#
+# Environment (mutation-changed):
+#   MUTATION_JOBS      modules mutated in parallel (default: 2)
+#   MUTATION_THREADS   PIT threads per module (default: CPUs / MUTATION_JOBS)
 # =============================================================================
 
 set -euo pipefail
@@ -28,6 +47,16 @@ NC='\033[0m' # No Color
 # Configuration
 POM_FILE="extensions/pom.xml"
 REPORT_DIR="extensions/target"
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+PIT_HISTORY=".pit/history.bin"   # per module, relative to the module directory
+TIMINGS_FILE=".claude/cache/test-timings.tsv"
+PARALLEL=false
+# Test sources that must not share a JVM with concurrently running classes: static mocks,
+# JVM-wide settings, mutable static fields, and spied controllers (@Spy TestableController)
+SERIAL_PATTERN='mockStatic\(|MockedStatic<|System\.set(Property|Out|Err|In)\(|(Locale|TimeZone)\.setDefault\('
+STATIC_FIELD_PATTERN='^[[:space:]]*((private|protected|public)[[:space:]]+)?static[[:space:]]+[A-Za-z0-9_<>,.?[:space:]]+[[:space:]][a-z][A-Za-z0-9_]*[[:space:]]*(=|;)'
+SPIED_CONTROLLER_PATTERN='^[[:space:]]*((private|protected)[[:space:]]+)?Testable[A-Za-z0-9_]*[[:space:]]+[a-z]'
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
 
 # Find the project root (look for the extensions directory)
 find_project_root() {
@@ -76,16 +105,21 @@ print_result() {
 # Run unit tests
 run_unit_tests() {
     local class_name="${1:-}"
+    local exit_code=0
 
     if [[ -n "$class_name" ]]; then
         print_header "Running unit test: ${class_name}"
-        mvn test -f "$POM_FILE" -Dtest="$class_name" 2>&1
+        mvn test -f "$POM_FILE" -Dtest="$class_name" 2>&1 || exit_code=$?
+    elif [[ "$PARALLEL" == true ]]; then
+        run_parallel_tests unit
+        return $?
     else
         print_header "Running all unit tests"
-        mvn test -f "$POM_FILE" 2>&1
+        local started=$SECONDS
+        mvn test -f "$POM_FILE" 2>&1 || exit_code=$?
+        [[ $exit_code -eq 0 ]] && record_timing unit serial $(( SECONDS - started ))
     fi
 
-    local exit_code=$?
     print_result $exit_code "Unit"
 
     # Show test report location
@@ -98,6 +132,157 @@ run_unit_tests() {
     return $exit_code
 }
 
+# Append a wall-clock measurement: scope, mode, seconds
+record_timing() {
+    mkdir -p "$(dirname "$TIMINGS_FILE")"
+    printf '%s\t%s\t%s\t%s\n' "$1" "$2" "$3" "$(date +%Y-%m-%d)" >> "$TIMINGS_FILE"
+}
+
+# Test classes (fully qualified) that must run in the serial group
+find_serial_tests() {
+    local name_filter="$1"
+    local file
+    find extensions -path '*/src/test/java/*' -name "$name_filter" -not -path '*/target/*' 2>/dev/null \
+        | while read -r file; do
+            if grep -qE "$SERIAL_PATTERN" "$file" \
+                || grep -E "$STATIC_FIELD_PATTERN" "$file" | grep -qvE '[[:space:]]final[[:space:]]' \
+                || { grep -q '@Spy' "$file" && grep -qE "$SPIED_CONTROLLER_PATTERN" "$file"; }; then
+                echo "$file"
+            fi
+        done \
+        | sed -E 's#^.*/src/test/java/##; s#\.java$##; s#/#.#g' \
+        | grep -E '(Test|Tests|TestCase)$' | sort -u || true
+}
+
+# Sum of the test-class times in the Surefire reports, in seconds
+surefire_test_seconds() {
+    find extensions -path '*/target/surefire-reports/TEST-*.xml' -newer "$1" -print0 2>/dev/null \
+        | xargs -0 grep -h -m1 -o '<testsuite [^>]*' 2>/dev/null \
+        | grep -o ' time="[0-9.,]*"' | tr -d ' time=",' \
+        | awk '{ total += $1 } END { printf "%d", total }'
+}
+
+# Run unit or property tests with JUnit 5 parallel execution in several Surefire forks.
+# Classes matching SERIAL_PATTERN are excluded from that run and executed afterwards in
+# one fork, one class at a time.
+run_parallel_tests() {
+    local scope="$1"
+    local cpus forks threads name_filter
+    cpus=$(nproc 2>/dev/null || sysctl -n hw.ncpu 2>/dev/null || echo 2)
+    forks="${TEST_FORKS:-$(( cpus >= 4 ? 2 : 1 ))}"
+    threads="${TEST_THREADS:-$(( cpus / forks > 0 ? cpus / forks : 1 ))}"
+    name_filter='*.java'
+    [[ "$scope" == property ]] && name_filter='*PropertyTest.java'
+
+    print_header "Running all ${scope} tests in parallel (${forks} fork(s) x ${threads} thread(s), ${cpus} CPUs)"
+
+    local list_dir="${PWD}/${REPORT_DIR}/parallel-tests"
+    mkdir -p "$list_dir"
+    local serial_tests
+    serial_tests=$(find_serial_tests "$name_filter")
+    # Surefire resolves these files per module, hence absolute paths
+    echo "$serial_tests" | sed '/^$/d; s#\.#/#g; s#$#.java#' > "${list_dir}/serial.txt"
+    echo "**/*PropertyTest.java" > "${list_dir}/property.txt"
+
+    # Property runs are timed per tries count: the baseline is a serial run at the same tries
+    local selection=() timing_scope="$scope"
+    if [[ "$scope" == property ]]; then
+        timing_scope="property:${PROPERTY_TRIES:-1000}"
+        selection+=(-Dsurefire.includesFile="${list_dir}/property.txt" -Djqwik.tries.default="${PROPERTY_TRIES:-1000}")
+    fi
+    if [[ -n "$serial_tests" ]]; then
+        echo -e "${YELLOW}Serial group ($(echo "$serial_tests" | wc -l | tr -d ' ') classes: spied controllers, static mocks or static state):${NC}"
+        echo "$serial_tests" | sed 's/^/  /'
+        echo ""
+    fi
+
+    local marker="${list_dir}/started"
+    touch "$marker"
+    local started=$SECONDS
+    local exit_code=0
+    mvn test -f "$POM_FILE" \
+        ${selection[@]+"${selection[@]}"} \
+        -Dsurefire.excludesFile="${list_dir}/serial.txt" \
+        -DforkCount="$forks" \
+        -DreuseForks=true \
+        -Djunit.jupiter.execution.parallel.enabled=true \
+        -Djunit.jupiter.execution.parallel.mode.default=same_thread \
+        -Djunit.jupiter.execution.parallel.mode.classes.default=concurrent \
+        -Djunit.jupiter.execution.parallel.config.strategy=fixed \
+        -Djunit.jupiter.execution.parallel.config.fixed.parallelism="$threads" 2>&1 || exit_code=$?
+
+    if [[ -n "$serial_tests" ]]; then
+        echo -e "${BLUE}--- Serial group ---${NC}"
+        mvn test -f "$POM_FILE" \
+            -Dtest="$(echo "$serial_tests" | paste -sd, -)" \
+            -Dsurefire.failIfNoSpecifiedTests=false \
+            -DforkCount=1 \
+            -Djunit.jupiter.execution.parallel.enabled=false 2>&1 || exit_code=$?
+    fi
+    local elapsed=$(( SECONDS - started ))
+
+    print_result $exit_code "Parallel ${scope}"
+    [[ $exit_code -eq 0 ]] && record_timing "$timing_scope" parallel "$elapsed"
+
+    # Speedup versus the last serial run of the same scope, and versus the summed class times
+    local baseline summed
+    baseline=$(awk -F'\t' -v scope="$timing_scope" '$1 == scope && $2 == "serial" { line = $3 "\t" $4 } END { print line }' \
+        "$TIMINGS_FILE" 2>/dev/null || true)
+    summed=$(surefire_test_seconds "$marker" || true)
+    echo -e "${BLUE}Wall clock: ${elapsed}s${NC}"
+    if [[ -n "$baseline" && $elapsed -gt 0 ]]; then
+        awk -v serial="${baseline%%$'\t'*}" -v parallel="$elapsed" -v day="${baseline#*$'\t'}" \
+            'BEGIN { printf "  vs serial run of %s: %ds -> %.2fx speedup\n", day, serial, serial / parallel }'
+    elif [[ "$scope" == property ]]; then
+        echo "  No serial baseline at ${PROPERTY_TRIES:-1000} tries yet: run 'PROPERTY_TIERS=0 $0 property' once to record one"
+    else
+        echo "  No serial baseline yet: run '$0 ${scope}' once to record one"
+    fi
+    if [[ ${summed:-0} -gt 0 && $elapsed -gt 0 ]]; then
+        awk -v summed="$summed" -v parallel="$elapsed" \
+            'BEGIN { printf "  test classes ran %ds in total -> %.1fx effective parallelism\n", summed, summed / parallel }'
+    fi
+
+    return $exit_code
+}
+
+# Run only the unit tests affected by the changes since a base ref (test-impact.sh)
+run_changed_tests() {
+    local base_ref="${1:-HEAD}"
+
+    print_header "Running tests affected by changes since ${base_ref}"
+
+    local selection
+    if ! selection=$(bash "${SCRIPT_DIR}/test-impact.sh" select "$base_ref"); then
+        echo -e "${YELLOW}No test impact map available: running all unit tests${NC}"
+        run_unit_tests
+        return $?
+    fi
+    if [[ "$selection" == $'*\t*' ]]; then
+        run_unit_tests
+        return $?
+    fi
+    if [[ -z "$selection" ]]; then
+        echo -e "${GREEN}No test affected by the changes since ${base_ref}${NC}"
+        return 0
+    fi
+
+    local modules tests
+    modules=$(echo "$selection" | cut -f1 | sort -u | paste -sd, -)
+    tests=$(echo "$selection" | cut -f2 | paste -sd, -)
+    echo "$selection" | cut -f2 | sed 's/^/  /'
+    echo ""
+
+    # -am builds the modules the selection depends on; -Dtest keeps their tests from running
+    local exit_code=0
+    mvn test -f "$POM_FILE" -pl "$modules" -am \
+        -Dtest="$tests" \
+        -Dsurefire.failIfNoSpecifiedTests=false 2>&1 || exit_code=$?
+
+    print_result $exit_code "Affected"
+    return $exit_code
+}
+
 # Run integration tests
 run_integration_tests() {
     local class_name="${1:-}"
@@ -128,9 +313,12 @@ run_property_tests() {
     if [[ -n "$class_name" ]]; then
         print_header "Running property test: ${class_name}"
         mvn test -f "$POM_FILE" -Dtest="$class_name" 2>&1
+    elif [[ "$PARALLEL" == true ]]; then
+        run_parallel_tests property
+        return $?
     else
-        print_header "Running all property-based tests (*PropertyTest)"
-        mvn test -f "$POM_FILE" -Dtest="*PropertyTest" 2>&1
+        run_budgeted_property_tests
+        return $?
     fi
 
     local exit_code=$?
@@ -138,6 +326,49 @@ run_property_tests() {
     return $exit_code
 }
 
+# Run all *PropertyTest classes in tries tiers planned by property-budget.sh: classes that
+# failed recently first and with more tries, long-stable classes with fewer, everything
+# scaled to PROPERTY_BUDGET. jqwik replays stored failures and their shrunk samples first.
+run_budgeted_property_tests() {
+    print_header "Running all property-based tests (*PropertyTest) within the tries budget"
+
+    local work_dir="${REPORT_DIR}/property-budget"
+    mkdir -p "$work_dir"
+    bash "${SCRIPT_DIR}/property-budget.sh" plan "${work_dir}/plan.tsv"
+    echo ""
+    if [[ ! -s "${work_dir}/plan.tsv" ]]; then
+        echo -e "${YELLOW}No *PropertyTest class found${NC}"
+        return 0
+    fi
+
+    touch "${work_dir}/started"
+    local started=$SECONDS
+    local exit_code=0
+    local tries label classes
+    while IFS=$'\t' read -r tries label classes; do
+        echo -e "${BLUE}--- ${label}: ${tries} tries ---${NC}"
+        mvn test -f "$POM_FILE" \
+            -Dtest="$classes" \
+            -Dsurefire.failIfNoSpecifiedTests=false \
+            -Djqwik.tries.default="$tries" \
+            -Djqwik.failures.runfirst=true \
+            -Djqwik.failures.after.default=SAMPLE_FIRST 2>&1 < /dev/null || exit_code=$?
+    done < "${work_dir}/plan.tsv"
+    # Only a plan with every class at the base tries does the same work as --parallel property
+    local elapsed=$(( SECONDS - started ))
+    if [[ $exit_code -eq 0 ]]; then
+        if [[ $(wc -l < "${work_dir}/plan.tsv") -eq 1 && $(cut -f1 "${work_dir}/plan.tsv") -eq ${PROPERTY_TRIES:-1000} ]]; then
+            record_timing "property:${PROPERTY_TRIES:-1000}" serial "$elapsed"
+        else
+            record_timing property budgeted "$elapsed"
+        fi
+    fi
+
+    print_result $exit_code "Property"
+    bash "${SCRIPT_DIR}/property-budget.sh" record "${work_dir}/plan.tsv" "${work_dir}/started"
+    return $exit_code
+}
+
 # Run mutation tests (PIT)
 run_mutation_tests() {
     local class_name="${1:-}"
@@ -165,6 +396,146 @@ run_mutation_tests() {
     return $exit_code
 }
 
+# Production classes touched since a base ref, as "module<TAB>fully.qualified.Class" lines.
+# A changed test selects the class it tests (MyClassTest, MyClassPropertyTest, MyClassIT -> MyClass).
+changed_classes() {
+    local base_ref="$1"
+    local file module class_path class
+
+    {
+        git diff --name-only "$base_ref" -- 'extensions/*.java'
+        git ls-files --others --exclude-standard -- 'extensions/*.java'
+    } | sort -u | while read -r file; do
+        case "$file" in
+            */src/main/java/*) ;;
+            */src/test/java/*)
+                file="${file/\/src\/test\/java\//\/src\/main\/java\/}"
+                file=$(echo "$file" | sed -E 's/(PropertyTest|Test|IT)\.java$/.java/')
+                ;;
+            *) continue ;;
+        esac
+        [[ -f "$file" ]] || continue
+        module="${file%%/src/main/java/*}"
+        class_path="${file#*/src/main/java/}"
+        class="${class_path%.java}"
+        printf '%s\t%s\n' "${module#extensions/}" "${class//\//.}"
+    done | sort -u
+}
+
+# Merge the per-module mutations.xml files into one summary
+summarize_mutations() {
+    local summary_file="$1"
+    shift
+
+    "$PYTHON_CMD" - "$summary_file" "$@" <<'PY'
+import os
+import sys
+import xml.etree.ElementTree as ET
+from collections import Counter
+
+summary_file, modules = sys.argv[1], sys.argv[2:]
+lines = ['%-40s %7s %7s %9s %8s %7s' % ('MODULE', 'KILLED', 'SURVIVED', 'NO_COVER', 'TIMEOUT', 'SCORE')]
+survivors = []
+total = Counter()
+for module in modules:
+    report = os.path.join('extensions', module, 'target', 'pit-reports', 'mutations.xml')
+    if not os.path.isfile(report):
+        lines.append('%-40s %s' % (module, 'no report (build or PIT failed, see log)'))
+        continue
+    counts = Counter()
+    for mutation in ET.parse(report).getroot().iter('mutation'):
+        status = mutation.get('status')
+        counts[status] += 1
+        if status in ('SURVIVED', 'NO_COVERAGE'):
+            survivors.append('  %s:%s %s [%s] %s' % (
+                mutation.findtext('mutatedClass'), mutation.findtext('lineNumber'),
+                mutation.findtext('mutatedMethod'), status,
+                (mutation.findtext('description') or mutation.findtext('mutator') or '').strip()))
+    total.update(counts)
+    killed = counts['KILLED'] + counts['TIMED_OUT'] + counts['MEMORY_ERROR']
+    detected_or_not = killed + counts['SURVIVED'] + counts['NO_COVERAGE']
+    lines.append('%-40s %7d %7d %9d %8d %6s' % (
+        module, counts['KILLED'], counts['SURVIVED'], counts['NO_COVERAGE'], counts['TIMED_OUT'],
+        '%d%%' % (100 * killed // detected_or_not) if detected_or_not else '-'))
+
+killed = total['KILLED'] + total['TIMED_OUT'] + total['MEMORY_ERROR']
+detected_or_not = killed + total['SURVIVED'] + total['NO_COVERAGE']
+lines.append('%-40s %7d %7d %9d %8d %6s' % (
+    'TOTAL', total['KILLED'], total['SURVIVED'], total['NO_COVERAGE'], total['TIMED_OUT'],
+    '%d%%' % (100 * killed // detected_or_not) if detected_or_not else '-'))
+if survivors:
+    lines += ['', 'Surviving mutants (%d):' % len(survivors)] + sorted(survivors)
+
+os.makedirs(os.path.dirname(summary_file), exist_ok=True)
+with open(summary_file, 'w', encoding='utf-8') as f:
+    f.write('\n'.join(lines) + '\n')
+print('\n'.join(lines))
+PY
+}
+
+# Run mutation tests (PIT) on the classes changed since a base ref only, reusing
+# each module's PIT history so unchanged mutants are not re-analysed
+run_mutation_changed_tests() {
+    local base_ref="${1:-}"
+    local jobs="${MUTATION_JOBS:-2}"
+    local cpus threads
+
+    if [[ -z "$base_ref" ]]; then
+        base_ref=$(git merge-base HEAD origin/main 2>/dev/null || git merge-base HEAD main 2>/dev/null || echo HEAD)
+    fi
+    cpus=$(nproc 2>/dev/null || sysctl -n hw.ncpu 2>/dev/null || echo 4)
+    threads="${MUTATION_THREADS:-$(( cpus / jobs > 0 ? cpus / jobs : 1 ))}"
+
+    print_header "Running mutation tests on classes changed since ${base_ref}"
+
+    local changes
+    changes=$(changed_classes "$base_ref")
+    if [[ -z "$changes" ]]; then
+        echo -e "${GREEN}No production class changed since ${base_ref}: nothing to mutate${NC}"
+        return 0
+    fi
+
+    local modules
+    modules=$(echo "$changes" | cut -f1 | sort -u | paste -sd, -)
+    # One reactor build: Maven orders the modules and runs up to $jobs at once. -am builds
+    # the unchanged modules they depend on instead of resolving them from ~/.m2; PIT only
+    # mutates a module's own classes, so those (and the other modules' targets) add none.
+    local targets
+    targets=$(echo "$changes" | cut -f2 | paste -sd, -)
+    echo -e "${YELLOW}Modules: ${modules//,/, } (${jobs} in parallel, ${threads} PIT threads each)${NC}"
+    echo "$changes" | cut -f2 | sed 's/^/  /'
+    echo ""
+
+    # A module left without mutations must not report the previous run's results
+    local module
+    for module in ${modules//,/ }; do
+        rm -f "extensions/${module}/target/pit-reports/mutations.xml"
+    done
+
+    local exit_code=0
+    mvn test-compile org.pitest:pitest-maven:mutationCoverage \
+        -f "$POM_FILE" \
+        -pl "$modules" -am \
+        -T "$jobs" \
+        -DtargetClasses="$targets" \
+        -Dthreads="$threads" \
+        -DhistoryInputFile="$PIT_HISTORY" \
+        -DhistoryOutputFile="$PIT_HISTORY" \
+        -DtimestampedReports=false \
+        -DoutputFormats=XML,HTML \
+        -DfailWhenNoMutations=false 2>&1 || exit_code=$?
+
+    print_result $exit_code "Mutation"
+
+    echo -e "${BLUE}--- Merged PIT summary ---${NC}"
+    # shellcheck disable=SC2086
+    summarize_mutations "${REPORT_DIR}/pit-summary.txt" ${modules//,/ } || true
+    echo ""
+    echo -e "${YELLOW}Summary: ${REPORT_DIR}/pit-summary.txt, history: extensions/<module>/${PIT_HISTORY}${NC}"
+
+    return $exit_code
+}
+
 # Run all tests (unit + property)
 run_all_tests() {
     local exit_code=0
@@ -189,24 +560,38 @@ run_all_tests() {
 
 # Show usage
 show_usage() {
-    echo "Usage: $0 [unit|integration|property|mutation|all] [ClassName]"
+    echo "Usage: $0 [--parallel] [unit|integration|property|mutation|all] [ClassName]"
+    echo "       $0 changed|mutation-changed [BASE_REF]"
     echo ""
     echo "Test types:"
     echo "  unit         Run unit tests (default)"
     echo "  integration  Run integration tests"
-    echo "  property     Run property-based tests (*PropertyTest)"
+    echo "  property     Run property-based tests (*PropertyTest); a full run plans jqwik tries per class"
+    echo "               from failure history and PROPERTY_TRIES / PROPERTY_BUDGET, replays stored failures"
+    echo "               first and reports the time spent per property"
     echo "  mutation     Run mutation tests (PIT)"
+    echo "  mutation-changed"
+    echo "               PIT on classes changed since BASE_REF (default: merge-base with origin/main),"
+    echo "               with per-module history; MUTATION_JOBS / MUTATION_THREADS set the parallelism"
     echo "  all          Run unit + property tests"
+    echo "  changed      Run the unit tests affected by changes since BASE_REF (default: HEAD),"
+    echo "               from a bytecode dependency map in ${REPORT_DIR}/test-impact.json"
     echo ""
     echo "Options:"
     echo "  ClassName    Run tests for a specific class only"
+    echo "  --parallel   Full unit/property/all runs: Surefire forks + JUnit 5 class-level parallelism"
+    echo "               (TEST_FORKS, TEST_THREADS); spied controllers, static mocks and static state"
+    echo "               run afterwards in a serial group. Reports the speedup vs the last serial run"
+    echo "               (property: a PROPERTY_TIERS=0 run at the same PROPERTY_TRIES)"
     echo ""
     echo "Examples:"
     echo "  $0                                  # Run unit tests"
     echo "  $0 unit MyEntityTest                # Run specific unit test"
     echo "  $0 property PBCategoryDTOPropertyTest  # Run specific property test"
     echo "  $0 mutation MyEntity                # Run PIT for specific class"
+    echo "  $0 mutation-changed origin/develop  # Run PIT for classes changed since a branch"
     echo "  $0 all                              # Run unit + property tests"
+    echo "  $0 changed                          # Run tests affected by uncommitted changes"
 }
 
 # =============================================================================
@@ -214,8 +599,17 @@ show_usage() {
 # =============================================================================
 
 main() {
-    local test_type="${1:-unit}"
-    local class_name="${2:-}"
+    local args=()
+    local arg
+    for arg in "$@"; do
+        if [[ "$arg" == "--parallel" ]]; then
+            PARALLEL=true
+        else
+            args+=("$arg")
+        fi
+    done
+    local test_type="${args[0]:-unit}"
+    local class_name="${args[1]:-}"
 
     # Find project root
     local project_root
@@ -256,9 +650,15 @@ main() {
         mutation)
             run_mutation_tests "$class_name"
             ;;
+        mutation-changed)
+            run_mutation_changed_tests "$class_name"
+            ;;
         all)
             run_all_tests
             ;;
+        changed)
+            run_changed_tests "$class_name"
+            ;;
         -h|--help|help)
             show_usage
             exit 0
@@ -0,0 +1,239 @@
+#!/usr/bin/env bash
+# =============================================================================
+# test-impact.sh - Test impact analysis for the process-builder project
+#
+# Usage:
+#   ./test-impact.sh select [BASE_REF]   # tests affected by changes since BASE_REF (default: HEAD)
+#   ./test-impact.sh deps <TestClass>    # classes a test depends on (debugging)
+#   ./test-impact.sh refresh             # update the map only
+#
+# The map is built from bytecode: every class file under extensions/**/target/
+# classes and test-classes is read for the classes it references (constant pool
+# and type descriptors). A test is affected when a changed source file is
+# reachable from it through these references. Only the class files whose size
+# or mtime changed since the previous run are re-read; the map is persisted in
+# extensions/target/test-impact.json.
+#
+# Changes the bytecode cannot attribute to classes run a whole module: the
+# module's pom.xml and src/*/resources. A change to extensions/pom.xml runs
+# everything. Compile-time constants (static final primitives and Strings) are
+# inlined by javac, so a changed constant does not select the tests reading it.
+#
+# Output of select (stdout): one "module<TAB>test.Class" line per test, or a
+# single "*<TAB>*" line when every test must run. Summary on stderr.
+# Exit code: 0, or 1 when the project has not been compiled yet
+# =============================================================================
+
+set -euo pipefail
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 select [BASE_REF] | deps <TestClass> | refresh"
+    exit 1
+fi
+
+PYTHON_CMD="${PYTHON_CMD:-$(command -v python3 2>/dev/null || command -v python 2>/dev/null || echo "python3")}"
+
+"$PYTHON_CMD" - "$@" <<'PY'
+import json
+import os
+import re
+import struct
+import subprocess
+import sys
+from collections import defaultdict, deque
+
+MAP_FILE = os.path.join('extensions', 'target', 'test-impact.json')
+MAP_VERSION = 1
+SOURCE = re.compile(r'^(extensions/.+?)/src/(main|test)/(?:java|groovy|kotlin)/(.+)\.(?:java|groovy|kt)$')
+MODULE_WIDE = re.compile(r'^(extensions/.+?)/(?:pom\.xml$|src/(?:main|test)/resources/)')
+# Surefire's default includes; other test-classes are fixtures, or ITs run by Failsafe
+TEST_NAME = re.compile(r'^(Test\w*|\w*Test|\w*Tests|\w*TestCase)$')
+DESCRIPTOR_CLASS = re.compile(r'L([\w/$]+);')
+# Entry sizes of the fixed-length constant pool tags (tag byte included)
+CONSTANT_SIZE = {3: 5, 4: 5, 5: 9, 6: 9, 7: 3, 8: 3, 9: 5, 10: 5, 11: 5, 12: 5, 15: 4, 16: 3, 17: 5, 18: 5,
+                 19: 3, 20: 3}
+
+
+def top_level(name):
+    return name.replace('/', '.').split('$', 1)[0]
+
+
+def class_references(path):
+    """Return (top-level class, referenced top-level classes) of a class file."""
+    with open(path, 'rb') as f:
+        data = f.read()
+    if data[:4] != b'\xca\xfe\xba\xbe':
+        return None, []
+    count = struct.unpack('>H', data[8:10])[0]
+    utf8 = {}
+    class_name_index = {}
+    pos, index = 10, 1
+    while index < count:
+        tag = data[pos]
+        if tag == 1:
+            length = struct.unpack('>H', data[pos + 1:pos + 3])[0]
+            utf8[index] = data[pos + 3:pos + 3 + length].decode('utf-8', 'replace')
+            pos += 3 + length
+        elif tag in CONSTANT_SIZE:
+            if tag == 7:
+                class_name_index[index] = struct.unpack('>H', data[pos + 1:pos + 3])[0]
+            pos += CONSTANT_SIZE[tag]
+            index += tag in (5, 6)  # long and double take two slots
+        else:
+            return None, []
+        index += 1
+    this_index = struct.unpack('>H', data[pos + 2:pos + 4])[0]
+    this = top_level(utf8.get(class_name_index.get(this_index), ''))
+    names = set()
+    for name_index in class_name_index.values():
+        name = utf8.get(name_index, '')
+        names.update(DESCRIPTOR_CLASS.findall(name) if name.startswith('[') else [name])
+    for value in utf8.values():
+        if ';' in value:  # field, method and generic signatures, annotation types
+            names.update(DESCRIPTOR_CLASS.findall(value))
+    return this, sorted({top_level(n) for n in names if n} - {this, ''})
+
+
+def class_dirs():
+    """Yield (module, kind, directory) for every compiled module under extensions/."""
+    for root, dirs, _ in os.walk('extensions'):
+        if os.path.basename(root) == 'target':
+            for kind in ('classes', 'test-classes'):
+                if kind in dirs:
+                    yield os.path.dirname(root).replace(os.sep, '/'), kind, os.path.join(root, kind)
+            dirs[:] = []
+            continue
+        dirs[:] = [d for d in dirs if d not in ('src', 'node_modules', '.git', '.pit')]
+
+
+def refresh():
+    """Update the persisted map from the class files; return (classes, reparsed count)."""
+    try:
+        with open(MAP_FILE, encoding='utf-8') as f:
+            stored = json.load(f)
+        files = stored['files'] if stored.get('version') == MAP_VERSION else {}
+    except (OSError, ValueError, KeyError):
+        files = {}
+    current = {}
+    reparsed = 0
+    for module, kind, directory in class_dirs():
+        for root, _, names in os.walk(directory):
+            for name in names:
+                if not name.endswith('.class') or name in ('module-info.class', 'package-info.class'):
+                    continue
+                path = os.path.join(root, name).replace(os.sep, '/')
+                st = os.stat(path)
+                entry = files.get(path)
+                if not entry or entry[0] != st.st_size or entry[1] != st.st_mtime_ns:
+                    this, refs = class_references(path)
+                    entry = [st.st_size, st.st_mtime_ns, module, kind, this, refs]
+                    reparsed += 1
+                if entry[4]:
+                    current[path] = entry
+    os.makedirs(os.path.dirname(MAP_FILE), exist_ok=True)
+    with open(MAP_FILE + '.tmp', 'w', encoding='utf-8') as f:
+        json.dump({'version': MAP_VERSION, 'files': current}, f, separators=(',', ':'))
+    os.replace(MAP_FILE + '.tmp', MAP_FILE)
+
+    classes = {}  # top-level class -> (module, kind, set of references)
+    for _, _, module, kind, this, refs in current.values():
+        known = classes.setdefault(this, (module, kind, set()))
+        known[2].update(refs)
+    for this, (_, _, refs) in classes.items():
+        refs.intersection_update(classes)  # JDK and library classes are not tracked
+    return classes, reparsed
+
+
+def changed_files(base_ref):
+    diff = subprocess.run(['git', 'diff', '--name-only', base_ref, '--', 'extensions'],
+                          capture_output=True, text=True, check=True).stdout.split()
+    untracked = subprocess.run(['git', 'ls-files', '--others', '--exclude-standard', '--', 'extensions'],
+                               capture_output=True, text=True, check=True).stdout.split()
+    return sorted(set(diff + untracked))
+
+
+def is_test(name, kind='test-classes'):
+    return kind == 'test-classes' and bool(TEST_NAME.match(name.rsplit('.', 1)[-1]))
+
+
+def select(base_ref):
+    classes, reparsed = refresh()
+    if not classes:
+        sys.stderr.write('No compiled classes under extensions/*/target: run the tests once, then retry\n')
+        return 1
+    files = changed_files(base_ref)
+    if 'extensions/pom.xml' in files:
+        sys.stderr.write('extensions/pom.xml changed: every test is affected\n')
+        print('*\t*')
+        return 0
+
+    changed = set()
+    new_tests = {}     # test sources not compiled yet
+    whole_modules = set()
+    for path in files:
+        source = SOURCE.match(path)
+        if source:
+            name = source.group(3).replace('/', '.')
+            changed.add(name)
+            if source.group(2) == 'test' and name not in classes and is_test(name) and os.path.exists(path):
+                new_tests[name] = source.group(1)
+            continue
+        module_wide = MODULE_WIDE.match(path)
+        if module_wide:
+            whole_modules.add(module_wide.group(1))
+
+    dependents = defaultdict(set)
+    for name, (_, _, refs) in classes.items():
+        for ref in refs:
+            dependents[ref].add(name)
+    affected = set(c for c in changed if c in classes)
+    queue = deque(affected)
+    while queue:
+        for dependent in dependents[queue.popleft()] - affected:
+            affected.add(dependent)
+            queue.append(dependent)
+
+    selected = {name: classes[name][0] for name in affected if is_test(name, classes[name][1])}
+    selected.update(new_tests)
+    for name, (module, kind, _) in classes.items():
+        if module in whole_modules and is_test(name, kind):
+            selected[name] = module
+    for name in sorted(selected, key=lambda n: (selected[n], n)):
+        print('%s\t%s' % (selected[name][len('extensions/'):], name))
+
+    sys.stderr.write('%d changed file(s) since %s -> %d affected class(es) -> %d test class(es)%s '
+                     '(map: %d classes, %d class files re-read)\n'
+                     % (len(files), base_ref, len(affected), len(selected),
+                        ', whole module: ' + ', '.join(sorted(m[len('extensions/'):] for m in whole_modules))
+                        if whole_modules else '', len(classes), reparsed))
+    return 0
+
+
+def deps(test_class):
+    classes, _ = refresh()
+    matches = [name for name in classes if name == test_class or name.endswith('.' + test_class)]
+    if not matches:
+        sys.stderr.write('%s not found in the compiled classes\n' % test_class)
+        return 1
+    seen = {matches[0]}
+    queue = deque(seen)
+    while queue:
+        for ref in classes[queue.popleft()][2] - seen:
+            seen.add(ref)
+            queue.append(ref)
+    for name in sorted(seen - {matches[0]}):
+        print('%s\t%s' % (classes[name][0][len('extensions/'):], name))
+    return 0
+
+
+command = sys.argv[1]
+if command == 'select':
+    sys.exit(select(sys.argv[2] if len(sys.argv) > 2 else 'HEAD'))
+elif command == 'deps' and len(sys.argv) > 2:
+    sys.exit(deps(sys.argv[2]))
+elif command == 'refresh':
+    found, count = refresh()
+    print('%d classes in the map, %d class files re-read' % (len(found), count))
+else:
+    sys.exit('Usage: test-impact.sh select [BASE_REF] | deps <TestClass> | refresh')
+PY